@@ -0,0 +1,80 @@
+package edu.cornell.cis3152.physics;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes one thread allocates on the heap.
+ *
+ * This reads the per-thread allocation counter of the HotSpot thread bean.
+ * Reading the counter allocates a little itself on some JDKs, so the meter
+ * measures that once and subtracts it, leaving only the allocations of the
+ * code between {@link #begin} and {@link #end}. Where the counter does not
+ * exist (a native image, or another JVM), the meter measures nothing.
+ *
+ * A meter measures the thread that created it.
+ */
+public class AllocationMeter {
+    /** Times the counter is read to find its own cost */
+    private static final int CALIBRATION_RUNS = 16;
+
+    /** The HotSpot thread bean (null if unsupported) */
+    private final com.sun.management.ThreadMXBean threads;
+    /** The measured thread */
+    private final long threadId;
+    /** Bytes one begin/end pair allocates by itself */
+    private long overhead;
+    /** The counter at the last begin */
+    private long start;
+
+    /** Creates a meter for the current thread */
+    public AllocationMeter() {
+        com.sun.management.ThreadMXBean bean = null;
+        try {
+            java.lang.management.ThreadMXBean platform = ManagementFactory.getThreadMXBean();
+            if (platform instanceof com.sun.management.ThreadMXBean) {
+                bean = (com.sun.management.ThreadMXBean) platform;
+                if (bean.isThreadAllocatedMemorySupported()) {
+                    bean.setThreadAllocatedMemoryEnabled(true);
+                } else {
+                    bean = null;
+                }
+            }
+        } catch (Throwable e) {
+            // No management support (native image)
+            bean = null;
+        }
+        threads = bean;
+        threadId = Thread.currentThread().getId();
+        if (threads != null) {
+            overhead = Long.MAX_VALUE;
+            for (int i = 0; i < CALIBRATION_RUNS; i++) {
+                long before = threads.getThreadAllocatedBytes(threadId);
+                long after = threads.getThreadAllocatedBytes(threadId);
+                overhead = Math.min(overhead, after - before);
+            }
+        }
+    }
+
+    /** Returns true if this meter can measure allocations */
+    public boolean isSupported() {
+        return threads != null;
+    }
+
+    /** Starts a measurement */
+    public void begin() {
+        if (threads != null) {
+            start = threads.getThreadAllocatedBytes(threadId);
+        }
+    }
+
+    /**
+     * Returns the bytes allocated since {@link #begin}, or -1 if unsupported
+     */
+    public long end() {
+        if (threads == null) {
+            return -1;
+        }
+        long bytes = threads.getThreadAllocatedBytes(threadId) - start - overhead;
+        return Math.max(bytes, 0);
+    }
+}
@@ -40,6 +40,7 @@ public class AudioManager implements Disposable {
      * Private constructor to enforce singleton pattern.
      */
     private AudioManager() {
+        loadSettings();
     }
 
     /**
@@ -195,15 +196,23 @@ public class AudioManager implements Disposable {
 
     /**
      * Saves the current volume settings.
-     * In a real implementation, this would save to preferences.
+     *
+     * The save is written in the background (see {@link SaveService}).
      */
     public void saveSettings() {
+        SaveService saves = SaveService.getInstance();
+        saves.setVolumes(masterVolume, musicVolume, sfxVolume);
+        saves.requestSave();
     }
 
     /**
      * Loads saved volume settings.
-     * In a real implementation, this would load from preferences.
      */
     public void loadSettings() {
+        SaveService saves = SaveService.getInstance();
+        masterVolume = saves.getMasterVolume();
+        musicVolume = saves.getMusicVolume();
+        sfxVolume = saves.getSfxVolume();
+        updateMusicVolume();
     }
 }
@@ -0,0 +1,161 @@
+package edu.cornell.cis3152.physics;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+
+/**
+ * A texture loader that prefers the compressed version of an image.
+ *
+ * If the build made a .zktx for an image (see {@link TextureCompressor}) and
+ * the driver supports S3TC, the compressed texture is uploaded as is.
+ * Otherwise the image is decoded as usual. Asset keys and file names in the
+ * asset directories stay the same either way.
+ *
+ * An AssetManager loads one asset at a time, so it decodes images one after
+ * the other. Images passed to {@link #decodeAhead} are instead decoded on a
+ * pool of worker threads as soon as they are known, and the AssetManager
+ * picks up the finished pixmap. Only the upload is left for the GL thread,
+ * where the AssetManager already spends a bounded slice each frame. The pool
+ * is started by the first {@link #decodeAhead}, so a loader that never
+ * decodes ahead runs no threads.
+ *
+ * Create this on the GL thread, since it asks the driver for its extensions.
+ */
+public class CompressedTextureLoader extends TextureLoader {
+    /** The extension the compressor writes */
+    private static final String EXTENSION = ".zktx";
+
+    /** Whether the driver can upload DXT5 textures */
+    private final boolean supported;
+    /** Decodes images ahead of the asset manager (null until the first decodeAhead) */
+    private AsyncExecutor decoders;
+    /** Whether the worker threads were stopped for good */
+    private boolean disposed;
+    /** Images being decoded ahead, by file path */
+    private final ObjectMap<String, AsyncResult<Pixmap>> decoding;
+
+    public CompressedTextureLoader(FileHandleResolver resolver) {
+        super(resolver);
+        supported = Gdx.graphics.supportsExtension("GL_EXT_texture_compression_s3tc");
+        decoding = new ObjectMap<>();
+    }
+
+    /**
+     * Starts decoding an image on a worker thread.
+     *
+     * Images with a compressed version need no decoding and are skipped.
+     *
+     * @param fileName  The file name the image will be loaded with
+     */
+    public void decodeAhead(String fileName) {
+        final FileHandle file = resolve(fileName);
+        if (disposed || getCompressed(file, null) != file) {
+            return;
+        }
+        if (decoders == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            decoders = new AsyncExecutor(threads, "texture-decode");
+        }
+        synchronized (decoding) {
+            if (!decoding.containsKey(file.path())) {
+                decoding.put(file.path(), decoders.submit(() -> new Pixmap(file)));
+            }
+        }
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, TextureParameter parameter) {
+        AsyncResult<Pixmap> decoded;
+        synchronized (decoding) {
+            decoded = decoding.remove(file.path());
+        }
+        if (decoded != null && parameter != null && parameter.textureData != null) {
+            // The caller brings its own data, so the decoded image is not used
+            free(decoded);
+            decoded = null;
+        }
+        if (decoded == null) {
+            super.loadAsync(manager, fileName, getCompressed(file, parameter), parameter);
+            return;
+        }
+
+        // Waits if the worker has not finished this image yet
+        Pixmap pixmap = decoded.get();
+        TextureParameter params = new TextureParameter();
+        if (parameter != null) {
+            params.genMipMaps = parameter.genMipMaps;
+            params.texture = parameter.texture;
+            if (parameter.format != null && parameter.format != pixmap.getFormat()) {
+                Pixmap converted = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), parameter.format);
+                converted.setBlending(Pixmap.Blending.None);
+                converted.drawPixmap(pixmap, 0, 0);
+                pixmap.dispose();
+                pixmap = converted;
+            }
+        }
+        params.textureData = new PixmapTextureData(pixmap, pixmap.getFormat(), params.genMipMaps, true);
+        super.loadAsync(manager, fileName, file, params);
+    }
+
+    /**
+     * Returns the file to load in place of an image
+     *
+     * @param file      The image file
+     * @param parameter The load parameters (may be null)
+     */
+    private FileHandle getCompressed(FileHandle file, TextureParameter parameter) {
+        if (!supported || (parameter != null && parameter.textureData != null) || file.extension().equals("zktx")) {
+            return file;
+        }
+        FileHandle compressed = file.sibling(file.nameWithoutExtension() + EXTENSION);
+        return compressed.exists() ? compressed : file;
+    }
+
+    /**
+     * Stops the worker threads.
+     *
+     * Pixmaps that were decoded but never loaded are freed. The loader keeps
+     * working afterward, decoding on the AssetManager thread again.
+     */
+    public void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        if (decoders == null) {
+            return;
+        }
+        decoders.dispose();
+        decoders = null;
+        synchronized (decoding) {
+            for (AsyncResult<Pixmap> result : decoding.values()) {
+                free(result);
+            }
+            decoding.clear();
+        }
+    }
+
+    /**
+     * Disposes the pixmap of a decode, waiting for it if necessary
+     *
+     * A decode that failed has nothing to free, so its error is only logged.
+     *
+     * @param result    The decode to free
+     */
+    private void free(AsyncResult<Pixmap> result) {
+        try {
+            result.get().dispose();
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error("CompressedTextureLoader", "Image decode failed", e);
+        }
+    }
+}
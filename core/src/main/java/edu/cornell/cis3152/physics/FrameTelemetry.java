@@ -0,0 +1,236 @@
+package edu.cornell.cis3152.physics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Records the allocations and garbage collections of recent frames.
+ *
+ * Every frame records the bytes the game thread allocated (with an
+ * {@link AllocationMeter}), the collections that ran since the last frame and
+ * the time they took, and the heap in use. The last {@link #HISTORY} frames
+ * are kept for a rolling graph. A frame can also be marked with a gameplay
+ * event, so that a spike in the graph can be matched to what caused it.
+ *
+ * The collection time comes from the collector beans, which report the total
+ * time of each collector. For the stop-the-world collectors this is the pause
+ * time; for concurrent ones it includes work that did not stop the game.
+ *
+ * Create and update this on the game thread. Recording allocates nothing.
+ */
+public class FrameTelemetry {
+    /** Frames kept for the graph */
+    public static final int HISTORY = 240;
+
+    /** Event marks for a frame */
+    public static final int NONE = 0;
+    public static final int HARVEST = 1;
+    public static final int TELEPORT = 2;
+    public static final int MINIMAP = 3;
+    public static final int SHOT = 4;
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    /** Measures the game thread */
+    private final AllocationMeter meter;
+    /** The collectors (an array, so reading them makes no iterator) */
+    private final GarbageCollectorMXBean[] collectors;
+
+    /** Bytes allocated in each recorded frame (a ring buffer) */
+    private final long[] bytes = new long[HISTORY];
+    /** Collections in each recorded frame */
+    private final int[] collections = new int[HISTORY];
+    /** Collection milliseconds in each recorded frame */
+    private final long[] pauses = new long[HISTORY];
+    /** The event mark of each recorded frame */
+    private final int[] events = new int[HISTORY];
+    /** The slot of the next frame */
+    private int next;
+    /** Frames recorded (at most HISTORY) */
+    private int count;
+    /** The event mark of the frame being measured */
+    private int event;
+
+    /** The collector totals at the last frame */
+    private long lastCount;
+    private long lastTime;
+    /** Collections and milliseconds since {@link #reset} */
+    private long totalCount;
+    private long totalTime;
+    /** Whether a frame is being measured */
+    private boolean measuring;
+
+    /** Creates the telemetry for the current thread */
+    public FrameTelemetry() {
+        meter = new AllocationMeter();
+        GarbageCollectorMXBean[] beans;
+        try {
+            List<GarbageCollectorMXBean> list = ManagementFactory.getGarbageCollectorMXBeans();
+            beans = list.toArray(new GarbageCollectorMXBean[0]);
+        } catch (Throwable e) {
+            // No management support (native image)
+            beans = new GarbageCollectorMXBean[0];
+        }
+        collectors = beans;
+        reset();
+    }
+
+    /** Returns true if the allocations of the game thread can be measured */
+    public boolean isAllocationSupported() {
+        return meter.isSupported();
+    }
+
+    /** Clears the history (call this when the overlay is turned on) */
+    public void reset() {
+        next = 0;
+        count = 0;
+        event = NONE;
+        totalCount = 0;
+        totalTime = 0;
+        lastCount = getCollectionCount();
+        lastTime = getCollectionTime();
+        measuring = false;
+    }
+
+    /** Starts measuring a frame */
+    public void beginFrame() {
+        event = NONE;
+        measuring = true;
+        meter.begin();
+    }
+
+    /**
+     * Marks the current frame with a gameplay event
+     *
+     * A later mark in the same frame replaces an earlier one.
+     *
+     * @param value The event mark
+     */
+    public void mark(int value) {
+        event = value;
+    }
+
+    /**
+     * Finishes measuring a frame and records it
+     *
+     * Work after this call (such as drawing the overlay) is not measured.
+     */
+    public void endFrame() {
+        if (!measuring) {
+            return;
+        }
+        measuring = false;
+        long allocated = meter.end();
+        long gcCount = getCollectionCount();
+        long gcTime = getCollectionTime();
+
+        bytes[next] = allocated;
+        collections[next] = (int) (gcCount - lastCount);
+        pauses[next] = gcTime - lastTime;
+        events[next] = event;
+        totalCount += gcCount - lastCount;
+        totalTime += gcTime - lastTime;
+        lastCount = gcCount;
+        lastTime = gcTime;
+
+        next = (next + 1) % HISTORY;
+        count = Math.min(count + 1, HISTORY);
+    }
+
+    /** Returns the number of recorded frames (at most HISTORY) */
+    public int getFrameCount() {
+        return count;
+    }
+
+    /**
+     * Returns the slot of a recorded frame
+     *
+     * @param frame The frame, where 0 is the oldest recorded frame
+     */
+    private int slot(int frame) {
+        return (next - count + frame + HISTORY) % HISTORY;
+    }
+
+    /**
+     * Returns the bytes the game thread allocated in a recorded frame
+     *
+     * This is -1 if allocations cannot be measured.
+     *
+     * @param frame The frame, where 0 is the oldest recorded frame
+     */
+    public long getBytes(int frame) {
+        return bytes[slot(frame)];
+    }
+
+    /**
+     * Returns the collections that ran in a recorded frame
+     *
+     * @param frame The frame, where 0 is the oldest recorded frame
+     */
+    public int getCollections(int frame) {
+        return collections[slot(frame)];
+    }
+
+    /**
+     * Returns the event mark of a recorded frame
+     *
+     * @param frame The frame, where 0 is the oldest recorded frame
+     */
+    public int getEvent(int frame) {
+        return events[slot(frame)];
+    }
+
+    /** Returns the most bytes allocated in one recorded frame */
+    public long getPeakBytes() {
+        long peak = 0;
+        for (int ii = 0; ii < count; ii++) {
+            peak = Math.max(peak, bytes[ii]);
+        }
+        return peak;
+    }
+
+    /**
+     * Appends a short report of the last frame to the given text.
+     *
+     * @param out   The text to append to
+     */
+    public void describe(StringBuilder out) {
+        if (count == 0) {
+            out.append("No frames recorded");
+            return;
+        }
+        int last = slot(count - 1);
+        out.append("Alloc: ");
+        if (bytes[last] < 0) {
+            out.append("n/a");
+        } else {
+            out.append(bytes[last]).append(" B/frame, peak ").append(getPeakBytes()).append(" B");
+        }
+        out.append("\nGC: ").append(collections[last]).append(" (").append(pauses[last]).append(" ms) this frame, ")
+           .append(totalCount).append(" (").append(totalTime).append(" ms) total");
+
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        out.append("\nHeap: ").append(used / MEGABYTE).append(" / ").append(runtime.totalMemory() / MEGABYTE)
+           .append(" MB (max ").append(runtime.maxMemory() / MEGABYTE).append(" MB)");
+    }
+
+    /** Returns the collections run by every collector so far */
+    private long getCollectionCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(collector.getCollectionCount(), 0);
+        }
+        return total;
+    }
+
+    /** Returns the milliseconds spent by every collector so far */
+    private long getCollectionTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(collector.getCollectionTime(), 0);
+        }
+        return total;
+    }
+}
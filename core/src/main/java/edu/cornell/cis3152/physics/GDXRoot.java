@@ -14,15 +14,61 @@
 package edu.cornell.cis3152.physics;
 
 import com.badlogic.gdx.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
 import com.badlogic.gdx.utils.ScreenUtils;
+import edu.cornell.cis3152.physics.platform.LevelAssets;
+import edu.cornell.cis3152.physics.platform.LevelConfig;
+import edu.cornell.cis3152.physics.platform.LevelData;
+import edu.cornell.cis3152.physics.platform.LevelPrefetcher;
 import edu.cornell.cis3152.physics.platform.PlatformScene;
 import edu.cornell.gdiac.util.*;
 import edu.cornell.gdiac.assets.*;
 import edu.cornell.gdiac.graphics.*;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 
 public class GDXRoot extends Game implements ScreenListener {
+    /** Most levels kept in memory at once (the least recently played go first) */
+    private static final int MAX_CACHED_LEVELS = 3;
+    /** Index of the level select hub in maps */
+    private static final int LEVEL_SELECT = 1;
+    /** Doors further than this from the player (in world units) are not prefetched */
+    private static final float PREFETCH_RADIUS = 30.0f;
+    /** Most levels prefetched at once */
+    private static final int MAX_PREFETCH = 2;
+    /** Milliseconds per frame the prefetcher may spend on the GL thread */
+    private static final int PREFETCH_SLICE = 2;
+    /** Set this system property to quit once the main menu is drawn (to time startup) */
+    private static final String STARTUP_EXIT = "startup.exit";
+    /**
+     * Set this system property to play the first level briefly and quit.
+     *
+     * The build uses this to train the class-data sharing archive, so that
+     * the archive holds every class startup and gameplay load.
+     */
+    public static final String STARTUP_TRAIN = "startup.train";
+    /** Frames of the first level a training run plays */
+    private static final int TRAINING_FRAMES = 120;
+    /**
+     * Set this system property to check that gameplay frames allocate nothing.
+     *
+     * The first level plays untouched for a warmup, and then every frame is
+     * measured, from the screen render through the level prefetch. The run
+     * logs an "Allocation:" report line and quits.
+     */
+    public static final String ALLOC_CHECK = "alloc.check";
+    /** Frames played before the allocation check starts measuring */
+    private static final int ALLOC_WARMUP_FRAMES = 300;
+    /** Frames the allocation check measures */
+    private static final int ALLOC_CHECK_FRAMES = 600;
+
     /** AssetDirectory to load game assets (textures, sounds, etc.) */
     private AssetDirectory directory;
     /** The SpriteBatch used for drawing the screens */
@@ -37,10 +83,28 @@ public class GDXRoot extends Game implements ScreenListener {
     private SettingsScene settingsScene;
     /** The game screen that was active when pause/settings was opened */
     private PlatformScene pausedScreen;
-    /** Array of Arena controllers (one per map) */
-    private PlatformScene[] controllers;
+    /** Levels built so far, least recently played first */
+    private LinkedHashMap<Integer, PlatformScene> levels;
     /** Index of the current Arena */
     private int current;
+    /** Whether the startup report has been logged */
+    private boolean startupReported;
+    /** Frames of the first level played so far in a training run */
+    private int trainingFrames;
+    /** Measures the frames of an allocation check (null if not checking) */
+    private AllocationMeter allocationMeter;
+    /** Frames of the first level played so far in an allocation check */
+    private int allocationFrames;
+    /** Measured frames that allocated */
+    private int allocatingFrames;
+    /** Most bytes one measured frame allocated */
+    private long allocationMax;
+    /** Door destinations of the current level (scratch for prefetching) */
+    private final IntArray destinations = new IntArray();
+    /** The tmx files to keep prefetched (scratch for prefetching) */
+    private final ObjectSet<String> wanted = new ObjectSet<>();
+    /** The level assets held for each prefetched level, by tmx file */
+    private final ObjectMap<String, Array<String>> prefetchedAssets = new ObjectMap<>();
     /** Array of map keys for each level */
 
 
@@ -59,7 +123,12 @@ public class GDXRoot extends Game implements ScreenListener {
      * Initializes the SpriteBatch and the loading scene.
      */
     public void create() {
+        // Ends when the main menu is up
+        Trace.begin("startup");
         batch = new SpriteBatch();
+        if (Boolean.getBoolean(ALLOC_CHECK)) {
+            allocationMeter = new AllocationMeter();
+        }
 
         // Initialize the AudioManager (this also loads saved settings)
         AudioManager.getInstance();
@@ -71,7 +140,7 @@ public class GDXRoot extends Game implements ScreenListener {
 
     /**
      * Called when the application is disposed.
-     * Disposes of the current screen, controllers, SpriteBatch, and asset directory.
+     * Disposes of the current screen, cached levels, SpriteBatch, and asset directory.
      */
     public void dispose() {
         setScreen(null);
@@ -91,12 +160,17 @@ public class GDXRoot extends Game implements ScreenListener {
             settingsScene.dispose();
             settingsScene = null;
         }
-        if (controllers != null) {
-            for (int i = 0; i < controllers.length; i++) {
-                controllers[i].dispose();
+        if (levels != null) {
+            for (PlatformScene level : levels.values()) {
+                level.dispose();
             }
-            controllers = null;
+            levels = null;
         }
+        LevelPrefetcher.getInstance().dispose();
+        LevelAssets.getInstance().dispose();
+        prefetchedAssets.clear();
+        // Finishes writing the last save
+        SaveService.getInstance().dispose();
         if (batch != null) {
             batch.dispose();
             batch = null;
@@ -125,9 +199,59 @@ public class GDXRoot extends Game implements ScreenListener {
         if (settingsScene != null) {
             settingsScene.resize(width, height);
         }
-        if (controllers != null) {
-            for (int i = 0; i < controllers.length; i++) {
-                controllers[i].resize(width, height);
+        if (levels != null) {
+            for (PlatformScene level : levels.values()) {
+                level.resize(width, height);
+            }
+        }
+    }
+
+    /**
+     * Returns the scene for a level, building it on first entry.
+     *
+     * Looking a level up marks it as the most recently played.
+     *
+     * @param index The index of the level in maps
+     */
+    private PlatformScene getLevel(int index) {
+        PlatformScene level = levels.get(index);
+        if (level == null) {
+            Trace.begin("build level " + maps[index]);
+            try {
+                level = new PlatformScene(directory, maps[index], tiled[index], index == LEVEL_SELECT);
+            } finally {
+                Trace.end();
+            }
+            level.setScreenListener(this);
+            level.setSpriteBatch(batch);
+            levels.put(index, level);
+        }
+        return level;
+    }
+
+    /**
+     * Switches to a level, then drops levels beyond the cache size.
+     *
+     * @param index The index of the level in maps
+     */
+    private void showLevel(int index) {
+        current = index;
+        setScreen(getLevel(index));
+        trimLevels();
+    }
+
+    /**
+     * Disposes the least recently played levels until the cache fits.
+     *
+     * The level on screen and the paused level are never disposed.
+     */
+    private void trimLevels() {
+        Iterator<Map.Entry<Integer, PlatformScene>> it = levels.entrySet().iterator();
+        while (levels.size() > MAX_CACHED_LEVELS && it.hasNext()) {
+            PlatformScene level = it.next().getValue();
+            if (level != getScreen() && level != pausedScreen) {
+                it.remove();
+                level.dispose();
             }
         }
     }
@@ -144,32 +268,26 @@ public class GDXRoot extends Game implements ScreenListener {
             directory = loading.getAssets();
             loading.dispose();
             loading = null;
+            LevelAssets.getInstance().setDirectory(directory);
 
-            mainMenu = new MainMenuScene(directory, batch);
+            Trace.begin("build main menu");
+            try {
+                mainMenu = new MainMenuScene(directory, batch);
+            } finally {
+                Trace.end();
+            }
             mainMenu.setScreenListener(this);
 
-            // Create one Arena for each map key
-            controllers = new PlatformScene[maps.length];
-            boolean isLevelSelect = false;
-            for (int i = 0; i < maps.length; i++) {
-                if(i == 1){
-                    isLevelSelect = true;
-                }
-                System.out.println(maps[i]);
-                controllers[i] = new PlatformScene(directory, maps[i], tiled[i], isLevelSelect);
-                controllers[i].setScreenListener(this);
-                controllers[i].setSpriteBatch(batch);
-                controllers[i].reset();
-                isLevelSelect = false;
-            }
+            // Levels are built when first entered (access order makes this an LRU)
+            levels = new LinkedHashMap<>(MAX_CACHED_LEVELS + 1, 0.75f, true);
 
             setScreen(mainMenu);
+            Trace.end();
         }
         else if (screen == mainMenu) {
             switch (exitCode) {
                 case MainMenuScene.EXIT_PLAY:
-                    current = 0;
-                    setScreen(controllers[current]);
+                    showLevel(0);
                     break;
                 case MainMenuScene.EXIT_SETTINGS:
                     // Show settings screen
@@ -192,20 +310,18 @@ public class GDXRoot extends Game implements ScreenListener {
         }
         else if (screen instanceof PlatformScene) {
             if (exitCode == PlatformScene.EXIT_NEXT) {
-                System.out.println("LEAVING " + controllers[current] + ", GOING TO " + controllers[(current + 1) % controllers.length]);
-                current = (current + 1) % controllers.length;
-                setScreen(controllers[current]);
+                System.out.println("LEAVING " + maps[current] + ", GOING TO " + maps[(current + 1) % maps.length]);
+                showLevel((current + 1) % maps.length);
             } else if (exitCode == PlatformScene.EXIT_PREV) {
                 // Go back to the previous Arena
-                current = (current + controllers.length - 1) % controllers.length;
-                setScreen(controllers[current]);
+                showLevel((current + maps.length - 1) % maps.length);
             } else if (exitCode == PlatformScene.EXIT_LEVELSELECT)
             {
-                setScreen(controllers[1]);
+                showLevel(LEVEL_SELECT);
             }
             else if (exitCode == PlatformScene.FROM_LEVELSELECT){
                 int dest = ((PlatformScene) screen).getDoorDestination();
-                setScreen(controllers[dest]);
+                showLevel(dest);
             }
             else if (exitCode == PlatformScene.EXIT_PAUSE) {
                 if (screen instanceof PlatformScene) {
@@ -214,6 +330,7 @@ public class GDXRoot extends Game implements ScreenListener {
                         pauseScene = new PauseScene(directory, batch, screen);
                         pauseScene.setScreenListener(this);
                     }
+                    pauseScene.setGameScreen(screen);
 
                     setScreen(pauseScene);
                 }
@@ -232,7 +349,8 @@ public class GDXRoot extends Game implements ScreenListener {
                     setScreen(pausedScreen);
                     break;
                 case PauseScene.EXIT_LEVELSELECT:
-                    setScreen(controllers[1]);
+                    pausedScreen = null;
+                    showLevel(LEVEL_SELECT);
                     break;
                 case PauseScene.EXIT_SETTINGS:
                     // Open settings screen
@@ -268,6 +386,106 @@ public class GDXRoot extends Game implements ScreenListener {
      * Delegates rendering to the current screen.
      */
     public void render() {
+        boolean measured = allocationMeter != null && getScreen() instanceof PlatformScene;
+        if (measured) {
+            allocationMeter.begin();
+        }
         super.render();
+        if (!startupReported && getScreen() != null && getScreen() == mainMenu) {
+            // The main menu has now been drawn once
+            startupReported = true;
+            Gdx.app.log(StartupMetrics.TAG, StartupMetrics.describe("main menu"));
+            if (Boolean.getBoolean(STARTUP_EXIT)) {
+                Gdx.app.exit();
+            } else if (Boolean.getBoolean(STARTUP_TRAIN) || Boolean.getBoolean(ALLOC_CHECK)) {
+                showLevel(0);
+            }
+        } else if (startupReported && Boolean.getBoolean(STARTUP_TRAIN) && getScreen() instanceof PlatformScene) {
+            if (++trainingFrames == TRAINING_FRAMES) {
+                Gdx.app.log(StartupMetrics.TAG, StartupMetrics.describe("training run"));
+                Gdx.app.exit();
+            }
+        }
+        updatePrefetch();
+        // The prefetch runs on this thread every frame, so it is part of the measured frame
+        if (measured) {
+            checkAllocation(allocationMeter.end());
+        }
+    }
+
+    /**
+     * Records one gameplay frame of an allocation check
+     *
+     * @param bytes The bytes the frame allocated on this thread
+     */
+    private void checkAllocation(long bytes) {
+        if (bytes < 0) {
+            Gdx.app.log("Allocation", "not measurable on this runtime");
+            Gdx.app.exit();
+            return;
+        }
+        allocationFrames++;
+        if (allocationFrames <= ALLOC_WARMUP_FRAMES) {
+            return;
+        }
+        if (bytes > 0) {
+            allocatingFrames++;
+            allocationMax = Math.max(allocationMax, bytes);
+        }
+        if (allocationFrames == ALLOC_WARMUP_FRAMES + ALLOC_CHECK_FRAMES) {
+            Gdx.app.log("Allocation", allocatingFrames + " of " + ALLOC_CHECK_FRAMES
+                                      + " frames allocated (most " + allocationMax + " bytes)");
+            Gdx.app.exit();
+        }
+    }
+
+    /**
+     * Prefetches the levels behind the doors nearest the player.
+     *
+     * Levels that are already cached need no prefetch, and levels the player
+     * walked away from are dropped again. Off a level (paused, menus) the
+     * prefetched levels are kept and keep loading.
+     *
+     * Once a prefetched level is compiled, the level assets its enemies need
+     * start loading too, and are held until the level is dropped or entered
+     * (the level then holds them itself).
+     */
+    private void updatePrefetch() {
+        if (levels == null) {
+            return;
+        }
+        Screen screen = getScreen();
+        if (screen instanceof PlatformScene) {
+            wanted.clear();
+            destinations.clear();
+            ((PlatformScene) screen).getNearbyDoorDestinations(PREFETCH_RADIUS, MAX_PREFETCH, destinations);
+            for (int i = 0; i < destinations.size; i++) {
+                int dest = destinations.get(i);
+                if (dest >= 0 && dest < maps.length && !levels.containsKey(dest)) {
+                    JsonValue constants = directory.getEntry(maps[dest], JsonValue.class);
+                    JsonValue navigation = LevelConfig.getSection(directory, constants, "navigation");
+                    LevelPrefetcher prefetcher = LevelPrefetcher.getInstance();
+                    prefetcher.prefetch(tiled[dest], navigation);
+                    wanted.add(tiled[dest]);
+                    if (!prefetchedAssets.containsKey(tiled[dest]) && prefetcher.isReady(tiled[dest])) {
+                        LevelData data = prefetcher.getLevelData(tiled[dest], navigation);
+                        Array<String> manifest = LevelAssets.getInstance().getManifest(data, new Array<>());
+                        LevelAssets.getInstance().acquire(manifest, false);
+                        prefetchedAssets.put(tiled[dest], manifest);
+                    }
+                }
+            }
+            LevelPrefetcher.getInstance().retain(wanted);
+            ObjectMap.Entries<String, Array<String>> entries = prefetchedAssets.entries();
+            while (entries.hasNext()) {
+                ObjectMap.Entry<String, Array<String>> entry = entries.next();
+                if (!wanted.contains(entry.key)) {
+                    LevelAssets.getInstance().release(entry.value);
+                    entries.remove();
+                }
+            }
+        }
+        LevelPrefetcher.getInstance().update(PREFETCH_SLICE);
+        LevelAssets.getInstance().update(PREFETCH_SLICE);
     }
 }
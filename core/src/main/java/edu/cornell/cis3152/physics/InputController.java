@@ -101,6 +101,8 @@ public class InputController {
     private Vector2 crosshair;
     /** The crosshair cache (for using as a return value) */
     private Vector2 crosscache;
+    /** The mouse cache (for using as a return value) */
+    private final Vector2 mousecache = new Vector2();
     /** For the gamepad crosshair control */
     private float momentum;
 
@@ -108,6 +110,32 @@ public class InputController {
     private boolean mapPressed;
     private boolean mapPrevious;
 
+    /** AI profiler overlay and export buttons */
+    private boolean profilePressed;
+    private boolean profilePrevious;
+    private boolean exportProfilePressed;
+    private boolean exportProfilePrevious;
+
+    /** Allocation and GC telemetry overlay button */
+    private boolean telemetryPressed;
+    private boolean telemetryPrevious;
+
+    /** Frame phase profiler overlay and export buttons */
+    private boolean phasesPressed;
+    private boolean phasesPrevious;
+    private boolean exportPhasesPressed;
+    private boolean exportPhasesPrevious;
+
+    /** Trace export button */
+    private boolean exportTracePressed;
+    private boolean exportTracePrevious;
+
+    /** Checkpoint save and load buttons */
+    private boolean saveCheckpointPressed;
+    private boolean saveCheckpointPrevious;
+    private boolean loadCheckpointPressed;
+    private boolean loadCheckpointPrevious;
+
     /** An X-Box controller (if it is connected) */
     XBoxController xbox;
 
@@ -154,6 +182,46 @@ public class InputController {
         return mapPressed && !mapPrevious;
     }
 
+    /** Returns true if the AI profiler overlay was toggled. */
+    public boolean didToggleProfiler() {
+        return profilePressed && !profilePrevious;
+    }
+
+    /** Returns true if the AI profile export button was pressed. */
+    public boolean didExportProfile() {
+        return exportProfilePressed && !exportProfilePrevious;
+    }
+
+    /** Returns true if the allocation and GC telemetry overlay was toggled. */
+    public boolean didToggleTelemetry() {
+        return telemetryPressed && !telemetryPrevious;
+    }
+
+    /** Returns true if the frame phase profiler overlay was toggled. */
+    public boolean didTogglePhases() {
+        return phasesPressed && !phasesPrevious;
+    }
+
+    /** Returns true if the frame phase profile export button was pressed. */
+    public boolean didExportPhases() {
+        return exportPhasesPressed && !exportPhasesPrevious;
+    }
+
+    /** Returns true if the trace export button was pressed. */
+    public boolean didExportTrace() {
+        return exportTracePressed && !exportTracePrevious;
+    }
+
+    /** Returns true if the save checkpoint button was pressed. */
+    public boolean didSaveCheckpoint() {
+        return saveCheckpointPressed && !saveCheckpointPrevious;
+    }
+
+    /** Returns true if the load checkpoint button was pressed. */
+    public boolean didLoadCheckpoint() {
+        return loadCheckpointPressed && !loadCheckpointPrevious;
+    }
+
     /**
      * Returns the amount of sideways movement.
      *
@@ -191,8 +259,15 @@ public class InputController {
         return crosscache.set(crosshair);
     }
 
+    /**
+     * Returns the current position of the mouse on the screen.
+     *
+     * Like {@link #getCrossHair}, this returns the same object each time.
+     *
+     * @return the current position of the mouse on the screen.
+     */
     public Vector2 getMouse() {
-        return new Vector2(Gdx.input.getX(), Gdx.input.getY());
+        return mousecache.set(Gdx.input.getX(), Gdx.input.getY());
     }
 
     /**
@@ -356,6 +431,14 @@ public class InputController {
         nextPrevious = nextPressed;
         prevPrevious = prevPressed;
         mapPrevious = mapPressed;
+        profilePrevious = profilePressed;
+        exportProfilePrevious = exportProfilePressed;
+        exportTracePrevious = exportTracePressed;
+        telemetryPrevious = telemetryPressed;
+        phasesPrevious = phasesPressed;
+        exportPhasesPrevious = exportPhasesPressed;
+        saveCheckpointPrevious = saveCheckpointPressed;
+        loadCheckpointPrevious = loadCheckpointPressed;
         prevShiftPressed = shiftPressed;
 
         teleportPrevious = m1Pressed;
@@ -459,6 +542,14 @@ public class InputController {
         }
 
         mapPressed = Gdx.input.isKeyPressed(Input.Keys.M);
+        profilePressed = Gdx.input.isKeyPressed(Input.Keys.F9);
+        exportProfilePressed = Gdx.input.isKeyPressed(Input.Keys.F10);
+        exportTracePressed = Gdx.input.isKeyPressed(Input.Keys.F11);
+        telemetryPressed = Gdx.input.isKeyPressed(Input.Keys.F7);
+        phasesPressed = Gdx.input.isKeyPressed(Input.Keys.F6);
+        exportPhasesPressed = Gdx.input.isKeyPressed(Input.Keys.F12);
+        saveCheckpointPressed = Gdx.input.isKeyPressed(Input.Keys.F5);
+        loadCheckpointPressed = Gdx.input.isKeyPressed(Input.Keys.F8);
 
         shiftPressed = Gdx.input.isKeyPressed(Input.Keys.SHIFT_LEFT);
 
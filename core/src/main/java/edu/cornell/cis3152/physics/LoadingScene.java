@@ -27,6 +27,7 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.math.Affine2;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ScreenUtils;
 import edu.cornell.cis3152.physics.platform.PlatformScene;
@@ -35,6 +36,7 @@ import edu.cornell.gdiac.assets.*;
 import edu.cornell.gdiac.graphics.SpriteBatch;
 import edu.cornell.gdiac.math.PathExtruder;
 import edu.cornell.gdiac.util.*;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.*;
@@ -56,6 +58,8 @@ public class LoadingScene implements Screen, InputProcessor {
     private AssetDirectory internal;
     /** The actual assets to be loaded */
     private AssetDirectory assets;
+    /** Loads the textures of the assets (decoding them in parallel) */
+    private CompressedTextureLoader textureLoader;
 
     /** The drawing camera for this scene */
     private OrthographicCamera camera;
@@ -165,9 +169,14 @@ public class LoadingScene implements Screen, InputProcessor {
         budget = millis;
 
         // We need these files loaded immediately
-        internal = new AssetDirectory( "loading/boot.json" );
-        internal.loadAssets();
-        internal.finishLoading();
+        Trace.begin( "load boot assets" );
+        try {
+            internal = new AssetDirectory( "loading/boot.json" );
+            internal.loadAssets();
+            internal.finishLoading();
+        } finally {
+            Trace.end();
+        }
 
         constants = internal.getEntry( "constants", JsonValue.class );
         resize(Gdx.graphics.getWidth(),Gdx.graphics.getHeight());
@@ -179,13 +188,41 @@ public class LoadingScene implements Screen, InputProcessor {
         affine = new Affine2();
         Gdx.input.setInputProcessor( this );
 
-        // Start loading the REAL assets
+        // Start loading the REAL assets (the span ends when they are done)
+        Trace.begin( "load " + file );
         assets = new AssetDirectory( file );
+        // Large images have GPU compressed versions made by the build
+        textureLoader = new CompressedTextureLoader( new InternalFileHandleResolver() );
+        assets.setLoader( Texture.class, textureLoader );
         System.out.println("Loading assets from: " + file);
+        decodeTextures( file );
         assets.loadAssets();
         active = true;
     }
 
+    /**
+     * Starts decoding every texture of an asset directory in parallel.
+     *
+     * The asset directory only learns about its textures after it parses its
+     * JSON, and then decodes them one at a time. Reading the texture section
+     * here lets the texture loader decode all of them on its worker threads
+     * right away, so the directory mostly finds them ready to upload.
+     *
+     * @param file  The asset directory file
+     */
+    private void decodeTextures(String file) {
+        JsonValue textures = new JsonReader().parse( Gdx.files.internal( file ) ).get( "textures" );
+        if (textures == null) {
+            return;
+        }
+        for (JsonValue entry : textures) {
+            String path = entry.isString() ? entry.asString() : entry.getString( "file", null );
+            if (path != null) {
+                textureLoader.decodeAhead( path );
+            }
+        }
+    }
+
     /**
      * Called when this screen should release all resources.
      */
@@ -209,6 +246,9 @@ public class LoadingScene implements Screen, InputProcessor {
             this.progress = assets.getProgress();
             if (progress >= 1.0f) {
                 this.progress = 1.0f;
+                // Later loads are few, so they can decode on the asset thread
+                textureLoader.dispose();
+                Trace.end();
             }
         }
     }
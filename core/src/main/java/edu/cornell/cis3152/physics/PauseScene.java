@@ -247,6 +247,15 @@ public class PauseScene implements Screen, InputProcessor {
         this.listener = listener;
     }
 
+    /**
+     * Sets the game screen to draw in the background
+     *
+     * @param gameScreen The game screen being paused
+     */
+    public void setGameScreen(Screen gameScreen) {
+        this.gameScreen = gameScreen;
+    }
+
     // Input handling methods
 
     @Override
@@ -0,0 +1,233 @@
+package edu.cornell.cis3152.physics;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.util.Arrays;
+
+/**
+ * Frame time statistics for the phases of a frame.
+ *
+ * The owner names the phases and counters up front, and times each phase with
+ * a {@link #begin}/{@link #end} pair. A phase timed more than once in a frame
+ * adds up. A phase may also be timed inside another one (the AI inside the
+ * update), in which case it is counted in both. At the end of each frame the
+ * phase times go into a rolling window of the last {@link #WINDOW} frames,
+ * which the report turns into p50, p95 and p99 times.
+ *
+ * Counters (bodies, contacts, sprites) are set once per frame and report their
+ * last and largest values.
+ *
+ * Nothing is timed while the profiler is disabled, and timing allocates
+ * nothing. Use this on the game thread only.
+ */
+public class PhaseProfiler {
+    /** Frames kept for the percentiles */
+    public static final int WINDOW = 600;
+
+    private static final long MICROSECOND = 1000;
+
+    /** The phase names */
+    private final String[] phases;
+    /** The counter names */
+    private final String[] counters;
+    /** Nanoseconds of each phase in each recorded frame (a ring buffer per phase) */
+    private final long[][] samples;
+    /** Nanoseconds of each phase in the current frame */
+    private final long[] current;
+    /** The last value of each counter */
+    private final int[] counts;
+    /** The largest value of each counter */
+    private final int[] peaks;
+    /** Scratch space for sorting a window */
+    private final long[] sorted = new long[WINDOW];
+    /** Scratch space for the percentiles of a report */
+    private final long[] result = new long[4];
+    /** The slot of the next frame */
+    private int next;
+    /** Frames recorded (at most WINDOW) */
+    private int frames;
+    private boolean enabled;
+
+    /**
+     * Creates a profiler for the given phases and counters
+     *
+     * @param phases    The phase names, in report order
+     * @param counters  The counter names, in report order
+     */
+    public PhaseProfiler(String[] phases, String[] counters) {
+        this.phases = phases;
+        this.counters = counters;
+        samples = new long[phases.length][WINDOW];
+        current = new long[phases.length];
+        counts = new int[counters.length];
+        peaks = new int[counters.length];
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether phases are timed.
+     *
+     * Enabling the profiler starts a fresh recording.
+     *
+     * @param value whether phases are timed
+     */
+    public void setEnabled(boolean value) {
+        if (value && !enabled) {
+            reset();
+        }
+        enabled = value;
+    }
+
+    /** Forgets everything recorded so far */
+    public void reset() {
+        next = 0;
+        frames = 0;
+        Arrays.fill(current, 0);
+        Arrays.fill(counts, 0);
+        Arrays.fill(peaks, 0);
+    }
+
+    /**
+     * Returns the start time of a phase (0 while disabled)
+     *
+     * Pass the result to {@link #end}.
+     */
+    public long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Adds the time since {@link #begin} to a phase
+     *
+     * @param phase The phase index
+     * @param start The value returned by begin
+     */
+    public void end(int phase, long start) {
+        if (enabled && start != 0) {
+            current[phase] += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Sets the value of a counter for this frame
+     *
+     * @param counter   The counter index
+     * @param value     The counter value
+     */
+    public void count(int counter, int value) {
+        if (enabled) {
+            counts[counter] = value;
+            peaks[counter] = Math.max(peaks[counter], value);
+        }
+    }
+
+    /** Moves the phase times of this frame into the window */
+    public void endFrame() {
+        if (!enabled) {
+            return;
+        }
+        for (int ii = 0; ii < phases.length; ii++) {
+            samples[ii][next] = current[ii];
+            current[ii] = 0;
+        }
+        next = (next + 1) % WINDOW;
+        frames = Math.min(frames + 1, WINDOW);
+    }
+
+    /** Returns the number of frames in the window */
+    public int getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * Returns the percentiles of a phase in nanoseconds
+     *
+     * @param phase     The phase index
+     * @param result    Receives p50, p95, p99 and the maximum (length 4)
+     *
+     * @return the result array
+     */
+    public long[] getPercentiles(int phase, long[] result) {
+        if (frames == 0) {
+            Arrays.fill(result, 0);
+            return result;
+        }
+        System.arraycopy(samples[phase], 0, sorted, 0, frames);
+        Arrays.sort(sorted, 0, frames);
+        result[0] = sorted[rank(0.50f)];
+        result[1] = sorted[rank(0.95f)];
+        result[2] = sorted[rank(0.99f)];
+        result[3] = sorted[frames - 1];
+        return result;
+    }
+
+    /** Returns the index of a percentile in the sorted window (nearest rank) */
+    private int rank(float percentile) {
+        int index = (int) Math.ceil(percentile * frames) - 1;
+        return Math.max(0, Math.min(frames - 1, index));
+    }
+
+    /**
+     * Writes a short report for the debug overlay
+     *
+     * @param out   The buffer to write to
+     */
+    public void describe(StringBuilder out) {
+        out.append("Frame phases (").append(frames).append(" frames)\n");
+        out.append("phase  p50  p95  p99  max (us)\n");
+        for (int ii = 0; ii < phases.length; ii++) {
+            getPercentiles(ii, result);
+            out.append(phases[ii]).append("  ")
+               .append(result[0] / MICROSECOND).append("  ")
+               .append(result[1] / MICROSECOND).append("  ")
+               .append(result[2] / MICROSECOND).append("  ")
+               .append(result[3] / MICROSECOND).append('\n');
+        }
+        for (int ii = 0; ii < counters.length; ii++) {
+            if (ii > 0) {
+                out.append("  ");
+            }
+            out.append(counters[ii]).append(' ').append(counts[ii])
+               .append(" (max ").append(peaks[ii]).append(')');
+        }
+    }
+
+    /**
+     * Returns the recording as CSV.
+     *
+     * Phase rows hold the percentiles of each phase in nanoseconds. Counter
+     * rows hold the last and largest value of each counter.
+     */
+    public String toCsv() {
+        StringBuilder out = new StringBuilder();
+        out.append("scope,name,frames,p50_ns,p95_ns,p99_ns,max_ns,last,peak\n");
+        for (int ii = 0; ii < phases.length; ii++) {
+            getPercentiles(ii, result);
+            out.append("phase,").append(phases[ii]).append(',')
+               .append(frames).append(',')
+               .append(result[0]).append(',')
+               .append(result[1]).append(',')
+               .append(result[2]).append(',')
+               .append(result[3]).append(",,\n");
+        }
+        for (int ii = 0; ii < counters.length; ii++) {
+            out.append("counter,").append(counters[ii]).append(',')
+               .append(frames).append(",,,,,")
+               .append(counts[ii]).append(',')
+               .append(peaks[ii]).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes the recording as CSV
+     *
+     * @param file  The file to write
+     */
+    public void exportCsv(FileHandle file) {
+        file.writeString(toCsv(), false);
+    }
+}
@@ -0,0 +1,366 @@
+package edu.cornell.cis3152.physics;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the player progress and settings, and writes them to saves/progress.json.
+ *
+ * Everything lives in memory, so reading and changing it costs nothing. A
+ * call to {@link #requestSave} copies the state (which is small) and hands
+ * the copy to a background thread, which encodes and writes it. Requests
+ * made while a write is still waiting are coalesced into one write of the
+ * latest state, so saving at every checkpoint never queues up work.
+ *
+ * A save goes to a temporary file first, which is flushed to disk and then
+ * renamed over the save file. A crash mid-write leaves the old save intact.
+ *
+ * The save can also be written in a compact binary encoding (progress.bin,
+ * next to progress.json). The encoding comes from the save.binary system
+ * property, which is read before the save is loaded, so loading reads
+ * whichever the service writes and falls back on the other.
+ * {@link #setBinary} switches the encoding of later writes.
+ *
+ * The saves go in their own directory, apart from the tracked assets (the
+ * sample save.json in assets is not the player save).
+ */
+public class SaveService {
+    /** Whether saves use the binary encoding (a system property) */
+    public static final String SAVE_BINARY = "save.binary";
+
+    /** The JSON save file (a local file, so it is writable) */
+    private static final String JSON_FILE = "saves/progress.json";
+    /** The binary save file */
+    private static final String BINARY_FILE = "saves/progress.bin";
+    /** The suffix of the file a save is written to before the rename */
+    private static final String TEMP_SUFFIX = ".tmp";
+    /** The key of the settings in the JSON (every other key is a level) */
+    private static final String SETTINGS = "settings";
+    /** Identifies a binary save ("DWSV") */
+    private static final int MAGIC = 0x44575356;
+    private static final int VERSION = 1;
+
+    /** The progress through one level */
+    public static class LevelProgress {
+        public boolean completed;
+        /** The most enemies defeated in one attempt */
+        public int enemiesDefeated;
+        /** The most shards collected in one attempt */
+        public int shardsCollected;
+        /** The fastest completion in seconds, or -1 if never completed */
+        public float timeToBeat = -1;
+        /** Where the player was when they last collected a shard */
+        public float x;
+        public float y;
+
+        public LevelProgress() {}
+
+        LevelProgress(LevelProgress other) {
+            completed = other.completed;
+            enemiesDefeated = other.enemiesDefeated;
+            shardsCollected = other.shardsCollected;
+            timeToBeat = other.timeToBeat;
+            x = other.x;
+            y = other.y;
+        }
+    }
+
+    /** A copy of the state, made on the render thread and written on the save thread */
+    private static class Snapshot {
+        final ObjectMap<String, LevelProgress> levels = new ObjectMap<>();
+        float masterVolume;
+        float musicVolume;
+        float sfxVolume;
+        boolean binary;
+    }
+
+    /** The singleton instance */
+    private static SaveService instance;
+
+    /** The progress of each level, by level key */
+    private final ObjectMap<String, LevelProgress> levels;
+    private float masterVolume = 1.0f;
+    private float musicVolume = 1.0f;
+    private float sfxVolume = 1.0f;
+    /** Whether saves use the binary encoding */
+    private boolean binary;
+
+    /** Writes the saves (null once disposed) */
+    private AsyncExecutor writer;
+    /** The latest state not yet written */
+    private final AtomicReference<Snapshot> pending;
+    /** Whether a write task is queued */
+    private final AtomicBoolean scheduled;
+
+    /**
+     * Returns the singleton instance of the save service
+     *
+     * The save is read the first time this is called.
+     *
+     * @return the singleton instance of the save service
+     */
+    public static SaveService getInstance() {
+        if (instance == null) {
+            instance = new SaveService();
+        }
+        return instance;
+    }
+
+    private SaveService() {
+        levels = new ObjectMap<>();
+        writer = new AsyncExecutor(1, "save");
+        pending = new AtomicReference<>();
+        scheduled = new AtomicBoolean();
+        binary = Boolean.getBoolean(SAVE_BINARY);
+        load();
+    }
+
+    /**
+     * Sets whether saves use the compact binary encoding
+     *
+     * @param value whether saves use the binary encoding
+     */
+    public void setBinary(boolean value) {
+        binary = value;
+    }
+
+    public float getMasterVolume() {
+        return masterVolume;
+    }
+
+    public float getMusicVolume() {
+        return musicVolume;
+    }
+
+    public float getSfxVolume() {
+        return sfxVolume;
+    }
+
+    /**
+     * Sets the saved volume settings (call {@link #requestSave} to write them)
+     *
+     * @param master    The master volume
+     * @param music     The music volume
+     * @param sfx       The sound effect volume
+     */
+    public void setVolumes(float master, float music, float sfx) {
+        masterVolume = master;
+        musicVolume = music;
+        sfxVolume = sfx;
+    }
+
+    /**
+     * Returns the progress through a level, creating it if needed
+     *
+     * Changes to the progress are written by the next {@link #requestSave}.
+     *
+     * @param level The level key
+     */
+    public LevelProgress getProgress(String level) {
+        LevelProgress progress = levels.get(level);
+        if (progress == null) {
+            progress = new LevelProgress();
+            levels.put(level, progress);
+        }
+        return progress;
+    }
+
+    /**
+     * Writes the current state in the background.
+     *
+     * This only copies the state, so it is safe to call in the middle of a
+     * frame. If an earlier save has not been written yet, it is replaced.
+     */
+    public void requestSave() {
+        if (writer == null) {
+            return;
+        }
+        Snapshot snapshot = new Snapshot();
+        for (ObjectMap.Entry<String, LevelProgress> entry : levels) {
+            snapshot.levels.put(entry.key, new LevelProgress(entry.value));
+        }
+        snapshot.masterVolume = masterVolume;
+        snapshot.musicVolume = musicVolume;
+        snapshot.sfxVolume = sfxVolume;
+        snapshot.binary = binary;
+        pending.set(snapshot);
+        if (!scheduled.getAndSet(true)) {
+            writer.submit(() -> {
+                scheduled.set(false);
+                Snapshot latest = pending.getAndSet(null);
+                if (latest != null) {
+                    write(latest);
+                }
+                return null;
+            });
+        }
+    }
+
+    /** Writes a snapshot (on the save thread) */
+    private static void write(Snapshot snapshot) {
+        FileHandle file = Gdx.files.local(snapshot.binary ? BINARY_FILE : JSON_FILE);
+        try {
+            byte[] bytes = snapshot.binary ? toBinary(snapshot) : toJson(snapshot).getBytes(StandardCharsets.UTF_8);
+            Path target = file.file().toPath();
+            Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+            Files.createDirectories(target.getParent());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Gdx.app.error("SaveService", "Cannot write " + file.path(), e);
+        }
+    }
+
+    /** Returns a snapshot as JSON */
+    private static String toJson(Snapshot snapshot) {
+        StringBuilder out = new StringBuilder("{\n");
+        out.append("  \"").append(SETTINGS).append("\":{\n")
+           .append("    \"master\": ").append(snapshot.masterVolume).append(",\n")
+           .append("    \"music\": ").append(snapshot.musicVolume).append(",\n")
+           .append("    \"sfx\": ").append(snapshot.sfxVolume).append("\n  }");
+        for (ObjectMap.Entry<String, LevelProgress> entry : snapshot.levels) {
+            LevelProgress level = entry.value;
+            out.append(",\n  \"").append(entry.key).append("\":{\n")
+               .append("    \"completed\": ").append(level.completed).append(",\n")
+               .append("    \"enemies-defeated\": ").append(level.enemiesDefeated).append(",\n")
+               .append("    \"shards-collected\": ").append(level.shardsCollected).append(",\n")
+               .append("    \"time-to-beat\": ").append(level.timeToBeat).append(",\n")
+               .append("    \"pos-when-last-collected\": [").append(level.x).append(", ").append(level.y).append("]\n  }");
+        }
+        return out.append("\n}\n").toString();
+    }
+
+    /** Returns a snapshot in the binary encoding */
+    private static byte[] toBinary(Snapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeFloat(snapshot.masterVolume);
+            out.writeFloat(snapshot.musicVolume);
+            out.writeFloat(snapshot.sfxVolume);
+            out.writeShort(snapshot.levels.size);
+            for (ObjectMap.Entry<String, LevelProgress> entry : snapshot.levels) {
+                LevelProgress level = entry.value;
+                out.writeUTF(entry.key);
+                out.writeBoolean(level.completed);
+                out.writeShort(level.enemiesDefeated);
+                out.writeShort(level.shardsCollected);
+                out.writeFloat(level.timeToBeat);
+                out.writeFloat(level.x);
+                out.writeFloat(level.y);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Reads the save, if there is one (a damaged save is ignored) */
+    private void load() {
+        FileHandle json = Gdx.files.local(JSON_FILE);
+        FileHandle bin = Gdx.files.local(BINARY_FILE);
+        FileHandle first = binary ? bin : json;
+        FileHandle second = binary ? json : bin;
+        for (FileHandle file : new FileHandle[] {first, second}) {
+            if (!file.exists()) {
+                continue;
+            }
+            try {
+                if (file == bin) {
+                    readBinary(file);
+                } else {
+                    readJson(file);
+                }
+                return;
+            } catch (IOException | RuntimeException e) {
+                Gdx.app.error("SaveService", "Ignoring damaged save " + file.path(), e);
+                levels.clear();
+            }
+        }
+    }
+
+    private void readJson(FileHandle file) {
+        JsonValue root = new JsonReader().parse(file);
+        for (JsonValue entry : root) {
+            if (entry.name().equals(SETTINGS)) {
+                masterVolume = entry.getFloat("master", 1.0f);
+                musicVolume = entry.getFloat("music", 1.0f);
+                sfxVolume = entry.getFloat("sfx", 1.0f);
+                continue;
+            }
+            LevelProgress level = getProgress(entry.name());
+            level.completed = entry.getBoolean("completed", false);
+            level.enemiesDefeated = entry.getInt("enemies-defeated", 0);
+            level.shardsCollected = entry.getInt("shards-collected", 0);
+            level.timeToBeat = entry.getFloat("time-to-beat", -1);
+            JsonValue pos = entry.get("pos-when-last-collected");
+            if (pos == null) {
+                pos = entry.get("pos-last-shard");
+            }
+            if (pos != null) {
+                level.x = pos.getFloat(0);
+                level.y = pos.getFloat(1);
+            }
+        }
+    }
+
+    private void readBinary(FileHandle file) throws IOException {
+        try (DataInputStream in = new DataInputStream(file.read(1024))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new GdxRuntimeException("Not a save file");
+            }
+            masterVolume = in.readFloat();
+            musicVolume = in.readFloat();
+            sfxVolume = in.readFloat();
+            for (int n = in.readShort(); n > 0; n--) {
+                LevelProgress level = getProgress(in.readUTF());
+                level.completed = in.readBoolean();
+                level.enemiesDefeated = in.readShort();
+                level.shardsCollected = in.readShort();
+                level.timeToBeat = in.readFloat();
+                level.x = in.readFloat();
+                level.y = in.readFloat();
+            }
+        }
+    }
+
+    /** Finishes any pending write and stops the save thread */
+    public void dispose() {
+        if (writer != null) {
+            // Waits for the queued write
+            writer.dispose();
+            writer = null;
+        }
+        instance = null;
+    }
+}
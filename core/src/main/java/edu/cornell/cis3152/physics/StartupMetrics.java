@@ -0,0 +1,72 @@
+package edu.cornell.cis3152.physics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Measures how long the game took to start and how much memory it holds.
+ *
+ * The time is measured from process start (not from main), so it includes
+ * the JVM boot that a native image skips. Resident memory comes from
+ * /proc/self/status, so it is only known on Linux. Both work the same in the
+ * JVM and in a native image, which makes their reports directly comparable.
+ */
+public class StartupMetrics {
+    /** Tag of the report line (the compareStartup task looks for it) */
+    public static final String TAG = "Startup";
+
+    private StartupMetrics() {}
+
+    /** Returns the milliseconds since the process started, or -1 if unknown */
+    public static long getUptimeMillis() {
+        Optional<Instant> start = ProcessHandle.current().info().startInstant();
+        return start.map(instant -> Duration.between(instant, Instant.now()).toMillis()).orElse(-1L);
+    }
+
+    /** Returns the resident memory in kilobytes, or -1 if unknown */
+    public static long getResidentKilobytes() {
+        return readStatus("VmRSS:");
+    }
+
+    /** Returns the peak resident memory in kilobytes, or -1 if unknown */
+    public static long getPeakResidentKilobytes() {
+        return readStatus("VmHWM:");
+    }
+
+    /** Returns a kilobyte value from /proc/self/status, or -1 if there is none */
+    private static long readStatus(String key) {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith(key)) {
+                    return Long.parseLong(line.substring(key.length()).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a one line report for the log
+     *
+     * @param milestone What the game has just finished
+     */
+    public static String describe(String milestone) {
+        boolean nativeImage = !System.getProperty("org.graalvm.nativeimage.imagecode", "").isEmpty();
+        long heap = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        return milestone + " in " + getUptimeMillis() + " ms"
+               + " rss=" + toMegabytes(getResidentKilobytes())
+               + " peak=" + toMegabytes(getPeakResidentKilobytes())
+               + " heap=" + toMegabytes(heap / 1024)
+               + " runtime=" + (nativeImage ? "native" : "jvm");
+    }
+
+    private static String toMegabytes(long kilobytes) {
+        return (kilobytes < 0) ? "?" : (kilobytes / 1024) + "MB";
+    }
+}
@@ -0,0 +1,263 @@
+package edu.cornell.cis3152.physics;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses large images into S3TC (DXT5) textures in KTX files.
+ *
+ * This runs at build time (the Gradle task {@code compressTextures}). Every
+ * image over {@link #MIN_BYTES} in the given folders gets a .zktx (a gzipped
+ * KTX file) beside it, which {@link CompressedTextureLoader} uploads as is
+ * instead of decoding the image to RGBA8. DXT5 is a quarter the size of RGBA8
+ * in video memory and is supported by every desktop GL driver.
+ *
+ * The encoder is a simple bounding box fit per 4x4 block. It is fast and good
+ * enough for sprite sheets, but not as sharp as an offline tool.
+ *
+ * Usage: TextureCompressor assets-folder folder...
+ */
+public class TextureCompressor {
+    /** Smaller images are not worth compressing */
+    public static final long MIN_BYTES = 256 * 1024;
+    /** GL_COMPRESSED_RGBA_S3TC_DXT5_EXT */
+    public static final int GL_COMPRESSED_RGBA_S3TC_DXT5 = 0x83F3;
+    /** GL_RGBA */
+    private static final int GL_RGBA = 0x1908;
+    /** The KTX 1.1 file identifier */
+    private static final byte[] KTX_IDENTIFIER = {
+        (byte) 0xAB, 0x4B, 0x54, 0x58, 0x20, 0x31, 0x31, (byte) 0xBB, 0x0D, 0x0A, 0x1A, 0x0A
+    };
+
+    public static void main(String[] args) throws IOException {
+        File assets = new File(args.length > 0 ? args[0] : "assets");
+        for (int i = 1; i < args.length; i++) {
+            File[] images = new File(assets, args[i]).listFiles((dir, name) -> name.endsWith(".png"));
+            if (images == null) {
+                continue;
+            }
+            for (File image : images) {
+                File out = toCompressedFile(image);
+                if (image.length() < MIN_BYTES || out.lastModified() > image.lastModified()) {
+                    continue;
+                }
+                BufferedImage source = ImageIO.read(image);
+                if (source == null) {
+                    System.err.println("Cannot read " + image);
+                    continue;
+                }
+                write(source, out);
+                System.out.println(args[i] + "/" + image.getName() + " -> " + out.getName()
+                                   + " (" + image.length() / 1024 + " KB -> " + out.length() / 1024 + " KB)");
+            }
+        }
+    }
+
+    /**
+     * Returns the compressed file for an image
+     *
+     * @param image The image file
+     */
+    public static File toCompressedFile(File image) {
+        String name = image.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(image.getParentFile(), (dot < 0 ? name : name.substring(0, dot)) + ".zktx");
+    }
+
+    /**
+     * Writes an image as a single level DXT5 KTX file, gzipped
+     *
+     * The gzip stream starts with the size of the KTX file, as libGDX expects.
+     *
+     * @param image The image
+     * @param file  The file to write
+     */
+    public static void write(BufferedImage image, File file) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] blocks = compress(image);
+
+        ByteBuffer header = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(KTX_IDENTIFIER);
+        header.putInt(0x04030201);                  // endianness
+        header.putInt(0);                           // glType (compressed)
+        header.putInt(1);                           // glTypeSize
+        header.putInt(0);                           // glFormat (compressed)
+        header.putInt(GL_COMPRESSED_RGBA_S3TC_DXT5);
+        header.putInt(GL_RGBA);                     // glBaseInternalFormat
+        header.putInt(width);
+        header.putInt(height);
+        header.putInt(0);                           // pixelDepth
+        header.putInt(0);                           // numberOfArrayElements
+        header.putInt(1);                           // numberOfFaces
+        header.putInt(1);                           // numberOfMipmapLevels
+        header.putInt(0);                           // bytesOfKeyValueData
+
+        ByteBuffer size = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        size.putInt(blocks.length);
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(file))))) {
+            out.writeInt(header.capacity() + size.capacity() + blocks.length);
+            out.write(header.array());
+            out.write(size.array());
+            out.write(blocks);
+        }
+    }
+
+    /**
+     * Returns the DXT5 blocks of an image, top row first
+     *
+     * @param image The image
+     */
+    public static byte[] compress(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int across = (width + 3) / 4;
+        int down = (height + 3) / 4;
+        byte[] out = new byte[across * down * 16];
+
+        int[] block = new int[16];
+        int pos = 0;
+        for (int by = 0; by < down; by++) {
+            for (int bx = 0; bx < across; bx++) {
+                for (int i = 0; i < 16; i++) {
+                    // Edge blocks repeat the last row and column
+                    int x = Math.min(bx * 4 + (i & 3), width - 1);
+                    int y = Math.min(by * 4 + (i >> 2), height - 1);
+                    block[i] = image.getRGB(x, y);
+                }
+                encodeAlpha(block, out, pos);
+                encodeColor(block, out, pos + 8);
+                pos += 16;
+            }
+        }
+        return out;
+    }
+
+    /** Writes the 8 byte alpha half of a DXT5 block */
+    private static void encodeAlpha(int[] block, byte[] out, int pos) {
+        int max = 0;
+        int min = 255;
+        for (int argb : block) {
+            int a = argb >>> 24;
+            max = Math.max(max, a);
+            min = Math.min(min, a);
+        }
+        out[pos] = (byte) max;
+        out[pos + 1] = (byte) min;
+
+        long bits = 0;
+        if (max > min) {
+            // The eight alpha levels, indexed as the decoder does
+            int[] palette = new int[8];
+            palette[0] = max;
+            palette[1] = min;
+            for (int i = 1; i < 7; i++) {
+                palette[i + 1] = ((7 - i) * max + i * min) / 7;
+            }
+            for (int i = 0; i < 16; i++) {
+                bits |= (long) nearest(palette, block[i] >>> 24) << (3 * i);
+            }
+        }
+        for (int i = 0; i < 6; i++) {
+            out[pos + 2 + i] = (byte) (bits >>> (8 * i));
+        }
+    }
+
+    /** Writes the 8 byte color half of a DXT5 block */
+    private static void encodeColor(int[] block, byte[] out, int pos) {
+        int[] lo = {255, 255, 255};
+        int[] hi = {0, 0, 0};
+        boolean opaque = false;
+        for (int argb : block) {
+            opaque |= (argb >>> 24) != 0;
+        }
+        for (int argb : block) {
+            // Fully transparent pixels can be any color
+            if (opaque && (argb >>> 24) == 0) {
+                continue;
+            }
+            for (int c = 0; c < 3; c++) {
+                int value = (argb >> (16 - 8 * c)) & 0xFF;
+                lo[c] = Math.min(lo[c], value);
+                hi[c] = Math.max(hi[c], value);
+            }
+        }
+        // Pull the ends in a little, which lowers the average error
+        for (int c = 0; c < 3; c++) {
+            int inset = (hi[c] - lo[c]) >> 4;
+            lo[c] += inset;
+            hi[c] -= inset;
+        }
+
+        int c0 = to565(hi);
+        int c1 = to565(lo);
+        int[][] palette = new int[4][];
+        palette[0] = from565(c0);
+        palette[1] = from565(c1);
+        palette[2] = new int[3];
+        palette[3] = new int[3];
+        for (int c = 0; c < 3; c++) {
+            palette[2][c] = (2 * palette[0][c] + palette[1][c]) / 3;
+            palette[3][c] = (palette[0][c] + 2 * palette[1][c]) / 3;
+        }
+
+        int bits = 0;
+        for (int i = 0; i < 16; i++) {
+            int r = (block[i] >> 16) & 0xFF;
+            int g = (block[i] >> 8) & 0xFF;
+            int b = block[i] & 0xFF;
+            int best = 0;
+            int bestError = Integer.MAX_VALUE;
+            for (int j = 0; j < 4; j++) {
+                int dr = r - palette[j][0];
+                int dg = g - palette[j][1];
+                int db = b - palette[j][2];
+                int error = dr * dr + dg * dg + db * db;
+                if (error < bestError) {
+                    bestError = error;
+                    best = j;
+                }
+            }
+            bits |= best << (2 * i);
+        }
+
+        out[pos] = (byte) c0;
+        out[pos + 1] = (byte) (c0 >> 8);
+        out[pos + 2] = (byte) c1;
+        out[pos + 3] = (byte) (c1 >> 8);
+        for (int i = 0; i < 4; i++) {
+            out[pos + 4 + i] = (byte) (bits >>> (8 * i));
+        }
+    }
+
+    /** Returns the index of the palette value nearest the given value */
+    private static int nearest(int[] palette, int value) {
+        int best = 0;
+        for (int i = 1; i < palette.length; i++) {
+            if (Math.abs(palette[i] - value) < Math.abs(palette[best] - value)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static int to565(int[] rgb) {
+        return ((rgb[0] * 31 + 127) / 255) << 11 | ((rgb[1] * 63 + 127) / 255) << 5 | ((rgb[2] * 31 + 127) / 255);
+    }
+
+    private static int[] from565(int color) {
+        int r = (color >> 11) & 31;
+        int g = (color >> 5) & 63;
+        int b = color & 31;
+        return new int[] {(r << 3) | (r >> 2), (g << 2) | (g >> 4), (b << 3) | (b >> 2)};
+    }
+}
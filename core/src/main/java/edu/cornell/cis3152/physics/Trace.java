@@ -0,0 +1,123 @@
+package edu.cornell.cis3152.physics;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * A timeline of named spans, for finding where startup and level switches go.
+ *
+ * Code marks a span with {@link #begin} and {@link #end}, in a try/finally so
+ * that the span closes on exceptions too. Spans nest, and may be recorded on
+ * any thread. Events go into a fixed ring buffer, so recording never allocates
+ * and the oldest events are dropped once the buffer is full. Only one-off work
+ * (loading, building, compiling) is traced, so the buffer holds the whole
+ * startup and many level switches.
+ *
+ * {@link #export} writes the buffer as Chrome trace-event JSON, which opens in
+ * chrome://tracing or https://ui.perfetto.dev.
+ */
+public class Trace {
+    /** Most events kept (a span is two events) */
+    private static final int CAPACITY = 8192;
+    /** Begin phase in the trace-event format */
+    private static final char BEGIN = 'B';
+    /** End phase in the trace-event format */
+    private static final char END = 'E';
+
+    /** Event times are relative to this, so the trace starts near zero */
+    private static final long ORIGIN = System.nanoTime();
+
+    private static final String[] names = new String[CAPACITY];
+    private static final long[] times = new long[CAPACITY];
+    private static final long[] threads = new long[CAPACITY];
+    private static final char[] phases = new char[CAPACITY];
+    /** Total events recorded (the next slot is count % CAPACITY) */
+    private static long count;
+    /** The name of every thread that recorded an event */
+    private static final LongMap<String> threadNames = new LongMap<>();
+
+    private Trace() {}
+
+    /**
+     * Starts a span on the current thread
+     *
+     * @param name  The name of the span
+     */
+    public static void begin(String name) {
+        record(name, BEGIN);
+    }
+
+    /** Ends the innermost open span of the current thread */
+    public static void end() {
+        record(null, END);
+    }
+
+    private static synchronized void record(String name, char phase) {
+        Thread thread = Thread.currentThread();
+        int slot = (int) (count++ % CAPACITY);
+        names[slot] = name;
+        times[slot] = System.nanoTime() - ORIGIN;
+        threads[slot] = thread.getId();
+        phases[slot] = phase;
+        if (!threadNames.containsKey(thread.getId())) {
+            threadNames.put(thread.getId(), thread.getName());
+        }
+    }
+
+    /** Forgets every event recorded so far */
+    public static synchronized void clear() {
+        count = 0;
+    }
+
+    /**
+     * Returns the recorded events as Chrome trace-event JSON.
+     *
+     * Spans still open are left open, which the viewers draw to the end of
+     * the trace.
+     */
+    public static synchronized String toJson() {
+        StringBuilder out = new StringBuilder();
+        out.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        boolean first = true;
+        for (LongMap.Entry<String> entry : threadNames) {
+            if (!first) {
+                out.append(",\n");
+            }
+            first = false;
+            out.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(entry.key)
+               .append(",\"args\":{\"name\":\"").append(escape(entry.value)).append("\"}}");
+        }
+        long start = Math.max(0, count - CAPACITY);
+        for (long i = start; i < count; i++) {
+            int slot = (int) (i % CAPACITY);
+            if (!first) {
+                out.append(",\n");
+            }
+            first = false;
+            out.append("{\"ph\":\"").append(phases[slot]).append('"');
+            if (names[slot] != null) {
+                out.append(",\"name\":\"").append(escape(names[slot])).append('"');
+            }
+            // Microseconds, as the format expects
+            out.append(",\"ts\":").append(times[slot] / 1000).append('.')
+               .append(String.format("%03d", times[slot] % 1000))
+               .append(",\"pid\":1,\"tid\":").append(threads[slot]).append('}');
+        }
+        out.append("\n]}\n");
+        return out.toString();
+    }
+
+    /**
+     * Writes the recorded events as Chrome trace-event JSON
+     *
+     * @param file  The file to write
+     */
+    public static void export(FileHandle file) {
+        file.writeString(toJson(), false);
+    }
+
+    /** Returns a string safe to put in JSON quotes */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -22,8 +22,6 @@ import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.Filter;
 import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.utils.JsonValue;
-import edu.cornell.gdiac.assets.ParserUtils;
 import edu.cornell.gdiac.graphics.SpriteBatch;
 import edu.cornell.gdiac.physics2.Obstacle;
 import edu.cornell.gdiac.physics2.ObstacleSprite;
@@ -51,10 +49,10 @@ public class Bullet extends ObstacleSprite {
      * @param settings  The bullet physics constants
      * @param pos       Traci's position
      */
-    public Bullet(float units, JsonValue settings, Vector2 pos, Vector2 angle, Texture animation) {
-        float offset = settings.getFloat( "offset", 0 );
+    public Bullet(float units, LevelConfig.Projectile settings, Vector2 pos, Vector2 angle, Texture animation) {
+        float offset = settings.offset;
         Vector2 v_offset = angle.scl(offset);
-        float s = settings.getFloat( "size" );
+        float s = settings.size;
         float radius = s * units / 2.0f;
         this.angle = angle;
 
@@ -69,13 +67,13 @@ public class Bullet extends ObstacleSprite {
         obstacle.setUserData( this );
         obstacle.setName( "bullet" );
 
-        speed = settings.getFloat( "speed", 0 );
+        speed = settings.speed;
         float vx = speed * angle.x;
         float vy = speed * angle.y;
 
         obstacle.setVX( vx );
         obstacle.setVY( vy );
-        debug = ParserUtils.parseColor( settings.get( "debug" ), Color.WHITE );
+        debug = (settings.debugColor == null) ? Color.WHITE : settings.debugColor;
 
         // While the bullet is a circle, we want to create a rectangular mesh.
         // That is because the image is a rectangle. The width/height of the
@@ -115,8 +113,7 @@ public class Bullet extends ObstacleSprite {
     @Override
     public void draw(SpriteBatch batch) {
 
-        TextureRegion frame = new TextureRegion();
-        frame = bulletSprite.getCurrentFrame(Gdx.graphics.getDeltaTime());
+        TextureRegion frame = bulletSprite.getCurrentFrame(Gdx.graphics.getDeltaTime());
 
         float u = obstacle.getPhysicsUnits();
         float posX = obstacle.getX() * u;
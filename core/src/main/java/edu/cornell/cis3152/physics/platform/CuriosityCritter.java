@@ -8,9 +8,7 @@ import com.badlogic.gdx.physics.box2d.*;
 
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJoint;
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJointDef;
-import com.badlogic.gdx.utils.JsonValue;
-import edu.cornell.gdiac.assets.AssetDirectory;
-import edu.cornell.gdiac.assets.ParserUtils;
+import edu.cornell.cis3152.physics.platform.aiperception.Stimulus;
 import edu.cornell.gdiac.graphics.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import edu.cornell.gdiac.graphics.Texture2D;
@@ -22,7 +20,7 @@ import static edu.cornell.cis3152.physics.platform.CollisionFiltering.*;
 
 public class CuriosityCritter extends Enemy {
     /** Json constants for parameters */
-    private final JsonValue data;
+    private final LevelConfig.Actor data;
 
     /** physics stuff */
     private float width;
@@ -41,17 +39,27 @@ public class CuriosityCritter extends Enemy {
     // Caches for force calculation and affine transform for sprite flipping
     private final Vector2 velocityCache = new Vector2();
     private final Affine2 flipCache = new Affine2();
+    // Caches for the ray checks made every frame
+    private final Vector2 stepStartCache = new Vector2();
+    private final Vector2 stepEndCache = new Vector2();
+    private final Vector2 rayStartCache = new Vector2();
+    private final Vector2 rayEndCache = new Vector2();
+    private final Vector2 stairHitCache = new Vector2();
+    private final Vector2 wallStartCache = new Vector2();
+    private final Vector2 wallEndCache = new Vector2();
+    private final EnemyVisionRaycast followRaycast =
+        new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.PLAYER_CHECK, 4f);
+    private final EnemyVisionRaycast wallRaycast;
+    private final EnemyVisionRaycast groundRaycast;
 
     private PathFactory factory = new PathFactory();
 
 
     /** game logic stuff */
-    private Vector2 debugLookStart = new Vector2();
-    private Vector2 debugLookEnd = new Vector2();
     private Vector2 debugFollowStart = new Vector2();
     private Vector2 debugFollowEnd = new Vector2();
-    private Vector2 debugGroundStart = new Vector2();
-    private Vector2 debugGroundEnd = new Vector2();
+    private final Vector2 debugGroundStart = new Vector2();
+    private final Vector2 debugGroundEnd = new Vector2();
 
     private boolean hasShard;
     // where to move the shard(ideally) in world positions if this critter is carrying it
@@ -130,32 +138,30 @@ public class CuriosityCritter extends Enemy {
         stunnedSprite = new Animator(texture, 8, 20, 0.06f, 149, 125, 148, false);
     }
 
-    public CuriosityCritter(float units, JsonValue data, float[] points, PlatformScene scene) {
+    public CuriosityCritter(float units, LevelConfig.Actor data, float[] points, PlatformScene scene) {
         super();
         this.data = data;
         // Read initial position and overall size from JSON.
         float x = points[0];
         float y = points[1];
-        float s = data.getFloat("size");
+        float s = data.size;
 
         this.scene = scene;
 
         float size = s * units;
 
-        width  = s * data.get("inner").getFloat(0);
-        height = s * data.get("inner").getFloat(1);
+        width  = s * data.innerWidth;
+        height = s * data.innerHeight;
 
         float drawWidth  = size/2;
         float drawHeight = size;
 
         // may want to change what kind of physical obstacle this is
         obstacle = new BoxObstacle(x, y, width, height);
-        // Optionally set a tolerance for collision detection (from JSON debug info)
-        JsonValue debugInfo = data.get("debug");
 
         obstacle.setDensity(100000);
-        obstacle.setFriction(data.getFloat("friction", 0));
-        obstacle.setRestitution(data.getFloat("restitution", 0));
+        obstacle.setFriction(data.friction);
+        obstacle.setRestitution(data.restitution);
         obstacle.setFixedRotation(true);
         obstacle.setPhysicsUnits(units);
         obstacle.setUserData(this);
@@ -163,17 +169,23 @@ public class CuriosityCritter extends Enemy {
         obstacle.setName("critter");
 
         // Set debugging colors
-        debug = ParserUtils.parseColor(debugInfo.get("avatar"), Color.WHITE);
-        sensorColor = ParserUtils.parseColor(debugInfo.get("sensor"), Color.WHITE);
+        debug = data.debugColor;
+        sensorColor = data.sensorColor;
 
-        max_speed   = data.getFloat("maxspeed", 0);
-        damping    = data.getFloat("damping", 0);
-        force      = data.getFloat("force", 0);
+        max_speed   = data.maxSpeed;
+        damping    = data.damping;
+        force      = data.force;
 
         isGrounded  = true;
         facingRight   = true;
         stepRayLength = height;
         enemyVisionRaycast = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.STAIR_CHECK, stepRayLength);
+        wallRaycast = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.WALL_CHECK, stepRayLength);
+        groundRaycast = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.FALL_CHECK, stepRayLength);
+
+        senses = Stimulus.Type.VISIBLE.bit | Stimulus.Type.NOISE.bit | Stimulus.Type.SHARD_MOVED.bit;
+        visionRange = 5.2f;
+        visionCone = 30;
 
 
         mesh.set(-drawWidth/1.5f, -drawHeight/1.3f, drawWidth*1.5f, drawHeight*1.5f);
@@ -183,13 +195,13 @@ public class CuriosityCritter extends Enemy {
 
 
 
-    public void setActiveTexture(AssetDirectory directory){
-        Texture texture = directory.getEntry( "curiosity-critter-active", Texture.class );
+    public void setActiveTexture(){
+        Texture texture = LevelAssets.getInstance().get("curiosity-critter-active", Texture.class);
         this.setTexture(texture);
     }
 
-    public void setStunTexture(AssetDirectory directory){
-        Texture texture = directory.getEntry( "curiosity-critter-inactive", Texture.class );
+    public void setStunTexture(){
+        Texture texture = LevelAssets.getInstance().get("curiosity-critter-inactive", Texture.class);
         this.setTexture(texture);
     }
 
@@ -202,13 +214,12 @@ public class CuriosityCritter extends Enemy {
         // Position the sensor just below the physics body.
         Vector2 sensorCenter = new Vector2(0, -height / 2);
         FixtureDef sensorDef = new FixtureDef();
-        sensorDef.density = data.getFloat("density", 0);
+        sensorDef.density = data.density;
         sensorDef.isSensor = true;
 
         // Get sensor configuration from JSON (e.g., size adjustments)
-        JsonValue sensorjv = data.get("sensor");
-        float w = sensorjv.getFloat("shrink", 0) * width / 2.0f;
-        float h = sensorjv.getFloat("height", 0);
+        float w = data.sensorShrink * width / 2.0f;
+        float h = data.sensorHeight;
         PolygonShape sensorShape = new PolygonShape();
         sensorShape.setAsBox(w, h, sensorCenter, 0.0f);
         sensorDef.shape = sensorShape;
@@ -287,9 +298,9 @@ public class CuriosityCritter extends Enemy {
             return false;
         }
         Vector2 start = (isFacingRight()) ?
-            obstacle.getBody().getPosition().cpy().add(width/2 + 0.1f, height/2) :
-            obstacle.getBody().getPosition().cpy().add(-width/2 - 0.1f, height/2);
-        Vector2 end = start.cpy().add(0, -raylength);
+            stepStartCache.set(obstacle.getBody().getPosition()).add(width/2 + 0.1f, height/2) :
+            stepStartCache.set(obstacle.getBody().getPosition()).add(-width/2 - 0.1f, height/2);
+        Vector2 end = stepEndCache.set(start).add(0, -raylength);
 
 
         debugRayStart = start;
@@ -303,7 +314,7 @@ public class CuriosityCritter extends Enemy {
         } else if (!enemyVisionRaycast.fixtureIsStair) {
             return false;
         } else {
-            Vector2 stairHit = new Vector2(enemyVisionRaycast.getHitPoint());
+            Vector2 stairHit = stairHitCache.set(enemyVisionRaycast.getHitPoint());
             debugRayEnd = stairHit;
             if (isGrounded && Math.abs(movement) > 0) {
 
@@ -331,15 +342,14 @@ public class CuriosityCritter extends Enemy {
         float followSensorAngle = MathUtils.atan2(player.getObstacle().getPosition().y - pos.y,
             player.getObstacle().getPosition().x - pos.x);
 
-        Vector2 start = (facingRight) ? new Vector2(pos.x + width/2, pos.y + height/4) :
-            new Vector2(pos.x - width/2, pos.y + height/4);
-        new Vector2(pos.x - width - rayLength, pos.y + height/4);
-        Vector2 end = new Vector2(
+        Vector2 start = (facingRight) ? rayStartCache.set(pos.x + width/2, pos.y + height/4) :
+            rayStartCache.set(pos.x - width/2, pos.y + height/4);
+        Vector2 end = rayEndCache.set(
             pos.x + rayLength * MathUtils.cos(followSensorAngle),
             pos.y + rayLength * MathUtils.sin(followSensorAngle)
         );
 
-        EnemyVisionRaycast playerFollowRaycast = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.PLAYER_CHECK, 4f);
+        EnemyVisionRaycast playerFollowRaycast = followRaycast;
         world.rayCast(playerFollowRaycast, start, end);
 
         debugFollowStart.set(start);
@@ -359,64 +369,40 @@ public class CuriosityCritter extends Enemy {
         return playerVisible;
     }
 
-    public void lookForPlayer() {
-        World world = obstacle.getBody().getWorld();
-        Player player = scene.getAvatar();
+    @Override
+    public Vector2 getEyePosition(Vector2 out) {
         Vector2 pos = obstacle.getPosition();
-        float rayLength = 5.2f;
-        Vector2 start, end;
-
-        start = (facingRight) ? new Vector2(pos.x + width/2, pos.y + height/4) :
-            new Vector2(pos.x - width/2, pos.y + height/4);
-
-        float angleToPlayer = MathUtils.atan2(
-            player.getObstacle().getPosition().y - pos.y,
-            player.getObstacle().getPosition().x - pos.x
-        );
-
-        float forwardAngle = facingRight ? 0 : MathUtils.PI;
-
-        if (isAwareOfPlayer()) {
-            // If aware, track player
-            end = new Vector2(
-                pos.x + rayLength * MathUtils.cos(angleToPlayer),
-                pos.y + rayLength * MathUtils.sin(angleToPlayer)
-            );
-            System.out.println("Track mode");
-        } else {
-            // If not aware, +-30 degree
-            float maxAngleOffset = 30 * MathUtils.degreesToRadians; // 30 degrees in radians
-
-            float angleDiff = angleToPlayer - forwardAngle;
-            if (angleDiff > MathUtils.PI) angleDiff -= MathUtils.PI2;
-            if (angleDiff < -MathUtils.PI) angleDiff += MathUtils.PI2;
-
-            float clampedDiff = MathUtils.clamp(angleDiff, -maxAngleOffset, maxAngleOffset);
+        return out.set(pos.x + (facingRight ? width/2 : -width/2), pos.y + height/4);
+    }
 
-            float clampedAngle = forwardAngle + clampedDiff;
+    /**
+     * Returns the half angle of the vision cone in degrees.
+     *
+     * An aware critter tracks the player wherever they are.
+     */
+    @Override
+    public float getVisionCone() {
+        return isAwareOfPlayer() ? 180 : visionCone;
+    }
 
-            end = new Vector2(
-                pos.x + rayLength * MathUtils.cos(clampedAngle),
-                pos.y + rayLength * MathUtils.sin(clampedAngle)
-            );
+    @Override
+    public void perceive(Stimulus stimulus) {
+        super.perceive(stimulus);
+        // Turn toward noises it did not see coming
+        if (stimulus.getType() == Stimulus.Type.NOISE && !isAwareOfPlayer() && !hasShard) {
+            facingRight = stimulus.getX() > obstacle.getX();
         }
+    }
 
-        EnemyVisionRaycast playerRaycast = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.PLAYER_CHECK, 4f);
-        world.rayCast(playerRaycast, start, end);
-
-        debugLookStart.set(start);
-        debugLookEnd.set(end);
-
-        boolean isAware = (playerRaycast.getHitPlayer() != null);
-        if (isAware) {
+    /**
+     * Critters only notice the player here. Losing them is handled by the
+     * follow raycast in update.
+     */
+    @Override
+    public void endPerception() {
+        if (seesPlayer) {
             setAwareOfPlayer(true);
-            debugLookEnd.set(playerRaycast.getHitPoint());
-
-        } else if (playerRaycast.getHitFixture() != null) {
-            debugLookEnd.set(playerRaycast.getHitPoint());
         }
-
-        playerRaycast.reset();
     }
 
     public boolean canContinue() {
@@ -426,21 +412,17 @@ public class CuriosityCritter extends Enemy {
         float groundRayLength = stepRayLength * 4.5f;
         float wallRayLength = width * 0.5f;
 
-        debugGroundStart = (facingRight) ? new Vector2(pos.x + width * 1.5f, pos.y) :
-            new Vector2(pos.x - width * 1.5f, pos.y);
-        Vector2 wallStart = (facingRight) ? new Vector2(pos.x + width/2, pos.y) :
-            new Vector2(pos.x - width/2, pos.y);
+        debugGroundStart.set(facingRight ? pos.x + width * 1.5f : pos.x - width * 1.5f, pos.y);
+        Vector2 wallStart = wallStartCache.set(facingRight ? pos.x + width/2 : pos.x - width/2, pos.y);
 
-        debugGroundEnd = debugGroundStart.cpy().add(0, -groundRayLength);
-        EnemyVisionRaycast wallVisionRaycast =
-            new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.WALL_CHECK, stepRayLength);
-        EnemyVisionRaycast groundVisionRaycast =
-            new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.FALL_CHECK, stepRayLength);
+        debugGroundEnd.set(debugGroundStart).add(0, -groundRayLength);
+        EnemyVisionRaycast wallVisionRaycast = wallRaycast;
+        EnemyVisionRaycast groundVisionRaycast = groundRaycast;
         world.rayCast(groundVisionRaycast, debugGroundStart, debugGroundEnd);
         boolean groundExists = (groundVisionRaycast.getHitFixture() != null);
         groundVisionRaycast.reset();
 
-        Vector2 wallEnd = new Vector2();
+        Vector2 wallEnd = wallEndCache;
         if (isFacingRight()) {
             wallEnd.set(wallStart).add(wallRayLength, 0);
         } else {
@@ -479,7 +461,6 @@ public class CuriosityCritter extends Enemy {
 
     @Override
     public void update(float dt) {
-        lookForPlayer();
         if (isPlatformStep(scene.world, stepRayLength)) {
             System.out.println("Critter's seen a step");
         }
@@ -650,6 +631,33 @@ public class CuriosityCritter extends Enemy {
         return worldTarget;
     }
 
+    @Override
+    public void captureSnapshot() {
+        super.captureSnapshot();
+        snapshot.safeToWalk = safeToWalk;
+        snapshot.playerInFollowRange = playerInFollowRange;
+        snapshot.inMoveTask = inMoveTask;
+        snapshot.holdingShard = (heldShard != null);
+        snapshot.hasDropTarget = (worldTarget != null);
+        if (worldTarget != null) {
+            snapshot.dropTarget.set(worldTarget);
+        }
+
+        // the closest shard, for when this critter decides to move one
+        Vector2 pos = obstacle.getPosition();
+        float bestDist = Float.MAX_VALUE;
+        snapshot.hasNearestShard = false;
+        for (int i = 0; i < scene.getTotalShards(); i++) {
+            Vector2 p = scene.getShardPos(i);
+            float d = pos.dst(p);
+            if (d < bestDist) {
+                bestDist = d;
+                snapshot.nearestShard.set(p);
+                snapshot.hasNearestShard = true;
+            }
+        }
+    }
+
     private float stunTimer;
     private float stunAnimTime = 0f;
     public Body getHeadBody() {
@@ -658,7 +666,7 @@ public class CuriosityCritter extends Enemy {
     public void getStunned() {
         if (!inStunAnimation) {
             stunnedSprite.reset();
-            inStunAnimation = true;
+            setStunned(true);
             setMovement(0);
             applyForce();
             setAwareOfPlayer(false);
@@ -667,7 +675,10 @@ public class CuriosityCritter extends Enemy {
     }
 
     public void setStunned(boolean stunned) {
-        inStunAnimation = stunned;
+        if (inStunAnimation != stunned) {
+            inStunAnimation = stunned;
+            notifyAI(stunned ? MessageType.ENEMY_STUNNED : MessageType.ENEMY_RECOVERED);
+        }
     }
 
     public boolean isStunned() {
@@ -682,4 +693,25 @@ public class CuriosityCritter extends Enemy {
         this.inAttackAnimation = val;
     }
 
+    @Override
+    public void saveState(WorldSnapshot out) {
+        super.saveState(out);
+        out.putBoolean(hasShard);
+        out.putObject(heldShard);
+        out.putObject(worldTarget);
+        out.putBoolean(isChasing);
+        out.putFloat(stunTimer);
+        out.putInt(climbCounter);
+    }
+
+    @Override
+    public void loadState(WorldSnapshot in) {
+        super.loadState(in);
+        hasShard = in.getBoolean();
+        heldShard = in.getObject();
+        worldTarget = in.getObject();
+        isChasing = in.getBoolean();
+        stunTimer = in.getFloat();
+        climbCounter = in.getInt();
+    }
 }
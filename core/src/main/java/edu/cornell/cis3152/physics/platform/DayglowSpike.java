@@ -42,7 +42,26 @@ public class DayglowSpike extends ObstacleSprite {
     private static final Color LASER_CHARGING_COLOR = Color.YELLOW;
     private static final Color LASER_DEBUG_RAY_COLOR = Color.MAGENTA;
     private Vector2 debugRayStart, debugRayEnd;
-    private Vector2 rayStart, rayEnd;
+    private Vector2 rayStart;
+    /** The end of the detection ray (reused every frame) */
+    private final Vector2 rayEnd = new Vector2();
+    /** Whether the last detection ray reached the player */
+    private boolean playerDetected;
+    /** Checks the detection ray for the player */
+    private final RayCastCallback playerCheck = new RayCastCallback() {
+        @Override
+        public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
+            if (fixture.isSensor()) return 1;
+            if (fixture.getBody().getUserData() instanceof Surface) {
+                //stop looking, don't really need to do much with the surface
+                return 0;
+            } else if (fixture.getBody().getUserData() instanceof Player) {
+                playerDetected = true;
+                return 0;
+            }
+            return fraction; // Continue the raycast
+        }
+    };
     private float height, width;
 
     private float units;
@@ -268,11 +287,10 @@ public class DayglowSpike extends ObstacleSprite {
     private boolean detectPlayer() {
         if (world == null) return false;
 
-        final boolean[] playerDetected = {false};
+        playerDetected = false;
 
         Vector2 position = obstacle.getPosition();
         debugRayStart = position;
-        Vector2 rayEnd = new Vector2();
 
 
         // Calculate ray direction based on facing
@@ -294,24 +312,9 @@ public class DayglowSpike extends ObstacleSprite {
         debugRayEnd = rayEnd;
 
         // Perform raycast to check for player
-        world.rayCast(new RayCastCallback() {
-            @Override
-            public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
-                if (fixture.isSensor()) return 1;
-                Object userData = fixture.getBody().getUserData();
-                if (fixture.getBody().getUserData() instanceof Surface) {
-                    //stop looking, don't really need to do much with the surface
-                    return 0;
-                } else if (fixture.getBody().getUserData() instanceof Player) {
-                    Player player = (Player) userData;
-                    playerDetected[0] = true;
-                    return 0;
-                }
-                return fraction; // Continue the raycast
-            }
-        }, position, rayEnd);
+        world.rayCast(playerCheck, position, rayEnd);
 
-        return playerDetected[0];
+        return playerDetected;
     }
 
     public boolean isLaserFiring() {
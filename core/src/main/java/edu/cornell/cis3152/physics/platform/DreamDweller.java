@@ -6,9 +6,7 @@ import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.physics.box2d.*;
 
-import com.badlogic.gdx.utils.JsonValue;
-import edu.cornell.gdiac.assets.AssetDirectory;
-import edu.cornell.gdiac.assets.ParserUtils;
+import edu.cornell.cis3152.physics.platform.aiperception.Stimulus;
 import edu.cornell.gdiac.graphics.SpriteBatch;
 import edu.cornell.gdiac.graphics.Texture2D;
 import edu.cornell.gdiac.math.Path2;
@@ -16,7 +14,7 @@ import edu.cornell.gdiac.math.PathFactory;
 import edu.cornell.gdiac.physics2.*;
 
 public class DreamDweller extends Enemy {
-    private final JsonValue data;
+    private final LevelConfig.Actor data;
 
     private float width;
     private float height;
@@ -38,9 +36,6 @@ public class DreamDweller extends Enemy {
     private String sensorName;
     private Path2 harvestOutline;
 
-    private final Vector2 debugLookStart = new Vector2();
-    private final Vector2 debugLookEnd = new Vector2();
-
     private float susCooldown = 20;
     private float susCountdown = susCooldown;
 
@@ -84,42 +79,41 @@ public class DreamDweller extends Enemy {
     }
 
 
-    public DreamDweller(float units, JsonValue data, float[] points, PlatformScene scene) {
+    public DreamDweller(float units, LevelConfig.Actor data, float[] points, PlatformScene scene) {
         super();
         this.data = data;
         this.scene = scene;
 
         float x = points[0];
         float y = points[1];
-        float s = data.getFloat("size");
+        float s = data.size;
 
         float size = s * units;
 
-        width = s * data.get("inner").getFloat(0);
-        height = s * data.get("inner").getFloat(1);
+        width = s * data.innerWidth;
+        height = s * data.innerHeight;
 
         float drawWidth = (float) (size / 1.5);
         float drawHeight = size * 1.2f;
 
         obstacle = new CapsuleObstacle(x, y, width, height);
-        JsonValue debugInfo = data.get("debug");
-        ((CapsuleObstacle) obstacle).setTolerance(debugInfo.getFloat("tolerance", 0.5f));
+        ((CapsuleObstacle) obstacle).setTolerance(data.tolerance);
 
-        obstacle.setDensity(data.getFloat("density", 0));
-        obstacle.setFriction(data.getFloat("friction", 0));
-        obstacle.setRestitution(data.getFloat("restitution", 0));
+        obstacle.setDensity(data.density);
+        obstacle.setFriction(data.friction);
+        obstacle.setRestitution(data.restitution);
         obstacle.setFixedRotation(true);
         obstacle.setPhysicsUnits(units);
         obstacle.setUserData(this);
         obstacle.setName("dweller");
 
-        debug = ParserUtils.parseColor(debugInfo.get("avatar"), Color.WHITE);
-        sensorColor = ParserUtils.parseColor(debugInfo.get("sensor"), Color.WHITE);
+        debug = data.debugColor;
+        sensorColor = data.sensorColor;
 
-        max_speed = data.getFloat("maxspeed", 0);
-        damping = data.getFloat("damping", 0);
-        force = data.getFloat("force", 0);
-        jump_force = data.getFloat("jump_force", 0);
+        max_speed = data.maxSpeed;
+        damping = data.damping;
+        force = data.force;
+        jump_force = data.jumpForce;
 
         isGrounded = false;
         isShooting = false;
@@ -128,28 +122,30 @@ public class DreamDweller extends Enemy {
         jumpCooldown = 0;
         shootCooldown = 0;
 
+        senses = Stimulus.Type.VISIBLE.bit;
+        visionRange = 20f;
+
         mesh.set(-drawWidth / 1.5f, -drawHeight / 1.6f, drawWidth * 1.5f, drawHeight * 1.5f);
     }
 
-    public void setActiveTexture(AssetDirectory directory) {
-        Texture texture = directory.getEntry("dream-dweller-active", Texture.class);
+    public void setActiveTexture() {
+        Texture texture = LevelAssets.getInstance().get("dream-dweller-active", Texture.class);
         this.setTexture(texture);
     }
 
-    public void setStunTexture(AssetDirectory directory) {
-        Texture texture = directory.getEntry("dream-dweller-inactive", Texture.class);
+    public void setStunTexture() {
+        Texture texture = LevelAssets.getInstance().get("dream-dweller-inactive", Texture.class);
         this.setTexture(texture);
     }
 
     public void createSensor() {
         Vector2 sensorCenter = new Vector2(0, -height / 2);
         FixtureDef sensorDef = new FixtureDef();
-        sensorDef.density = data.getFloat("density", 0);
+        sensorDef.density = data.density;
         sensorDef.isSensor = true;
 
-        JsonValue sensorjv = data.get("sensor");
-        float w = sensorjv.getFloat("shrink", 0) * width / 2.0f;
-        float h = sensorjv.getFloat("height", 0);
+        float w = data.sensorShrink * width / 2.0f;
+        float h = data.sensorHeight;
         PolygonShape sensorShape = new PolygonShape();
         sensorShape.setAsBox(w, h, sensorCenter, 0.0f);
         sensorDef.shape = sensorShape;
@@ -166,70 +162,20 @@ public class DreamDweller extends Enemy {
         sensorShape.dispose();
     }
 
-    public void lookForPlayer() {
-        World world = obstacle.getBody().getWorld();
-        Player player = scene.getAvatar();
+    @Override
+    public Vector2 getEyePosition(Vector2 out) {
         Vector2 pos = obstacle.getPosition();
-        float rayLength = 20f;
-
-        Vector2 start = new Vector2(pos.x + (facingRight ? width / 2 : -width / 2), pos.y + height / 8);
-
-        Vector2 playerPos = player.getObstacle().getPosition();
-        float pHeight = player.getHeight();
-        Vector2[] targets = new Vector2[] {
-            new Vector2(playerPos.x, playerPos.y),
-            new Vector2(playerPos.x, playerPos.y + pHeight * 0.3f),
-            new Vector2(playerPos.x, playerPos.y - pHeight * 0.3f)
-        };
-
-        boolean seen = false;
-        Vector2 chosenEnd = null;
-
-        for (Vector2 target : targets) {
-            float angle = MathUtils.atan2(target.y - start.y, target.x - start.x);
-            Vector2 end = new Vector2(start.x + rayLength * MathUtils.cos(angle), start.y + rayLength * MathUtils.sin(angle));
-
-            // 1. Player check
-            EnemyVisionRaycast playerRay = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.PLAYER_CHECK, 0f);
-            world.rayCast(playerRay, start, end);
-            boolean hitPlayer = playerRay.getHitPlayer() != null;
-            float playerFraction = playerRay.getClosestFraction();
-
-            if (!hitPlayer) continue;
-
-            // 2. Wall check
-            EnemyVisionRaycast wallRay = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.WALL_CHECK, 0f);
-            world.rayCast(wallRay, start, end);
-            Fixture wallHit = wallRay.getHitFixture();
-
-            boolean blocked = false;
-            if (wallHit != null) {
-                float wallFraction = wallRay.getClosestFraction();
-                if (wallFraction + 0.01f < playerFraction) {
-                    blocked = true;
-                }
-            }
-
-            if (!blocked) {
-                seen = true;
-                chosenEnd = playerRay.getHitPoint().cpy();
-                break;
-            }
-        }
-
-        debugLookStart.set(start);
-        debugLookEnd.set(seen && chosenEnd != null ? chosenEnd : start.cpy().add(10f, 0f));
+        return out.set(pos.x + (facingRight ? width / 2 : -width / 2), pos.y + height / 8);
+    }
 
-        setAwareOfPlayer(seen);
-        if (seen) {
-            System.out.println("Seen the player");
-        }
-}
+    @Override
+    public void endPerception() {
+        setAwareOfPlayer(seesPlayer);
+    }
 
 
     @Override
     public void update(float dt) {
-        lookForPlayer();
         System.out.println(animationState);
         if (obstacle != null && obstacle.getBody() != null) {
             obstacle.getBody().setGravityScale(0); // always floating
@@ -434,4 +380,20 @@ public class DreamDweller extends Enemy {
             body.setAngularVelocity(0);
         }
     }
+
+    @Override
+    public void saveState(WorldSnapshot out) {
+        super.saveState(out);
+        out.putInt(jumpCooldown);
+        out.putInt(shootCooldown);
+        out.putFloat(susCountdown);
+    }
+
+    @Override
+    public void loadState(WorldSnapshot in) {
+        super.loadState(in);
+        jumpCooldown = in.getInt();
+        shootCooldown = in.getInt();
+        susCountdown = in.getFloat();
+    }
 }
@@ -8,6 +8,11 @@ import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJoint;
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJointDef;
 import com.badlogic.gdx.utils.JsonValue;
+import edu.cornell.cis3152.physics.platform.aibehavior.AICommandBuffer;
+import edu.cornell.cis3152.physics.platform.aibehavior.EnemySnapshot;
+import edu.cornell.cis3152.physics.platform.ainav.NavGraph;
+import edu.cornell.cis3152.physics.platform.ainav.NavNode;
+import edu.cornell.cis3152.physics.platform.aiperception.Stimulus;
 import edu.cornell.gdiac.assets.ParserUtils;
 import edu.cornell.gdiac.graphics.SpriteBatch;
 import edu.cornell.gdiac.graphics.Texture2D;
@@ -46,6 +51,23 @@ public class Enemy extends ObstacleSprite {
 
     protected float shardAwareness;
 
+    /** bitmask of the {@link Stimulus.Type}s this enemy listens for */
+    protected int senses;
+    /** how far this enemy can see (0 if it cannot see) */
+    protected float visionRange;
+    /** half angle of the vision cone in degrees (180 sees all around) */
+    protected float visionCone = 180;
+    /** whether the player was seen in the current perception pass */
+    protected boolean seesPlayer;
+    /** last sight line, for debugging */
+    protected final Vector2 debugLookStart = new Vector2();
+    protected final Vector2 debugLookEnd = new Vector2();
+
+    /** what the behavior tree sees of this enemy, captured on the main thread */
+    protected final EnemySnapshot snapshot = new EnemySnapshot();
+    /** what the behavior tree asked this enemy to do, applied on the main thread */
+    protected final AICommandBuffer commands = new AICommandBuffer();
+
     /**
      * event dispatcher
      */
@@ -63,11 +85,32 @@ public class Enemy extends ObstacleSprite {
     }
 
     public void setAwareOfPlayer(boolean awareness) {
-        this.awareOfPlayer = awareness;
+        if (awareOfPlayer != awareness) {
+            awareOfPlayer = awareness;
+            notifyAI(awareness ? MessageType.PLAYER_SPOTTED : MessageType.PLAYER_LOST);
+        }
     }
 
     public void setStunned(boolean value) {
-        stunned = value;
+        if (stunned != value) {
+            stunned = value;
+            notifyAI(value ? MessageType.ENEMY_STUNNED : MessageType.ENEMY_RECOVERED);
+        }
+    }
+
+    /**
+     * Tells any listening behavior tree that this enemy's state changed.
+     *
+     * Events go through the player's dispatcher so trees can sleep between
+     * them instead of polling.
+     *
+     * @param message   The {@link MessageType} of the event
+     */
+    protected void notifyAI(int message) {
+        Player player = (scene == null) ? null : scene.getAvatar();
+        if (player != null) {
+            player.getDispatcher().dispatchMessage(message, this);
+        }
     }
 
     public boolean isStunned() {
@@ -82,6 +125,10 @@ public class Enemy extends ObstacleSprite {
         seesWall = b;
     }
 
+    public boolean isFacingRight() {
+        return facingRight;
+    }
+
     public float getMovement() {
         return movement;
     }
@@ -97,6 +144,14 @@ public class Enemy extends ObstacleSprite {
         }
     }
 
+    /**
+     * Pushes the current movement into the physics body.
+     *
+     * Enemies that move on their own override this.
+     */
+    public void applyForce() {
+    }
+
     public void takeDamage() {
         health = Math.max(health - 1, 0);
     }
@@ -142,5 +197,147 @@ public class Enemy extends ObstacleSprite {
         return scene;
     }
 
-}
+    public EnemySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public AICommandBuffer getCommands() {
+        return commands;
+    }
+
+    /** Returns the bitmask of the stimulus types this enemy listens for */
+    public int getSenses() {
+        return senses;
+    }
+
+    public float getVisionRange() {
+        return visionRange;
+    }
+
+    /**
+     * Returns the half angle of the vision cone in degrees.
+     *
+     * A cone of 180 or more sees all around. Enemies may widen their cone once
+     * they know where the player is.
+     */
+    public float getVisionCone() {
+        return visionCone;
+    }
+
+    /**
+     * Stores the point this enemy sees from
+     *
+     * @param out   The vector to store the result in
+     *
+     * @return the out vector, for chaining
+     */
+    public Vector2 getEyePosition(Vector2 out) {
+        return out.set(obstacle.getPosition());
+    }
+
+    /**
+     * Called at the start of every perception pass, before any stimulus.
+     */
+    public void beginPerception() {
+        seesPlayer = false;
+        getEyePosition(debugLookStart);
+        debugLookEnd.set(debugLookStart).add(facingRight ? visionRange : -visionRange, 0);
+    }
 
+    /**
+     * Called for every stimulus this enemy notices in a perception pass.
+     *
+     * Visible stimuli arrive every pass the enemy can see them. Lasting stimuli
+     * like noises arrive only once.
+     *
+     * @param stimulus  The stimulus noticed
+     */
+    public void perceive(Stimulus stimulus) {
+        switch (stimulus.getType()) {
+            case VISIBLE:
+                if (stimulus.getSource() instanceof Player) {
+                    seesPlayer = true;
+                    debugLookEnd.set(stimulus.getPosition());
+                }
+                break;
+            case SHARD_MOVED:
+                notifyAI(MessageType.SHARD_MOVED);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Called at the end of every perception pass, once all stimuli are in.
+     *
+     * Enemies update their awareness here from what they perceived.
+     */
+    public void endPerception() {
+    }
+
+    /** Returns the index of the span under a point, or -1 */
+    private static int nodeIndex(NavGraph graph, float x, float y) {
+        NavNode node = (graph == null) ? null : graph.findNode(x, y);
+        return (node == null) ? -1 : node.index;
+    }
+
+    /**
+     * Records everything the behavior tree may read this step.
+     *
+     * This must be called on the main thread, before the tree steps.
+     */
+    public void captureSnapshot() {
+        snapshot.position.set(obstacle.getPosition());
+        Player player = scene.getAvatar();
+        snapshot.hasPlayer = (player != null);
+        if (player != null) {
+            snapshot.playerX = player.getObstacle().getX();
+            snapshot.playerY = player.getObstacle().getY();
+            snapshot.fearHigh = player.isFearHigh();
+        }
+        NavGraph graph = scene.getNavGraph();
+        snapshot.navNode = nodeIndex(graph, snapshot.position.x, snapshot.position.y);
+        snapshot.playerNode = (player == null) ? -1 : nodeIndex(graph, snapshot.playerX, snapshot.playerY);
+        snapshot.awareOfPlayer = isAwareOfPlayer();
+        snapshot.stunned = isStunned();
+        snapshot.dreamShardNear = isDreamShardNear();
+    }
+
+    /**
+     * Writes the state of this enemy for a checkpoint.
+     *
+     * Subclasses that keep more state write it after calling this.
+     *
+     * @param out   The snapshot to write to
+     */
+    public void saveState(WorldSnapshot out) {
+        out.putBody(obstacle);
+        out.putBoolean(awareOfPlayer);
+        out.putBoolean(wasAware);
+        out.putBoolean(isFollowing);
+        out.putBoolean(stunned);
+        out.putBoolean(facingRight);
+        out.putFloat(movement);
+        out.putInt(health);
+    }
+
+    /**
+     * Reads the state of this enemy back from a checkpoint.
+     *
+     * This must read exactly what {@link #saveState} wrote, in order. No AI
+     * events are sent, since the trees are restarted anyway.
+     *
+     * @param in    The snapshot to read from
+     */
+    public void loadState(WorldSnapshot in) {
+        in.getBody(obstacle);
+        awareOfPlayer = in.getBoolean();
+        wasAware = in.getBoolean();
+        isFollowing = in.getBoolean();
+        stunned = in.getBoolean();
+        facingRight = in.getBoolean();
+        movement = in.getFloat();
+        health = in.getInt();
+    }
+}
@@ -83,6 +83,8 @@ public class EnemyVisionRaycast implements RayCastCallback {
     public void reset() {
         blocked = false;
         hitFixture = null;
+        hitPlayer = null;
+        hitPlayerPosition = null;
         hitPoint.set(0, 0);
         closestFraction = 1f;
     }
@@ -97,7 +99,7 @@ public class EnemyVisionRaycast implements RayCastCallback {
                 Surface surface = (Surface) userData;
                 String name = surface.getObstacle().getName();
                 if (name.startsWith("stair")) {
-                    posAboveStair.set(point).add(normal.cpy().nor());
+                    posAboveStair.set(normal).nor().add(point);
                     hitFixture = fixture;
                     closestFraction = fraction;
                     fixtureIsStair = true;
@@ -0,0 +1,278 @@
+package edu.cornell.cis3152.physics.platform;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import edu.cornell.cis3152.physics.Trace;
+import edu.cornell.gdiac.assets.AssetDirectory;
+import edu.cornell.gdiac.audio.AudioSource;
+import edu.cornell.gdiac.graphics.Shader;
+
+/**
+ * Loads the assets only some levels need, and unloads them when no level does.
+ *
+ * The asset directory loads everything in assets.json at startup and keeps it
+ * until the game exits. Enemy sprite sheets, the level music and the level
+ * shaders are instead listed in level_assets.json. Each level asks for the
+ * assets its manifest lists (see {@link #getManifest}), and every asset is
+ * reference counted: it is loaded into the asset directory by the first level
+ * that needs it and unloaded after the last one lets go.
+ *
+ * Levels hold their references while they are cached, and levels in the
+ * prefetch queue hold them too, so entering a prefetched level loads nothing.
+ * Tileset images are not listed here, since they come with the tiled map (see
+ * {@link LevelPrefetcher}).
+ */
+public class LevelAssets {
+    /** The file listing the level assets */
+    private static final String MANIFEST_FILE = "level_assets.json";
+    /** The manifest section every level needs */
+    private static final String COMMON = "common";
+
+    /** The singleton instance */
+    private static LevelAssets instance;
+
+    /** The asset manager that holds the loaded assets */
+    private AssetDirectory directory;
+    /** The file of every texture and sample, by key */
+    private final ObjectMap<String, String> files;
+    /** The asset type of every texture and sample, by key */
+    private final ObjectMap<String, Class<?>> types;
+    /** The vertex and fragment files of every shader, by key */
+    private final ObjectMap<String, JsonValue> shaderFiles;
+    /** The assets each kind of level content needs */
+    private final JsonValue levels;
+    /** How to load textures (the same defaults as the asset directory) */
+    private final TextureLoader.TextureParameter textureParams;
+
+    /** References held on each asset, by key */
+    private final ObjectIntMap<String> references;
+    /** The shaders compiled so far (shaders are not managed by the directory) */
+    private final ObjectMap<String, Shader> shaders;
+    /** Keys loaded asynchronously that have not finished yet */
+    private final ObjectSet<String> pending;
+
+    /**
+     * Returns the singleton instance of the level assets
+     *
+     * @return the singleton instance of the level assets
+     */
+    public static LevelAssets getInstance() {
+        if (instance == null) {
+            instance = new LevelAssets();
+        }
+        return instance;
+    }
+
+    private LevelAssets() {
+        JsonValue json = new JsonReader().parse(Gdx.files.internal(MANIFEST_FILE));
+        files = new ObjectMap<>();
+        types = new ObjectMap<>();
+        for (JsonValue entry : json.get("textures")) {
+            files.put(entry.name(), entry.asString());
+            types.put(entry.name(), Texture.class);
+        }
+        for (JsonValue entry : json.get("samples")) {
+            files.put(entry.name(), entry.asString());
+            types.put(entry.name(), AudioSource.class);
+        }
+        shaderFiles = new ObjectMap<>();
+        for (JsonValue entry : json.get("shaders")) {
+            shaderFiles.put(entry.name(), entry);
+        }
+        levels = json.get("levels");
+
+        textureParams = new TextureLoader.TextureParameter();
+        textureParams.minFilter = Texture.TextureFilter.Linear;
+        textureParams.magFilter = Texture.TextureFilter.Linear;
+        textureParams.wrapU = Texture.TextureWrap.ClampToEdge;
+        textureParams.wrapV = Texture.TextureWrap.ClampToEdge;
+
+        references = new ObjectIntMap<>();
+        shaders = new ObjectMap<>();
+        pending = new ObjectSet<>();
+    }
+
+    /**
+     * Sets the asset directory the assets are loaded into
+     *
+     * This must be called once the directory has finished loading.
+     *
+     * @param directory The asset directory
+     */
+    public void setDirectory(AssetDirectory directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Adds the assets a level needs to the given array
+     *
+     * That is the common assets, plus the assets of each enemy type that
+     * spawns in the level.
+     *
+     * @param data  The compiled level
+     * @param out   The array to add the keys to
+     *
+     * @return the out array, for chaining
+     */
+    public Array<String> getManifest(LevelData data, Array<String> out) {
+        addSection(COMMON, out);
+        for (LevelData.Spawn spawn : data.spawns) {
+            addSection(spawn.type.name(), out);
+        }
+        return out;
+    }
+
+    /** Adds the keys of a manifest section that are not in the array yet */
+    private void addSection(String name, Array<String> out) {
+        JsonValue section = levels.get(name);
+        if (section == null) {
+            return;
+        }
+        for (JsonValue key : section) {
+            if (!out.contains(key.asString(), false)) {
+                out.add(key.asString());
+            }
+        }
+    }
+
+    /**
+     * Takes a reference on each asset of a manifest.
+     *
+     * Assets no one held before start loading. If wait is true this blocks
+     * until they are loaded; otherwise they load in {@link #update}.
+     *
+     * @param manifest  The keys of the assets
+     * @param wait      Whether to finish loading now
+     */
+    public void acquire(Array<String> manifest, boolean wait) {
+        for (String key : manifest) {
+            if (references.getAndIncrement(key, 0, 1) > 0) {
+                if (wait && pending.remove(key)) {
+                    directory.finishLoadingAsset(files.get(key));
+                }
+                continue;
+            }
+            if (shaderFiles.containsKey(key)) {
+                // Shaders compile on the spot, so there is nothing to wait for
+                JsonValue entry = shaderFiles.get(key);
+                Shader shader;
+                Trace.begin("compile shader " + key);
+                try {
+                    shader = new Shader(Gdx.files.internal(entry.getString("vertex")),
+                                        Gdx.files.internal(entry.getString("fragment")));
+                } finally {
+                    Trace.end();
+                }
+                if (!shader.isCompiled()) {
+                    Gdx.app.error("LevelAssets", key + " shader compile error: " + shader.getLog());
+                }
+                shaders.put(key, shader);
+                continue;
+            }
+            String file = files.get(key);
+            if (file == null) {
+                throw new GdxRuntimeException("No level asset named " + key);
+            }
+            if (types.get(key) == Texture.class) {
+                directory.load(file, Texture.class, textureParams);
+            } else {
+                directory.load(file, types.get(key));
+            }
+            if (wait) {
+                Trace.begin("load " + file);
+                try {
+                    directory.finishLoadingAsset(file);
+                } finally {
+                    Trace.end();
+                }
+            } else {
+                pending.add(key);
+            }
+        }
+    }
+
+    /**
+     * Drops a reference on each asset of a manifest, unloading unused ones
+     *
+     * @param manifest  The keys of the assets
+     */
+    public void release(Array<String> manifest) {
+        for (String key : manifest) {
+            int count = references.getAndIncrement(key, 0, -1) - 1;
+            if (count > 0) {
+                continue;
+            }
+            references.remove(key, 0);
+            pending.remove(key);
+            Shader shader = shaders.remove(key);
+            if (shader != null) {
+                shader.dispose();
+            } else if (directory.contains(files.get(key))) {
+                directory.unload(files.get(key));
+            }
+        }
+    }
+
+    /**
+     * Continues loading the assets acquired without waiting
+     *
+     * @param millis    Most milliseconds to spend loading
+     */
+    public void update(int millis) {
+        if (pending.size > 0 && directory.update(millis)) {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Returns a loaded texture or sample
+     *
+     * The asset must be in a manifest this caller acquired.
+     *
+     * @param key   The key of the asset
+     * @param type  The asset type
+     */
+    public <T> T get(String key, Class<T> type) {
+        if (pending.remove(key)) {
+            directory.finishLoadingAsset(files.get(key));
+        }
+        return directory.get(files.get(key), type);
+    }
+
+    /**
+     * Returns a compiled shader
+     *
+     * The shader must be in a manifest this caller acquired.
+     *
+     * @param key   The key of the shader
+     */
+    public Shader getShader(String key) {
+        return shaders.get(key);
+    }
+
+    /** Unloads everything and forgets the directory */
+    public void dispose() {
+        for (Shader shader : shaders.values()) {
+            shader.dispose();
+        }
+        shaders.clear();
+        for (ObjectIntMap.Entry<String> entry : references) {
+            String file = files.get(entry.key);
+            if (file != null && directory.contains(file)) {
+                directory.unload(file);
+            }
+        }
+        references.clear();
+        pending.clear();
+        directory = null;
+        instance = null;
+    }
+}
@@ -0,0 +1,391 @@
+package edu.cornell.cis3152.physics.platform;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import edu.cornell.cis3152.physics.platform.ainav.NavGraph;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Path;
+
+/**
+ * Compiles the tmx maps into {@link LevelFile}s.
+ *
+ * This runs at build time (the Gradle task {@code compileLevels}), so it only
+ * uses the JDK XML parser and never touches OpenGL. It reads the maps exactly
+ * as TmxMapLoader would (y flipped so that it points up) and then does the
+ * same work as {@link LevelData#compile}, so the game gets the same level
+ * whether it loads the tmx or the compiled file.
+ *
+ * Usage: LevelCompiler [assets folder]
+ */
+public class LevelCompiler {
+    /** The XML parser (reused for every file) */
+    private final DocumentBuilder parser;
+    /** The assets folder that image paths are made relative to */
+    private final Path assets;
+    /** The pixels per world meter */
+    private final float units;
+
+    /** The height of the current map in pixels (to flip y) */
+    private float mapHeight;
+    /** Every object of the current map by id, as x and (flipped) y in pixels */
+    private final IntMap<Vector2> objects = new IntMap<>();
+
+    public static void main(String[] args) throws Exception {
+        File assets = new File(args.length > 0 ? args[0] : "assets");
+        File[] maps = new File(assets, "maps").listFiles((dir, name) -> name.endsWith(".tmx"));
+        if (maps == null) {
+            throw new GdxRuntimeException("No maps folder in " + assets);
+        }
+        LevelCompiler compiler = new LevelCompiler(assets, TiledMapInfo.PIXELS_PER_WORLD_METER);
+        for (File tmx : maps) {
+            File out = new File(tmx.getParentFile(), LevelFile.toCompiledName(tmx.getName()));
+            LevelFile level = compiler.compile(tmx);
+            try (DataOutputStream stream = new DataOutputStream(
+                     new BufferedOutputStream(new FileOutputStream(out)))) {
+                level.write(stream);
+            }
+            System.out.println(tmx.getName() + " -> " + out.getName() + " (" + out.length() + " bytes)");
+        }
+    }
+
+    /**
+     * Creates a compiler for the given assets folder
+     *
+     * @param assets    The assets folder
+     * @param units     The pixels per world meter
+     */
+    public LevelCompiler(File assets, float units) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setIgnoringComments(true);
+        parser = factory.newDocumentBuilder();
+        this.assets = assets.toPath().toAbsolutePath().normalize();
+        this.units = units;
+    }
+
+    /**
+     * Compiles one map
+     *
+     * @param tmx   The tmx file
+     */
+    public LevelFile compile(File tmx) throws Exception {
+        Element root = parser.parse(tmx).getDocumentElement();
+        LevelFile level = new LevelFile();
+        level.width = intAttribute(root, "width", 0);
+        level.height = intAttribute(root, "height", 0);
+        level.tileWidth = intAttribute(root, "tilewidth", 0);
+        level.tileHeight = intAttribute(root, "tileheight", 0);
+        mapHeight = level.height * level.tileHeight;
+
+        objects.clear();
+        collectObjects(root);
+
+        Element spawns = null;
+        Element shards = null;
+        Element collision = null;
+        for (Element child : children(root, null)) {
+            switch (child.getTagName()) {
+                case "tileset":
+                    level.tilesets.add(readTileset(child, tmx));
+                    break;
+                case "layer":
+                case "group":
+                    level.layers.add(readLayer(child));
+                    break;
+                case "objectgroup":
+                    String name = child.getAttribute("name");
+                    if (name.equals("Spawn")) {
+                        spawns = child;
+                    } else if (name.equals("Shards")) {
+                        shards = child;
+                    } else if (name.equals("CollisionLayer")) {
+                        collision = child;
+                    }
+                    break;
+            }
+        }
+        if (spawns == null || shards == null || collision == null) {
+            throw new GdxRuntimeException(tmx.getName() + " needs Spawn, Shards and CollisionLayer object layers");
+        }
+
+        readSpawns(spawns, level.data);
+        readShards(shards, level.data);
+        readCollision(collision, level.data);
+        return level;
+    }
+
+    // TILES
+
+    private LevelFile.Tileset readTileset(Element element, File tmx) throws Exception {
+        LevelFile.Tileset set = new LevelFile.Tileset();
+        set.firstGid = intAttribute(element, "firstgid", 1);
+
+        File base = tmx.getParentFile();
+        String source = element.getAttribute("source");
+        if (!source.isEmpty()) {
+            File tsx = new File(base, source);
+            element = parser.parse(tsx).getDocumentElement();
+            base = tsx.getParentFile();
+        }
+        Element image = first(element, "image");
+        if (image == null) {
+            throw new GdxRuntimeException("Only single image tilesets are supported: " + source);
+        }
+
+        set.name = element.getAttribute("name");
+        set.tileWidth = intAttribute(element, "tilewidth", 0);
+        set.tileHeight = intAttribute(element, "tileheight", 0);
+        set.spacing = intAttribute(element, "spacing", 0);
+        set.margin = intAttribute(element, "margin", 0);
+        Path path = base.toPath().toAbsolutePath().resolve(image.getAttribute("source")).normalize();
+        set.image = assets.relativize(path).toString().replace(File.separatorChar, '/');
+        return set;
+    }
+
+    private LevelFile.Layer readLayer(Element element) {
+        LevelFile.Layer layer = new LevelFile.Layer();
+        layer.name = element.getAttribute("name");
+        layer.visible = intAttribute(element, "visible", 1) == 1;
+        layer.opacity = floatAttribute(element, "opacity", 1);
+        layer.offsetX = floatAttribute(element, "offsetx", 0);
+        layer.offsetY = floatAttribute(element, "offsety", 0);
+        layer.parallaxX = floatAttribute(element, "parallaxx", 1);
+        layer.parallaxY = floatAttribute(element, "parallaxy", 1);
+
+        if (element.getTagName().equals("group")) {
+            layer.children = new Array<>();
+            for (Element child : children(element, null)) {
+                if (child.getTagName().equals("layer") || child.getTagName().equals("group")) {
+                    layer.children.add(readLayer(child));
+                }
+            }
+            return layer;
+        }
+
+        layer.width = intAttribute(element, "width", 0);
+        layer.height = intAttribute(element, "height", 0);
+        layer.gids = new int[layer.width * layer.height];
+        Element data = first(element, "data");
+        if (data == null || !"csv".equals(data.getAttribute("encoding"))) {
+            throw new GdxRuntimeException("Layer " + layer.name + " must use CSV encoding");
+        }
+        String[] values = data.getTextContent().trim().split("\\s*,\\s*");
+        for (int i = 0; i < values.length && i < layer.gids.length; i++) {
+            // Unsigned, since the flip flags use the top bits
+            layer.gids[i] = (int) Long.parseLong(values[i]);
+        }
+        return layer;
+    }
+
+    // OBJECTS
+
+    /** Records the position of every object, so "path" properties can be resolved */
+    private void collectObjects(Element parent) {
+        for (Element child : children(parent, null)) {
+            if (child.getTagName().equals("group")) {
+                collectObjects(child);
+            } else if (child.getTagName().equals("objectgroup")) {
+                for (Element o : children(child, "object")) {
+                    objects.put(intAttribute(o, "id", 0), new Vector2(floatAttribute(o, "x", 0), rectangleY(o)));
+                }
+            }
+        }
+    }
+
+    /** Returns the bottom edge of a rectangle (or point) object, in flipped pixels */
+    private float rectangleY(Element o) {
+        return mapHeight - floatAttribute(o, "y", 0) - floatAttribute(o, "height", 0);
+    }
+
+    /** Returns true if TmxMapLoader would make this object a RectangleMapObject */
+    private static boolean isRectangle(Element o) {
+        return !o.hasAttribute("gid") && first(o, "polygon") == null && first(o, "polyline") == null
+               && first(o, "ellipse") == null && first(o, "text") == null;
+    }
+
+    private void readSpawns(Element layer, LevelData data) {
+        for (Element o : children(layer, "object")) {
+            if (!isRectangle(o)) {
+                continue;
+            }
+            ObjectMap<String, String> props = properties(o);
+            float x = floatAttribute(o, "x", 0);
+            float y = rectangleY(o);
+            float worldX = x / units;
+            float worldY = y / units;
+            float worldWidth = floatAttribute(o, "width", 0) / units;
+            float worldHeight = floatAttribute(o, "height", 0) / units;
+            String name = o.getAttribute("name");
+
+            if (name.startsWith("door")) {
+                // Doors without a destination lead to the next level
+                String destination = props.get("level");
+                data.spawns.add(new LevelData.Spawn(LevelData.SpawnType.DOOR, worldX, worldY, worldWidth, worldHeight,
+                                                    destination == null ? 1 : Integer.parseInt(destination),
+                                                    null, x, y, null));
+            }
+            if (name.startsWith("gate")) {
+                Vector2 target = reference(props.get("path"));
+                Vector2 exit;
+                if (target != null) {
+                    exit = new Vector2(target.x / units, target.y / units + 2);
+                } else {
+                    // fallback if no path reference: just above the gate
+                    exit = new Vector2(worldX, worldY + 2);
+                }
+                data.spawns.add(new LevelData.Spawn(LevelData.SpawnType.GATE, worldX, worldY, worldWidth, worldHeight,
+                                                    0, exit, x, y, null));
+            }
+            if (name.startsWith("dialouge")) {
+                data.spawns.add(new LevelData.Spawn(LevelData.SpawnType.DIALOGUE, worldX, worldY, worldWidth,
+                                                    worldHeight, 0, null, x, y, props.get("text")));
+            }
+            if (name.startsWith("Player")) {
+                data.playerSpawn.set(worldX, worldY);
+            }
+            if (name.startsWith("curiosity critter")) {
+                data.spawns.add(new LevelData.Spawn(LevelData.SpawnType.CRITTER, worldX, worldY, worldWidth,
+                                                    worldHeight, 0, null, x, y, null));
+            }
+            if (name.startsWith("dream dweller")) {
+                data.spawns.add(new LevelData.Spawn(LevelData.SpawnType.DWELLER, worldX, worldY, worldWidth,
+                                                    worldHeight, 0, null, x, y, null));
+            }
+            if (name.startsWith("mind maintenance")) {
+                data.spawns.add(new LevelData.Spawn(LevelData.SpawnType.MAINTENANCE, worldX, worldY, worldWidth,
+                                                    worldHeight, 0, null, x, y, null));
+            }
+        }
+    }
+
+    private void readShards(Element layer, LevelData data) {
+        String total = properties(layer).get("totalShards");
+        if (total == null) {
+            throw new GdxRuntimeException("The Shards layer needs a totalShards property");
+        }
+        data.totalShards = Integer.parseInt(total);
+        int shardID = 0;
+        for (Element o : children(layer, "object")) {
+            if (!isRectangle(o)) {
+                continue;
+            }
+            float worldX = floatAttribute(o, "x", 0) / units;
+            float worldY = rectangleY(o) / units;
+
+            Vector2 reposition = reference(properties(o).get("path"));
+            if (reposition != null) {
+                data.shardMoves.put(shardID, new Vector2(reposition.x / 32f, reposition.y / 32f));
+            }
+            if (!o.hasAttribute("name")) {
+                data.shards.add(new LevelData.ShardSpot(shardID, worldX, worldY));
+                shardID++;
+            }
+        }
+    }
+
+    private void readCollision(Element layer, LevelData data) {
+        FloatArray spans = new FloatArray();
+        for (Element o : children(layer, "object")) {
+            ObjectMap<String, String> props = properties(o);
+            Element polygon = first(o, "polygon");
+            if (polygon != null) {
+                String[] points = polygon.getAttribute("points").trim().split("\\s+");
+                float[] vertices = new float[points.length * 2];
+                for (int i = 0; i < points.length; i++) {
+                    String[] point = points[i].split(",");
+                    vertices[2 * i] = Float.parseFloat(point[0]);
+                    vertices[2 * i + 1] = -Float.parseFloat(point[1]);
+                }
+                float x = floatAttribute(o, "x", 0);
+                float y = mapHeight - floatAttribute(o, "y", 0);
+                data.surfaces.add(new LevelData.SurfaceShape(vertices, x, y, props.containsKey("isStair")));
+                NavGraph.addPolygon(vertices, x, y, units, spans);
+            } else if (isRectangle(o)) {
+                float worldX = floatAttribute(o, "x", 0) / units;
+                float worldY = rectangleY(o) / units;
+                float worldWidth = floatAttribute(o, "width", 0) / units;
+                float worldHeight = floatAttribute(o, "height", 0) / units;
+                float degrees = floatAttribute(o, "rotation", 0);
+                if (o.hasAttribute("name")) {
+                    String direction = props.get("direction");
+                    String laser = props.get("laser");
+                    if (o.getAttribute("name").toLowerCase().startsWith("spike") && direction != null && laser != null) {
+                        data.spikes.add(new LevelData.SpikeSpot(worldX, worldY, worldWidth, worldHeight,
+                                                                Boolean.parseBoolean(laser),
+                                                                LevelData.toDirection(Integer.parseInt(direction))));
+                    }
+                } else {
+                    data.platforms.add(new LevelData.Platform(worldX, worldY, worldWidth, worldHeight,
+                                                              (float) Math.toRadians(degrees)));
+                    NavGraph.addRectangle(worldX, worldY, worldWidth, worldHeight, degrees, spans);
+                }
+            }
+        }
+        data.navSpans = spans.toArray();
+    }
+
+    /** Returns the position of the object an object property refers to (null if none) */
+    private Vector2 reference(String id) {
+        if (id == null || id.isEmpty()) {
+            return null;
+        }
+        return objects.get(Integer.parseInt(id));
+    }
+
+    // XML
+
+    /** Returns the custom properties of an element, as strings */
+    private static ObjectMap<String, String> properties(Element element) {
+        ObjectMap<String, String> result = new ObjectMap<>();
+        Element props = first(element, "properties");
+        if (props != null) {
+            for (Element prop : children(props, "property")) {
+                String value = prop.hasAttribute("value") ? prop.getAttribute("value") : prop.getTextContent();
+                result.put(prop.getAttribute("name"), value);
+            }
+        }
+        return result;
+    }
+
+    /** Returns the child elements with the given tag (or all of them if the tag is null) */
+    private static Array<Element> children(Element parent, String tag) {
+        Array<Element> result = new Array<>();
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element && (tag == null || ((Element) node).getTagName().equals(tag))) {
+                result.add((Element) node);
+            }
+        }
+        return result;
+    }
+
+    /** Returns the first child element with the given tag (or null) */
+    private static Element first(Element parent, String tag) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element && ((Element) node).getTagName().equals(tag)) {
+                return (Element) node;
+            }
+        }
+        return null;
+    }
+
+    private static int intAttribute(Element element, String name, int fallback) {
+        String value = element.getAttribute(name);
+        return value.isEmpty() ? fallback : Integer.parseInt(value);
+    }
+
+    private static float floatAttribute(Element element, String name, float fallback) {
+        String value = element.getAttribute(name);
+        return value.isEmpty() ? fallback : Float.parseFloat(value);
+    }
+}
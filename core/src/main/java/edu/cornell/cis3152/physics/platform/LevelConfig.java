@@ -0,0 +1,211 @@
+package edu.cornell.cis3152.physics.platform;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonValue;
+import edu.cornell.gdiac.assets.AssetDirectory;
+import edu.cornell.gdiac.assets.ParserUtils;
+
+/**
+ * The gameplay constants of a level, read once from its JSON.
+ *
+ * The level JSON is checked when the scene is built, so a missing required
+ * value fails there instead of on the first shot or spawn. Everything else
+ * then reads plain final fields instead of looking strings up in a JsonValue.
+ * Optional values have the same defaults the entities used to give them.
+ *
+ * The navigation and perception sections are not here, since the systems
+ * that use them read them once already. They are shared by every level (see
+ * {@link #getSection}).
+ */
+public class LevelConfig {
+    /** The world constants */
+    public static class World {
+        public final float width;
+        public final float height;
+        public final float gravity;
+
+        World(JsonValue json) {
+            JsonValue bounds = require(json, "bounds");
+            width = bounds.getFloat(0);
+            height = bounds.getFloat(1);
+            gravity = require(json, "gravity").asFloat();
+        }
+    }
+
+    /** The constants of a character (the player or an enemy) */
+    public static class Actor {
+        /** The size of the image in world units */
+        public final float size;
+        /** The width of the body, as a fraction of the size */
+        public final float innerWidth;
+        /** The height of the body, as a fraction of the size */
+        public final float innerHeight;
+        public final float density;
+        public final float friction;
+        public final float restitution;
+        public final float maxSpeed;
+        public final float damping;
+        public final float force;
+        public final float jumpForce;
+        /** The width of the ground sensor, as a fraction of the body */
+        public final float sensorShrink;
+        public final float sensorHeight;
+        /** The capsule tolerance */
+        public final float tolerance;
+        public final Color debugColor;
+        public final Color sensorColor;
+
+        Actor(JsonValue json) {
+            size = require(json, "size").asFloat();
+            JsonValue inner = require(json, "inner");
+            innerWidth = inner.getFloat(0);
+            innerHeight = inner.getFloat(1);
+            density = json.getFloat("density", 0);
+            friction = json.getFloat("friction", 0);
+            restitution = json.getFloat("restitution", 0);
+            maxSpeed = json.getFloat("maxspeed", 0);
+            damping = json.getFloat("damping", 0);
+            force = json.getFloat("force", 0);
+            jumpForce = json.getFloat("jump_force", 0);
+
+            JsonValue sensor = require(json, "sensor");
+            sensorShrink = sensor.getFloat("shrink", 0);
+            sensorHeight = sensor.getFloat("height", 0);
+
+            JsonValue debug = require(json, "debug");
+            tolerance = debug.getFloat("tolerance", 0.5f);
+            debugColor = ParserUtils.parseColor(debug.get("avatar"), Color.WHITE);
+            sensorColor = ParserUtils.parseColor(debug.get("sensor"), Color.WHITE);
+        }
+    }
+
+    /** The constants of the player */
+    public static class Avatar extends Actor {
+        public final float dashForce;
+        /** Frames between jumps */
+        public final int jumpCooldown;
+        /** Frames between shots */
+        public final int shotCooldown;
+        public final Color scareSensorColor;
+
+        Avatar(JsonValue json) {
+            super(json);
+            dashForce = json.getFloat("dash_force", 0);
+            jumpCooldown = json.getInt("jump_cool", 0);
+            shotCooldown = json.getInt("shot_cool", 0);
+            scareSensorColor = ParserUtils.parseColor(json.get("debug").get("scare_sensor"), Color.GREEN);
+        }
+    }
+
+    /** The constants of a projectile (bullets, spears and shield walls) */
+    public static class Projectile {
+        /** How far from the shooter the projectile starts */
+        public final float offset;
+        public final float size;
+        public final float speed;
+        /** The debug color, or null if the level sets none */
+        public final Color debugColor;
+
+        Projectile(JsonValue json) {
+            offset = json.getFloat("offset", 0);
+            size = require(json, "size").asFloat();
+            speed = json.getFloat("speed", 0);
+            debugColor = json.has("debug") ? ParserUtils.parseColor(json.get("debug"), Color.WHITE) : null;
+        }
+    }
+
+    /** The constants of a static body (shards and platforms) */
+    public static class Fixed {
+        public final float size;
+        /** The texture scale of a platform */
+        public final float tile;
+        public final float density;
+        public final float friction;
+        public final float restitution;
+        public final Color debugColor;
+
+        /**
+         * @param json      The JSON of the bodies
+         * @param required  The values the bodies cannot do without
+         */
+        Fixed(JsonValue json, String... required) {
+            for (String name : required) {
+                require(json, name);
+            }
+            size = json.getFloat("size", 0);
+            tile = json.getFloat("tile", 0);
+            density = json.getFloat("density", 0);
+            friction = json.getFloat("friction", 0);
+            restitution = json.getFloat("restitution", 0);
+            debugColor = ParserUtils.parseColor(json.get("debug"), Color.WHITE);
+        }
+    }
+
+    public final World world;
+    public final Avatar player;
+    public final Actor critter;
+    public final Actor dweller;
+    public final Actor maintenance;
+    public final Projectile bullet;
+    public final Projectile spear;
+    /** The dream shards */
+    public final Fixed goal;
+    public final Fixed platforms;
+    /** The sound volume of the level */
+    public final float volume;
+
+    /**
+     * Reads and checks the constants of a level
+     *
+     * @param json  The level JSON
+     *
+     * @throws GdxRuntimeException if a required value is missing
+     */
+    public LevelConfig(JsonValue json) {
+        world = new World(require(json, "world"));
+        player = new Avatar(require(json, "player"));
+        critter = new Actor(require(json, "curiosity-critter"));
+        dweller = new Actor(require(json, "dream-dweller"));
+        maintenance = new Actor(require(json, "mind-maintenance"));
+        bullet = new Projectile(require(json, "bullet"));
+        spear = new Projectile(require(json, "spear"));
+        goal = new Fixed(require(json, "goal"), "size");
+        platforms = new Fixed(require(json, "platforms"), "tile", "friction");
+        volume = json.getFloat("volume", 1.0f);
+    }
+
+    /** The asset key of the AI settings every level shares */
+    public static final String AI_SETTINGS = "ai-settings";
+
+    /**
+     * Returns a section of the AI settings of a level
+     *
+     * The sections live in the shared AI settings file, but a level JSON may
+     * override one with a section of the same name.
+     *
+     * @param directory The asset directory
+     * @param json      The level JSON
+     * @param name      The section name (such as "perception")
+     *
+     * @return the section, or null if neither file has it
+     */
+    public static JsonValue getSection(AssetDirectory directory, JsonValue json, String name) {
+        JsonValue section = json.get(name);
+        if (section == null) {
+            JsonValue shared = directory.getEntry(AI_SETTINGS, JsonValue.class);
+            section = (shared == null) ? null : shared.get(name);
+        }
+        return section;
+    }
+
+    /** Returns a child of a JSON value, which must be there */
+    private static JsonValue require(JsonValue json, String name) {
+        JsonValue child = json.get(name);
+        if (child == null) {
+            String where = (json.name() == null) ? "Level constants" : "Level constants " + json.name();
+            throw new GdxRuntimeException(where + " have no " + name);
+        }
+        return child;
+    }
+}
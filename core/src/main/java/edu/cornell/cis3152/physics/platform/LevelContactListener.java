@@ -263,7 +263,7 @@ public class LevelContactListener implements ContactListener {
         if (enemy instanceof CuriosityCritter) {
             CuriosityCritter critter = (CuriosityCritter) enemy;
             critter.setStunned(true);
-            critter.setStunTexture(dreamWalkerScene.directory);
+            critter.setStunTexture();
             System.out.println("Critter is stunned");
         } else if (enemy instanceof MindMaintenance) {
             MindMaintenance maintenance = (MindMaintenance) enemy;
@@ -272,7 +272,7 @@ public class LevelContactListener implements ContactListener {
         } else if (enemy instanceof DreamDweller) {
             DreamDweller dweller = (DreamDweller) enemy;
             dweller.setStunned(true);
-            dweller.setStunTexture(dreamWalkerScene.directory);
+            dweller.setStunTexture();
             System.out.println("Dweller is stunned");
         } else {
             System.out.println("WARNING: Bullet stun collision detected but Enemy reference is null.");
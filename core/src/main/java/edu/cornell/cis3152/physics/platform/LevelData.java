@@ -0,0 +1,298 @@
+package edu.cornell.cis3152.physics.platform;
+
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.objects.PolygonMapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.JsonValue;
+import edu.cornell.cis3152.physics.platform.ainav.NavGraph;
+
+/**
+ * Everything a level needs from its tiled map, compiled into plain data.
+ *
+ * Reading spawn points, shards and collision shapes out of a TiledMap is the
+ * slow part of building a level, and none of it needs OpenGL or Box2D. A
+ * LevelData can therefore be compiled on a background thread (see
+ * {@link LevelPrefetcher}) and turned into sprites later by the scene.
+ *
+ * Nothing in here changes after it is compiled, so one LevelData can be shared
+ * by every (re)build of a level.
+ */
+public class LevelData {
+    /** Objects from the Spawn layer */
+    public enum SpawnType { DOOR, GATE, DIALOGUE, PLAYER, CRITTER, DWELLER, MAINTENANCE }
+
+    /** A spawn point, in world units */
+    public static class Spawn {
+        public final SpawnType type;
+        public final float x, y, width, height;
+        /** The level index a door leads to */
+        public final int destination;
+        /** Where a gate sends the player */
+        public final Vector2 exit;
+        /** The pixel position (dialogue uses pixels) */
+        public final float pixelX, pixelY;
+        /** The text of a dialogue */
+        public final String text;
+
+        Spawn(SpawnType type, float x, float y, float width, float height, int destination,
+              Vector2 exit, float pixelX, float pixelY, String text) {
+            this.type = type;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.destination = destination;
+            this.exit = exit;
+            this.pixelX = pixelX;
+            this.pixelY = pixelY;
+            this.text = text;
+        }
+    }
+
+    /** A dream shard, in world units */
+    public static class ShardSpot {
+        public final int id;
+        public final float x, y;
+
+        ShardSpot(int id, float x, float y) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /** A polygon from the CollisionLayer, in pixels */
+    public static class SurfaceShape {
+        public final float[] vertices;
+        public final float offsetX, offsetY;
+        public final boolean stair;
+
+        SurfaceShape(float[] vertices, float offsetX, float offsetY, boolean stair) {
+            this.vertices = vertices;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.stair = stair;
+        }
+    }
+
+    /** An unnamed rectangle from the CollisionLayer, in world units */
+    public static class Platform {
+        public final float x, y, width, height, rotation;
+
+        Platform(float x, float y, float width, float height, float rotation) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.rotation = rotation;
+        }
+    }
+
+    /** A spike from the CollisionLayer, in world units */
+    public static class SpikeSpot {
+        public final float x, y, width, height;
+        public final boolean laser;
+        public final DayglowSpike.Direction direction;
+
+        SpikeSpot(float x, float y, float width, float height, boolean laser, DayglowSpike.Direction direction) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.laser = laser;
+            this.direction = direction;
+        }
+    }
+
+    public final Array<Spawn> spawns = new Array<>();
+    public final Array<ShardSpot> shards = new Array<>();
+    /** Where a critter may move each shard, by shard id */
+    public final IntMap<Vector2> shardMoves = new IntMap<>();
+    public int totalShards;
+
+    public final Array<SurfaceShape> surfaces = new Array<>();
+    public final Array<Platform> platforms = new Array<>();
+    public final Array<SpikeSpot> spikes = new Array<>();
+
+    public final Vector2 playerSpawn = new Vector2();
+    /** Walkable spans of the collision layer, as left, right, y triples */
+    public float[] navSpans;
+    public NavGraph navGraph;
+
+    /**
+     * Compiles the level data of a map.
+     *
+     * This only reads the map, so it is safe to call off the main thread as
+     * long as nothing else modifies the map.
+     *
+     * @param map           The tiled map
+     * @param units         The pixels per world meter
+     * @param navigation    The navigation settings (may be null)
+     */
+    public static LevelData compile(TiledMap map, float units, JsonValue navigation) {
+        LevelData data = new LevelData();
+        data.readSpawns(map.getLayers().get("Spawn"), units);
+        data.readShards(map.getLayers().get("Shards"), units);
+        data.readCollision(map.getLayers().get("CollisionLayer"), units);
+        return data.buildNavGraph(navigation);
+    }
+
+    /**
+     * Builds the navigation graph from the compiled spans.
+     *
+     * The spans only depend on the map, but the graph also depends on the
+     * navigation settings of the level, so it is built separately.
+     *
+     * @param navigation    The navigation settings (may be null)
+     *
+     * @return this level data, for chaining
+     */
+    public LevelData buildNavGraph(JsonValue navigation) {
+        navGraph = new NavGraph(navSpans, navigation);
+        return this;
+    }
+
+    /**
+     * Adds every door spawn to the given array, in map order
+     *
+     * @param out   The array to add the doors to
+     *
+     * @return the out array, for chaining
+     */
+    public Array<Spawn> getDoors(Array<Spawn> out) {
+        for (Spawn spawn : spawns) {
+            if (spawn.type == SpawnType.DOOR) {
+                out.add(spawn);
+            }
+        }
+        return out;
+    }
+
+    private void readSpawns(MapLayer layer, float units) {
+        for (MapObject o : layer.getObjects()) {
+            if (!(o instanceof RectangleMapObject)) {
+                continue;
+            }
+            MapProperties props = o.getProperties();
+            float x = props.get("x", Float.class);
+            float y = props.get("y", Float.class);
+            float worldX = x / units;
+            float worldY = y / units;
+            float worldWidth = props.get("width", Float.class) / units;
+            float worldHeight = props.get("height", Float.class) / units;
+            String name = o.getName();
+
+            if (name.startsWith("door")) {
+                // Doors without a destination lead to the next level
+                Integer destination = props.get("level", Integer.class);
+                spawns.add(new Spawn(SpawnType.DOOR, worldX, worldY, worldWidth, worldHeight,
+                                     destination == null ? 1 : destination, null, x, y, null));
+            }
+            if (name.startsWith("gate")) {
+                MapObject target = props.get("path", MapObject.class);
+                Vector2 exit;
+                if (target != null) {
+                    float tx = target.getProperties().get("x", Float.class) / units;
+                    float ty = target.getProperties().get("y", Float.class) / units;
+                    exit = new Vector2(tx, ty + 2);
+                } else {
+                    // fallback if no path reference: just above the gate
+                    exit = new Vector2(worldX, worldY + 2);
+                }
+                spawns.add(new Spawn(SpawnType.GATE, worldX, worldY, worldWidth, worldHeight,
+                                     0, exit, x, y, null));
+            }
+            if (name.startsWith("dialouge")) {
+                spawns.add(new Spawn(SpawnType.DIALOGUE, worldX, worldY, worldWidth, worldHeight,
+                                     0, null, x, y, props.get("text", String.class)));
+            }
+            if (name.startsWith("Player")) {
+                playerSpawn.set(worldX, worldY);
+            }
+            if (name.startsWith("curiosity critter")) {
+                spawns.add(new Spawn(SpawnType.CRITTER, worldX, worldY, worldWidth, worldHeight,
+                                     0, null, x, y, null));
+            }
+            if (name.startsWith("dream dweller")) {
+                spawns.add(new Spawn(SpawnType.DWELLER, worldX, worldY, worldWidth, worldHeight,
+                                     0, null, x, y, null));
+            }
+            if (name.startsWith("mind maintenance")) {
+                spawns.add(new Spawn(SpawnType.MAINTENANCE, worldX, worldY, worldWidth, worldHeight,
+                                     0, null, x, y, null));
+            }
+        }
+    }
+
+    private void readShards(MapLayer layer, float units) {
+        totalShards = layer.getProperties().get("totalShards", Integer.class);
+        int shardID = 0;
+        for (MapObject o : layer.getObjects()) {
+            if (!(o instanceof RectangleMapObject)) {
+                continue;
+            }
+            float worldX = o.getProperties().get("x", Float.class) / units;
+            float worldY = o.getProperties().get("y", Float.class) / units;
+
+            MapObject reposition = o.getProperties().get("path", MapObject.class);
+            if (reposition != null) {
+                shardMoves.put(shardID, new Vector2(reposition.getProperties().get("x", Float.class) / 32f,
+                                                    reposition.getProperties().get("y", Float.class) / 32f));
+            }
+            if (o.getName() == null) {
+                shards.add(new ShardSpot(shardID, worldX, worldY));
+                shardID++;
+            }
+        }
+    }
+
+    private void readCollision(MapLayer layer, float units) {
+        FloatArray spans = new FloatArray();
+        for (MapObject o : layer.getObjects()) {
+            if (o instanceof PolygonMapObject) {
+                Polygon poly = ((PolygonMapObject) o).getPolygon();
+                boolean stair = o.getProperties().get("isStair", Boolean.class) != null;
+                surfaces.add(new SurfaceShape(poly.getVertices().clone(), poly.getX(), poly.getY(), stair));
+                NavGraph.addPolygon(poly.getVertices(), poly.getX(), poly.getY(), units, spans);
+            }
+            if (o instanceof RectangleMapObject) {
+                MapProperties props = o.getProperties();
+                float worldX = props.get("x", Float.class) / units;
+                float worldY = props.get("y", Float.class) / units;
+                float worldWidth = props.get("width", Float.class) / units;
+                float worldHeight = props.get("height", Float.class) / units;
+                float rotation = (float)Math.toRadians(props.get("rotation", 0f, Float.class));
+                if (o.getName() != null) {
+                    Integer direction = props.get("direction", Integer.class);
+                    Boolean laser = props.get("laser", Boolean.class);
+                    if (o.getName().toLowerCase().startsWith("spike") && direction != null && laser != null) {
+                        spikes.add(new SpikeSpot(worldX, worldY, worldWidth, worldHeight, laser, toDirection(direction)));
+                    }
+                } else {
+                    platforms.add(new Platform(worldX, worldY, worldWidth, worldHeight, rotation));
+                    NavGraph.addRectangle(worldX, worldY, worldWidth, worldHeight,
+                                          props.get("rotation", 0f, Float.class), spans);
+                }
+            }
+        }
+        navSpans = spans.toArray();
+    }
+
+    /** Returns the spike direction for a tiled direction property */
+    static DayglowSpike.Direction toDirection(int value) {
+        switch (value) {
+            case 1:  return DayglowSpike.Direction.RIGHT;
+            case 2:  return DayglowSpike.Direction.DOWN;
+            case 3:  return DayglowSpike.Direction.LEFT;
+            default: return DayglowSpike.Direction.UP;
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package edu.cornell.cis3152.physics.platform;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapGroupLayer;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapLayers;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A level compiled ahead of time into a compact binary file.
+ *
+ * The file holds the tile grids and tilesets the renderers need, and the
+ * {@link LevelData} the scene builds from, so loading a level is one read of
+ * the file and no XML. Files are made by {@link LevelCompiler} (the Gradle
+ * task {@code compileLevels}) and read through {@link LevelFileLoader}.
+ *
+ * Everything is big endian. Strings are a length followed by UTF-8 bytes.
+ */
+public class LevelFile {
+    /** The file extension of compiled levels */
+    public static final String EXTENSION = ".lvl";
+    /** The map property that holds the compiled LevelData */
+    public static final String DATA_KEY = "levelData";
+    /** "DWLV" */
+    private static final int MAGIC = 0x44574c56;
+    /** Bumped whenever the layout changes (old files are then rejected) */
+    private static final int VERSION = 1;
+
+    /** Tiled flags in the top bits of a gid */
+    private static final int FLIP_HORIZONTALLY = 0x80000000;
+    private static final int FLIP_VERTICALLY = 0x40000000;
+    private static final int FLIP_DIAGONALLY = 0x20000000;
+    private static final int MASK_CLEAR = 0xE0000000;
+
+    /** An image tileset */
+    public static class Tileset {
+        public String name;
+        /** The image, relative to the assets folder */
+        public String image;
+        public int firstGid;
+        public int tileWidth, tileHeight;
+        public int spacing, margin;
+    }
+
+    /** A tile or group layer */
+    public static class Layer {
+        public String name;
+        public boolean visible = true;
+        public float opacity = 1;
+        public float offsetX, offsetY;
+        public float parallaxX = 1, parallaxY = 1;
+        /** The children of a group layer (null for a tile layer) */
+        public Array<Layer> children;
+        /** The size of a tile layer, in tiles */
+        public int width, height;
+        /** Raw gids (with flip flags) of a tile layer, top row first as in Tiled */
+        public int[] gids;
+    }
+
+    /** The size of the map, in tiles */
+    public int width, height;
+    /** The size of a tile, in pixels */
+    public int tileWidth, tileHeight;
+    public final Array<Tileset> tilesets = new Array<>();
+    public final Array<Layer> layers = new Array<>();
+    public LevelData data = new LevelData();
+
+    /**
+     * Returns the compiled file name for a tmx file
+     *
+     * @param tmx   The tmx file name
+     */
+    public static String toCompiledName(String tmx) {
+        int dot = tmx.lastIndexOf('.');
+        return (dot < 0 ? tmx : tmx.substring(0, dot)) + EXTENSION;
+    }
+
+    /**
+     * Builds a TiledMap from this file.
+     *
+     * Textures are not owned by the map; the caller (usually an AssetManager)
+     * disposes them. The LevelData is stored under {@link #DATA_KEY}.
+     *
+     * @param textures  The tileset textures, by image path
+     */
+    public TiledMap toTiledMap(ObjectMap<String, Texture> textures) {
+        TiledMap map = new TiledMap();
+        map.getProperties().put("width", width);
+        map.getProperties().put("height", height);
+        map.getProperties().put("tilewidth", tileWidth);
+        map.getProperties().put("tileheight", tileHeight);
+        map.getProperties().put(DATA_KEY, data);
+
+        for (Tileset info : tilesets) {
+            Texture texture = textures.get(info.image);
+            TiledMapTileSet set = new TiledMapTileSet();
+            set.setName(info.name);
+            int stopWidth = texture.getWidth() - info.tileWidth;
+            int stopHeight = texture.getHeight() - info.tileHeight;
+            int id = info.firstGid;
+            for (int y = info.margin; y <= stopHeight; y += info.tileHeight + info.spacing) {
+                for (int x = info.margin; x <= stopWidth; x += info.tileWidth + info.spacing) {
+                    TextureRegion region = new TextureRegion(texture, x, y, info.tileWidth, info.tileHeight);
+                    StaticTiledMapTile tile = new StaticTiledMapTile(region);
+                    tile.setId(id);
+                    set.putTile(id++, tile);
+                }
+            }
+            map.getTileSets().addTileSet(set);
+        }
+
+        for (Layer layer : layers) {
+            map.getLayers().add(toMapLayer(layer, map));
+        }
+        return map;
+    }
+
+    /** Returns the map layer for a compiled layer */
+    private MapLayer toMapLayer(Layer info, TiledMap map) {
+        MapLayer layer;
+        if (info.children != null) {
+            MapGroupLayer group = new MapGroupLayer();
+            MapLayers children = group.getLayers();
+            for (Layer child : info.children) {
+                MapLayer sub = toMapLayer(child, map);
+                sub.setParent(group);
+                children.add(sub);
+            }
+            layer = group;
+        } else {
+            TiledMapTileLayer tiles = new TiledMapTileLayer(info.width, info.height, tileWidth, tileHeight);
+            for (int y = 0; y < info.height; y++) {
+                for (int x = 0; x < info.width; x++) {
+                    int gid = info.gids[y * info.width + x];
+                    if (gid == 0) {
+                        continue;
+                    }
+                    TiledMapTileLayer.Cell cell = createCell((gid & FLIP_HORIZONTALLY) != 0,
+                                                             (gid & FLIP_VERTICALLY) != 0,
+                                                             (gid & FLIP_DIAGONALLY) != 0);
+                    cell.setTile(map.getTileSets().getTile(gid & ~MASK_CLEAR));
+                    // Tiled stores the top row first, libGDX the bottom row
+                    tiles.setCell(x, info.height - 1 - y, cell);
+                }
+            }
+            layer = tiles;
+        }
+        layer.setName(info.name);
+        layer.setVisible(info.visible);
+        layer.setOpacity(info.opacity);
+        layer.setOffsetX(info.offsetX);
+        layer.setOffsetY(-info.offsetY);
+        layer.setParallaxX(info.parallaxX);
+        layer.setParallaxY(info.parallaxY);
+        return layer;
+    }
+
+    /** Returns a cell with the given Tiled flips (the same mapping as TmxMapLoader) */
+    private static TiledMapTileLayer.Cell createCell(boolean flipH, boolean flipV, boolean flipD) {
+        TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+        if (flipD) {
+            if (flipH && flipV) {
+                cell.setFlipHorizontally(true);
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+            } else if (flipH) {
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+            } else if (flipV) {
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_90);
+            } else {
+                cell.setFlipVertically(true);
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+            }
+        } else {
+            cell.setFlipHorizontally(flipH);
+            cell.setFlipVertically(flipV);
+        }
+        return cell;
+    }
+
+    // WRITING
+
+    /**
+     * Writes this level to a stream
+     *
+     * @param out   The stream to write to
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(tileWidth);
+        out.writeInt(tileHeight);
+
+        out.writeInt(tilesets.size);
+        for (Tileset set : tilesets) {
+            writeString(out, set.name);
+            writeString(out, set.image);
+            out.writeInt(set.firstGid);
+            out.writeInt(set.tileWidth);
+            out.writeInt(set.tileHeight);
+            out.writeInt(set.spacing);
+            out.writeInt(set.margin);
+        }
+
+        writeLayers(out, layers);
+        writeData(out, data);
+    }
+
+    private static void writeLayers(DataOutputStream out, Array<Layer> layers) throws IOException {
+        out.writeInt(layers.size);
+        for (Layer layer : layers) {
+            out.writeBoolean(layer.children != null);
+            writeString(out, layer.name);
+            out.writeBoolean(layer.visible);
+            out.writeFloat(layer.opacity);
+            out.writeFloat(layer.offsetX);
+            out.writeFloat(layer.offsetY);
+            out.writeFloat(layer.parallaxX);
+            out.writeFloat(layer.parallaxY);
+            if (layer.children != null) {
+                writeLayers(out, layer.children);
+            } else {
+                out.writeInt(layer.width);
+                out.writeInt(layer.height);
+                for (int gid : layer.gids) {
+                    out.writeInt(gid);
+                }
+            }
+        }
+    }
+
+    private static void writeData(DataOutputStream out, LevelData data) throws IOException {
+        out.writeInt(data.spawns.size);
+        for (LevelData.Spawn spawn : data.spawns) {
+            out.writeByte(spawn.type.ordinal());
+            out.writeFloat(spawn.x);
+            out.writeFloat(spawn.y);
+            out.writeFloat(spawn.width);
+            out.writeFloat(spawn.height);
+            out.writeInt(spawn.destination);
+            out.writeBoolean(spawn.exit != null);
+            if (spawn.exit != null) {
+                out.writeFloat(spawn.exit.x);
+                out.writeFloat(spawn.exit.y);
+            }
+            out.writeFloat(spawn.pixelX);
+            out.writeFloat(spawn.pixelY);
+            writeString(out, spawn.text);
+        }
+
+        out.writeInt(data.totalShards);
+        out.writeInt(data.shards.size);
+        for (LevelData.ShardSpot shard : data.shards) {
+            out.writeInt(shard.id);
+            out.writeFloat(shard.x);
+            out.writeFloat(shard.y);
+        }
+        out.writeInt(data.shardMoves.size);
+        for (IntMap.Entry<Vector2> move : data.shardMoves) {
+            out.writeInt(move.key);
+            out.writeFloat(move.value.x);
+            out.writeFloat(move.value.y);
+        }
+
+        out.writeInt(data.surfaces.size);
+        for (LevelData.SurfaceShape shape : data.surfaces) {
+            out.writeBoolean(shape.stair);
+            out.writeFloat(shape.offsetX);
+            out.writeFloat(shape.offsetY);
+            writeFloats(out, shape.vertices);
+        }
+        out.writeInt(data.platforms.size);
+        for (LevelData.Platform rect : data.platforms) {
+            out.writeFloat(rect.x);
+            out.writeFloat(rect.y);
+            out.writeFloat(rect.width);
+            out.writeFloat(rect.height);
+            out.writeFloat(rect.rotation);
+        }
+        out.writeInt(data.spikes.size);
+        for (LevelData.SpikeSpot spike : data.spikes) {
+            out.writeFloat(spike.x);
+            out.writeFloat(spike.y);
+            out.writeFloat(spike.width);
+            out.writeFloat(spike.height);
+            out.writeBoolean(spike.laser);
+            out.writeByte(spike.direction.ordinal());
+        }
+
+        out.writeFloat(data.playerSpawn.x);
+        out.writeFloat(data.playerSpawn.y);
+        writeFloats(out, data.navSpans);
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        out.writeInt(values.length);
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+
+    /** Writes a string (null is written as length -1) */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // READING
+
+    /**
+     * Reads a level from the contents of a compiled file.
+     *
+     * The navigation graph is not built (see {@link LevelData#buildNavGraph}).
+     *
+     * @param in    The file contents
+     */
+    public static LevelFile read(ByteBuffer in) {
+        if (in.getInt() != MAGIC) {
+            throw new GdxRuntimeException("Not a compiled level");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Compiled level is version " + version + ", expected " + VERSION
+                                          + " (run the compileLevels task)");
+        }
+
+        LevelFile file = new LevelFile();
+        file.width = in.getInt();
+        file.height = in.getInt();
+        file.tileWidth = in.getInt();
+        file.tileHeight = in.getInt();
+
+        for (int n = in.getInt(); n > 0; n--) {
+            Tileset set = new Tileset();
+            set.name = readString(in);
+            set.image = readString(in);
+            set.firstGid = in.getInt();
+            set.tileWidth = in.getInt();
+            set.tileHeight = in.getInt();
+            set.spacing = in.getInt();
+            set.margin = in.getInt();
+            file.tilesets.add(set);
+        }
+
+        readLayers(in, file.layers);
+        readData(in, file.data);
+        return file;
+    }
+
+    private static void readLayers(ByteBuffer in, Array<Layer> out) {
+        for (int n = in.getInt(); n > 0; n--) {
+            Layer layer = new Layer();
+            boolean group = in.get() != 0;
+            layer.name = readString(in);
+            layer.visible = in.get() != 0;
+            layer.opacity = in.getFloat();
+            layer.offsetX = in.getFloat();
+            layer.offsetY = in.getFloat();
+            layer.parallaxX = in.getFloat();
+            layer.parallaxY = in.getFloat();
+            if (group) {
+                layer.children = new Array<>();
+                readLayers(in, layer.children);
+            } else {
+                layer.width = in.getInt();
+                layer.height = in.getInt();
+                layer.gids = new int[layer.width * layer.height];
+                in.asIntBuffer().get(layer.gids);
+                in.position(in.position() + layer.gids.length * 4);
+            }
+            out.add(layer);
+        }
+    }
+
+    private static void readData(ByteBuffer in, LevelData data) {
+        LevelData.SpawnType[] types = LevelData.SpawnType.values();
+        for (int n = in.getInt(); n > 0; n--) {
+            LevelData.SpawnType type = types[in.get()];
+            float x = in.getFloat();
+            float y = in.getFloat();
+            float width = in.getFloat();
+            float height = in.getFloat();
+            int destination = in.getInt();
+            Vector2 exit = null;
+            if (in.get() != 0) {
+                exit = new Vector2(in.getFloat(), in.getFloat());
+            }
+            float pixelX = in.getFloat();
+            float pixelY = in.getFloat();
+            String text = readString(in);
+            data.spawns.add(new LevelData.Spawn(type, x, y, width, height, destination, exit, pixelX, pixelY, text));
+        }
+
+        data.totalShards = in.getInt();
+        for (int n = in.getInt(); n > 0; n--) {
+            data.shards.add(new LevelData.ShardSpot(in.getInt(), in.getFloat(), in.getFloat()));
+        }
+        for (int n = in.getInt(); n > 0; n--) {
+            int key = in.getInt();
+            data.shardMoves.put(key, new Vector2(in.getFloat(), in.getFloat()));
+        }
+
+        for (int n = in.getInt(); n > 0; n--) {
+            boolean stair = in.get() != 0;
+            float offsetX = in.getFloat();
+            float offsetY = in.getFloat();
+            data.surfaces.add(new LevelData.SurfaceShape(readFloats(in), offsetX, offsetY, stair));
+        }
+        for (int n = in.getInt(); n > 0; n--) {
+            data.platforms.add(new LevelData.Platform(in.getFloat(), in.getFloat(), in.getFloat(),
+                                                      in.getFloat(), in.getFloat()));
+        }
+        DayglowSpike.Direction[] directions = DayglowSpike.Direction.values();
+        for (int n = in.getInt(); n > 0; n--) {
+            float x = in.getFloat();
+            float y = in.getFloat();
+            float width = in.getFloat();
+            float height = in.getFloat();
+            boolean laser = in.get() != 0;
+            data.spikes.add(new LevelData.SpikeSpot(x, y, width, height, laser, directions[in.get()]));
+        }
+
+        data.playerSpawn.set(in.getFloat(), in.getFloat());
+        data.navSpans = readFloats(in);
+    }
+
+    private static float[] readFloats(ByteBuffer in) {
+        float[] values = new float[in.getInt()];
+        in.asFloatBuffer().get(values);
+        in.position(in.position() + values.length * 4);
+        return values;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
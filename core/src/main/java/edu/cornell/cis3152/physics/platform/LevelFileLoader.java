@@ -0,0 +1,69 @@
+package edu.cornell.cis3152.physics.platform;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Loads a {@link LevelFile} into a TiledMap with an AssetManager.
+ *
+ * The file is read in one go and parsed on the loading thread, while the
+ * tileset images are loaded as dependencies (so the AssetManager shares and
+ * reference counts them). Only building the tiles happens on the main thread.
+ */
+public class LevelFileLoader extends AsynchronousAssetLoader<TiledMap, LevelFileLoader.Parameters> {
+    /** Unused, but required by the AssetManager */
+    public static class Parameters extends AssetLoaderParameters<TiledMap> {}
+
+    /** Files parsed by getDependencies, waiting for loadSync */
+    private final ObjectMap<String, LevelFile> parsed = new ObjectMap<>();
+
+    public LevelFileLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, Parameters parameter) {
+        LevelFile level = LevelFile.read(ByteBuffer.wrap(file.readBytes()));
+        synchronized (parsed) {
+            parsed.put(fileName, level);
+        }
+
+        TextureLoader.TextureParameter textures = new TextureLoader.TextureParameter();
+        textures.minFilter = Texture.TextureFilter.Nearest;
+        textures.magFilter = Texture.TextureFilter.Nearest;
+        Array<AssetDescriptor> result = new Array<>();
+        for (LevelFile.Tileset set : level.tilesets) {
+            result.add(new AssetDescriptor<>(resolve(set.image), Texture.class, textures));
+        }
+        return result;
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+        // Everything was parsed with the dependencies
+    }
+
+    @Override
+    public TiledMap loadSync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+        LevelFile level;
+        synchronized (parsed) {
+            level = parsed.remove(fileName);
+        }
+        ObjectMap<String, Texture> textures = new ObjectMap<>();
+        for (LevelFile.Tileset set : level.tilesets) {
+            textures.put(set.image, manager.get(resolve(set.image).path(), Texture.class));
+        }
+        return level.toTiledMap(textures);
+    }
+}
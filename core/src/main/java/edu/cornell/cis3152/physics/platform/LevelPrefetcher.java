@@ -0,0 +1,258 @@
+package edu.cornell.cis3152.physics.platform;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import edu.cornell.cis3152.physics.CompressedTextureLoader;
+import edu.cornell.cis3152.physics.Trace;
+
+/**
+ * Loads tiled maps, and loads the levels the player may go to next ahead of time.
+ *
+ * Every scene gets its map from here instead of running a TmxMapLoader itself.
+ * Maps are reference counted by an AssetManager, so a map that was prefetched
+ * is simply handed over when its level is entered.
+ *
+ * While a level is played, {@link #prefetch} queues the levels behind its
+ * doors. The AssetManager parses the tmx files on its own thread, and each call
+ * to {@link #update} uploads their textures for at most a few milliseconds.
+ * Once a map is in memory its {@link LevelData} is compiled on a background
+ * thread, so entering the level only has to build sprites.
+ *
+ * When the build has compiled a map into a {@link LevelFile} (a .lvl beside the
+ * tmx), that file is loaded instead and only its navigation graph is built.
+ * Callers always name the tmx file.
+ */
+public class LevelPrefetcher {
+    /** The singleton instance of the prefetcher */
+    private static LevelPrefetcher instance;
+
+    /** Loads and reference counts the maps */
+    private final AssetManager maps;
+    /** Compiles level data off the main thread */
+    private final AsyncExecutor compiler;
+    /** Maps this prefetcher holds a reference to */
+    private final ObjectSet<String> prefetched;
+    /** Navigation settings of the prefetched maps (needed to compile them) */
+    private final ObjectMap<String, JsonValue> settings;
+    /** Level data compiled so far, or being compiled */
+    private final ObjectMap<String, AsyncResult<LevelData>> compiled;
+    /** Scratch list for {@link #retain} */
+    private final Array<String> dropped = new Array<>();
+    /** The file actually loaded for each tmx file */
+    private final ObjectMap<String, String> resolved = new ObjectMap<>();
+
+    /**
+     * Returns the singleton instance of the prefetcher
+     *
+     * @return the singleton instance of the prefetcher
+     */
+    public static LevelPrefetcher getInstance() {
+        if (instance == null) {
+            instance = new LevelPrefetcher();
+        }
+        return instance;
+    }
+
+    private LevelPrefetcher() {
+        InternalFileHandleResolver resolver = new InternalFileHandleResolver();
+        maps = new AssetManager(resolver);
+        maps.setLoader(TiledMap.class, new TmxMapLoader(resolver));
+        maps.setLoader(Texture.class, new CompressedTextureLoader(resolver));
+        maps.setLoader(TiledMap.class, LevelFile.EXTENSION, new LevelFileLoader(resolver));
+        compiler = new AsyncExecutor(1, "level-prefetch");
+        prefetched = new ObjectSet<>();
+        settings = new ObjectMap<>();
+        compiled = new ObjectMap<>();
+    }
+
+    /**
+     * Starts loading a level in the background.
+     *
+     * Prefetching the same file again has no effect.
+     *
+     * @param file          The tmx file of the level
+     * @param navigation    The navigation settings of the level (may be null)
+     */
+    public void prefetch(String file, JsonValue navigation) {
+        file = resolve(file);
+        if (prefetched.add(file)) {
+            settings.put(file, navigation);
+            maps.load(file, TiledMap.class);
+        }
+    }
+
+    /**
+     * Stops prefetching every level that is not in the given set.
+     *
+     * Maps still used by a scene stay loaded.
+     *
+     * @param files The tmx files that are still wanted
+     */
+    public void retain(ObjectSet<String> files) {
+        dropped.clear();
+        for (String file : prefetched) {
+            if (!files.contains(file) && !files.contains(unresolve(file))) {
+                dropped.add(file);
+            }
+        }
+        for (String file : dropped) {
+            prefetched.remove(file);
+            unload(file);
+        }
+    }
+
+    /**
+     * Continues loading in the background.
+     *
+     * Finished maps have their level data compiled on the background thread.
+     *
+     * @param millis    Most milliseconds this frame may spend uploading textures
+     */
+    public void update(int millis) {
+        maps.update(millis);
+        for (String file : prefetched) {
+            if (!compiled.containsKey(file) && maps.isLoaded(file)) {
+                final TiledMap map = maps.get(file, TiledMap.class);
+                final JsonValue navigation = settings.get(file);
+                compiled.put(file, compiler.submit(() -> compile(map, navigation)));
+            }
+        }
+    }
+
+    /** Returns true if the level is loaded and compiled */
+    public boolean isReady(String file) {
+        file = resolve(file);
+        AsyncResult<LevelData> result = compiled.get(file);
+        return maps.isLoaded(file) && result != null && result.isDone();
+    }
+
+    /**
+     * Returns the map of a level, loading it now if it was not prefetched.
+     *
+     * Every call must be matched by a call to {@link #release}.
+     *
+     * @param file  The tmx file of the level
+     */
+    public TiledMap acquire(String file) {
+        file = resolve(file);
+        Trace.begin("load map " + file);
+        try {
+            maps.load(file, TiledMap.class);
+            return maps.finishLoadingAsset(file);
+        } finally {
+            Trace.end();
+        }
+    }
+
+    /**
+     * Returns the level data of a level, compiling it now if needed.
+     *
+     * The level must have been acquired.
+     *
+     * @param file          The tmx file of the level
+     * @param navigation    The navigation settings of the level (may be null)
+     */
+    public LevelData getLevelData(String file, JsonValue navigation) {
+        file = resolve(file);
+        AsyncResult<LevelData> result = compiled.get(file);
+        if (result != null) {
+            // Waits if the background thread is not done yet
+            return result.get();
+        }
+        LevelData data = compile(maps.get(file, TiledMap.class), navigation);
+        compiled.put(file, compiler.submit(() -> data));
+        return data;
+    }
+
+    /**
+     * Gives back a map acquired with {@link #acquire}
+     *
+     * @param file  The tmx file of the level
+     */
+    public void release(String file) {
+        unload(resolve(file));
+    }
+
+    /**
+     * Returns the level data of a loaded map
+     *
+     * A compiled level file already holds its data, so only the navigation
+     * graph is built. Otherwise the data is compiled from the map objects.
+     *
+     * @param map           The tiled map
+     * @param navigation    The navigation settings of the level (may be null)
+     */
+    private static LevelData compile(TiledMap map, JsonValue navigation) {
+        Trace.begin("compile level data");
+        try {
+            LevelData data = map.getProperties().get(LevelFile.DATA_KEY, LevelData.class);
+            if (data != null) {
+                return data.buildNavGraph(navigation);
+            }
+            return LevelData.compile(map, TiledMapInfo.PIXELS_PER_WORLD_METER, navigation);
+        } finally {
+            Trace.end();
+        }
+    }
+
+    /**
+     * Returns the compiled level file for a tmx file if there is one
+     *
+     * @param file  The tmx file of the level
+     */
+    private String resolve(String file) {
+        String result = resolved.get(file);
+        if (result == null) {
+            String compiled = LevelFile.toCompiledName(file);
+            result = Gdx.files.internal(compiled).exists() ? compiled : file;
+            resolved.put(file, result);
+        }
+        return result;
+    }
+
+    /** Returns the tmx file a resolved file was made from */
+    private String unresolve(String file) {
+        for (ObjectMap.Entry<String, String> entry : resolved) {
+            if (entry.value.equals(file)) {
+                return entry.key;
+            }
+        }
+        return file;
+    }
+
+    /** Drops one reference to a map, forgetting its level data when it is gone */
+    private void unload(String file) {
+        if (maps.contains(file)) {
+            maps.unload(file);
+        }
+        if (!maps.contains(file)) {
+            AsyncResult<LevelData> result = compiled.remove(file);
+            if (result != null && !result.isDone()) {
+                // Let the compile finish so it does not read a disposed map
+                result.get();
+            }
+            settings.remove(file);
+        }
+    }
+
+    /** Disposes every map and stops the background thread */
+    public void dispose() {
+        compiler.dispose();
+        maps.dispose();
+        prefetched.clear();
+        settings.clear();
+        compiled.clear();
+        resolved.clear();
+        instance = null;
+    }
+}
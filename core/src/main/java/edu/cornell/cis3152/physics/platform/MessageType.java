@@ -5,4 +5,30 @@ public final class MessageType {
     public static final int CRITTER_LOST_PLAYER = 1002;
     public static final int MAINTENANCE_SEES_PLAYER = 1003;
     public static final int MAINTENANCE_LOST_PLAYER = 1004;
+
+    /** AI events (extraInfo is the enemy the event is about) */
+    public static final int PLAYER_SPOTTED = 2001;
+    public static final int PLAYER_LOST = 2002;
+    public static final int ENEMY_STUNNED = 2003;
+    public static final int ENEMY_RECOVERED = 2004;
+    /** Sent only to enemies that perceived the shard move */
+    public static final int SHARD_MOVED = 2005;
+
+    /** AI events broadcast to every enemy */
+    public static final int FEAR_THRESHOLD_CROSSED = 2102;
+
+    /** Every message a behavior tree may wake up for */
+    public static final int[] AI_EVENTS = {
+        PLAYER_SPOTTED, PLAYER_LOST, ENEMY_STUNNED, ENEMY_RECOVERED,
+        SHARD_MOVED, FEAR_THRESHOLD_CROSSED
+    };
+
+    /**
+     * Returns true if the message only concerns the enemy passed as extraInfo
+     *
+     * @param message   The message type
+     */
+    public static boolean isPersonal(int message) {
+        return message >= PLAYER_SPOTTED && message < FEAR_THRESHOLD_CROSSED;
+    }
 }
@@ -10,10 +10,9 @@ import com.badlogic.gdx.physics.box2d.*;
 
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJoint;
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJointDef;
-import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.Null;
+import edu.cornell.cis3152.physics.platform.aiperception.Stimulus;
 import edu.cornell.gdiac.assets.AssetDirectory;
-import edu.cornell.gdiac.assets.ParserUtils;
 import edu.cornell.gdiac.graphics.SpriteBatch;
 import edu.cornell.gdiac.graphics.Texture2D;
 import edu.cornell.gdiac.math.Path2;
@@ -24,7 +23,7 @@ import javax.swing.*;
 
 public class MindMaintenance extends Enemy {
     /** Json constants for parameters */
-    private final JsonValue data;
+    private final LevelConfig.Actor data;
 
     /** physics stuff */
     private float width;
@@ -53,19 +52,29 @@ public class MindMaintenance extends Enemy {
     private final Vector2 forceCache = new Vector2();
     private final Vector2 velocityCache = new Vector2();
     private final Affine2 flipCache = new Affine2();
+    // Caches for the ray checks made every frame
+    private final Vector2 stepStartCache = new Vector2();
+    private final Vector2 stepEndCache = new Vector2();
+    private final Vector2 rayStartCache = new Vector2();
+    private final Vector2 rayEndCache = new Vector2();
+    private final Vector2 stairHitCache = new Vector2();
+    private final Vector2 wallStartCache = new Vector2();
+    private final Vector2 wallEndCache = new Vector2();
+    private final EnemyVisionRaycast rearRaycast =
+        new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.PLAYER_CHECK, 2f);
+    private final EnemyVisionRaycast wallRaycast;
+    private final EnemyVisionRaycast groundRaycast;
 
     private Vector2 debugFollowStart;
     private Vector2 debugFollowEnd;
-    private Vector2 debugGroundStart;
-    private Vector2 debugGroundEnd;
+    private final Vector2 debugGroundStart = new Vector2();
+    private final Vector2 debugGroundEnd = new Vector2();
 
     private Fixture visionSensor;
     private float followAngle;
     private Fixture followSensor;
     private float headOffset = 2.0f;
     private Fixture walkSensor;
-    private Vector2 debugLookStart = new Vector2();
-    private Vector2 debugLookEnd = new Vector2();
 
     /** game logic stuff */
     private boolean safeToWalk;
@@ -179,7 +188,7 @@ public class MindMaintenance extends Enemy {
     }
 
 
-    public MindMaintenance(float units, JsonValue data, float[] points, PlatformScene scene) {
+    public MindMaintenance(float units, LevelConfig.Actor data, float[] points, PlatformScene scene) {
         super();
         this.data = data;
         this.scene = scene;
@@ -187,12 +196,12 @@ public class MindMaintenance extends Enemy {
         // Read initial position and overall size from JSON.
         float x = points[0];
         float y = points[1];
-        float s = data.getFloat("size");
+        float s = data.size;
 
         float size = s * units;
 
-        width  = s * data.get("inner").getFloat(0);
-        height = s * data.get("inner").getFloat(1);
+        width  = s * data.innerWidth;
+        height = s * data.innerHeight;
 
         float drawWidth  = size;
         float drawHeight = size*2;
@@ -200,26 +209,25 @@ public class MindMaintenance extends Enemy {
         // may want to change what kind of physical obstacle this is
         obstacle = new CapsuleObstacle(x, y, width, height);
         // Optionally set a tolerance for collision detection (from JSON debug info)
-        JsonValue debugInfo = data.get("debug");
-        ((CapsuleObstacle)obstacle).setTolerance( debugInfo.getFloat("tolerance", 0.5f) );
+        ((CapsuleObstacle)obstacle).setTolerance( data.tolerance );
 
-        //obstacle.setDensity(data.getFloat("density", 0));
+        //obstacle.setDensity(data.density);
         obstacle.setDensity(100000);
-        obstacle.setFriction(data.getFloat("friction", 0));
-        obstacle.setRestitution(data.getFloat("restitution", 0));
+        obstacle.setFriction(data.friction);
+        obstacle.setRestitution(data.restitution);
         obstacle.setFixedRotation(true);
         obstacle.setPhysicsUnits(units);
         obstacle.setUserData(this);
         obstacle.setName("maintenance");
 
         // Set debugging colors
-        debug = ParserUtils.parseColor(debugInfo.get("avatar"), Color.WHITE);
-        sensorColor = ParserUtils.parseColor(debugInfo.get("sensor"), Color.WHITE);
+        debug = data.debugColor;
+        sensorColor = data.sensorColor;
 
-        max_speed   = data.getFloat("maxspeed", 0);
-        damping    = data.getFloat("damping", 0);
-        force      = data.getFloat("force", 0);
-        jump_force = data.getFloat("jump_force", 0);
+        max_speed   = data.maxSpeed;
+        damping    = data.damping;
+        force      = data.force;
+        jump_force = data.jumpForce;
 
         isGrounded  = false;
         isShooting  = false;
@@ -229,6 +237,12 @@ public class MindMaintenance extends Enemy {
 
         stepRayLength = height;
         enemyVisionRaycast = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.STAIR_CHECK, stepRayLength);
+        wallRaycast = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.WALL_CHECK, stepRayLength);
+        groundRaycast = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.FALL_CHECK, stepRayLength);
+
+        senses = Stimulus.Type.VISIBLE.bit | Stimulus.Type.NOISE.bit;
+        visionRange = 8;
+        visionCone = 30;
 
         mesh.set(-drawWidth/1.5f, -drawHeight/1.6f, drawWidth*1.5f, drawHeight*1.5f);
     }
@@ -241,13 +255,12 @@ public class MindMaintenance extends Enemy {
         // Position the sensor just below the physics body.
         Vector2 sensorCenter = new Vector2(0, -height / 2);
         FixtureDef sensorDef = new FixtureDef();
-        sensorDef.density = data.getFloat("density", 0);
+        sensorDef.density = data.density;
         sensorDef.isSensor = true;
 
         // Get sensor configuration from JSON (e.g., size adjustments)
-        JsonValue sensorjv = data.get("sensor");
-        float w = sensorjv.getFloat("shrink", 0) * width / 2.0f;
-        float h = sensorjv.getFloat("height", 0);
+        float w = data.sensorShrink * width / 2.0f;
+        float h = data.sensorHeight;
         PolygonShape sensorShape = new PolygonShape();
         sensorShape.setAsBox(w, h, sensorCenter, 0.0f);
         sensorDef.shape = sensorShape;
@@ -269,9 +282,9 @@ public class MindMaintenance extends Enemy {
 
     public boolean isPlatformStep(World world, float raylength) {
         Vector2 start = (isFacingRight()) ?
-            obstacle.getBody().getPosition().cpy().add(width/2 + 0.1f, height/2) :
-            obstacle.getBody().getPosition().cpy().add(-width/2 - 0.1f, height/2);
-        Vector2 end = start.cpy().add(0, -raylength);
+            stepStartCache.set(obstacle.getBody().getPosition()).add(width/2 + 0.1f, height/2) :
+            stepStartCache.set(obstacle.getBody().getPosition()).add(-width/2 - 0.1f, height/2);
+        Vector2 end = stepEndCache.set(start).add(0, -raylength);
 
 
         debugRayStart = start;
@@ -285,7 +298,7 @@ public class MindMaintenance extends Enemy {
         } else if (!enemyVisionRaycast.fixtureIsStair) {
             return false;
         } else {
-            Vector2 stairHit = new Vector2(enemyVisionRaycast.getHitPoint());
+            Vector2 stairHit = stairHitCache.set(enemyVisionRaycast.getHitPoint());
             if (isGrounded && Math.abs(movement) > 0) {
                 float targetCenterY = stairHit.y + height/2;
                 Body body = obstacle.getBody();
@@ -304,16 +317,12 @@ public class MindMaintenance extends Enemy {
         float groundRayLength = stepRayLength;
         float wallRayLength = width * 0.5f;
 
-        debugGroundStart = (facingRight) ? new Vector2(pos.x + width * 1.5f, pos.y) :
-            new Vector2(pos.x - width * 1.5f, pos.y);
-        Vector2 wallStart = (facingRight) ? new Vector2(pos.x + width/2, pos.y) :
-            new Vector2(pos.x - width/2, pos.y);
+        debugGroundStart.set(facingRight ? pos.x + width * 1.5f : pos.x - width * 1.5f, pos.y);
+        Vector2 wallStart = wallStartCache.set(facingRight ? pos.x + width/2 : pos.x - width/2, pos.y);
 
-        debugGroundEnd = debugGroundStart.cpy().add(0, -groundRayLength);
-        EnemyVisionRaycast wallVisionRaycast =
-            new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.WALL_CHECK, stepRayLength);
-        EnemyVisionRaycast groundVisionRaycast =
-            new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.FALL_CHECK, stepRayLength);
+        debugGroundEnd.set(debugGroundStart).add(0, -groundRayLength);
+        EnemyVisionRaycast wallVisionRaycast = wallRaycast;
+        EnemyVisionRaycast groundVisionRaycast = groundRaycast;
         world.rayCast(groundVisionRaycast, debugGroundStart, debugGroundEnd);
         boolean groundExists = (groundVisionRaycast.getHitFixture() != null);
         if (!groundExists)
@@ -322,7 +331,7 @@ public class MindMaintenance extends Enemy {
         }
         groundVisionRaycast.reset();
 
-        Vector2 wallEnd = new Vector2();
+        Vector2 wallEnd = wallEndCache;
         if (isFacingRight()) {
             wallEnd.set(wallStart).add(wallRayLength, 0);
         } else {
@@ -403,7 +412,6 @@ public class MindMaintenance extends Enemy {
 
     @Override
     public void update(float dt) {
-        lookForPlayer();
 
         if (isStunned()) {
             setMovement(0);
@@ -483,7 +491,7 @@ public class MindMaintenance extends Enemy {
      */
     @Override
     public void draw(SpriteBatch batch) {
-        TextureRegion frame = new TextureRegion();
+        TextureRegion frame;
         if (animationState == null)
         {
             return;
@@ -544,69 +552,37 @@ public class MindMaintenance extends Enemy {
         }
         obstacle.setPosition(current.x + shift, current.y);
     }
-    public void lookForPlayer() {
-        World world = obstacle.getBody().getWorld();
-        Player player = scene.getAvatar();
+    @Override
+    public Vector2 getEyePosition(Vector2 out) {
         Vector2 pos = obstacle.getPosition();
-        float rayLength = 8;
-        Vector2 start, end;
-
-        start = (facingRight) ? new Vector2(pos.x + width/2, pos.y + height/4) :
-            new Vector2(pos.x - width/2, pos.y + height/4);
-
-        float angleToPlayer = MathUtils.atan2(
-            player.getObstacle().getPosition().y - pos.y,
-            player.getObstacle().getPosition().x - pos.x
-        );
-
-        float forwardAngle = facingRight ? 0 : MathUtils.PI;
-
-        float maxAngleOffset = 30 * MathUtils.degreesToRadians; // 30 degrees
-
-        float angleDiff = angleToPlayer - forwardAngle;
-        if (angleDiff > MathUtils.PI) angleDiff -= MathUtils.PI2;
-        if (angleDiff < -MathUtils.PI) angleDiff += MathUtils.PI2;
-
-        if (Math.abs(angleDiff) <= maxAngleOffset) {
-            // Player is within the vision cone
-            end = new Vector2(
-                pos.x + rayLength * MathUtils.cos(angleToPlayer),
-                pos.y + rayLength * MathUtils.sin(angleToPlayer)
-            );
-
-            boolean playerIsOnRight = player.getObstacle().getPosition().x > pos.x;
-            if ((facingRight && !playerIsOnRight) || (!facingRight && playerIsOnRight)) {
-                facingRight = playerIsOnRight;
-            }
-        } else {
-            // Player is outside the cone, no raycast
-            setAwareOfPlayer(false);
-            wasAware = false;
-            return; // Exit early
-        }
-
-        EnemyVisionRaycast playerRaycast = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.PLAYER_CHECK, 4f);
-        world.rayCast(playerRaycast, start, end);
-
-        debugLookStart.set(start);
-        debugLookEnd.set(end);
-
-        boolean isAware = (playerRaycast.getHitPlayer() != null);
-        if (isAware) {
-            setAwareOfPlayer(true);
-            debugLookEnd.set(playerRaycast.getHitPoint());
+        return out.set(pos.x + (facingRight ? width/2 : -width/2), pos.y + height/4);
+    }
 
-        } else if (playerRaycast.getHitFixture() != null) {
-            debugLookEnd.set(playerRaycast.getHitPoint());
-        }
-        else{
-            setAwareOfPlayer(false);
+    @Override
+    public void perceive(Stimulus stimulus) {
+        super.perceive(stimulus);
+        switch (stimulus.getType()) {
+            case VISIBLE:
+                if (seesPlayer) {
+                    facingRight = stimulus.getX() > obstacle.getX();
+                }
+                break;
+            case NOISE:
+                // A noise behind an unaware maintenance makes it turn around
+                boolean behind = (stimulus.getX() > obstacle.getX()) != facingRight;
+                if (behind && !isAwareOfPlayer()) {
+                    setSus(true);
+                }
+                break;
+            default:
+                break;
         }
+    }
 
-        // message dispatch
-        wasAware = isAware;
-
-        playerRaycast.reset();
+    @Override
+    public void endPerception() {
+        setAwareOfPlayer(seesPlayer);
+        wasAware = seesPlayer;
     }
 
     private boolean checkBehindForPlayer() {
@@ -616,15 +592,14 @@ public class MindMaintenance extends Enemy {
         float rearAngle = facingRight ? MathUtils.PI : 0;
 
         Vector2 rearStart = (facingRight)
-            ? new Vector2(pos.x + width / 2, pos.y + height / 4)
-            : new Vector2(pos.x - width / 2, pos.y + height / 4);
+            ? rayStartCache.set(pos.x + width / 2, pos.y + height / 4)
+            : rayStartCache.set(pos.x - width / 2, pos.y + height / 4);
 
-        Vector2 rearEnd = new Vector2(
+        Vector2 rearEnd = rayEndCache.set(
             rearStart.x + rearRayLength * MathUtils.cos(rearAngle),
             rearStart.y + rearRayLength * MathUtils.sin(rearAngle)
         );
 
-        EnemyVisionRaycast rearRaycast = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.PLAYER_CHECK, 2f);
         world.rayCast(rearRaycast, rearStart, rearEnd);
 
         boolean hit = rearRaycast.getHitPlayer() != null;
@@ -716,4 +691,24 @@ public class MindMaintenance extends Enemy {
     public Body getHeadBody() {
         return headBody;
     }
+
+    @Override
+    public void saveState(WorldSnapshot out) {
+        super.saveState(out);
+        out.putBoolean(sus);
+        out.putBoolean(facingRight);
+        out.putFloat(movement);
+        out.putInt(jumpCooldown);
+        out.putBoolean(isShooting);
+    }
+
+    @Override
+    public void loadState(WorldSnapshot in) {
+        super.loadState(in);
+        sus = in.getBoolean();
+        facingRight = in.getBoolean();
+        movement = in.getFloat();
+        jumpCooldown = in.getInt();
+        isShooting = in.getBoolean();
+    }
 }
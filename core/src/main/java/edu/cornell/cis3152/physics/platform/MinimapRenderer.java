@@ -24,6 +24,11 @@ public class MinimapRenderer {
     private float mapWidth, mapHeight;
     private Shader inkShader;
 
+    // Reused every frame, so drawing allocates nothing
+    private final TextureRegion region = new TextureRegion();
+    private final Matrix4 centreShift = new Matrix4();
+    private final Matrix4 identity = new Matrix4();
+
     public MinimapRenderer(TiledMap map, SpriteBatch batch, float unitScale, float width, float height) {
         this.map       = map;
         this.batch     = batch;
@@ -43,12 +48,15 @@ public class MinimapRenderer {
     /**
      * Draws the map scaled down to a half-screen inset.
      * Just swaps cameras—no glViewport or FBO needed.
+     *
+     * The batch gets back the given projection and an identity transform
+     * (reading them back from the batch would copy them every frame).
+     *
+     * @param oldProj   The projection to restore afterwards
      */
-    public void render(Vector2 playerPos, OrthographicCamera miniCam, float time) {
+    public void render(Vector2 playerPos, OrthographicCamera miniCam, Matrix4 oldProj, float time) {
         if (!active) { return; }
 
-        Matrix4 oldProj = batch.getProjectionMatrix().cpy();
-        Matrix4 oldTrans  = batch.getTransformMatrix();
         ShaderProgram oldShader = batch.getShader();
 
         batch.setProjectionMatrix(miniCam.combined);
@@ -65,7 +73,7 @@ public class MinimapRenderer {
 
 
         batch.begin();
-        Matrix4 centreShift = new Matrix4().setToTranslation(
+        centreShift.setToTranslation(
             -mapWidth  * 0.25f,
             0,
             0f);
@@ -81,7 +89,7 @@ public class MinimapRenderer {
 
 
         // 4) restore main matrix
-        batch.setTransformMatrix(oldTrans);
+        batch.setTransformMatrix(identity);
         batch.setProjectionMatrix(oldProj);
         batch.setShader(oldShader);
     }
@@ -94,7 +102,7 @@ public class MinimapRenderer {
             for (int x = 0; x < layer.getWidth(); x++) {
                 TiledMapTileLayer.Cell cell = layer.getCell(x, y);
                 if (cell == null || cell.getTile() == null) continue;
-                TextureRegion region = new TextureRegion(cell.getTile().getTextureRegion());
+                region.setRegion(cell.getTile().getTextureRegion());
                 if (cell.getFlipHorizontally()) region.flip(true, false);
                 if (cell.getFlipVertically())   region.flip(false, true);
                 float deg = cell.getRotation() * 90f;
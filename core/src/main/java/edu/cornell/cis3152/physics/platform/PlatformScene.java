@@ -12,7 +12,6 @@
  */
 package edu.cornell.cis3152.physics.platform;
 
-import com.badlogic.gdx.ai.GdxAI;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
@@ -22,7 +21,11 @@ import com.badlogic.gdx.maps.objects.PolygonMapObject;
 import com.badlogic.gdx.maps.objects.RectangleMapObject;
 import edu.cornell.cis3152.physics.AIControllerManager;
 import edu.cornell.cis3152.physics.AudioManager;
+import edu.cornell.cis3152.physics.FrameTelemetry;
 import edu.cornell.cis3152.physics.ObstacleGroup;
+import edu.cornell.cis3152.physics.PhaseProfiler;
+import edu.cornell.cis3152.physics.SaveService;
+import edu.cornell.cis3152.physics.Trace;
 
 import edu.cornell.gdiac.audio.AudioEngine;
 import edu.cornell.gdiac.audio.AudioSource;
@@ -38,6 +41,13 @@ import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ScreenUtils;
 import edu.cornell.cis3152.physics.platform.aibehavior.AIManager;
+import edu.cornell.cis3152.physics.platform.aibehavior.AIScheduler;
+import edu.cornell.cis3152.physics.platform.aibehavior.BehaviorLoop;
+import edu.cornell.cis3152.physics.platform.aifsm.FSMGroup;
+import edu.cornell.cis3152.physics.platform.ainav.NavGraph;
+import edu.cornell.cis3152.physics.platform.ainav.PathService;
+import edu.cornell.cis3152.physics.platform.aiperception.PerceptionSystem;
+import edu.cornell.cis3152.physics.platform.aiperception.Stimulus;
 import edu.cornell.gdiac.assets.AssetDirectory;
 import edu.cornell.gdiac.util.*;
 import edu.cornell.gdiac.graphics.*;
@@ -102,6 +112,8 @@ public class PlatformScene implements Screen {
 
     /** The physics constants */
     protected JsonValue constants;
+    /** The gameplay constants, read once from the physics constants */
+    protected LevelConfig config;
 
     /** The font for giving messages to the player */
     protected BitmapFont displayFont;
@@ -135,6 +147,8 @@ public class PlatformScene implements Screen {
     protected boolean failed;
     /** Whether debug mode is active */
     protected boolean debug;
+    /** Whether the allocation and GC telemetry overlay is active */
+    protected boolean telemetry;
     /** Countdown active for winning or losing */
     protected int countdown;
 
@@ -162,6 +176,93 @@ public class PlatformScene implements Screen {
     /** manages ai control for all entities */
     private AIControllerManager aiCManager;
     private AIManager aiManager;
+    private AIScheduler aiScheduler;
+    /** Walkable spans of the level, for enemy pathfinding */
+    private NavGraph navGraph;
+    /** Route searches over the navigation graph */
+    private PathService pathService;
+    /** Shared enemy senses */
+    private PerceptionSystem perception;
+    /** The perception settings of the level (grid cell size and stimuli) */
+    private JsonValue perceptionSettings;
+    /** The stimuli the level publishes, read once from the perception settings */
+    private PerceptionSystem.Emission playerEmission;
+    private PerceptionSystem.Emission teleportEmission;
+    private PerceptionSystem.Emission harvestEmission;
+    private PerceptionSystem.Emission shardEmission;
+    /** Number of task types listed in the AI profiler overlay */
+    private static final int PROFILE_ROWS = 8;
+    /** Where the AI profile is exported to */
+    private static final String PROFILE_FILE = "ai-profile.csv";
+    /** Where the startup and level load trace is exported to */
+    private static final String TRACE_FILE = "trace.json";
+    /** Reused text for the AI profiler overlay */
+    private final StringBuilder profileText = new StringBuilder();
+    /** Screen space projection for the AI profiler overlay */
+    private final Matrix4 overlayMatrix = new Matrix4();
+    /** Allocations and collections of recent frames (recorded while telemetry is on) */
+    private final FrameTelemetry frameTelemetry = new FrameTelemetry();
+    /** Reused text for the telemetry overlay */
+    private final StringBuilder telemetryText = new StringBuilder();
+    /** Height of the telemetry graph in pixels */
+    private static final float TELEMETRY_HEIGHT = 80f;
+    /** Width of one frame in the telemetry graph in pixels */
+    private static final float TELEMETRY_BAR = 2f;
+
+    /** The phases of a frame (ai is also part of update, effects also part of draw) */
+    private static final int PHASE_FRAME = 0;
+    private static final int PHASE_CAMERA = 1;
+    private static final int PHASE_INPUT = 2;
+    private static final int PHASE_AI = 3;
+    private static final int PHASE_UPDATE = 4;
+    private static final int PHASE_PHYSICS = 5;
+    private static final int PHASE_SPRITES = 6;
+    private static final int PHASE_BACKGROUND = 7;
+    private static final int PHASE_TILES = 8;
+    private static final int PHASE_DRAW = 9;
+    private static final int PHASE_EFFECTS = 10;
+    private static final int PHASE_UI = 11;
+    private static final int PHASE_MINIMAP = 12;
+    private static final String[] PHASE_NAMES = {
+        "frame", "camera", "preUpdate", "ai", "update", "world.step", "sprites",
+        "background", "tiles", "draw", "effects", "drawUI", "minimap"
+    };
+    /** The per-frame counters of the phase profiler */
+    private static final int COUNT_BODIES = 0;
+    private static final int COUNT_CONTACTS = 1;
+    private static final int COUNT_SPRITES = 2;
+    private static final String[] COUNT_NAMES = { "bodies", "contacts", "sprites" };
+    /** Frames between refreshes of the phase profiler overlay */
+    private static final int PHASE_REFRESH = 10;
+    /** Where the frame phase profile is exported to */
+    private static final String PHASE_FILE = "frame-profile.csv";
+    /** Times the phases of each frame (while turned on) */
+    private final PhaseProfiler phaseProfiler = new PhaseProfiler(PHASE_NAMES, COUNT_NAMES);
+    /** Reused text for the phase profiler overlay */
+    private final StringBuilder phaseText = new StringBuilder();
+    /** The phase profiler overlay as last refreshed */
+    private String phaseReport = "";
+    /** Frames until the phase profiler overlay is refreshed */
+    private int phaseRefresh;
+
+    // Scratch space, so that a gameplay frame allocates nothing
+    private final Vector3 screenCache = new Vector3();
+    private final Vector2 crosshairCache = new Vector2();
+    private final Vector2 deltaCache = new Vector2();
+    private final Vector3 followCache = new Vector3();
+    private final Vector3 diffCache = new Vector3();
+    private final Matrix4 identityMatrix = new Matrix4();
+    private final Sprite teleportSprite = new Sprite();
+    /** Whether the last surface query hit a surface */
+    private boolean surfaceFound;
+    /** Looks for a surface (reused by {@link #isSurfaceNear}) */
+    private final QueryCallback surfaceQuery = fixture -> {
+        if (fixture.getBody().getUserData() instanceof Surface) {
+            surfaceFound = true;
+            return false; // Stop
+        }
+        return true; // Continue
+    };
 
     private PooledList<Enemy> enemies = new PooledList<>();
     private LevelContactListener levelContactListener;
@@ -178,7 +279,6 @@ public class PlatformScene implements Screen {
     private Texture teleportTexture;
     private Texture backgroundTexture;
     private TextureRegion currentTeleportFrame;
-    private TextureRegion teleportFrameToDraw;
     private TextureRegion swirlFrame;
     private Texture dreamwalkerTexture;
     private Texture absorbTexture;
@@ -187,7 +287,6 @@ public class PlatformScene implements Screen {
 
     /** Enemy textures */
     private Texture maintenanceTexture;
-    private Texture dwellerTexture;
     private Texture spearTravelTex;
     private Texture spearEndTex;
     private Texture wallTravelTex;
@@ -213,6 +312,8 @@ public class PlatformScene implements Screen {
     private boolean drawScareEffect = false;
 
     private Vector2 queuedTeleportPosition = null;
+    /** The storage of queuedTeleportPosition (which is null if none is queued) */
+    private final Vector2 teleportTarget = new Vector2();
     private PooledList<Enemy> queuedHarvestedEnemy = new PooledList<Enemy>();
 
     /** Spawn positions of all shards */
@@ -235,8 +336,12 @@ public class PlatformScene implements Screen {
     // Reference to the shards
     private int totalShards;
     private int collectedShards;
+    /** Where the player was when they last collected a shard */
+    private final Vector2 lastShardPos = new Vector2();
+    /** The enemies harvested this attempt */
+    private int enemiesDefeated;
     private TextLayout dreamShardCountText;
-    private Map<Shard,Float> shardPickupTimers = new HashMap<>();
+    private final ObjectFloatMap<Shard> shardPickupTimers = new ObjectFloatMap<>();
     public Shard currentInteractingShard = null;
 
     private Animator swirlSprite;
@@ -252,6 +357,15 @@ public class PlatformScene implements Screen {
 
     /** tiled map + map info */
     private TiledMapInfo tiledMap;
+    /** Spawn and collision data compiled from the tiled map */
+    private LevelData levelData;
+    /** The level assets this level holds (see LevelAssets) */
+    private Array<String> manifest;
+    /** The last checkpoint saved (empty if none) */
+    private final WorldSnapshot checkpoint = new WorldSnapshot();
+    /** Scratch sets for restoring checkpoints */
+    private final ObjectSet<ObstacleSprite> checkpointRoster = new ObjectSet<>();
+    private final ObjectSet<ObstacleSprite> checkpointLive = new ObjectSet<>();
     private TiledMapRenderer tiledRenderer;
     private String tiledLevelName;
 
@@ -296,8 +410,8 @@ public class PlatformScene implements Screen {
     private final float TELEPORT_SURFACE_BUFFER = 0.5f;
 
     private float teleportAnimationTime = 0f;
-    private Vector2 preTeleportPosition;
-    private Vector2 teleportPosition;
+    private final Vector2 preTeleportPosition = new Vector2();
+    private final Vector2 teleportPosition = new Vector2();
     private float teleportAngle;
     private boolean teleportDirectionRight;
 
@@ -345,7 +459,35 @@ public class PlatformScene implements Screen {
     public Player getAvatar() { return avatar;}
 
     public void incrementGoal() {
-        collectedShards++;}
+        collectedShards++;
+        lastShardPos.set(avatar.getObstacle().getPosition());
+    }
+
+    /**
+     * Records the progress through this level in the save
+     *
+     * The save keeps the best attempt, so this never lowers a count. The save
+     * itself is written in the background.
+     *
+     * @param completed Whether the level was just completed
+     */
+    private void recordProgress(boolean completed) {
+        SaveService saves = SaveService.getInstance();
+        SaveService.LevelProgress progress = saves.getProgress(mapkey);
+        progress.shardsCollected = Math.max(progress.shardsCollected, collectedShards);
+        progress.enemiesDefeated = Math.max(progress.enemiesDefeated, enemiesDefeated);
+        if (collectedShards > 0) {
+            progress.x = lastShardPos.x;
+            progress.y = lastShardPos.y;
+        }
+        if (completed) {
+            progress.completed = true;
+            if (progress.timeToBeat < 0 || timeSinceStart < progress.timeToBeat) {
+                progress.timeToBeat = timeSinceStart;
+            }
+        }
+        saves.requestSave();
+    }
 
     public int getTotalShards() {
         return totalShards;
@@ -449,6 +591,10 @@ public class PlatformScene implements Screen {
 
     public void markShardRemoved(int id) {
         removedShards.add(id);
+        if (id >= 0 && id < shardPos.size() && shardPos.get(id) != null) {
+            perception.publish(Stimulus.Type.SHARD_MOVED, shardPos.get(id),
+                               shardEmission, null);
+        }
     }
 
     /**
@@ -476,35 +622,32 @@ public class PlatformScene implements Screen {
         sprites.clear();
         addQueue.clear();
         addQueue = null;
+        if (pathService != null) {
+            pathService.dispose();
+            pathService = null;
+        }
         sprites = null;
         bounds = null;
         scale = null;
-        world = null;
+        if (world != null) {
+            world.dispose();
+            world = null;
+        }
         batch = null;
 
-        // I HATE MEMORY LEAKS (GRRRRRRR)
-        shardTexture.dispose();
-        stunProjectileTexture.dispose();
-        spikeTexture.dispose();
-        miniMapTexture.dispose();
-        teleportTexture.dispose();
-        backgroundTexture.dispose();
-        dreamwalkerTexture.dispose();
-        absorbTexture.dispose();
-        critterTexture.dispose();
-        maintenanceTexture.dispose();
-        dwellerTexture.dispose();
-        spearTravelTex.dispose();
-        spearEndTex.dispose();
-        wallTravelTex.dispose();
-        wallEndTex.dispose();
-        fearMeterTexture.dispose();
-        visibilityIndicatorTexture.dispose();
-        fearTexture.dispose();
-        swirlTexture.dispose();
-        abstractGlassyTexture.dispose();
+        // Only dispose what this scene created. Textures, sounds and fonts
+        // belong to the asset directory and are shared with the other levels.
         blankTexture.dispose();
-        tiledMap.disposeMap();
+        sceneBuffer.dispose();
+        if (tiledMap != null) {
+            tiledMap.disposeMap();
+        }
+
+        // Shaders, enemy textures and music go back to the level assets
+        if (manifest != null) {
+            LevelAssets.getInstance().release(manifest);
+            manifest = null;
+        }
 
         if (bulletVB != null) {
             bulletVB.dispose();
@@ -513,16 +656,11 @@ public class PlatformScene implements Screen {
 
         if (music != null) {
             music.stop();
-        }
-
-        for (AudioSource sample : samples) {
-            if (sample != null) {
-                sample.dispose();
-            }
+            music.dispose();
+            music = null;
         }
     }
 
-
     /**
      *
      * Adds a physics sprite in to the insertion queue.
@@ -627,27 +765,11 @@ public class PlatformScene implements Screen {
         tiledLevelName = tiled;
         this.isLevelSelect = isLevelSelect;
         constants = directory.getEntry(mapkey,JsonValue.class);
-        JsonValue defaults = constants.get("world");
+        config = new LevelConfig(constants);
         scale = new Vector2();
-        bounds = new Rectangle(0,0,defaults.get("bounds").getFloat( 0 ), defaults.get("bounds").getFloat( 1 ));
+        bounds = new Rectangle(0,0,config.world.width, config.world.height);
         resize(Gdx.graphics.getWidth(),Gdx.graphics.getHeight());
 
-        // SHADERS
-        vortexShader = new Shader(Gdx.files.internal("shaders/vortex.vert"),Gdx.files.internal("shaders/vortex.frag"));
-        if (!vortexShader.isCompiled()) {
-            Gdx.app.error("PlatformScene", "Swirl shader compile error: " + vortexShader.getLog());
-        }
-
-        tendrilShader = new Shader(Gdx.files.internal("shaders/tendrils.vert"),Gdx.files.internal("shaders/tendrils.frag"));
-        rippleShader = new Shader(Gdx.files.internal("shaders/ripple.vert"),Gdx.files.internal("shaders/ripple.frag"));
-        rayShader = new Shader(Gdx.files.internal("shaders/screen.vert"), Gdx.files.internal("shaders/fallingrays.frag"));
-        glowShader = new Shader(Gdx.files.internal("shaders/star_pulse.vert"), Gdx.files.internal("shaders/star_pulse.frag"));
-        blurShader = new Shader(Gdx.files.internal("shaders/screen_blur.vert"), Gdx.files.internal("shaders/screen_blur.frag"));
-
-        if (!glowShader.isCompiled()) {
-            System.out.println("Swirl shader compile error: " + vortexShader.getLog());
-        }
-
         float[] verts = {
             // x,    y,    u,   v
             -0.5f, -0.5f, 0f, 0f,
@@ -684,12 +806,6 @@ public class PlatformScene implements Screen {
         pix.dispose();
 
         // TEXTURES
-        maintenanceTexture = directory.getEntry( "maintenance-sprite-sheet", Texture.class);
-        dwellerTexture = directory.getEntry("dream-dweller-active", Texture.class);
-        spearTravelTex = directory.getEntry("spear-travel-sprite", Texture.class);
-        spearEndTex = directory.getEntry("spear-end-sprite", Texture.class);
-        wallTravelTex = directory.getEntry("wall-travel-sprite", Texture.class);
-        wallEndTex = directory.getEntry("wall-end-sprite", Texture.class);
         fearTexture = directory.getEntry("fear-meter-sprite-sheet", Texture.class);
         swirlTexture = directory.getEntry("swirl-active", Texture.class);
         crosshairTexture  = new TextureRegion(directory.getEntry( "crosshair", Texture.class ));
@@ -703,7 +819,6 @@ public class PlatformScene implements Screen {
         abstractGlassyTexture = directory.getEntry("abstract-glassy", Texture.class);
         teleportTexture = directory.getEntry("teleport", Texture.class);
         backgroundTexture = directory.getEntry("background1", Texture.class);
-        critterTexture = directory.getEntry( "curiosity-critter-active", Texture.class );
         attackTexture = directory.getEntry("attack-animation", Texture.class);
 
         // REFERENCE FOR NEW FONT
@@ -741,7 +856,7 @@ public class PlatformScene implements Screen {
         teleportSound = directory.getEntry( "teleport-sound", SoundEffect.class );
         scareSound = directory.getEntry( "scare-sound", SoundEffect.class );
         plopSound = directory.getEntry( "platform-plop", SoundEffect.class );
-        volume = constants.getFloat("volume", 1.0f);
+        volume = config.volume;
 
         drawScareLimit = avatar.getHarvestDuration();
         drawScareCooldown = 0;
@@ -765,19 +880,7 @@ public class PlatformScene implements Screen {
         Texture t = directory.getEntry("fear-meter-sprite-sheet", Texture.class);
         createAnimators(t,swirlTexture);
 
-
-
-        samples = new AudioSource[1];
-        samples[0] = directory.getEntry( "theme_level", AudioSource.class );
-        currentSample = 0;
-
-        AudioEngine engine = (AudioEngine)Gdx.audio;
-        music = engine.newMusicQueue( false, 44100 );
-        music.addSource( samples[0] );
-        music.setLooping(true);
-
-        // Set initial volume from AudioManager
-        updateMusicVolume();
+        // Shaders and music are level assets, so they are looked up in loadLevel()
     }
 
 
@@ -800,14 +903,16 @@ public class PlatformScene implements Screen {
      * This method disposes of the world and creates a new one.
      */
     public void reset() {
-        JsonValue values = constants.get("world");
-        Vector2 gravity = new Vector2(0, values.getFloat( "gravity" ));
+        Vector2 gravity = new Vector2(0, config.world.gravity);
 
         for(ObstacleSprite sprite : sprites) {
             sprite.getObstacle().deactivatePhysics(world);
         }
         sprites.clear();
         addQueue.clear();
+        clearEntities();
+        // The checkpoint refers to sprites of the old world
+        checkpoint.clear();
         if (world != null) {
             world.dispose();
         }
@@ -817,15 +922,18 @@ public class PlatformScene implements Screen {
 
         setComplete(false);
         setFailure(false);
-        populateLevel();
+        if (levelData == null) {
+            loadLevel();
+        }
+        Trace.begin("populate level");
+        try {
+            populateLevel();
+        } finally {
+            Trace.end();
+        }
 
         shadowMode = false;
         avatar.setShroudMode(false);
-        for(ShieldWall s: shieldWalls){
-            removeBullet(s);
-            shieldWalls.remove(s);
-        }
-        pendingSpears.clear();
     }
 
     /**
@@ -836,15 +944,104 @@ public class PlatformScene implements Screen {
         swirlSprite = new Animator(swirl, 1, 6, 0.10f, 6, 0, 5);
     }
 
+    /**
+     * Forgets every entity of the last attempt.
+     *
+     * Their bodies went with the old world, so this only empties the lists
+     * that point at them.
+     */
+    private void clearEntities() {
+        if (aiScheduler != null) {
+            aiScheduler.clear();
+        }
+        enemies.clear();
+        doors.clear();
+        gates.clear();
+        shieldWalls.clear();
+        spears.clear();
+        pendingSpears.clear();
+        queuedHarvestedEnemy.clear();
+        pendingShardSpawns.clear();
+        shardPickupTimers.clear();
+        removedShards.clear();
+        sensorFixtures.clear();
+        shadowSensorFixtures.clear();
+    }
+
+    /**
+     * Loads everything about the level that does not change on restart.
+     *
+     * That is the tiled map and its compiled data, the renderers and the AI
+     * managers (with their parsed trees and tables). This happens once, the
+     * first time the level is reset.
+     */
+    private void loadLevel() {
+        Trace.begin("load level");
+        try {
+            tiledMap = new TiledMapInfo(tiledLevelName);
+            JsonValue navigation = LevelConfig.getSection(directory, constants, "navigation");
+            levelData = tiledMap.getLevelData(navigation);
+            manifest = LevelAssets.getInstance().getManifest(levelData, new Array<>());
+            LevelAssets.getInstance().acquire(manifest, true);
+            loadSharedAssets();
+            tiledRenderer = new TiledMapRenderer(tiledMap.map, batch, 32);
+            minimapRenderer = new MinimapRenderer(tiledMap.map, batch, TiledMapInfo.PIXELS_PER_WORLD_METER,
+                                                  bounds.width, bounds.height);
+            aiCManager = new AIControllerManager(avatar,directory,world);
+            aiManager = new AIManager("behaviors/critter.tree", "behaviors/dweller.tree","behaviors/maintenance.tree", directory);
+            aiScheduler = new AIScheduler(aiManager, aiCManager);
+            perceptionSettings = LevelConfig.getSection(directory, constants, "perception");
+            playerEmission = PerceptionSystem.Emission.read(perceptionSettings, "player", 20, 0);
+            teleportEmission = PerceptionSystem.Emission.read(perceptionSettings, "teleport", 8, 1);
+            harvestEmission = PerceptionSystem.Emission.read(perceptionSettings, "harvest", 10, 1);
+            shardEmission = PerceptionSystem.Emission.read(perceptionSettings, "shard-moved", 12, 0.5f);
+
+            navGraph = levelData.navGraph;
+            pathService = new PathService(navGraph, navigation);
+            aiScheduler.setPathService(pathService);
+        } finally {
+            Trace.end();
+        }
+    }
+
+    /**
+     * Looks up the shaders and music every level uses.
+     *
+     * These come from the level assets, so the manifest must be acquired
+     * first. That happens in {@link #loadLevel}, which every level runs once,
+     * even one built cold without a prefetch.
+     */
+    private void loadSharedAssets() {
+        LevelAssets assets = LevelAssets.getInstance();
+        vortexShader = assets.getShader("vortex");
+        tendrilShader = assets.getShader("tendrils");
+        rippleShader = assets.getShader("ripple");
+        rayShader = assets.getShader("rays");
+        glowShader = assets.getShader("glow");
+        blurShader = assets.getShader("blur");
+
+        samples = new AudioSource[1];
+        samples[0] = assets.get( "theme_level", AudioSource.class );
+        currentSample = 0;
+
+        AudioEngine engine = (AudioEngine)Gdx.audio;
+        music = engine.newMusicQueue( false, 44100 );
+        music.addSource( samples[0] );
+        music.setLooping(true);
+
+        // Set initial volume from AudioManager
+        updateMusicVolume();
+    }
+
     /**
      * Lays out the game geography.
+     *
+     * Everything is built from the compiled level data, into the current world.
      */
     private void populateLevel() {
-        tiledMap = new TiledMapInfo(tiledLevelName);
-        tiledRenderer = new TiledMapRenderer(tiledMap.map, batch, 32);
-        aiCManager = new AIControllerManager(avatar,directory,world);
-        aiManager = new AIManager("behaviors/critter.tree", "behaviors/dweller.tree","behaviors/maintenance.tree", directory);
-        aiManager.setPlayer(avatar);
+        // Perception raycasts into the world, so it is rebuilt with it
+        perception = new PerceptionSystem(world, bounds, perceptionSettings);
+        aiScheduler.setPerception(perception);
         shardPos = new ArrayList<>();
         possibleShardPos = new HashMap<>();
         enemiesAlerted = 0;
@@ -860,235 +1057,128 @@ public class PlatformScene implements Screen {
         Texture beam = directory.getEntry("laser", Texture.class);
 
         float units = TiledMapInfo.PIXELS_PER_WORLD_METER;
-        minimapRenderer = new MinimapRenderer(tiledMap.map, batch, units, bounds.width, bounds.height);
-        int level = 0;
-
-        // entity spawn handling from tiled
-        Vector2 playerSpawnPos = new Vector2();
-
-        MapLayer spawnLayer = tiledMap.get().getLayers().get("Spawn");
-        for (MapObject o : spawnLayer.getObjects()) {
-            if (o instanceof RectangleMapObject) {
-                float x = o.getProperties().get("x", Float.class);
-                float y = o.getProperties().get("y", Float.class);
-                float height = o.getProperties().get("height", Float.class);
-                float width = o.getProperties().get("width", Float.class);
-
-                float worldX = x / units;
-                float worldWidth = width/units;
-
-                float worldY = y / units;
-                float worldHeight = height / units;
-
-                if (o.getName().startsWith("door")) {
-                    try {
-                        int destination = o.getProperties().get("level", Integer.class);
-                        Door door = new Door(units, worldX, worldY, worldWidth, worldHeight,
-                            destination);
-                        doors.add(door);
-                        addSprite(door);
-                        door.setFilter();
-                    }
-                    catch(Exception e){
-                        Door door = new Door(units, worldX, worldY, worldWidth, worldHeight,
-                            level + 1);
-                        doors.add(door);
-                        addSprite(door);
-                        door.setFilter();
-                    }
-                }
-                if (o.getName().startsWith("gate")) {
-                    MapObject target = o.getProperties().get("path", MapObject.class);
-
-                    Vector2 exitLoc;
-                    if (target != null) {
-                        float tx = target.getProperties().get("x", Float.class) / units;
-                        float ty = target.getProperties().get("y", Float.class) / units;
-                        // bump Y by +2 world‐units
-                        exitLoc = new Vector2(tx, ty + 2);
-                    } else {
-                        // fallback if no path reference: just above the gate
-                        exitLoc = new Vector2(worldX, worldY + 2);
-                    }
-
-                    // create & register the gate
-                    Gate gate = new Gate(units, worldX, worldY, worldWidth, worldHeight, exitLoc);
+        for (LevelData.Spawn spawn : levelData.spawns) {
+            switch (spawn.type) {
+                case DOOR:
+                    Door door = new Door(units, spawn.x, spawn.y, spawn.width, spawn.height, spawn.destination);
+                    doors.add(door);
+                    addSprite(door);
+                    door.setFilter();
+                    break;
+                case GATE:
+                    Gate gate = new Gate(units, spawn.x, spawn.y, spawn.width, spawn.height, new Vector2(spawn.exit));
                     gates.add(gate);
                     addSprite(gate);
                     gate.setFilter();
-                }
-                if (o.getName().startsWith("dialouge")) {
-                    String message = o.getProperties().get("text", String.class);
-                    DialougeDetector d = new DialougeDetector(x,y,message);
-                }
-                if (o.getName().startsWith("Player")) {
-                    playerSpawnPos.set(worldX, worldY);
-                }
-                if (o.getName().startsWith("curiosity critter")) {
-                    critter = new CuriosityCritter(units, constants.get("curiosity-critter"), new float[]{worldX,worldY}, this);
-                    critter.setTexture(critterTexture);
+                    break;
+                case CRITTER:
+                    critter = new CuriosityCritter(units, config.critter, new float[]{spawn.x, spawn.y}, this);
+                    critter.setTexture(LevelAssets.getInstance().get("curiosity-critter-active", Texture.class));
                     addSprite(critter);
 
-
-                    critterTexture = directory.getEntry( "critter-sprite-sheet", Texture.class);
+                    critterTexture = LevelAssets.getInstance().get("critter-sprite-sheet", Texture.class);
                     critter.createAnimators(critterTexture);
 
                     // Have to do after body is created
-
                     critter.setFilter();
                     critter.createSensor();
                     enemies.add(critter);
-                    aiManager.register(critter);
-                }
-                if (o.getName().startsWith("dream dweller")) {
-                    dreamDweller = new DreamDweller(units, constants.get("dream-dweller"), new float[]{worldX, worldY}, this);
+                    aiScheduler.register(critter);
+                    break;
+                case DWELLER:
+                    dreamDweller = new DreamDweller(units, config.dweller, new float[]{spawn.x, spawn.y}, this);
                     addSprite(dreamDweller);
-                    Texture dwellerAttack = directory.getEntry("dweller-attack", Texture.class);
-                    Texture dwellerHover = directory.getEntry("dweller-hover", Texture.class);
-                    Texture dwellerStunned = directory.getEntry("dweller-stunned", Texture.class);
-                    Texture dwellerTurn = directory.getEntry("dweller-turn", Texture.class);
+                    Texture dwellerAttack = LevelAssets.getInstance().get("dweller-attack", Texture.class);
+                    Texture dwellerHover = LevelAssets.getInstance().get("dweller-hover", Texture.class);
+                    Texture dwellerStunned = LevelAssets.getInstance().get("dweller-stunned", Texture.class);
+                    Texture dwellerTurn = LevelAssets.getInstance().get("dweller-turn", Texture.class);
+                    spearTravelTex = LevelAssets.getInstance().get("spear-travel-sprite", Texture.class);
+                    spearEndTex = LevelAssets.getInstance().get("spear-end-sprite", Texture.class);
                     dreamDweller.createAnimators(dwellerAttack, dwellerHover, dwellerStunned, dwellerTurn);
                     dreamDweller.setFilter();
                     dreamDweller.createSensor();
                     enemies.add(dreamDweller);
-                    aiCManager.register(dreamDweller);
-                }
-                if (o.getName().startsWith("mind maintenance")) {
-                    maintenance = new MindMaintenance(units, constants.get("mind-maintenance"), new float[]{worldX, worldY}, this);
+                    aiScheduler.register(dreamDweller);
+                    break;
+                case MAINTENANCE:
+                    maintenance = new MindMaintenance(units, config.maintenance, new float[]{spawn.x, spawn.y}, this);
                     addSprite(maintenance);
-                    maintenanceTexture = directory.getEntry( "maintenance-sprite-sheet", Texture.class);
+                    maintenanceTexture = LevelAssets.getInstance().get("maintenance-sprite-sheet", Texture.class);
+                    wallTravelTex = LevelAssets.getInstance().get("wall-travel-sprite", Texture.class);
+                    wallEndTex = LevelAssets.getInstance().get("wall-end-sprite", Texture.class);
                     maintenance.createAnimators(maintenanceTexture);
                     maintenance.setFilter();
                     maintenance.createSensor();
                     enemies.add(maintenance);
-                    aiCManager.register(maintenance);
-                }
+                    aiScheduler.register(maintenance);
+                    break;
+                default:
+                    break;
             }
         }
 
         // dream shard creation from tiled layer
-        MapLayer shardLayer = tiledMap.get().getLayers().get("Shards");
-        JsonValue goal = constants.get("goal");
-
-        totalShards = shardLayer.getProperties().get("totalShards", Integer.class);
+        totalShards = levelData.totalShards;
         collectedShards = 0;
-
-        int shardID = 0;
-        for (MapObject o : shardLayer.getObjects()) {
-            if (o instanceof RectangleMapObject) {
-                float x = o.getProperties().get("x", Float.class);
-                float y = o.getProperties().get("y", Float.class);
-                float worldX = x / units;
-                float worldY = y / units;
-
-                MapObject reposition = o.getProperties().get("path", MapObject.class);
-
-                if (reposition != null) {
-                    possibleShardPos.put(shardID, new Vector2(reposition.getProperties().get("x", Float.class) / 32f, reposition.getProperties().get("y", Float.class) / 32f));
-                }
-                if (o.getName() == null) {
-                    shardTexture = directory.getEntry("shard-sprite", Texture.class);
-                    Shard goalShard = new Shard(units, goal, worldX, worldY, shardID, shardTexture);
-                    shardPos.add(shardID, new Vector2(worldX, worldY));
-                    goalShard.setTexture(shardTexture);
-                    goalShard.getObstacle().setName("goal_" + shardID);
-                    addSprite(goalShard);
-                    goalShard.setFilter();
-                    shardID++;
-                }
-            }
+        enemiesDefeated = 0;
+        for (IntMap.Entry<Vector2> move : levelData.shardMoves) {
+            possibleShardPos.put(move.key, new Vector2(move.value));
+        }
+        shardTexture = directory.getEntry("shard-sprite", Texture.class);
+        for (LevelData.ShardSpot spot : levelData.shards) {
+            Shard goalShard = new Shard(units, config.goal, spot.x, spot.y, spot.id, shardTexture);
+            shardPos.add(spot.id, new Vector2(spot.x, spot.y));
+            goalShard.setTexture(shardTexture);
+            goalShard.getObstacle().setName("goal_" + spot.id);
+            addSprite(goalShard);
+            goalShard.setFilter();
         }
 
-        MapLayer collisionLayer = tiledMap.get().getLayers().get("CollisionLayer");
         int id = 0;
-        for (MapObject o : collisionLayer.getObjects()) {
-            if (o instanceof PolygonMapObject) {
-                PolygonMapObject polyObj = (PolygonMapObject) o;
-                Polygon poly = polyObj.getPolygon();
-                float[] localVtx = poly.getVertices();
-                for (int i = 0; i < localVtx.length; i++) {
-                    if (i % 2 == 0) {
-                        System.out.print("x: " + localVtx[i] + " ");
-                    } else {
-                        System.out.println("y: " + localVtx[i]);
-                    }
-                }
-                // The object’s own position in pixels
-                float offsetX = poly.getX();
-                float offsetY = poly.getY();
-
-                Surface surface = new Surface(
-                    localVtx,
-                    offsetX,
-                    offsetY,
-                    TiledMapInfo.PIXELS_PER_WORLD_METER,
-                    constants.get("platforms"),
-                    true
-                );
-
-                surface.setDebugColor(Color.BLUE);
-                Boolean isStair = o.getProperties().get("isStair", Boolean.class);
-                if (isStair != null) {
-                    surface.getObstacle().setName("stair " + id);
-                } else {
-                    surface.getObstacle().setName("platform " + id);
-                }
-                addSprite(surface);
-                surface.setFilter();
+        for (LevelData.SurfaceShape shape : levelData.surfaces) {
+            Surface surface = new Surface(
+                shape.vertices,
+                shape.offsetX,
+                shape.offsetY,
+                TiledMapInfo.PIXELS_PER_WORLD_METER,
+                config.platforms,
+                true
+            );
 
-                id++;
-            }
-            if (o instanceof RectangleMapObject) {
-                float x = o.getProperties().get("x", Float.class);
-                float y = o.getProperties().get("y", Float.class);
-                float height = o.getProperties().get("height", Float.class);
-                float width = o.getProperties().get("width", Float.class);
-
-                float worldX = x / units;
-                float worldWidth = width/units;
-
-                float worldY = y / units;
-                float worldHeight = height / units;
-                float rotationDeg = o.getProperties().get("rotation", 0f, Float.class);
-                float rotationRad = (float)Math.toRadians(rotationDeg);
-                if (o.getName() != null) {
-                    if (o.getName().toLowerCase().startsWith("spike")) {
-                        if (o.getProperties().get("direction", Integer.class) != null && o.getProperties().get("laser", Boolean.class) != null) {
-                            DayglowSpike.Direction dir;
-                            switch (o.getProperties().get("direction", Integer.class)) {
-                                case 0:  dir = DayglowSpike.Direction.UP;    break;
-                                case 1:  dir = DayglowSpike.Direction.RIGHT; break;
-                                case 2:  dir = DayglowSpike.Direction.DOWN;  break;
-                                case 3:  dir = DayglowSpike.Direction.LEFT;  break;
-                                default: dir = DayglowSpike.Direction.UP;    break;
-                            }
-                            DayglowSpike spike = new DayglowSpike(units, worldX, worldY, worldWidth, worldHeight, o.getProperties().get("laser", Boolean.class), dir);
-                            spike.setSprites(new TextureRegion(spikes), new TextureRegion(crystal), new TextureRegion(beam));
-                            addSprite(spike);
-                            spike.setFilter();
-                            spike.setWorld(world);
-                        }
-                    }
-                } else {
-                    System.out.println(mapkey);
-                    Surface platform = new Surface(worldX, worldY, worldHeight, worldWidth, TiledMapInfo.PIXELS_PER_WORLD_METER, constants.get("platforms"), true, rotationRad);
-                    platform.setDebugColor(Color.BLUE);
-                    platform.getObstacle().setName("platform " + id);
-                    addSprite(platform);
-                    platform.setFilter();
-                    id++;
-                }
+            surface.setDebugColor(Color.BLUE);
+            if (shape.stair) {
+                surface.getObstacle().setName("stair " + id);
+            } else {
+                surface.getObstacle().setName("platform " + id);
             }
+            addSprite(surface);
+            surface.setFilter();
+            id++;
+        }
+        for (LevelData.Platform rect : levelData.platforms) {
+            Surface platform = new Surface(rect.x, rect.y, rect.height, rect.width, TiledMapInfo.PIXELS_PER_WORLD_METER, config.platforms, true, rect.rotation);
+            platform.setDebugColor(Color.BLUE);
+            platform.getObstacle().setName("platform " + id);
+            addSprite(platform);
+            platform.setFilter();
+            id++;
+        }
+        for (LevelData.SpikeSpot spot : levelData.spikes) {
+            DayglowSpike spike = new DayglowSpike(units, spot.x, spot.y, spot.width, spot.height, spot.laser, spot.direction);
+            spike.setSprites(new TextureRegion(spikes), new TextureRegion(crystal), new TextureRegion(beam));
+            addSprite(spike);
+            spike.setFilter();
+            spike.setWorld(world);
         }
 
-        avatar = new Player(units, constants.get("player"), playerSpawnPos, this);
+        avatar = new Player(units, config.player, new Vector2(levelData.playerSpawn), this);
         addSprite(avatar);
         dreamwalkerTexture = directory.getEntry("player-sprite-sheet", Texture.class);
         attackTexture = directory.getEntry("attack-animation", Texture.class);
         avatar.createAnimators(dreamwalkerTexture, attackTexture);
         avatar.setFilter();
         avatar.createSensor();
-        aiManager.setPlayer(avatar);
+        aiScheduler.setPlayer(avatar);
         avatar.rechargeFearMeter();
 
         initTeleportAnimation();
@@ -1106,7 +1196,180 @@ public class PlatformScene implements Screen {
 
     /** Called when player moves off a shard */
     public void cancelShardPickup(Shard s) {
-        shardPickupTimers.remove(s);
+        shardPickupTimers.remove(s, 0f);
+    }
+
+    /** Returns true if the sprite is captured by checkpoints */
+    private static boolean isDynamic(ObstacleSprite sprite) {
+        return sprite instanceof Player || sprite instanceof Enemy || sprite instanceof Shard
+            || sprite instanceof Spear || sprite instanceof ShieldWall;
+    }
+
+    /**
+     * Captures the dynamic state of the level into a snapshot.
+     *
+     * Static geometry is not captured, since it never changes. The snapshot
+     * refers to the live sprites, so it is only valid until the level resets.
+     *
+     * @param out   The snapshot to capture into (it is cleared first)
+     */
+    public void saveCheckpoint(WorldSnapshot out) {
+        out.clear();
+        for (ObstacleSprite sprite : sprites) {
+            if (!isDynamic(sprite) || sprite.getObstacle().isRemoved()) {
+                continue;
+            }
+            out.addSprite(sprite);
+            if (sprite instanceof Player) {
+                ((Player) sprite).saveState(out);
+            } else if (sprite instanceof Enemy) {
+                Enemy enemy = (Enemy) sprite;
+                enemy.saveState(out);
+                FSMGroup<?> group = aiCManager.getGroup(enemy);
+                int slot = (group == null) ? -1 : group.indexOf(enemy);
+                out.putInt(slot < 0 ? -1 : group.getState(slot));
+                out.putFloat(slot < 0 ? 0 : group.getTimer(slot));
+                out.putInt(slot < 0 ? 1 : group.getDirection(slot));
+                BehaviorLoop<Enemy> loop = aiManager.getLoop(enemy);
+                out.putFloat(loop == null ? 0 : loop.getRuntime());
+            } else if (sprite instanceof Spear) {
+                ((Spear) sprite).saveState(out);
+            } else if (sprite instanceof ShieldWall) {
+                ((ShieldWall) sprite).saveState(out);
+            } else {
+                out.putBody(sprite.getObstacle());
+            }
+        }
+
+        out.putInt(collectedShards);
+        out.putInt(enemiesDefeated);
+        out.putInt(removedShards.size());
+        for (int id : removedShards) {
+            out.putInt(id);
+        }
+        out.putInt(shardPos.size());
+        for (Vector2 pos : shardPos) {
+            out.putBoolean(pos != null);
+            out.putFloat(pos == null ? 0 : pos.x);
+            out.putFloat(pos == null ? 0 : pos.y);
+        }
+        out.putInt(enemiesAlerted);
+        out.putInt(crittersAlerted);
+        out.putBoolean(playerSlowed);
+        out.putFloat(lastCritterSawTime);
+        out.putFloat(timeSinceStart);
+        out.putBoolean(shadowMode);
+    }
+
+    /**
+     * Puts the level back into the state of a snapshot.
+     *
+     * This happens in place: static bodies are untouched, dynamic sprites
+     * created since the capture are removed, and those removed since are
+     * revived into the current world. Enemies keep their state machine state,
+     * but their behavior trees start over (with the enemy state they read
+     * restored), as gdx-ai trees cannot be captured mid task.
+     *
+     * @param in    The snapshot to restore
+     */
+    public void loadCheckpoint(WorldSnapshot in) {
+        in.rewind();
+        addQueue.clear();
+        pendingSpears.clear();
+        pendingShardSpawns.clear();
+        shardPickupTimers.clear();
+        queuedHarvestedEnemy.clear();
+        perception.clear();
+
+        Array<ObstacleSprite> roster = in.getRoster();
+        checkpointRoster.clear();
+        for (ObstacleSprite sprite : roster) {
+            checkpointRoster.add(sprite);
+        }
+        checkpointLive.clear();
+        for (ObstacleSprite sprite : sprites) {
+            if (isDynamic(sprite) && !checkpointRoster.contains(sprite)) {
+                sprite.getObstacle().markRemoved(true);
+            }
+            checkpointLive.add(sprite);
+        }
+
+        aiScheduler.clear();
+        enemies.clear();
+        spears.clear();
+        shieldWalls.clear();
+        for (ObstacleSprite sprite : roster) {
+            boolean revived = !checkpointLive.contains(sprite);
+            sprite.getObstacle().markRemoved(false);
+            if (revived) {
+                addSprite(sprite);
+            }
+
+            if (sprite instanceof Player) {
+                ((Player) sprite).loadState(in);
+            } else if (sprite instanceof Enemy) {
+                Enemy enemy = (Enemy) sprite;
+                if (revived) {
+                    enemy.setFilter();
+                    enemy.createSensor();
+                }
+                enemy.loadState(in);
+                enemies.add(enemy);
+                aiScheduler.register(enemy);
+
+                int state = in.getInt();
+                float timer = in.getFloat();
+                int direction = in.getInt();
+                FSMGroup<?> group = aiCManager.getGroup(enemy);
+                int slot = (group == null) ? -1 : group.indexOf(enemy);
+                if (slot >= 0 && state >= 0) {
+                    group.restore(slot, state, timer, direction);
+                }
+                float runtime = in.getFloat();
+                BehaviorLoop<Enemy> loop = aiManager.getLoop(enemy);
+                if (loop != null) {
+                    loop.setRuntime(runtime);
+                }
+            } else if (sprite instanceof Spear) {
+                ((Spear) sprite).loadState(in);
+                spears.add((Spear) sprite);
+            } else if (sprite instanceof ShieldWall) {
+                ((ShieldWall) sprite).loadState(in);
+                shieldWalls.add((ShieldWall) sprite);
+            } else {
+                if (revived && sprite instanceof Shard) {
+                    ((Shard) sprite).setFilter();
+                }
+                in.getBody(sprite.getObstacle());
+            }
+        }
+        aiScheduler.setPlayer(avatar);
+
+        collectedShards = in.getInt();
+        enemiesDefeated = in.getInt();
+        removedShards.clear();
+        for (int n = in.getInt(); n > 0; n--) {
+            removedShards.add(in.getInt());
+        }
+        shardPos.clear();
+        for (int n = in.getInt(); n > 0; n--) {
+            boolean present = in.getBoolean();
+            float x = in.getFloat();
+            float y = in.getFloat();
+            shardPos.add(present ? new Vector2(x, y) : null);
+        }
+        enemiesAlerted = in.getInt();
+        crittersAlerted = in.getInt();
+        playerSlowed = in.getBoolean();
+        lastCritterSawTime = in.getFloat();
+        timeSinceStart = in.getFloat();
+        shadowMode = in.getBoolean();
+        avatar.setShroudMode(shadowMode);
+
+        // A checkpoint is an instant retry, so it also cancels a pending loss
+        failed = false;
+        countdown = -1;
+        isFading = false;
     }
 
 
@@ -1132,6 +1395,39 @@ public class PlatformScene implements Screen {
         if (input.didDebug()) {
             debug = !debug;
         }
+        if (input.didToggleTelemetry()) {
+            telemetry = !telemetry;
+            frameTelemetry.reset();
+        }
+
+        // Frame phase profiler
+        if (input.didTogglePhases()) {
+            phaseProfiler.setEnabled(!phaseProfiler.isEnabled());
+            phaseRefresh = 0;
+        }
+        if (input.didExportPhases()) {
+            phaseProfiler.exportCsv(Gdx.files.local(PHASE_FILE));
+        }
+
+        // AI profiler
+        if (input.didToggleProfiler()) {
+            aiManager.setProfiling(!aiManager.getProfiler().isEnabled());
+        }
+        if (input.didExportProfile()) {
+            aiManager.exportProfile(Gdx.files.local(PROFILE_FILE));
+        }
+        if (input.didExportTrace()) {
+            Trace.export(Gdx.files.local(TRACE_FILE));
+        }
+
+        // Checkpoints
+        if (input.didSaveCheckpoint() && !complete && !failed) {
+            saveCheckpoint(checkpoint);
+            recordProgress(false);
+        }
+        if (input.didLoadCheckpoint() && !complete && !checkpoint.isEmpty()) {
+            loadCheckpoint(checkpoint);
+        }
 
         // Handle resetsA
 
@@ -1142,10 +1438,12 @@ public class PlatformScene implements Screen {
             return false;
         } else if (input.didAdvance()) {
             pause();
+            recordProgress(false);
             listener.exitScreen(this, EXIT_NEXT);
             return false;
         } else if (input.didRetreat()) {
             pause();
+            recordProgress(false);
             listener.exitScreen(this, EXIT_PREV);
             return false;
         } else if (countdown > 0) {
@@ -1184,9 +1482,11 @@ public class PlatformScene implements Screen {
      */
     public void update(float dt) {
         InputController input = InputController.getInstance();
-        aiManager.update(dt);
-        aiCManager.update(dt);
-        GdxAI.getTimepiece().update(dt);
+        perception.publish(Stimulus.Type.VISIBLE, avatar.getObstacle().getPosition(),
+                           playerEmission, avatar);
+        long aiStart = phaseProfiler.begin();
+        aiScheduler.update(dt);
+        phaseProfiler.end(PHASE_AI, aiStart);
 
         updateMusicVolume();
 
@@ -1202,8 +1502,7 @@ public class PlatformScene implements Screen {
                 Vector2 position = e.getObstacle().getPosition();
                 float direction = ((MindMaintenance) e).isFacingRight() ? 1 : -1;
                 position.set(position.x , position.y);
-                JsonValue bulletjv = constants.get("bullet");
-                ShieldWall wall = new ShieldWall(units, bulletjv, position, direction, wallTravelTex, wallEndTex);
+                ShieldWall wall = new ShieldWall(units, config.bullet, position, direction, wallTravelTex, wallEndTex);
                 shieldWalls.add(wall);
                 addQueuedObject(wall);
             }
@@ -1211,7 +1510,6 @@ public class PlatformScene implements Screen {
                 units = TiledMapInfo.PIXELS_PER_WORLD_METER;
                 Vector2 position = e.getObstacle().getPosition();
                 Vector2 playerPos = avatar.getObstacle().getPosition();
-                JsonValue spearjv = constants.get("spear");
 
                 float[] angleOffsets = new float[] { -8f, -3f, 3f, 8f };
 
@@ -1223,7 +1521,7 @@ public class PlatformScene implements Screen {
                     Vector2 spawnPos = new Vector2(position.x, position.y + 1);
                     Vector2 toPlayer = new Vector2(playerPos.x - spawnPos.x, playerPos.y - spawnPos.y).nor();
                     toPlayer.rotateDeg(angleOffsets[i]);
-                    Spear spear = new Spear(units, spearjv, spawnPos, toPlayer, spearTravelTex, spearEndTex);
+                    Spear spear = new Spear(units, config.spear, spawnPos, toPlayer, spearTravelTex, spearEndTex);
                     pendingSpears.add(spear);
                 }
             }
@@ -1242,6 +1540,9 @@ public class PlatformScene implements Screen {
 
         for (Door d: doors){
             if(d.isActive() && checkCollectedAllGoals() && avatar.isTakingDoor()){
+                if (!complete) {
+                    recordProgress(true);
+                }
                 setComplete(true);
                 nextIndex = d.getDestination();
             }
@@ -1340,14 +1641,18 @@ public class PlatformScene implements Screen {
 
         if (avatar.isHarvesting())
         {
+            frameTelemetry.mark(FrameTelemetry.HARVEST);
             soundManager.play("fire", scareSound, volume);
             drawScareEffect = true;
+            perception.publish(Stimulus.Type.NOISE, avatar.getObstacle().getPosition(),
+                               harvestEmission, avatar);
             if (!queuedHarvestedEnemy.isEmpty())
             {
                 for (Enemy harvest_enemy : queuedHarvestedEnemy) {
                     if (!harvest_enemy.getObstacle().isRemoved()) {
                         harvest_enemy.getObstacle().markRemoved(true);
                         enemies.remove(harvest_enemy);
+                        enemiesDefeated++;
                         avatar.setFearMeter(avatar.getFearMeter() + 6);
                         //BANDAID SLOW FIX
                         if (harvest_enemy instanceof CuriosityCritter && ((CuriosityCritter) harvest_enemy).isAwareOfPlayer()) {
@@ -1370,6 +1675,7 @@ public class PlatformScene implements Screen {
         }
 
         if (avatar.isStunning() && avatar.getFearMeter() > STUN_COST) {
+            frameTelemetry.mark(FrameTelemetry.SHOT);
             createBullet();
             if(!isLevelSelect) {
                 avatar.setFearMeter(avatar.getFearMeter() - STUN_COST);
@@ -1378,13 +1684,9 @@ public class PlatformScene implements Screen {
             Vector2 crosshairScreen = input.getMouse();
 
             // Unproject the crosshair screen position to get world coordinates
-            Vector3 crosshairTemp = new Vector3(
-                crosshairScreen.x,
-                crosshairScreen.y,
-                0
-            );
+            Vector3 crosshairTemp = screenCache.set(crosshairScreen.x, crosshairScreen.y, 0);
             camera.unproject(crosshairTemp);
-            Vector2 crosshairWorld = new Vector2(crosshairTemp.x / units, crosshairTemp.y / units);
+            Vector2 crosshairWorld = crosshairCache.set(crosshairTemp.x / units, crosshairTemp.y / units);
 
             avatar.setFaceRight(crosshairWorld.x > avatar.getObstacle().getX());
         }
@@ -1393,11 +1695,11 @@ public class PlatformScene implements Screen {
         avatar.setInteracting(input.isInteractDown());
 
         // shard handling
-        Iterator<Map.Entry<Shard,Float>> iter = shardPickupTimers.entrySet().iterator();
+        ObjectFloatMap.Entries<Shard> iter = shardPickupTimers.entries();
         while (iter.hasNext()) {
-            Map.Entry<Shard, Float> e = iter.next();
-            Shard s = e.getKey();
-            float t = e.getValue();
+            ObjectFloatMap.Entry<Shard> e = iter.next();
+            Shard s = e.key;
+            float t = e.value;
 
             if (input.isInteractDown() && avatar.getHoverInteract()) {
 
@@ -1410,23 +1712,14 @@ public class PlatformScene implements Screen {
                     if (!s.getObstacle().isRemoved()) {
                         s.getObstacle().markRemoved(true);
                         incrementGoal();
-                        float units = TiledMapInfo.PIXELS_PER_WORLD_METER;
-                        Vector2 worldPos = s.getObstacle().getPosition();
-                        Vector3 screen = new Vector3(
-                            worldPos.x * units,
-                            worldPos.y * units,
-                            0
-                        );
-                        camera.project(screen);
-
                     }
                     iter.remove();
                     continue;
                 }
-                e.setValue(t);
+                shardPickupTimers.put(s, t);
             } else {
                 // E released → reset the timer
-                e.setValue(0f);
+                shardPickupTimers.put(s, 0f);
             }
         }
 
@@ -1446,16 +1739,20 @@ public class PlatformScene implements Screen {
             teleportDirectionRight = avatar.isFacingRight();
 
             if (queuedTeleportPosition != null) {
+                frameTelemetry.mark(FrameTelemetry.TELEPORT);
                 // Start teleport animation
                 isTeleporting = true;
                 teleportAnimationTime = 0f;
-                teleportPosition = queuedTeleportPosition.cpy();
-                Vector2 dir = new Vector2(preTeleportPosition).sub(teleportPosition);
-                teleportAngle = dir.angleDeg();
+                teleportPosition.set(queuedTeleportPosition);
+                teleportAngle = deltaCache.set(preTeleportPosition).sub(teleportPosition).angleDeg();
                 teleportAnimator.reset();
 
-                // Apply the teleport
+                // Apply the teleport (audible at both ends)
                 avatar.getObstacle().setPosition(queuedTeleportPosition);
+                perception.publish(Stimulus.Type.NOISE, preTeleportPosition,
+                                   teleportEmission, avatar);
+                perception.publish(Stimulus.Type.NOISE, queuedTeleportPosition,
+                                   teleportEmission, avatar);
                 if(!isLevelSelect){
                     avatar.setFearMeter(Math.max(0, avatar.getFearMeter() - TELEPORT_COST));
                 }
@@ -1483,50 +1780,112 @@ public class PlatformScene implements Screen {
         return aiManager;
     }
 
+    public NavGraph getNavGraph() {
+        return navGraph;
+    }
+
+    /**
+     * Adds the destinations of the doors closest to the player, nearest first.
+     *
+     * These are the levels the player may enter next, so they are the ones
+     * worth prefetching. Destinations already in the array are skipped.
+     *
+     * @param radius    Doors further than this (in world units) are ignored
+     * @param max       The most destinations to add
+     * @param out       The array to add the destinations to
+     */
+    public void getNearbyDoorDestinations(float radius, int max, IntArray out) {
+        if (avatar == null) {
+            return;
+        }
+        Vector2 pos = avatar.getObstacle().getPosition();
+        float limit = radius * radius;
+        int added = 0;
+        while (added < max) {
+            Door best = null;
+            float bestDist = limit;
+            for (Door door : doors) {
+                if (out.contains(door.getDestination())) {
+                    continue;
+                }
+                float dist = pos.dst2(door.getObstacle().getX(), door.getObstacle().getY());
+                if (dist <= bestDist) {
+                    best = door;
+                    bestDist = dist;
+                }
+            }
+            if (best == null) {
+                return;
+            }
+            out.add(best.getDestination());
+            added++;
+        }
+    }
+
+    public PathService getPathService() {
+        return pathService;
+    }
+
+    public PerceptionSystem getPerception() {
+        return perception;
+    }
+
     private void teleport() {
-        preTeleportPosition = avatar.getObstacle().getPosition().cpy();
+        preTeleportPosition.set(avatar.getObstacle().getPosition());
         InputController input = InputController.getInstance();
-        float units = TiledMapInfo.PIXELS_PER_WORLD_METER;
         Vector2 playerPosition = avatar.getObstacle().getPosition();
 
         // Get crosshair position in screen coordinates
         Vector2 crosshairScreen = input.getMouse();
 
         // Unproject the crosshair screen position to get world coordinates
-        Vector3 crosshairTemp = new Vector3(crosshairScreen.x, crosshairScreen.y, 0);
+        Vector2 crosshairWorld = clampCrosshair(crosshairScreen.x, crosshairScreen.y, playerPosition);
+
+        // Check if trying to teleport into a surface
+        if (isSurfaceNear(crosshairWorld)) {
+            System.out.println("Cannot place teleport in a surface");
+            return;
+        }
+        queuedTeleportPosition = teleportTarget.set(crosshairWorld);
+        soundManager.play("fire", teleportSound, volume);
+    }
+
+    /**
+     * Returns the crosshair in world coordinates, pulled within teleport range
+     *
+     * The result is scratch space, overwritten by the next call.
+     *
+     * @param screenX           The crosshair x-coordinate on the screen
+     * @param screenY           The crosshair y-coordinate on the screen
+     * @param playerPosition    The player position in world coordinates
+     */
+    private Vector2 clampCrosshair(float screenX, float screenY, Vector2 playerPosition) {
+        float units = TiledMapInfo.PIXELS_PER_WORLD_METER;
+        Vector3 crosshairTemp = screenCache.set(screenX, screenY, 0);
         camera.unproject(crosshairTemp);
-        Vector2 crosshairWorld = new Vector2(crosshairTemp.x / units, crosshairTemp.y / units);
+        Vector2 crosshairWorld = crosshairCache.set(crosshairTemp.x / units, crosshairTemp.y / units);
 
-        Vector2 delta = new Vector2(crosshairWorld).sub(playerPosition);
+        Vector2 delta = deltaCache.set(crosshairWorld).sub(playerPosition);
         // Convert teleport range from screen units to world units.
         float teleportRangeWorld = avatar.getTeleportRangeRadius() / units;
         if (delta.len() > teleportRangeWorld) {
             delta.nor().scl(teleportRangeWorld);
-            crosshairWorld = new Vector2(playerPosition).add(delta);
+            crosshairWorld.set(playerPosition).add(delta);
         }
+        return crosshairWorld;
+    }
 
-        final boolean[] isInsideSurface = {false};
-        // Check if trying to teleport into a surface
-        world.QueryAABB(new QueryCallback() {
-                            @Override
-                            public boolean reportFixture(Fixture fixture) {
-                                Object userData = fixture.getBody().getUserData();
-                                if (userData instanceof Surface) {
-                                    isInsideSurface[0] = true;
-                                    return false; // Stop
-                                }
-                                return true; // Continue
-                            }
-                        },
-            crosshairWorld.x - TELEPORT_SURFACE_BUFFER, crosshairWorld.y - TELEPORT_SURFACE_BUFFER,
-            crosshairWorld.x + TELEPORT_SURFACE_BUFFER, crosshairWorld.y + TELEPORT_SURFACE_BUFFER);
-
-        if (isInsideSurface[0]) {
-            System.out.println("Cannot place teleport in a surface");
-            return;
-        }
-        queuedTeleportPosition = new Vector2(crosshairWorld.x, crosshairWorld.y);
-        soundManager.play("fire", teleportSound, volume);
+    /**
+     * Returns true if a surface is within the teleport buffer of a position
+     *
+     * @param position  The position in world coordinates
+     */
+    private boolean isSurfaceNear(Vector2 position) {
+        surfaceFound = false;
+        world.QueryAABB(surfaceQuery,
+            position.x - TELEPORT_SURFACE_BUFFER, position.y - TELEPORT_SURFACE_BUFFER,
+            position.x + TELEPORT_SURFACE_BUFFER, position.y + TELEPORT_SURFACE_BUFFER);
+        return surfaceFound;
     }
 
     /**
@@ -1539,20 +1898,15 @@ public class PlatformScene implements Screen {
         Vector2 crosshairScreen = input.getMouse();
 
         // Unproject the crosshair screen position to get world coordinates
-        Vector3 crosshairTemp = new Vector3(
-            crosshairScreen.x,
-            crosshairScreen.y,
-            0
-        );
+        Vector3 crosshairTemp = screenCache.set(crosshairScreen.x, crosshairScreen.y, 0);
         camera.unproject(crosshairTemp);
-        Vector2 crosshairWorld = new Vector2(crosshairTemp.x / units, crosshairTemp.y / units);
+        Vector2 crosshairWorld = crosshairCache.set(crosshairTemp.x / units, crosshairTemp.y / units);
 
-        JsonValue bulletjv = constants.get("bullet");
         Obstacle player = avatar.getObstacle();
         Vector2 shootAngle = crosshairWorld.sub(player.getPosition());
         shootAngle.nor();
 
-        Bullet bullet = new Bullet(units, bulletjv, player.getPosition(), shootAngle.nor(), stunProjectileTexture);
+        Bullet bullet = new Bullet(units, config.bullet, player.getPosition(), shootAngle.nor(), stunProjectileTexture);
         addQueuedObject(bullet);
     }
 
@@ -1586,7 +1940,9 @@ public class PlatformScene implements Screen {
         // Turn the physics engine crank.
         // NORMALLY we would use a fixed step, not dt
         // But that is harder and a topic of the advanced class
+        long stepStart = phaseProfiler.begin();
         world.step(dt,WORLD_VELOC,WORLD_POSIT);
+        phaseProfiler.end(PHASE_PHYSICS, stepStart);
 
         for (PendingShard ps : pendingShardSpawns) {
             Gdx.app.log("PlatformScene", "– spawning shard at " + ps.location);
@@ -1597,6 +1953,7 @@ public class PlatformScene implements Screen {
         // Garbage collect the deleted objects.
         // Note how we use the linked list nodes to delete O(1) in place.
         // This is O(n) without copying.
+        long spriteStart = phaseProfiler.begin();
         Iterator<PooledList<ObstacleSprite>.Entry> iterator = sprites.entryIterator();
         while (iterator.hasNext()) {
             PooledList<ObstacleSprite>.Entry entry = iterator.next();
@@ -1610,6 +1967,7 @@ public class PlatformScene implements Screen {
                 obj.update(dt);
             }
         }
+        phaseProfiler.end(PHASE_SPRITES, spriteStart);
     }
 
     /**
@@ -1634,7 +1992,9 @@ public class PlatformScene implements Screen {
             if(drawScareCooldown <= drawScareLimit)
             {
                 batch.end();
+                long scareStart = phaseProfiler.begin();
                 drawScareEffect();
+                phaseProfiler.end(PHASE_EFFECTS, scareStart);
                 batch.begin();
                 drawScareCooldown++;
             } else {
@@ -1646,7 +2006,7 @@ public class PlatformScene implements Screen {
         // Draw the meshes (images)
         for (ObstacleSprite obj : sprites) {
             if (obj instanceof Shard && shardPickupTimers.containsKey((Shard)obj) && avatar.isInteracting()) {
-                drawVortexOverlay((Shard) obj, dt, shardPickupTimers.get((Shard) obj));
+                drawVortexOverlay((Shard) obj, dt, shardPickupTimers.get((Shard) obj, 0f));
             }
         }
         batch.begin();
@@ -1666,11 +2026,116 @@ public class PlatformScene implements Screen {
         batch.end();
 
         // shaders
+        long effectStart = phaseProfiler.begin();
         for (ObstacleSprite sprite : sprites) {
             if (sprite instanceof Bullet) {
                 drawBulletEffect((Bullet)sprite, dt);
             }
         }
+        phaseProfiler.end(PHASE_EFFECTS, effectStart);
+
+        drawProfiler();
+    }
+
+    /**
+     * Draws the AI profiler report in the top left corner of the screen.
+     *
+     * Nothing is drawn unless profiling was turned on (F9).
+     */
+    private void drawProfiler() {
+        if (!aiManager.getProfiler().isEnabled()) {
+            return;
+        }
+        profileText.setLength(0);
+        aiManager.getProfiler().describe(profileText, aiManager.getLoops(), PROFILE_ROWS);
+
+        overlayMatrix.setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        batch.setProjectionMatrix(overlayMatrix);
+        batch.begin();
+        batch.drawText(profileText.toString(), displayFont, 10, Gdx.graphics.getHeight() - 10);
+        batch.end();
+        // draw() always begins with the camera, so this is the projection it left
+        batch.setProjectionMatrix(camera.combined);
+    }
+
+    /**
+     * Draws the allocation and GC telemetry in the bottom left corner of the screen.
+     *
+     * Each column of the graph is one frame, scaled to the largest allocation
+     * shown. Frames with a collection are red. A tick under a column marks a
+     * harvest (green), teleport (cyan), shot (magenta) or minimap (yellow)
+     * frame. Nothing is drawn unless telemetry was turned on (F7).
+     */
+    private void drawTelemetry() {
+        telemetryText.setLength(0);
+        frameTelemetry.describe(telemetryText);
+
+        overlayMatrix.setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        batch.setProjectionMatrix(overlayMatrix);
+        batch.setTransformMatrix(identityMatrix);
+        batch.begin();
+        float left = 10;
+        float bottom = 10;
+        batch.setColor(0, 0, 0, 0.5f);
+        batch.draw(blankTexture, left, bottom, FrameTelemetry.HISTORY * TELEMETRY_BAR, TELEMETRY_HEIGHT);
+
+        long peak = Math.max(frameTelemetry.getPeakBytes(), 1);
+        int frames = frameTelemetry.getFrameCount();
+        for (int ii = 0; ii < frames; ii++) {
+            float x = left + ii * TELEMETRY_BAR;
+            long bytes = frameTelemetry.getBytes(ii);
+            if (frameTelemetry.getCollections(ii) > 0) {
+                batch.setColor(Color.RED);
+                batch.draw(blankTexture, x, bottom, TELEMETRY_BAR, TELEMETRY_HEIGHT);
+            } else if (bytes > 0) {
+                batch.setColor(Color.WHITE);
+                batch.draw(blankTexture, x, bottom, TELEMETRY_BAR, TELEMETRY_HEIGHT * bytes / peak);
+            }
+            switch (frameTelemetry.getEvent(ii)) {
+                case FrameTelemetry.HARVEST:
+                    batch.setColor(Color.GREEN);
+                    break;
+                case FrameTelemetry.TELEPORT:
+                    batch.setColor(Color.CYAN);
+                    break;
+                case FrameTelemetry.SHOT:
+                    batch.setColor(Color.MAGENTA);
+                    break;
+                case FrameTelemetry.MINIMAP:
+                    batch.setColor(Color.YELLOW);
+                    break;
+                default:
+                    continue;
+            }
+            batch.draw(blankTexture, x, bottom - 6, TELEMETRY_BAR, 4);
+        }
+        batch.setColor(Color.WHITE);
+        batch.drawText(telemetryText.toString(), displayFont, left, bottom + TELEMETRY_HEIGHT + 50);
+        batch.end();
+        batch.setProjectionMatrix(camera.combined);
+    }
+
+    /**
+     * Draws the frame phase profile in the top right corner of the screen.
+     *
+     * The report sorts every phase, so it is only rebuilt every few frames.
+     * Nothing is drawn unless the phase profiler was turned on (F6).
+     */
+    private void drawPhases() {
+        if (phaseRefresh-- <= 0) {
+            phaseText.setLength(0);
+            phaseProfiler.describe(phaseText);
+            phaseReport = phaseText.toString();
+            phaseRefresh = PHASE_REFRESH;
+        }
+
+        overlayMatrix.setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        batch.setProjectionMatrix(overlayMatrix);
+        batch.setTransformMatrix(identityMatrix);
+        batch.begin();
+        batch.drawText(phaseReport, displayFont, Gdx.graphics.getWidth() * 0.6f, Gdx.graphics.getHeight() - 10);
+        batch.end();
+        batch.setProjectionMatrix(camera.combined);
     }
 
     private void drawBulletEffect(Bullet bullet, float dt) {
@@ -1781,7 +2246,6 @@ public class PlatformScene implements Screen {
 
         if (isTeleporting) {
             currentTeleportFrame = teleportAnimator.getCurrentFrame(Gdx.graphics.getDeltaTime());
-            teleportFrameToDraw = new TextureRegion(currentTeleportFrame);
 
             float width = currentTeleportFrame.getRegionWidth();
             float height = currentTeleportFrame.getRegionHeight();
@@ -1806,7 +2270,8 @@ public class PlatformScene implements Screen {
             batch.setColor(Color.WHITE);
 
 
-            Sprite sprite = new Sprite(teleportFrameToDraw);
+            Sprite sprite = teleportSprite;
+            sprite.setRegion(currentTeleportFrame);
             sprite.setSize(scaledWidth, scaledHeight);
             sprite.setOriginCenter();
             sprite.setRotation(angleToTeleport); // Now consistent
@@ -1817,8 +2282,6 @@ public class PlatformScene implements Screen {
             float cx = preTeleportPosition.x * units + xOffset;
             float cy = preTeleportPosition.y * units - scaledHeight * 3/5;
 
-            sprite = new Sprite(teleportFrameToDraw);
-            sprite.setSize(scaledWidth, scaledHeight);
             sprite.setOriginCenter();
             sprite.setRotation(teleportAngle);
             sprite.setPosition(cx, cy);
@@ -1860,21 +2323,11 @@ public class PlatformScene implements Screen {
         // Get player position in WORLD coordinates
         Vector2 playerPosition = avatar.getObstacle().getPosition();
 
-        // Get mouse in WORLD coordinates
-        Vector3 crosshairTemp = new Vector3(mouseX, mouseY, 0);
-        camera.unproject(crosshairTemp);
-        Vector2 crosshairWorld = new Vector2(crosshairTemp.x / units, crosshairTemp.y / units);
-
-        // done in WORLD coordinates just like teleport() method :(
-        Vector2 delta2 = new Vector2(crosshairWorld).sub(playerPosition);
-        float teleportRangeWorld = avatar.getTeleportRangeRadius() / units;
-        if (delta2.len() > teleportRangeWorld) {
-            delta2.nor().scl(teleportRangeWorld);
-            crosshairWorld = new Vector2(playerPosition).add(delta2);
-        }
+        // Get mouse in WORLD coordinates, done just like teleport() method
+        Vector2 crosshairWorld = clampCrosshair(mouseX, mouseY, playerPosition);
 
         // Revert to SCREEN coordinate
-        Vector3 clampedScreenPos = new Vector3(crosshairWorld.x * units, crosshairWorld.y * units, 0);
+        Vector3 clampedScreenPos = screenCache.set(crosshairWorld.x * units, crosshairWorld.y * units, 0);
         camera.project(clampedScreenPos);
         mouseX = clampedScreenPos.x;
         mouseY = clampedScreenPos.y;
@@ -1885,25 +2338,7 @@ public class PlatformScene implements Screen {
         if (!shadowMode) {
             batch.draw(crosshairTexture, crossX, crossY, scaledWidth, scaledHeight);
         } else {
-            boolean canTeleport = false;
-            final boolean[] isInsideSurface = {false};
-            world.QueryAABB(new QueryCallback() {
-                                @Override
-                                public boolean reportFixture(Fixture fixture) {
-                                    Object userData = fixture.getBody().getUserData();
-                                    if (userData instanceof Surface) {
-                                        isInsideSurface[0] = true;
-                                        return false;
-                                    }
-                                    return true;
-                                }
-                            },
-                crosshairWorld.x - TELEPORT_SURFACE_BUFFER, crosshairWorld.y - TELEPORT_SURFACE_BUFFER,
-                crosshairWorld.x + TELEPORT_SURFACE_BUFFER, crosshairWorld.y + TELEPORT_SURFACE_BUFFER);
-
-            if (!isInsideSurface[0]) {
-                canTeleport = true;
-            }
+            boolean canTeleport = !isSurfaceNear(crosshairWorld);
 
             Color prev = batch.getColor();
             batch.setColor(canTeleport ? Color.WHITE : Color.BLACK);
@@ -2048,11 +2483,16 @@ public class PlatformScene implements Screen {
      */
     public void render(float delta) {
         if (active) {
+            if (telemetry) {
+                frameTelemetry.beginFrame();
+            }
+            long frameStart = phaseProfiler.begin();
+            long cameraStart = frameStart;
 
             float units = TiledMapInfo.PIXELS_PER_WORLD_METER;
 
             if (debug) {
-                Vector3 worldMouse = new Vector3(Gdx.input.getX(), Gdx.input.getY(), 0);
+                Vector3 worldMouse = screenCache.set(Gdx.input.getX(), Gdx.input.getY(), 0);
                 camera.unproject(worldMouse);
 
                 // Compute the difference between the mouse and camera center.
@@ -2078,12 +2518,12 @@ public class PlatformScene implements Screen {
             }
             else {
                 Vector3 position = this.camera.position;
-                Vector3 playerPosition = new Vector3(this.avatar.getObstacle().getX() * units, this.avatar.getObstacle().getY() * units, 0);
-                Vector3 diff = new Vector3(position).sub(playerPosition);
+                Vector3 playerPosition = followCache.set(this.avatar.getObstacle().getX() * units, this.avatar.getObstacle().getY() * units, 0);
+                Vector3 diff = diffCache.set(position).sub(playerPosition);
                 float dis = diff.len();
                 if (dis > 220.0) {
                     diff.nor().scl(250);
-                    position.lerp(new Vector3((playerPosition).add(diff)), 0.1f);
+                    position.lerp(playerPosition.add(diff), 0.1f);
                 }
                 if (dis < 30.0) {
                     float lerp = 6.0f;
@@ -2100,12 +2540,21 @@ public class PlatformScene implements Screen {
                 clampCamera();
                 camera.update();
             }
+            phaseProfiler.end(PHASE_CAMERA, cameraStart);
 
             // box2d
-            if (preUpdate(delta)) {
+            long inputStart = phaseProfiler.begin();
+            boolean running = preUpdate(delta);
+            phaseProfiler.end(PHASE_INPUT, inputStart);
+            if (running) {
+                long updateStart = phaseProfiler.begin();
                 update(delta);
+                phaseProfiler.end(PHASE_UPDATE, updateStart);
                 postUpdate(delta);
             }
+            phaseProfiler.count(COUNT_BODIES, world.getBodyCount());
+            phaseProfiler.count(COUNT_CONTACTS, world.getContactCount());
+            phaseProfiler.count(COUNT_SPRITES, sprites.size());
 
             ScreenUtils.clear(0.9f, 0.9f, 0.93f, 1.0f);
 
@@ -2129,6 +2578,7 @@ public class PlatformScene implements Screen {
             float ox = camera.position.x * parallaxFactor - w/2f;
             float oy = camera.position.y * parallaxFactor - h/2.7f;
 
+            long backgroundStart = phaseProfiler.begin();
             batch.begin(camera);
             for (int i = 0; i < 4; i++) {
                 batch.draw(
@@ -2139,10 +2589,10 @@ public class PlatformScene implements Screen {
                 );
             }
             batch.end();
-
-
+            phaseProfiler.end(PHASE_BACKGROUND, backgroundStart);
 
             if (miniMapActive) {
+                frameTelemetry.mark(FrameTelemetry.MINIMAP);
                 sceneBuffer.begin();
                 ScreenUtils.clear(0.9f, 0.9f, 0.93f, 1.0f);
                 batch.begin(camera);
@@ -2155,22 +2605,28 @@ public class PlatformScene implements Screen {
                     );
                 }
                 batch.end();
+                long tileStart = phaseProfiler.begin();
                 tiledRenderer.renderAllLayers(camera);
+                phaseProfiler.end(PHASE_TILES, tileStart);
+                long drawStart = phaseProfiler.begin();
                 draw(delta);
+                phaseProfiler.end(PHASE_DRAW, drawStart);
                 sceneBuffer.end();
+                long minimapStart = phaseProfiler.begin();
                 miniMapTexture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
 
+                // draw() always begins with the camera, and nothing else moves the
+                // transform, so restore those instead of copying them out of the batch
                 ShaderProgram prevShader = batch.getShader();
-                Matrix4        prevProj  = batch.getProjectionMatrix().cpy();
-                Matrix4        prevTrans = batch.getTransformMatrix();
+                Matrix4        prevProj  = camera.combined;
 
-                Matrix4 screenProj = new Matrix4().setToOrtho2D(
+                Matrix4 screenProj = overlayMatrix.setToOrtho2D(
                     0, 0,
                     Gdx.graphics.getWidth(),
                     Gdx.graphics.getHeight());
 
                 batch.setProjectionMatrix(screenProj);
-                batch.setTransformMatrix(new Matrix4());
+                batch.setTransformMatrix(identityMatrix);
 
                 batch.setShader(blurShader);
                 blurShader.bind();
@@ -2192,9 +2648,9 @@ public class PlatformScene implements Screen {
 
                 batch.setShader(prevShader);
                 batch.setProjectionMatrix(prevProj);
-                batch.setTransformMatrix(prevTrans);
+                batch.setTransformMatrix(identityMatrix);
 
-                Vector3 worldMouse = new Vector3(Gdx.input.getX(), Gdx.input.getY(), 0);
+                Vector3 worldMouse = screenCache.set(Gdx.input.getX(), Gdx.input.getY(), 0);
                 miniCam.unproject(worldMouse);
 
                 // Compute the difference between the mouse and camera center.
@@ -2214,13 +2670,31 @@ public class PlatformScene implements Screen {
                 miniCam.position.x += moveX * 0.01f;
                 miniCam.position.y += moveY * 0.01f;
                 miniCam.update();
-                minimapRenderer.render(p, miniCam, miniMapTime);
+                minimapRenderer.render(p, miniCam, prevProj, miniMapTime);
                 miniMapTime += delta;                 // advance the shader clock
+                phaseProfiler.end(PHASE_MINIMAP, minimapStart);
             }
             else {
+                long tileStart = phaseProfiler.begin();
                 tiledRenderer.renderAllLayers(camera);
+                phaseProfiler.end(PHASE_TILES, tileStart);
+                long drawStart = phaseProfiler.begin();
                 draw(delta);
+                phaseProfiler.end(PHASE_DRAW, drawStart);
+                long uiStart = phaseProfiler.begin();
                 drawUI();
+                phaseProfiler.end(PHASE_UI, uiStart);
+            }
+            phaseProfiler.end(PHASE_FRAME, frameStart);
+            phaseProfiler.endFrame();
+
+            if (telemetry) {
+                // The overlay itself allocates, so it is not part of the frame
+                frameTelemetry.endFrame();
+                drawTelemetry();
+            }
+            if (phaseProfiler.isEnabled()) {
+                drawPhases();
             }
         }
     }
@@ -2242,10 +2716,9 @@ public class PlatformScene implements Screen {
     }
 
     public void spawnShardAtLocation(Vector2 world, Shard s) {
-        JsonValue goal = constants.get("goal");
         Shard newShard = new Shard(
             TiledMapInfo.PIXELS_PER_WORLD_METER,
-            goal,
+            config.goal,
             world.x, world.y,
             s.id,
             shardTexture
@@ -2258,6 +2731,7 @@ public class PlatformScene implements Screen {
         newShard.setFilter();
         // record it in your internal lists
         shardPos.add(newShard.id, new Vector2(world.x, world.y));
+        perception.publish(Stimulus.Type.SHARD_MOVED, world, shardEmission, newShard);
     }
 
     /**
@@ -8,8 +8,6 @@
     import com.badlogic.gdx.graphics.*;
     import com.badlogic.gdx.physics.box2d.*;
 
-    import com.badlogic.gdx.utils.JsonValue;
-    import edu.cornell.gdiac.assets.ParserUtils;
     import edu.cornell.gdiac.graphics.Shader;
     import edu.cornell.gdiac.graphics.SpriteBatch;
     import edu.cornell.gdiac.graphics.Texture2D;
@@ -25,7 +23,7 @@
         private PlatformScene scene;
 
         /** The initializing data (to avoid magic numbers) */
-        private final JsonValue data;
+        private final LevelConfig.Avatar data;
         /** The width of Player's avatar */
         private float width;
         /** The height of Player's avatar */
@@ -124,6 +122,13 @@
 
         /** Cache for internal force calculations */
         private final Vector2 forceCache = new Vector2();
+        /** Cache for the knockback direction */
+        private final Vector2 directionCache = new Vector2();
+        /** Caches for the stair check made every frame */
+        private final Vector2 stepStartCache = new Vector2();
+        private final Vector2 stepEndCache = new Vector2();
+        private final Vector2 tangentCache = new Vector2();
+        private final Vector2 stairHitCache = new Vector2();
         /** Cache for the affine flip */
         private final Affine2 flipCache = new Affine2();
 
@@ -340,6 +345,7 @@
          * @param value value to set fear meter to
          */
         public void setFearMeter(int value) {
+            boolean wasHigh = isFearHigh();
             if (value < 0)
             {
                 fearMeter = 0;
@@ -348,10 +354,39 @@
             } else {
                 fearMeter = value;
             }
+            notifyFearChange(wasHigh);
         }
 
         public void rechargeFearMeter(){
+            boolean wasHigh = isFearHigh();
             fearMeter = maxFearMeter;
+            notifyFearChange(wasHigh);
+        }
+
+        /** Returns true if the fear meter is above half of its maximum
+         *
+         * @return true if the fear meter is above half of its maximum
+         */
+        public boolean isFearHigh() {
+            return fearMeter > maxFearMeter * 0.5;
+        }
+
+        /** Broadcasts an AI event if the fear meter crossed the halfway mark
+         *
+         * @param wasHigh whether the meter was above half before the change
+         */
+        private void notifyFearChange(boolean wasHigh) {
+            if (wasHigh != isFearHigh()) {
+                dispatcher.dispatchMessage(MessageType.FEAR_THRESHOLD_CROSSED, this);
+            }
+        }
+
+        /** Returns the dispatcher used to telegraph gameplay events to the AI
+         *
+         * @return the dispatcher used to telegraph gameplay events to the AI
+         */
+        public MessageDispatcher getDispatcher() {
+            return dispatcher;
         }
 
 
@@ -657,46 +692,45 @@
          * @param units     The physics units
          * @param data      The physics constants for Player
          */
-        public Player(float units, JsonValue data, Vector2 spawn, PlatformScene scene) {
+        public Player(float units, LevelConfig.Avatar data, Vector2 spawn, PlatformScene scene) {
             this.data = data;
-            JsonValue debugInfo = data.get("debug");
 
             float x = spawn.x;
             float y = spawn.y;
-            float s = data.getFloat( "size" );
+            float s = data.size;
             float sizeWidth = s*units;
             float sizeHeight = s*units*1.8f;
 
             // The capsule is smaller than the image
             // "inner" is the fraction of the original size for the capsule
-            width = s*data.get("inner").getFloat(0);
-            height = s*data.get("inner").getFloat(1);
+            width = s*data.innerWidth;
+            height = s*data.innerHeight;
             obstacle = new CapsuleObstacle(x, y, width, height*0.9f);
-            ((CapsuleObstacle)obstacle).setTolerance( debugInfo.getFloat("tolerance", 0.5f) );
+            ((CapsuleObstacle)obstacle).setTolerance( data.tolerance );
 
-            obstacle.setDensity( data.getFloat( "density", 0 ) );
-            obstacle.setFriction( data.getFloat( "friction", 0 ) );
+            obstacle.setDensity( data.density );
+            obstacle.setFriction( data.friction );
             obstacle.setRestitution(0f);
             obstacle.setFixedRotation(true);
             obstacle.setPhysicsUnits( units );
             obstacle.setUserData( this );
             obstacle.setName("player");
 
-            debug = ParserUtils.parseColor( debugInfo.get("avatar"),  Color.WHITE);
-            sensorColor = ParserUtils.parseColor( debugInfo.get("sensor"),  Color.WHITE);
-            sensorScareColor = ParserUtils.parseColor( debugInfo.get("scare_sensor"),  Color.GREEN);
+            debug = data.debugColor;
+            sensorColor = data.sensorColor;
+            sensorScareColor = data.scareSensorColor;
 
-            maxspeed = data.getFloat("maxspeed", 0);
+            maxspeed = data.maxSpeed;
             defaultMaxSpeed = maxspeed;
             damping = 0;
-            force = data.getFloat("force", 0);
-            jump_force = data.getFloat( "jump_force", 0 );
+            force = data.force;
+            jump_force = data.jumpForce;
             jump_force *= 1.1;
-            dash_force = data.getFloat("dash_force", 0);
-            jumpLimit = data.getInt( "jump_cool", 0 );
+            dash_force = data.dashForce;
+            jumpLimit = data.jumpCooldown;
             harvestLimit = 60;
             harvestDuration = 50;
-            stunLimit = data.getInt( "shot_cool", 0 );
+            stunLimit = data.shotCooldown;
             teleportLimit = 30;
             takeDamageLimit = 120;
             shroudMode = false;
@@ -787,12 +821,11 @@
         public void createSensor() {
             Vector2 sensorCenter = new Vector2(0, -height / 2.2f);
             FixtureDef sensorDef = new FixtureDef();
-            sensorDef.density = data.getFloat("density",0);
+            sensorDef.density = data.density;
             sensorDef.isSensor = true;
 
-            JsonValue sensorjv = data.get("sensor");
-            float w = sensorjv.getFloat("shrink",0)*width * 0.3f;
-            float h = sensorjv.getFloat("height",0) * 1.2f;
+            float w = data.sensorShrink*width * 0.3f;
+            float h = data.sensorHeight * 1.2f;
             PolygonShape sensorShape = new PolygonShape();
             sensorShape.setAsBox(w, h, sensorCenter, 0.0f);
             sensorDef.shape = sensorShape;
@@ -903,7 +936,7 @@
 
             // Climbing logic
             else if (isClimbing && isGrounded) {
-                forceCache.set(new Vector2(14.7f * direction, 0));
+                forceCache.set(14.7f * direction, 0);
                 body.applyForce(forceCache, pos, true);
 
                 if (movement == 0) {
@@ -914,22 +947,19 @@
             }
 
             if (isFacingRight() && obstacle.getVX() < 0) {
-                System.out.println("VELOCITY RIGHT: " + getMovement() + " " + obstacle.getVX());
                 obstacle.setVX(0);
             } else if (!isFacingRight() && obstacle.getVX() > 0) {
-                System.out.println("VELOCITY LEFT: " + getMovement() + " " + obstacle.getVX());
                 obstacle.setVX(0);
             }
 
             if (isKnockedBack()) {
-                Vector2 dir = pos.cpy().sub(knockbackCache);
+                Vector2 dir = directionCache.set(pos).sub(knockbackCache);
                 if (dir.isZero()) { dir.set(0,1); }  // fallback up
                 dir.nor();
 
                 float strength = 1f / (float) (1 - Math.pow((Math.E), -.05 * (knockbackTimer + 1)));
                 strength *= 1.5f;
                 dir.scl(strength);
-                System.out.println("knockback" + dir);
                 obstacle.setLinearVelocity(dir);
                 knockbackTimer++;
                 if (knockbackTimer >= KNOCKBACK_DURATION) {
@@ -966,10 +996,8 @@
             playerVisionRaycast.reset();
             Body body = obstacle.getBody();
 
-            Vector2 start = (isFacingRight()) ?
-                obstacle.getBody().getPosition().cpy().add(0, 0) :
-                obstacle.getBody().getPosition().cpy().add(0, 0);
-            Vector2 end = start.cpy().add(0, -raylength);
+            Vector2 start = stepStartCache.set(obstacle.getBody().getPosition());
+            Vector2 end = stepEndCache.set(start).add(0, -raylength);
 
 
             debugRayStart = start;
@@ -979,11 +1007,9 @@
             Vector2 normal = playerVisionRaycast.getHitNormal();
             if (normal != null) {
                 // build the tangent (perpendicular to the normal)
-                Vector2 tangent = new Vector2(normal.y, -normal.x).nor();
-                // downward ray direction
-                Vector2 rayDir  = new Vector2(0, -1);
-                // angle between ray and surface tangent (in degrees)
-                float dot = tangent.dot(rayDir);
+                Vector2 tangent = tangentCache.set(normal.y, -normal.x).nor();
+                // angle between the downward ray and surface tangent (in degrees)
+                float dot = tangent.dot(0, -1);
                 dot = MathUtils.clamp(dot, -1f, 1f);
                 float angleDeg = (float)(Math.acos(dot) * MathUtils.radiansToDegrees);
 
@@ -1001,7 +1027,7 @@
                 isClimbing = false;
                 return false;
             } else if (playerVisionRaycast.fixtureIsStair) {
-                Vector2 stairHit = new Vector2(playerVisionRaycast.getHitPoint());
+                Vector2 stairHit = stairHitCache.set(playerVisionRaycast.getHitPoint());
                 playerVisionRaycast.reset();
 
                 stairCooldown = FRAME_STAIR_COOLDOWN;
@@ -1413,4 +1439,42 @@
             this.blindTimer = time;
         }
 
+        /**
+         * Writes the state of the player for a checkpoint
+         *
+         * @param out   The snapshot to write to
+         */
+        public void saveState(WorldSnapshot out) {
+            out.putBody(obstacle);
+            out.putInt(fearMeter);
+            out.putBoolean(faceRight);
+            out.putBoolean(slowed);
+            out.putFloat(slowTime);
+            out.putFloat(maxspeed);
+            out.putInt(harvestCooldown);
+            out.putInt(stunCooldown);
+            out.putInt(teleportCooldown);
+            out.putInt(takeDamageCooldown);
+            out.putFloat(blindTimer);
+        }
+
+        /**
+         * Reads the state of the player back from a checkpoint
+         *
+         * @param in    The snapshot to read from
+         */
+        public void loadState(WorldSnapshot in) {
+            in.getBody(obstacle);
+            setFearMeter(in.getInt());
+            faceRight = in.getBoolean();
+            slowed = in.getBoolean();
+            slowTime = in.getFloat();
+            maxspeed = in.getFloat();
+            harvestCooldown = in.getInt();
+            stunCooldown = in.getInt();
+            teleportCooldown = in.getInt();
+            takeDamageCooldown = in.getInt();
+            blindTimer = in.getFloat();
+        }
+
     }
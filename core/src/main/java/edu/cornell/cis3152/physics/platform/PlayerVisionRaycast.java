@@ -33,7 +33,7 @@ public class PlayerVisionRaycast implements RayCastCallback {
                 String name = surface.getObstacle().getName();
                 if (point.y - surface.getObstacle().getY() <= stepHeightThreshold && name.startsWith("stair")) {
                     hitNormal.set(normal).nor();
-                    posAboveStair.set(point).add(normal.cpy().nor());
+                    posAboveStair.set(normal).nor().add(point);
                     hitFixture = fixture;
                     closestFraction = fraction;
                     fixtureIsStair = true;
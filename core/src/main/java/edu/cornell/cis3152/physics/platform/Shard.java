@@ -14,14 +14,11 @@
  package edu.cornell.cis3152.physics.platform;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.Filter;
 import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.utils.JsonValue;
-import edu.cornell.gdiac.assets.ParserUtils;
 import edu.cornell.gdiac.graphics.SpriteBatch;
 import edu.cornell.gdiac.physics2.BoxObstacle;
 import edu.cornell.gdiac.physics2.ObstacleSprite;
@@ -60,18 +57,18 @@ public class Shard extends ObstacleSprite {
      * @param units     The physics units
      * @param settings  The door physics constants
      */
-    public Shard(float units, JsonValue settings, float x, float y, int id, Texture sprite) {
+    public Shard(float units, LevelConfig.Fixed settings, float x, float y, int id, Texture sprite) {
         super();
 
         this.id = id;
 
-        float s = settings.getFloat( "size" );
+        float s = settings.size;
         float size = s*units;
 
         obstacle = new BoxObstacle(x, y, s*2, s*2);
-        obstacle.setDensity(settings.getFloat("density", 0));
-        obstacle.setFriction(settings.getFloat("friction", 0));
-        obstacle.setRestitution(settings.getFloat("restitution", 0));
+        obstacle.setDensity(settings.density);
+        obstacle.setFriction(settings.friction);
+        obstacle.setRestitution(settings.restitution);
         obstacle.setPhysicsUnits(units);
         obstacle.setBodyType(BodyDef.BodyType.StaticBody);
         obstacle.setSensor(true);
@@ -79,7 +76,7 @@ public class Shard extends ObstacleSprite {
         obstacle.setName("goal");
 
 
-        debug = ParserUtils.parseColor( settings.get("debug"),  Color.WHITE);
+        debug = settings.debugColor;
 
         // Create a rectangular mesh the same size as the door, adjusted by
         // the physics units. For all meshes attached to a physics body, we
@@ -6,8 +6,6 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Filter;
 import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.utils.JsonValue;
-import edu.cornell.gdiac.assets.ParserUtils;
 import edu.cornell.gdiac.graphics.SpriteBatch;
 import edu.cornell.gdiac.physics2.ObstacleSprite;
 import edu.cornell.gdiac.physics2.PolygonObstacle;
@@ -28,8 +26,8 @@ public class ShieldWall extends ObstacleSprite {
     private Animator travelSprite;
     private Animator endSprite;
 
-    public ShieldWall(float units, JsonValue settings, Vector2 pos, float direction, Texture travelTex, Texture endTex) {
-        float s = settings.getFloat( "size" );
+    public ShieldWall(float units, LevelConfig.Projectile settings, Vector2 pos, float direction, Texture travelTex, Texture endTex) {
+        float s = settings.size;
         s /= 2.3f;
         float radius = s * units / 2.0f;
         timeAlive = 0;
@@ -47,7 +45,7 @@ public class ShieldWall extends ObstacleSprite {
         float speed = 5;
         obstacle.setVX(speed*direction);
         obstacle.setVY(0);
-        debug = ParserUtils.parseColor( settings.get( "debug" ), Color.PURPLE);
+        debug = (settings.debugColor == null) ? Color.PURPLE : settings.debugColor;
 
         mesh.set( -radius, 20*-radius, 5 * radius, 40 * radius );
         travelSprite = new Animator(travelTex, 1, 4, 0.26f, 4, 0, 3, true);
@@ -118,4 +116,24 @@ public class ShieldWall extends ObstacleSprite {
             0
         );
     }
+
+    /** Writes the flight of this wall for a checkpoint */
+    public void saveState(WorldSnapshot out) {
+        out.putBody(obstacle);
+        out.putFloat(timeAlive);
+        out.putBoolean(dead);
+    }
+
+    /**
+     * Reads the flight of this wall back from a checkpoint.
+     *
+     * The filter is applied again on the next update, in case the body was
+     * recreated.
+     */
+    public void loadState(WorldSnapshot in) {
+        in.getBody(obstacle);
+        timeAlive = in.getFloat();
+        dead = in.getBoolean();
+        filterActivated = false;
+    }
 }
@@ -6,8 +6,6 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Filter;
 import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.utils.JsonValue;
-import edu.cornell.gdiac.assets.ParserUtils;
 import edu.cornell.gdiac.graphics.SpriteBatch;
 import edu.cornell.gdiac.physics2.ObstacleSprite;
 import edu.cornell.gdiac.physics2.PolygonObstacle;
@@ -37,8 +35,8 @@ public class Spear extends ObstacleSprite {
     private Animator travelSprite;
     private Animator endAnimator;
 
-    public Spear(float units, JsonValue settings, Vector2 pos, Vector2 angle, Texture travelTex, Texture endTex) {
-        float s = settings.getFloat("size");
+    public Spear(float units, LevelConfig.Projectile settings, Vector2 pos, Vector2 angle, Texture travelTex, Texture endTex) {
+        float s = settings.size;
         float radius = s * units / 2.0f;
         this.angle = angle;
 
@@ -57,7 +55,7 @@ public class Spear extends ObstacleSprite {
         obstacle.setVX(0);
         obstacle.setVY(0);
 
-        debug = ParserUtils.parseColor(settings.get("debug"), Color.WHITE);
+        debug = (settings.debugColor == null) ? Color.WHITE : settings.debugColor;
         mesh.set(-radius, -radius, 2 * radius, 2 * radius);
 
         travelSprite = new Animator(travelTex, 1, 5, 0.15f, 5, 0, 4, true);
@@ -150,7 +148,28 @@ public class Spear extends ObstacleSprite {
             (float) Math.toDegrees(Math.atan2(angle.y, angle.x))
         );
     }
-}
-
 
+    /** Writes the flight of this spear for a checkpoint */
+    public void saveState(WorldSnapshot out) {
+        out.putBody(obstacle);
+        out.putFloat(timeAlive);
+        out.putFloat(delayTimer);
+        out.putBoolean(notLaunched);
+        out.putBoolean(dead);
+    }
 
+    /**
+     * Reads the flight of this spear back from a checkpoint.
+     *
+     * The filter is applied again on the next update, in case the body was
+     * recreated.
+     */
+    public void loadState(WorldSnapshot in) {
+        in.getBody(obstacle);
+        timeAlive = in.getFloat();
+        delayTimer = in.getFloat();
+        notLaunched = in.getBoolean();
+        dead = in.getBoolean();
+        filterActivated = false;
+    }
+}
@@ -16,12 +16,9 @@
  */
  package edu.cornell.cis3152.physics.platform;
 
-import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.Filter;
 import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.utils.JsonValue;
-import edu.cornell.gdiac.assets.ParserUtils;
 import edu.cornell.gdiac.graphics.SpriteBatch;
 import edu.cornell.gdiac.math.Poly2;
 import edu.cornell.gdiac.math.PolyTriangulator;
@@ -79,10 +76,10 @@ public class Surface extends ObstacleSprite {
      * @param points    The outline of the shape as x,y pairs
      * @param units     The physics units
      */
-    public Surface(float[] points, float units, JsonValue settings, boolean shadowed) {
+    public Surface(float[] points, float units, LevelConfig.Fixed settings, boolean shadowed) {
         super();
 
-        float tile = settings.getFloat( "tile" );
+        float tile = settings.tile;
 
         // Construct a Poly2 object, breaking it into triangles
         Poly2 poly = new Poly2();
@@ -93,13 +90,13 @@ public class Surface extends ObstacleSprite {
 
         obstacle = new PolygonObstacle(points);
         obstacle.setBodyType( BodyDef.BodyType.StaticBody );
-        obstacle.setDensity( settings.getFloat( "density", 0 ) );
-        obstacle.setFriction( settings.getFloat( "friction", 0 ) );
+        obstacle.setDensity( settings.density );
+        obstacle.setFriction( settings.friction );
         obstacle.setRestitution(0f);
         obstacle.setPhysicsUnits( units );
         obstacle.setUserData( this );
 
-        debug = ParserUtils.parseColor( settings.get("debug"),  Color.WHITE);
+        debug = settings.debugColor;
 
         this.shadowed = shadowed;
         width = points[1] - points[0];
@@ -114,10 +111,10 @@ public class Surface extends ObstacleSprite {
         mesh.set(poly,tile,tile);
     }
 
-    public Surface(float x, float y, float h, float w, float units, JsonValue settings, boolean shadowed) {
+    public Surface(float x, float y, float h, float w, float units, LevelConfig.Fixed settings, boolean shadowed) {
         super();
 
-        float tile = settings.getFloat( "tile" );
+        float tile = settings.tile;
 
         //Counter clockwise in xy pairs
         float[] points = {x, y, x + w, y, x + w, y + h, x, y + h};
@@ -134,13 +131,13 @@ public class Surface extends ObstacleSprite {
 
         obstacle = new PolygonObstacle(points);
         obstacle.setBodyType( BodyDef.BodyType.StaticBody );
-        obstacle.setDensity( settings.getFloat( "density", 0 ) );
-        obstacle.setFriction( settings.getFloat( "friction", 0.3f) );
+        obstacle.setDensity( settings.density );
+        obstacle.setFriction( settings.friction );
         obstacle.setRestitution(0);
         obstacle.setPhysicsUnits( units );
         obstacle.setUserData( this );
 
-        debug = ParserUtils.parseColor( settings.get("debug"),  Color.WHITE);
+        debug = settings.debugColor;
 
         this.shadowed = shadowed;
         width = points[1] - points[0];
@@ -158,10 +155,10 @@ public class Surface extends ObstacleSprite {
     }
 
     public Surface(float x, float y, float h, float w,
-                   float units, JsonValue settings,
+                   float units, LevelConfig.Fixed settings,
                    boolean shadowed, float angle) {
         super();
-        float tile = settings.getFloat("tile");
+        float tile = settings.tile;
 
         // Center of rectangle
         float cx = x + w*0.5f;
@@ -198,13 +195,13 @@ public class Surface extends ObstacleSprite {
         // Create physics obstacle
         obstacle = new PolygonObstacle(points);
         obstacle.setBodyType( BodyDef.BodyType.StaticBody );
-        obstacle.setDensity( settings.getFloat("density", 0) );
-        obstacle.setFriction( settings.getFloat("friction", 0.3f) );
+        obstacle.setDensity( settings.density );
+        obstacle.setFriction( settings.friction );
         obstacle.setRestitution(0);
         obstacle.setPhysicsUnits( units );
         obstacle.setUserData( this );
 
-        debug = ParserUtils.parseColor( settings.get("debug"), Color.WHITE );
+        debug = settings.debugColor;
 
         this.shadowed = shadowed;
         width = w;
@@ -267,11 +264,11 @@ public class Surface extends ObstacleSprite {
      * @param offX      The map‐object’s x offset (in pixels)
      * @param offY      The map‐object’s y offset (in pixels)
      * @param units     PIXELS_PER_WORLD_METER constant
-     * @param settings  JsonValue of physics constants (density, friction, tile, …)
+     * @param settings  The platform constants (density, friction, tile, …)
      * @param shadowed  Whether to render shadow
      */
     public Surface(float[] vertsPx, float offX, float offY,
-                   float units, JsonValue settings, boolean shadowed) {
+                   float units, LevelConfig.Fixed settings, boolean shadowed) {
         // Compute world‐space, CCW pts, then delegate
         this(toWorldPoints(vertsPx, offX, offY, units),
             units, settings, shadowed);
@@ -5,11 +5,14 @@ import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.maps.tiled.*;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.JsonValue;
 
 import java.util.ArrayList;
 
 public class TiledMapInfo {
     public TiledMap map;
+    /** The tmx file the map came from */
+    private final String fileName;
     private int levelID;
     private OrthogonalTiledMapRenderer mapRenderer;
 
@@ -17,17 +20,38 @@ public class TiledMapInfo {
     public static int PIXELS_PER_WORLD_METER = 128;
     public static Vector2 TILE_SIZE = new Vector2(PIXELS_PER_WORLD_METER, PIXELS_PER_WORLD_METER);
 
+    /**
+     * Gets the map from the level prefetcher, loading it now if it was not prefetched
+     *
+     * @param fileName  The tmx file of the level
+     */
     public TiledMapInfo(String fileName) {
-        this.map = new TmxMapLoader().load(fileName);
+        this.fileName = fileName;
+        this.map = LevelPrefetcher.getInstance().acquire(fileName);
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Returns the compiled spawn and collision data of this map
+     *
+     * @param navigation    The navigation settings of the level (may be null)
+     */
+    public LevelData getLevelData(JsonValue navigation) {
+        return LevelPrefetcher.getInstance().getLevelData(fileName, navigation);
     }
 
     public TiledMap get() {
         return map;
     }
 
+    /** Gives the map back to the prefetcher, which disposes it once nothing uses it */
     public void disposeMap() {
         if (map != null) {
-            map.dispose();
+            LevelPrefetcher.getInstance().release(fileName);
+            map = null;
         }
     }
 }
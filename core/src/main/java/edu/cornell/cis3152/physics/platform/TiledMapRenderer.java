@@ -14,6 +14,8 @@ public class TiledMapRenderer {
     private final TiledMap map;
     private final SpriteBatch batch;
     private final float unitScale;
+    /** The region of the tile being drawn (reused so drawing allocates nothing) */
+    private final TextureRegion region = new TextureRegion();
 
     /**
      * @param map       the loaded TiledMap
@@ -68,7 +70,7 @@ public class TiledMapRenderer {
                 TiledMapTile tile = cell.getTile();
                 if (tile == null) continue;
 
-                TextureRegion region = new TextureRegion(tile.getTextureRegion());
+                region.setRegion(tile.getTextureRegion());
 
                 if (cell.getFlipHorizontally()) region.flip(true, false);
                 if (cell.getFlipVertically()) region.flip(false, true);
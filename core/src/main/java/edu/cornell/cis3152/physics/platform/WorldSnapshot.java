@@ -0,0 +1,133 @@
+package edu.cornell.cis3152.physics.platform;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import edu.cornell.gdiac.physics2.Obstacle;
+import edu.cornell.gdiac.physics2.ObstacleSprite;
+
+/**
+ * The dynamic state of a level, captured for a checkpoint.
+ *
+ * Values are written into two primitive buffers (ints and floats) and read
+ * back in the same order, so a snapshot is compact and reusable: capturing
+ * again clears the buffers but keeps their capacity.
+ *
+ * Static geometry is never captured. Instead the snapshot keeps a roster of
+ * the dynamic sprites (player, enemies, shards, projectiles) that were alive,
+ * so a restore can revive the ones removed since and remove the ones created
+ * since, all in the existing world (see {@link PlatformScene#loadCheckpoint}).
+ */
+public class WorldSnapshot {
+    private final IntArray ints = new IntArray();
+    private final FloatArray floats = new FloatArray();
+    /** References held by entities (such as a carried shard) */
+    private final Array<Object> objects = new Array<>();
+    /** The dynamic sprites alive when captured, in capture order */
+    private final Array<ObstacleSprite> roster = new Array<>();
+
+    /** Read position in the int buffer */
+    private int intCursor;
+    /** Read position in the float buffer */
+    private int floatCursor;
+    /** Read position in the object buffer */
+    private int objectCursor;
+
+    /** Empties the snapshot for a new capture */
+    public void clear() {
+        ints.clear();
+        floats.clear();
+        objects.clear();
+        roster.clear();
+        rewind();
+    }
+
+    /** Moves the read position back to the start */
+    public void rewind() {
+        intCursor = 0;
+        floatCursor = 0;
+        objectCursor = 0;
+    }
+
+    /** Returns true if nothing has been captured */
+    public boolean isEmpty() {
+        return roster.size == 0;
+    }
+
+    /** Returns the dynamic sprites alive when captured */
+    public Array<ObstacleSprite> getRoster() {
+        return roster;
+    }
+
+    /** Adds a dynamic sprite to the roster */
+    public void addSprite(ObstacleSprite sprite) {
+        roster.add(sprite);
+    }
+
+    /** Returns the size of the captured state in bytes (excluding the roster) */
+    public int getByteSize() {
+        return (ints.size + floats.size) * 4;
+    }
+
+    public void putInt(int value) {
+        ints.add(value);
+    }
+
+    public void putFloat(float value) {
+        floats.add(value);
+    }
+
+    public void putBoolean(boolean value) {
+        ints.add(value ? 1 : 0);
+    }
+
+    public void putObject(Object value) {
+        objects.add(value);
+    }
+
+    public int getInt() {
+        return ints.get(intCursor++);
+    }
+
+    public float getFloat() {
+        return floats.get(floatCursor++);
+    }
+
+    public boolean getBoolean() {
+        return ints.get(intCursor++) != 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getObject() {
+        return (T) objects.get(objectCursor++);
+    }
+
+    /**
+     * Writes the transform and velocity of a body
+     *
+     * @param obstacle  The obstacle of the body
+     */
+    public void putBody(Obstacle obstacle) {
+        floats.add(obstacle.getX());
+        floats.add(obstacle.getY());
+        floats.add(obstacle.getAngle());
+        floats.add(obstacle.getVX());
+        floats.add(obstacle.getVY());
+        floats.add(obstacle.getAngularVelocity());
+    }
+
+    /**
+     * Reads the transform and velocity of a body back into it
+     *
+     * @param obstacle  The obstacle of the body
+     */
+    public void getBody(Obstacle obstacle) {
+        float x = getFloat();
+        float y = getFloat();
+        obstacle.setPosition(x, y);
+        obstacle.setAngle(getFloat());
+        obstacle.setVX(getFloat());
+        obstacle.setVY(getFloat());
+        obstacle.setAngularVelocity(getFloat());
+    }
+}
@@ -0,0 +1,153 @@
+package edu.cornell.cis3152.physics.platform.aibehavior;
+
+import com.badlogic.gdx.math.Vector2;
+import edu.cornell.cis3152.physics.platform.CuriosityCritter;
+import edu.cornell.cis3152.physics.platform.Enemy;
+
+/**
+ * Commands that a behavior tree issued for one enemy during a step.
+ *
+ * Tasks never change the enemy directly. They record what they want here and
+ * the AI manager applies the buffer on the main thread before the physics
+ * step. Later commands of the same kind replace earlier ones, which matches
+ * calling the setters in order.
+ */
+public class AICommandBuffer {
+    /** Flag for the critter chase state */
+    private static final int CHASING = 0x1;
+    /** Flag for the critter attack animation */
+    private static final int ATTACKING = 0x2;
+    /** Flag for the stunned state */
+    private static final int STUNNED = 0x4;
+    /** Flag for a critter carrying a shard */
+    private static final int MOVE_TASK = 0x8;
+
+    private boolean hasMovement;
+    private float movement;
+    private boolean applyForce;
+
+    /** Flags that were set this step */
+    private int flagsSet;
+    /** Values of the flags that were set */
+    private int flagValues;
+
+    private boolean restoreTexture;
+    private boolean dropShard;
+    private final Vector2 dropTarget = new Vector2();
+
+    /** Returns true if no command was issued since the last apply */
+    public boolean isEmpty() {
+        return !hasMovement && !applyForce && flagsSet == 0 && !restoreTexture && !dropShard;
+    }
+
+    /**
+     * Sets the horizontal movement of the enemy
+     *
+     * @param value the left/right movement of the enemy
+     */
+    public void setMovement(float value) {
+        hasMovement = true;
+        movement = value;
+    }
+
+    /** Pushes the current movement into the physics body */
+    public void applyForce() {
+        applyForce = true;
+    }
+
+    public void setChasing(boolean value) {
+        setFlag(CHASING, value);
+    }
+
+    public void setInAttackAnimation(boolean value) {
+        setFlag(ATTACKING, value);
+    }
+
+    public void setStunned(boolean value) {
+        setFlag(STUNNED, value);
+    }
+
+    public void setInMoveTask(boolean value) {
+        setFlag(MOVE_TASK, value);
+    }
+
+    /** Switches the enemy back to its active texture */
+    public void restoreActiveTexture() {
+        restoreTexture = true;
+    }
+
+    /**
+     * Drops the held shard at the given location
+     *
+     * @param target    where to place the shard in world coordinates
+     */
+    public void dropShardAt(Vector2 target) {
+        dropShard = true;
+        dropTarget.set(target);
+    }
+
+    private void setFlag(int flag, boolean value) {
+        flagsSet |= flag;
+        if (value) {
+            flagValues |= flag;
+        } else {
+            flagValues &= ~flag;
+        }
+    }
+
+    private boolean flag(int flag) {
+        return (flagValues & flag) != 0;
+    }
+
+    /**
+     * Applies every recorded command to the enemy and clears the buffer.
+     *
+     * This must be called on the main thread.
+     *
+     * @param enemy the enemy these commands belong to
+     */
+    public void apply(Enemy enemy) {
+        if (isEmpty()) {
+            return;
+        }
+        CuriosityCritter critter = (enemy instanceof CuriosityCritter) ? (CuriosityCritter) enemy : null;
+
+        if ((flagsSet & STUNNED) != 0) {
+            enemy.setStunned(flag(STUNNED));
+        }
+        if (critter != null) {
+            if ((flagsSet & CHASING) != 0) {
+                critter.setIsChasing(flag(CHASING));
+            }
+            if ((flagsSet & ATTACKING) != 0) {
+                critter.setInAttackAnimation(flag(ATTACKING));
+            }
+            if ((flagsSet & MOVE_TASK) != 0) {
+                critter.inMoveTask = flag(MOVE_TASK);
+            }
+        }
+        if (hasMovement) {
+            enemy.setMovement(movement);
+        }
+        if (applyForce) {
+            enemy.applyForce();
+        }
+        if (critter != null && restoreTexture) {
+            critter.setActiveTexture();
+        }
+        if (critter != null && dropShard) {
+            critter.getScene().spawnShardAtLocation(dropTarget, critter.dropShard());
+        }
+        clear();
+    }
+
+    /** Discards every recorded command */
+    public void clear() {
+        hasMovement = false;
+        applyForce = false;
+        flagsSet = 0;
+        flagValues = 0;
+        restoreTexture = false;
+        dropShard = false;
+    }
+}
@@ -5,26 +5,57 @@ import edu.cornell.cis3152.physics.AIControllerManager;
 import edu.cornell.cis3152.physics.platform.*;
 
 import com.badlogic.gdx.ai.btree.BehaviorTree;
+import com.badlogic.gdx.ai.msg.MessageDispatcher;
+import com.badlogic.gdx.files.FileHandle;
 import edu.cornell.gdiac.assets.AssetDirectory;
 
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Class for managing all the AI entities in one place
  */
 public class AIManager {
+    /** Golden ratio fraction, used to stagger the phase of new loops */
+    private static final float PHASE_SPREAD = 0.618034f;
+
+    /** Threads in the worker pool shared by every manager */
+    private static final int WORKER_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    /** Pool for stepping trees off the main thread, created on first use */
+    private static ExecutorService workers;
+
     /** private mapping of id to their behavior loop*/
     private ArrayList<BehaviorLoop<Enemy>> entities;
     private int totalEntities;
+    /** index of the first loop to consider on the next budgeted update */
+    private int cursor;
     public AssetDirectory directory;
 
     public Player player;
 
     private final Random random = new Random();
 
-    private BehaviorFactory critterFactory;
-    private BehaviorFactory dwellerFactory;
-    private BehaviorFactory maintenanceFactory;
+    private BehaviorFactory<Enemy> critterFactory;
+    private BehaviorFactory<Enemy> dwellerFactory;
+    private BehaviorFactory<Enemy> maintenanceFactory;
+
+    /** whether trees sleep until an AI event instead of polling on a timer */
+    private boolean eventDriven = true;
+    /** the player's dispatcher that carries AI events */
+    private MessageDispatcher dispatcher;
+
+    /** whether trees are stepped on the worker pool */
+    private boolean parallel;
+    /** trees due this frame in parallel mode */
+    private final ArrayList<BehaviorLoop<Enemy>> due = new ArrayList<>();
+    /** reusable jobs for the worker pool, one per worker */
+    private final ChunkJob[] chunkJobs = new ChunkJob[WORKER_COUNT];
+    private final ArrayList<Callable<Object>> jobs = new ArrayList<>(WORKER_COUNT);
+
+    /** execution stats for the trees of this level */
+    private final BehaviorProfiler profiler = new BehaviorProfiler();
 
     public AIManager(String critterTreeFile, String dwellerTreeFile, String maintenanceTreeFile, AssetDirectory directory) {
         critterFactory = new BehaviorFactory<>(Gdx.files.internal(critterTreeFile));
@@ -33,23 +64,60 @@ public class AIManager {
 
         entities = new ArrayList<>();
         this.directory = directory;
+        for (int i = 0; i < chunkJobs.length; i++) {
+            chunkJobs[i] = new ChunkJob();
+        }
         totalEntities = 0;
     }
 
+    /**
+     * Sets the player, moving every tree over to its event dispatcher
+     *
+     * @param p the player whose dispatcher carries AI events
+     */
     public void setPlayer(Player p) {
         player = p;
+        for (BehaviorLoop<Enemy> loop : entities) {
+            unsubscribe(loop);
+        }
+        dispatcher = (p == null) ? null : p.getDispatcher();
+        for (BehaviorLoop<Enemy> loop : entities) {
+            subscribe(loop);
+        }
+    }
+
+    /**
+     * Sets whether trees sleep until an AI event instead of polling on a timer
+     *
+     * @param value whether trees are event driven
+     */
+    public void setEventDriven(boolean value) {
+        eventDriven = value;
+        for (BehaviorLoop<Enemy> loop : entities) {
+            loop.setEventDriven(value);
+        }
+    }
+
+    public boolean isEventDriven() {
+        return eventDriven;
     }
 
     public void register(Enemy e) {
-        BehaviorLoop<Enemy> behavior;
+        BehaviorLoop<Enemy> behavior = null;
         if (e instanceof CuriosityCritter) {
             behavior = critterFactory.createActor(e);
-            entities.add(behavior);
         } else if (e instanceof MindMaintenance) {
             behavior = maintenanceFactory.createActor(e);
-            entities.add(behavior);
         } else if (e instanceof DreamDweller) {
             behavior = dwellerFactory.createActor(e);
+        }
+        if (behavior != null) {
+            // Spread the first steps over the delay so trees do not tick in lockstep
+            float phase = (totalEntities * PHASE_SPREAD) % 1.0f;
+            behavior.setRuntime(phase * behavior.getDelay());
+            behavior.setEventDriven(eventDriven);
+            behavior.setId(totalEntities);
+            subscribe(behavior);
             entities.add(behavior);
         }
         totalEntities++;
@@ -59,18 +127,213 @@ public class AIManager {
         for (Iterator<BehaviorLoop<Enemy>> it = entities.iterator(); it.hasNext(); ) {
             BehaviorLoop<Enemy> loop = it.next();
             if (loop.getBehaviorTree().getObject() == e) {
+                unsubscribe(loop);
                 it.remove();
                 totalEntities--;
+                cursor = 0;
                 break;
             }
         }
     }
 
+    /**
+     * Returns the behavior loop of an enemy
+     *
+     * @param e The enemy
+     *
+     * @return the loop, or null if the enemy has no tree
+     */
+    public BehaviorLoop<Enemy> getLoop(Enemy e) {
+        for (BehaviorLoop<Enemy> loop : entities) {
+            if (loop.getBehaviorTree().getObject() == e) {
+                return loop;
+            }
+        }
+        return null;
+    }
+
+    /** Listens for every AI event on the current dispatcher */
+    private void subscribe(BehaviorLoop<Enemy> loop) {
+        if (dispatcher != null) {
+            dispatcher.addListeners(loop, MessageType.AI_EVENTS);
+        }
+    }
+
+    /** Stops listening for AI events on the current dispatcher */
+    private void unsubscribe(BehaviorLoop<Enemy> loop) {
+        if (dispatcher != null) {
+            dispatcher.removeListener(loop, MessageType.AI_EVENTS);
+        }
+    }
+
     public void update(float dt) {
-        for (BehaviorLoop<Enemy> behavior : entities) {
-            behavior.update(dt);
+        update(dt, Long.MAX_VALUE);
+    }
+
+    /**
+     * Steps due trees until the time budget for this frame is spent.
+     *
+     * Every loop accumulates time, but only as many due trees are stepped as
+     * fit in the budget (at least one). Trees that miss out stay due and are
+     * first in line next frame, so no tree starves. In parallel mode every due
+     * tree is stepped at once on the worker pool instead.
+     *
+     * Either way, trees read the snapshot captured here and their commands are
+     * applied before this method returns, so before the physics step.
+     *
+     * @param dt        Number of seconds since last animation frame
+     * @param budget    Nanoseconds this frame may spend stepping trees
+     */
+    public void update(float dt, long budget) {
+        profiler.advance(dt);
+        int count = entities.size();
+        for (int i = 0; i < count; i++) {
+            entities.get(i).advance(dt);
+        }
+
+        if (parallel && count > 1) {
+            stepParallel();
+            return;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            int index = (cursor + i) % count;
+            BehaviorLoop<Enemy> loop = entities.get(index);
+            if (loop.isDue()) {
+                Enemy enemy = loop.getBehaviorTree().getObject();
+                enemy.captureSnapshot();
+                loop.step();
+                enemy.getCommands().apply(enemy);
+                if (System.nanoTime() - start >= budget) {
+                    cursor = (index + 1) % count;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Steps every due tree on the worker pool and applies their commands.
+     *
+     * Snapshots are captured and commands applied on the calling thread, so
+     * the workers never touch the world or the scene.
+     */
+    private void stepParallel() {
+        due.clear();
+        for (BehaviorLoop<Enemy> loop : entities) {
+            if (loop.isDue()) {
+                loop.getBehaviorTree().getObject().captureSnapshot();
+                due.add(loop);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        ExecutorService pool = getWorkers();
+        int chunks = Math.min(WORKER_COUNT, due.size());
+        jobs.clear();
+        for (int i = 0; i < chunks; i++) {
+            jobs.add(chunkJobs[i].set(i, chunks));
+        }
+        try {
+            for (Future<Object> result : pool.invokeAll(jobs)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new GdxRuntimeException("Behavior tree failed on worker", e.getCause());
+        }
+
+        for (BehaviorLoop<Enemy> loop : due) {
+            Enemy enemy = loop.getBehaviorTree().getObject();
+            enemy.getCommands().apply(enemy);
+        }
+    }
+
+    /** Returns true if trees are stepped on the worker pool */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Sets whether trees are stepped on the worker pool.
+     *
+     * This pays off on large levels where tree evaluation dominates. The time
+     * budget is ignored in this mode, as every due tree is stepped at once.
+     *
+     * @param value whether trees are stepped on the worker pool
+     */
+    public void setParallel(boolean value) {
+        parallel = value;
+    }
+
+    /** Returns the execution stats for the trees of this level */
+    public BehaviorProfiler getProfiler() {
+        return profiler;
+    }
+
+    /** Returns the loops of every registered tree (do not modify) */
+    public List<BehaviorLoop<Enemy>> getLoops() {
+        return entities;
+    }
+
+    /**
+     * Sets whether tree execution is profiled.
+     *
+     * Turning profiling on starts a fresh recording for every tree.
+     *
+     * @param value whether tree execution is profiled
+     */
+    public void setProfiling(boolean value) {
+        if (value && !profiler.isEnabled()) {
+            for (BehaviorLoop<Enemy> loop : entities) {
+                loop.resetStats();
+            }
         }
+        profiler.setEnabled(value);
     }
 
+    /**
+     * Writes the profile of every tree as CSV
+     *
+     * @param file  The file to write
+     */
+    public void exportProfile(FileHandle file) {
+        profiler.exportCsv(file, entities);
+    }
 
+    /** Returns the worker pool, creating it on first use */
+    private static synchronized ExecutorService getWorkers() {
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(WORKER_COUNT, runnable -> {
+                Thread thread = new Thread(runnable, "ai-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+
+    /** Steps every due tree whose index is in one residue class */
+    private class ChunkJob implements Callable<Object> {
+        private int offset;
+        private int stride;
+
+        ChunkJob set(int offset, int stride) {
+            this.offset = offset;
+            this.stride = stride;
+            return this;
+        }
+
+        @Override
+        public Object call() {
+            for (int i = offset; i < due.size(); i += stride) {
+                due.get(i).step();
+            }
+            return null;
+        }
+    }
 }
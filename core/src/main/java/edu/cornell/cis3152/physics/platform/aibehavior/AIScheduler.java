@@ -0,0 +1,205 @@
+package edu.cornell.cis3152.physics.platform.aibehavior;
+
+import com.badlogic.gdx.ai.GdxAI;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectSet;
+import edu.cornell.cis3152.physics.AIControllerManager;
+import edu.cornell.cis3152.physics.platform.CuriosityCritter;
+import edu.cornell.cis3152.physics.platform.Enemy;
+import edu.cornell.cis3152.physics.platform.Player;
+import edu.cornell.cis3152.physics.platform.ainav.PathService;
+import edu.cornell.cis3152.physics.platform.aiperception.PerceptionSystem;
+
+/**
+ * Single entry point for updating every AI in a level.
+ *
+ * The scheduler owns the shared gdx-ai clock and advances it exactly once per
+ * frame, before any tree or state machine runs. Every enemy is registered here
+ * once and routed to the manager that drives it: behavior trees for critters,
+ * state machines for everything else. Every enemy also listens to the shared
+ * {@link PerceptionSystem}, which is resolved before any AI decides.
+ *
+ * Behavior trees are stepped round-robin under a per-frame time budget, so a
+ * level with many enemies spreads their decisions over several frames instead
+ * of spiking a single one.
+ */
+public class AIScheduler {
+    /** Default time (in milliseconds) that trees may use each frame */
+    public static final float DEFAULT_BUDGET = 1.0f;
+
+    /** Manager for the behavior tree enemies */
+    private final AIManager trees;
+    /** Manager for the state machine enemies */
+    private final AIControllerManager machines;
+    /** Every enemy currently registered */
+    private final ObjectSet<Enemy> registered;
+    /** Route searches for the level (may be null) */
+    private PathService paths;
+    /** Shared senses for the level (may be null) */
+    private PerceptionSystem perception;
+
+    /** Nanoseconds that trees may use each frame */
+    private long budget;
+
+    /**
+     * Creates a scheduler over the two AI managers
+     *
+     * @param trees     Manager for the behavior tree enemies
+     * @param machines  Manager for the state machine enemies
+     */
+    public AIScheduler(AIManager trees, AIControllerManager machines) {
+        this.trees = trees;
+        this.machines = machines;
+        registered = new ObjectSet<>();
+        setBudget(DEFAULT_BUDGET);
+    }
+
+    /** Returns the time (in milliseconds) that trees may use each frame */
+    public float getBudget() {
+        return budget / 1000000.0f;
+    }
+
+    /**
+     * Sets the time (in milliseconds) that trees may use each frame
+     *
+     * At least one due tree is stepped every frame, whatever the budget.
+     *
+     * @param millis    The per-frame budget in milliseconds
+     */
+    public void setBudget(float millis) {
+        budget = (long)(Math.max(0, millis) * 1000000.0f);
+    }
+
+    /** Returns true if behavior trees are stepped on a worker pool */
+    public boolean isParallel() {
+        return trees.isParallel();
+    }
+
+    /**
+     * Sets whether behavior trees are stepped on a worker pool.
+     *
+     * Trees only read snapshots and write command buffers, so they can run off
+     * the main thread. Their commands are still applied before the physics step.
+     *
+     * @param value whether behavior trees are stepped on a worker pool
+     */
+    public void setParallel(boolean value) {
+        trees.setParallel(value);
+    }
+
+    /**
+     * Sets the route search service, which is updated before any AI runs
+     *
+     * @param service   The path service for the level (may be null)
+     */
+    public void setPathService(PathService service) {
+        paths = service;
+    }
+
+    /**
+     * Sets the perception system, which resolves stimuli before any AI runs.
+     *
+     * Enemies that are already registered start listening to it.
+     *
+     * @param system    The perception system for the level (may be null)
+     */
+    public void setPerception(PerceptionSystem system) {
+        perception = system;
+        if (perception != null) {
+            for (Enemy enemy : registered) {
+                perception.register(enemy);
+            }
+        }
+    }
+
+    /**
+     * Sets the player for every AI
+     *
+     * @param player    The current player
+     */
+    public void setPlayer(Player player) {
+        trees.setPlayer(player);
+        machines.setPlayer(player);
+    }
+
+    /**
+     * Registers an enemy with the manager that drives its kind.
+     *
+     * Registering the same enemy twice has no effect.
+     *
+     * @param enemy The enemy to register
+     */
+    public void register(Enemy enemy) {
+        if (!registered.add(enemy)) {
+            return;
+        }
+        if (perception != null) {
+            perception.register(enemy);
+        }
+        if (enemy instanceof CuriosityCritter) {
+            trees.register(enemy);
+        } else {
+            machines.register(enemy);
+        }
+    }
+
+    /**
+     * Removes an enemy from the manager that drives it
+     *
+     * @param enemy The enemy to remove
+     */
+    public void unregister(Enemy enemy) {
+        if (!registered.remove(enemy)) {
+            return;
+        }
+        if (perception != null) {
+            perception.unregister(enemy);
+        }
+        if (enemy instanceof CuriosityCritter) {
+            trees.unregister(enemy);
+        } else {
+            machines.unregister(enemy);
+        }
+    }
+
+    /**
+     * Removes every registered enemy.
+     *
+     * The managers keep their parsed trees and tables, so a restarted level
+     * can register its new enemies without loading anything again.
+     */
+    public void clear() {
+        Array<Enemy> enemies = new Array<>(registered.size);
+        for (Enemy enemy : registered) {
+            enemies.add(enemy);
+        }
+        for (Enemy enemy : enemies) {
+            unregister(enemy);
+        }
+        if (paths != null) {
+            paths.cancelAll();
+        }
+    }
+
+    /**
+     * Advances the shared AI clock and runs every AI for this frame.
+     *
+     * The clock moves first so that tasks and messages read the same time,
+     * and finished route searches are handed out before anyone asks again.
+     * Perception comes next, so every AI decides on what it perceived this
+     * frame.
+     *
+     * @param dt    Number of seconds since last animation frame
+     */
+    public void update(float dt) {
+        GdxAI.getTimepiece().update(dt);
+        if (paths != null) {
+            paths.update();
+        }
+        if (perception != null) {
+            perception.update(dt);
+        }
+        machines.update(dt);
+        trees.update(dt, budget);
+    }
+}
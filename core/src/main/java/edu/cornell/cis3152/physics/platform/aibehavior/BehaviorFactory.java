@@ -3,12 +3,26 @@ package edu.cornell.cis3152.physics.platform.aibehavior;
 import com.badlogic.gdx.ai.btree.BehaviorTree;
 import com.badlogic.gdx.ai.btree.utils.BehaviorTreeParser;
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ObjectMap;
+import edu.cornell.cis3152.physics.Trace;
 
-import java.io.IOException;
-import java.io.Reader;
-
+/**
+ * Factory for instantiating behavior trees from a single parsed template.
+ *
+ * Parsing a tree is expensive (reflection on every task class and attribute),
+ * so the source is parsed exactly once per file. Every actor gets a deep copy of
+ * that template through {@link com.badlogic.gdx.ai.btree.Task#cloneTask}, which
+ * relies on each task implementing copyTo for its attributes.
+ */
 public class BehaviorFactory<E> {
-    private String source;
+    /** Parser debug level (turn up to DEBUG_HIGH when authoring trees) */
+    public static int PARSER_DEBUG = BehaviorTreeParser.DEBUG_NONE;
+
+    /** Templates shared by every factory, keyed by tree file path */
+    private static final ObjectMap<String, BehaviorTree<?>> templates = new ObjectMap<>();
+
+    /** The parsed tree (with no blackboard) that every actor is cloned from */
+    private BehaviorTree<E> template;
 
     /**
      * Create a behavior tree factory from the source code
@@ -16,22 +30,53 @@ public class BehaviorFactory<E> {
      * @param code  The behavior tree source code
      */
     public BehaviorFactory(String code) {
-        source = code;
+        template = parse(code);
     }
 
+    /**
+     * Create a behavior tree factory from a tree file
+     *
+     * The file is only parsed the first time it is requested. Later factories
+     * (such as the ones built when a level resets) reuse the same template.
+     *
+     * @param file  The behavior tree file
+     */
+    @SuppressWarnings("unchecked")
     public BehaviorFactory(FileHandle file) {
-        try {
-            Reader reader = file.reader();
-            StringBuilder builder = new StringBuilder();
-            int c = reader.read();
-            while (c != -1) {
-                builder.append((char) c);
-                c = reader.read();
+        String key = file.path();
+        BehaviorTree<?> cached = templates.get(key);
+        if (cached == null) {
+            Trace.begin("parse tree " + key);
+            try {
+                cached = parse(file.readString());
+            } finally {
+                Trace.end();
             }
-            source = builder.toString();
-        } catch (IOException e) {
-
+            templates.put(key, cached);
         }
+        template = (BehaviorTree<E>) cached;
+    }
+
+    /**
+     * Returns a blackboard-free tree parsed from the given source
+     *
+     * @param code  The behavior tree source code
+     */
+    private BehaviorTree<E> parse(String code) {
+        BehaviorTreeParser<E> parser = new BehaviorTreeParser<E>(PARSER_DEBUG);
+        return parser.parse(code, null);
+    }
+
+    /**
+     * Returns a fresh behavior tree for the given blackboard object
+     *
+     * @param object    The blackboard object
+     */
+    @SuppressWarnings("unchecked")
+    private BehaviorTree<E> instantiate(E object) {
+        BehaviorTree<E> tree = (BehaviorTree<E>) template.cloneTask();
+        tree.setObject(object);
+        return tree;
     }
 
     /**
@@ -40,8 +85,7 @@ public class BehaviorFactory<E> {
      * @param object    The blackboard object
      */
     public BehaviorLoop<E> createActor(E object) {
-        BehaviorTreeParser<E> parser = new BehaviorTreeParser<E>(BehaviorTreeParser.DEBUG_HIGH);
-        BehaviorTree<E> tree = parser.parse(source, object);
+        BehaviorTree<E> tree = instantiate(object);
         BehaviorLoop<E> result = new BehaviorLoop<E>(tree);
         return result;
     }
@@ -56,10 +100,18 @@ public class BehaviorFactory<E> {
      * @param listener  The tree listener
      */
     public BehaviorLoop<E> createActor(E object, BehaviorTree.Listener<E> listener) {
-        BehaviorTreeParser<E> parser = new BehaviorTreeParser<E>(BehaviorTreeParser.DEBUG_HIGH);
-        BehaviorTree<E> tree = parser.parse(source, object);
+        BehaviorTree<E> tree = instantiate(object);
         tree.addListener(listener);
         BehaviorLoop<E> result = new BehaviorLoop<E>(tree);
         return result;
     }
+
+    /**
+     * Drops every cached template so the next factory reparses its file.
+     *
+     * Only useful when tree files change while the game is running.
+     */
+    public static void clearTemplates() {
+        templates.clear();
+    }
 }
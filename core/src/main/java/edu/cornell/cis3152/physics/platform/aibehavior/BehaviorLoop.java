@@ -1,10 +1,23 @@
 package edu.cornell.cis3152.physics.platform.aibehavior;
 
-import com.badlogic.gdx.ai.GdxAI;
 import com.badlogic.gdx.ai.btree.BehaviorTree;
 import com.badlogic.gdx.ai.btree.Task;
+import com.badlogic.gdx.ai.msg.Telegram;
+import com.badlogic.gdx.ai.msg.Telegraph;
+import edu.cornell.cis3152.physics.platform.MessageType;
+
+/**
+ * Drives one behavior tree: decides when it is due, steps it, and keeps track
+ * of what it is doing.
+ *
+ * The loop listens to its own tree, so the task it is currently running is
+ * always known without walking the tree. It also counts and times its steps
+ * for the {@link BehaviorProfiler}.
+ */
+public class BehaviorLoop<E> implements Telegraph, BehaviorTree.Listener<E> {
+    /** Default seconds a finished tree sleeps before it restarts without an event */
+    public static final float IDLE_DELAY = 0.5f;
 
-public class BehaviorLoop<E> {
     private BehaviorTree<E> tree;
 
     /** the id of the enemy this behavior loop corresponds to*/
@@ -14,10 +27,26 @@ public class BehaviorLoop<E> {
 
     private float delay;
     private float runtime;
+    /** seconds a finished tree sleeps before it restarts anyway (event-driven mode) */
+    private float idleDelay = IDLE_DELAY;
+
+    /** whether this loop sleeps between events instead of polling */
+    private boolean eventDriven;
+    /** whether an event arrived since the last step */
+    private boolean woken;
+
+    /** the deepest task currently running, kept up to date by the tree */
+    private Task<E> running;
+    /** steps since the stats were last reset */
+    private long stepCount;
+    /** time spent stepping since the stats were last reset */
+    private long stepNanos;
+    private long maxStepNanos;
 
     public BehaviorLoop(BehaviorTree<E> tree) {
         this.tree = tree;
         this.step = step;
+        tree.addListener(this);
 
         //defaults
         delay = 0.2f;
@@ -27,43 +56,148 @@ public class BehaviorLoop<E> {
     public BehaviorLoop(BehaviorTree<E> tree, float delay, float runtime) {
         this.tree = tree;
         this.step = step;
+        tree.addListener(this);
 
         this.delay = delay;
         this.runtime = runtime;
     }
 
+    /**
+     * Advances this loop, stepping the tree when it is due.
+     *
+     * The shared AI clock is advanced by the scheduler, not here.
+     *
+     * @param delta Number of seconds since last animation frame
+     */
     public void update(float delta) {
-        GdxAI.getTimepiece().update(delta);
-        runtime += delta;
-        if (runtime > delay) {
-            tree.step();
-            step++;
-            runtime = 0;
+        advance(delta);
+        if (isDue()) {
+            step();
         }
     }
 
-    /** getters and setters */
+    /**
+     * Accumulates time without stepping the tree.
+     *
+     * @param delta Number of seconds since last animation frame
+     */
+    public void advance(float delta) {
+        runtime += delta;
+    }
 
-    public String getInfo() {
-        Task<E> running = getRunningTask(tree);
-        return (running != null) ? running.getClass().getSimpleName() : "None";
+    /**
+     * Returns true if the tree should be stepped now.
+     *
+     * In polling mode the tree is due every {@code delay} seconds. In
+     * event-driven mode an event makes the tree due immediately, a running
+     * tree keeps its {@code delay} cadence (its tasks own timers and motion),
+     * and a finished tree sleeps until an event arrives or {@code idleDelay}
+     * seconds pass. The restart keeps idle behavior (a patrol) going, and
+     * polls the guards no event reports, such as follow range, a nearby shard
+     * or a safe place to walk.
+     *
+     * @return true if the tree should be stepped now
+     */
+    public boolean isDue() {
+        if (eventDriven) {
+            return woken || runtime > (isActive() ? delay : idleDelay);
+        }
+        return runtime > delay;
+    }
+
+    /** Steps the tree once and restarts the delay timer */
+    public void step() {
+        // Clear first so events raised by the tree itself schedule another step
+        woken = false;
+        long start = System.nanoTime();
+        tree.step();
+        long nanos = System.nanoTime() - start;
+        stepNanos += nanos;
+        maxStepNanos = Math.max(maxStepNanos, nanos);
+        stepCount++;
+        step++;
+        runtime = 0;
     }
 
     /**
-     * Recursively searches for the deepest task with status RUNNING.
+     * Tracks the deepest running task as the tree updates.
+     *
+     * A branch only runs because one of its leaves does, so the deepest
+     * running task is always the leaf that last reported running.
      */
-    private Task<E> getRunningTask(Task<E> task) {
-        if(task.getStatus() == Task.Status.RUNNING) {
-            for (int i = 0; i < task.getChildCount(); i++) {
-                Task<E> child = task.getChild(i);
-                Task<E> runningChild = getRunningTask(child);
-                if (runningChild != null) {
-                    return runningChild;
-                }
+    @Override
+    public void statusUpdated(Task<E> task, Task.Status previousStatus) {
+        if (task.getStatus() == Task.Status.RUNNING) {
+            if (task.getChildCount() == 0) {
+                running = task;
             }
-            return task;
+        } else if (task == running) {
+            running = null;
         }
-        return null;
+    }
+
+    @Override
+    public void childAdded(Task<E> task, int index) {
+    }
+
+    /** Returns true if the tree has not started or is still running */
+    private boolean isActive() {
+        Task.Status status = tree.getStatus();
+        return status == Task.Status.FRESH || status == Task.Status.RUNNING;
+    }
+
+    /**
+     * Wakes this loop for any AI event that concerns its blackboard object.
+     *
+     * @param msg   The telegram with the event
+     *
+     * @return true if the event was relevant to this loop
+     */
+    @Override
+    public boolean handleMessage(Telegram msg) {
+        if (MessageType.isPersonal(msg.message) && msg.extraInfo != tree.getObject()) {
+            return false;
+        }
+        woken = true;
+        return true;
+    }
+
+    /** getters and setters */
+
+    /** Returns the name of the deepest running task, or "None" */
+    public String getInfo() {
+        return (running != null) ? running.getClass().getSimpleName() : "None";
+    }
+
+    /** Returns the deepest running task, or null */
+    public Task<E> getRunningTask() {
+        return running;
+    }
+
+    /** Returns a name for this loop in reports */
+    public String getName() {
+        Object object = tree.getObject();
+        String kind = (object == null) ? "tree" : object.getClass().getSimpleName();
+        return kind + "#" + id;
+    }
+
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    public long getMaxStepNanos() {
+        return maxStepNanos;
+    }
+
+    /** Clears the step counts and times */
+    public void resetStats() {
+        stepCount = 0;
+        stepNanos = 0;
+        maxStepNanos = 0;
     }
 
     public BehaviorTree<E> getBehaviorTree() {
@@ -74,6 +208,10 @@ public class BehaviorLoop<E> {
         return id;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public float getDelay() {
         return delay;
     }
@@ -82,6 +220,19 @@ public class BehaviorLoop<E> {
         return runtime;
     }
 
+    public float getIdleDelay() {
+        return idleDelay;
+    }
+
+    // how long a finished tree may sleep before it restarts without an event
+    public void setIdleDelay(float d) {
+        idleDelay = d;
+    }
+
+    public boolean isEventDriven() {
+        return eventDriven;
+    }
+
     // if we want to dynamically change how fast a character may update
     public void setDelay(float d) {
         delay = d;
@@ -90,4 +241,9 @@ public class BehaviorLoop<E> {
     public void setRuntime(float rt) {
         runtime = rt;
     }
+
+    // if we want trees to sleep until something relevant happens
+    public void setEventDriven(boolean value) {
+        eventDriven = value;
+    }
 }
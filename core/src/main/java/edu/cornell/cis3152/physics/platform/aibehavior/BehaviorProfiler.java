@@ -0,0 +1,232 @@
+package edu.cornell.cis3152.physics.platform.aibehavior;
+
+import com.badlogic.gdx.ai.btree.Task;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.util.Comparator;
+
+/**
+ * Execution statistics for the behavior trees of a level.
+ *
+ * While enabled, every leaf task and guard reports how long each execution
+ * took and what it returned (see
+ * {@link edu.cornell.cis3152.physics.platform.aibehavior.tasks.ProfiledLeafTask}).
+ * Stats are kept per task class, so the report shows which kinds of task
+ * dominate AI cost rather than which enemy. Per-enemy tick rates come from the
+ * {@link BehaviorLoop}s themselves.
+ *
+ * Trees may step on worker threads, so recording is synchronized. This only
+ * costs anything while the profiler is enabled.
+ */
+public class BehaviorProfiler {
+    /** Statistics for one task class */
+    public static class TaskStats {
+        /** The task class name */
+        public final String name;
+        /** Number of executions */
+        public long count;
+        /** Total time spent executing, in nanoseconds */
+        public long totalNanos;
+        /** Longest single execution, in nanoseconds */
+        public long maxNanos;
+        public long succeeded;
+        public long failed;
+        public long running;
+
+        TaskStats(String name) {
+            this.name = name;
+        }
+
+        /** Returns the mean execution time in nanoseconds */
+        public long getMeanNanos() {
+            return (count == 0) ? 0 : totalNanos / count;
+        }
+
+        /** Returns the fraction of executions that failed (the guard failure ratio for guards) */
+        public float getFailureRatio() {
+            return (count == 0) ? 0 : (float) failed / count;
+        }
+    }
+
+    /** Orders stats by total time, most expensive first */
+    private static final Comparator<TaskStats> BY_TOTAL = (a, b) -> Long.compare(b.totalNanos, a.totalNanos);
+
+    private final ObjectMap<Class<?>, TaskStats> stats = new ObjectMap<>();
+    /** Stats in report order, rebuilt when a report is made */
+    private final Array<TaskStats> sorted = new Array<>();
+    private volatile boolean enabled;
+    /** Seconds of play recorded since the last reset */
+    private float elapsed;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether executions are recorded.
+     *
+     * Enabling the profiler starts a fresh recording.
+     *
+     * @param value whether executions are recorded
+     */
+    public void setEnabled(boolean value) {
+        if (value && !enabled) {
+            reset();
+        }
+        enabled = value;
+    }
+
+    /** Forgets everything recorded so far */
+    public synchronized void reset() {
+        stats.clear();
+        sorted.clear();
+        elapsed = 0;
+    }
+
+    /**
+     * Advances the recording clock (only while enabled)
+     *
+     * @param dt    Number of seconds since last animation frame
+     */
+    public void advance(float dt) {
+        if (enabled) {
+            elapsed += dt;
+        }
+    }
+
+    /** Returns the seconds of play recorded since the last reset */
+    public float getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Records one execution of a task
+     *
+     * @param type      The task class
+     * @param nanos     How long the execution took
+     * @param status    What the execution returned
+     */
+    public synchronized void record(Class<?> type, long nanos, Task.Status status) {
+        TaskStats entry = stats.get(type);
+        if (entry == null) {
+            entry = new TaskStats(type.getSimpleName());
+            stats.put(type, entry);
+        }
+        entry.count++;
+        entry.totalNanos += nanos;
+        entry.maxNanos = Math.max(entry.maxNanos, nanos);
+        switch (status) {
+            case SUCCEEDED:
+                entry.succeeded++;
+                break;
+            case FAILED:
+                entry.failed++;
+                break;
+            case RUNNING:
+                entry.running++;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns the stats of every task class, most expensive first.
+     *
+     * The array is reused by the next call.
+     */
+    public synchronized Array<TaskStats> getStats() {
+        sorted.clear();
+        for (TaskStats entry : stats.values()) {
+            sorted.add(entry);
+        }
+        sorted.sort(BY_TOTAL);
+        return sorted;
+    }
+
+    /**
+     * Returns the average steps per second of a loop since the last reset
+     *
+     * @param loop  The behavior loop
+     */
+    public float getTickRate(BehaviorLoop<?> loop) {
+        return (elapsed <= 0) ? 0 : loop.getStepCount() / elapsed;
+    }
+
+    /**
+     * Writes a short report for the debug overlay
+     *
+     * @param out       The buffer to write to
+     * @param loops     The loops to report tick rates for
+     * @param rows      The most task classes to list
+     */
+    public void describe(StringBuilder out, Iterable<? extends BehaviorLoop<?>> loops, int rows) {
+        out.append("AI profile ").append(Math.round(elapsed)).append("s\n");
+        out.append("task  count  mean(us)  max(us)  total(ms)  fail%\n");
+        Array<TaskStats> entries = getStats();
+        for (int i = 0; i < Math.min(rows, entries.size); i++) {
+            TaskStats entry = entries.get(i);
+            out.append(entry.name).append("  ")
+               .append(entry.count).append("  ")
+               .append(entry.getMeanNanos() / 1000).append("  ")
+               .append(entry.maxNanos / 1000).append("  ")
+               .append(entry.totalNanos / 1000000).append("  ")
+               .append(Math.round(entry.getFailureRatio() * 100)).append('\n');
+        }
+
+        int trees = 0;
+        float rate = 0;
+        for (BehaviorLoop<?> loop : loops) {
+            rate += getTickRate(loop);
+            trees++;
+        }
+        out.append("trees ").append(trees)
+           .append("  mean ticks/s ").append(trees == 0 ? 0 : Math.round(rate / trees));
+    }
+
+    /**
+     * Returns the recording as CSV.
+     *
+     * Task rows hold the stats of each task class. Entity rows hold the stats
+     * of each tree as a whole (one execution is one step of the tree).
+     *
+     * @param loops The loops to report
+     */
+    public String toCsv(Iterable<? extends BehaviorLoop<?>> loops) {
+        StringBuilder out = new StringBuilder();
+        out.append("scope,name,count,total_ns,mean_ns,max_ns,succeeded,failed,running,failure_ratio,ticks_per_sec\n");
+        for (TaskStats entry : getStats()) {
+            out.append("task,").append(entry.name).append(',')
+               .append(entry.count).append(',')
+               .append(entry.totalNanos).append(',')
+               .append(entry.getMeanNanos()).append(',')
+               .append(entry.maxNanos).append(',')
+               .append(entry.succeeded).append(',')
+               .append(entry.failed).append(',')
+               .append(entry.running).append(',')
+               .append(entry.getFailureRatio()).append(",\n");
+        }
+        for (BehaviorLoop<?> loop : loops) {
+            long steps = loop.getStepCount();
+            out.append("entity,").append(loop.getName()).append(',')
+               .append(steps).append(',')
+               .append(loop.getStepNanos()).append(',')
+               .append(steps == 0 ? 0 : loop.getStepNanos() / steps).append(',')
+               .append(loop.getMaxStepNanos()).append(",,,,,")
+               .append(getTickRate(loop)).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes the recording as CSV
+     *
+     * @param file  The file to write
+     * @param loops The loops to report
+     */
+    public void exportCsv(FileHandle file, Iterable<? extends BehaviorLoop<?>> loops) {
+        file.writeString(toCsv(loops), false);
+    }
+}
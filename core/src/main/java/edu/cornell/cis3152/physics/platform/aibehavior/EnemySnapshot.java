@@ -0,0 +1,51 @@
+package edu.cornell.cis3152.physics.platform.aibehavior;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Read-only view of an enemy and its surroundings for the behavior tree.
+ *
+ * A snapshot is captured on the main thread right before the tree steps.
+ * Tasks read the world only through it, so a tree can be stepped on a worker
+ * thread without touching Box2D or the scene while they change.
+ */
+public class EnemySnapshot {
+    /** Enemy position in world coordinates */
+    public final Vector2 position = new Vector2();
+    /** Whether there is a player in the level */
+    public boolean hasPlayer;
+    /** Player x-coordinate in world coordinates */
+    public float playerX;
+    /** Player y-coordinate in world coordinates */
+    public float playerY;
+    /** Index of the span the player stands on, or -1 */
+    public int playerNode = -1;
+    /** Index of the span the enemy stands on, or -1 */
+    public int navNode = -1;
+    /** Whether the player's fear meter is over half full */
+    public boolean fearHigh;
+
+    /** Whether the enemy has noticed the player */
+    public boolean awareOfPlayer;
+    /** Whether the enemy is stunned */
+    public boolean stunned;
+    /** Whether a dream shard is within the enemy's awareness */
+    public boolean dreamShardNear;
+
+    /** Whether the ground ahead is safe to walk on (critters only) */
+    public boolean safeToWalk;
+    /** Whether the player is close enough to follow (critters only) */
+    public boolean playerInFollowRange;
+    /** Whether the critter is carrying a shard somewhere */
+    public boolean inMoveTask;
+    /** Whether the critter is holding a shard */
+    public boolean holdingShard;
+    /** Whether {@link #dropTarget} is valid */
+    public boolean hasDropTarget;
+    /** Where the held shard should be dropped */
+    public final Vector2 dropTarget = new Vector2();
+    /** Whether {@link #nearestShard} is valid */
+    public boolean hasNearestShard;
+    /** Position of the closest dream shard in the level */
+    public final Vector2 nearestShard = new Vector2();
+}
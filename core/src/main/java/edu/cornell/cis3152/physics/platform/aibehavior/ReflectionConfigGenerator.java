@@ -0,0 +1,168 @@
+package edu.cornell.cis3152.physics.platform.aibehavior;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes the GraalVM reflection metadata the behavior tree parser needs.
+ *
+ * BehaviorTreeParser creates every task of a .tree file by reflection on its
+ * class name, sets its {@link com.badlogic.gdx.ai.btree.annotation.TaskAttribute}
+ * fields by reflection, and clones trees by reflection too. A native image
+ * only keeps what it is told about, so this reads every task a .tree file
+ * uses (its imports plus the gdx-ai tasks it names) and lists those classes,
+ * their superclasses and the enums of their attributes in a reflect-config.json.
+ *
+ * This runs at build time (the Gradle task {@code generateReflectionConfig}),
+ * before the native image is built.
+ *
+ * Usage: ReflectionConfigGenerator behaviors-folder output-file
+ */
+public class ReflectionConfigGenerator {
+    /** The package of the gdx-ai tasks */
+    private static final String GDX_AI = "com.badlogic.gdx.ai.btree.";
+    /** The gdx-ai tasks every tree may use without an import, by name */
+    private static final Map<String, String> BUILTIN = new LinkedHashMap<>();
+    /** The annotations the parser reads */
+    private static final String[] ANNOTATIONS = {
+        GDX_AI + "annotation.TaskAttribute", GDX_AI + "annotation.TaskConstraint"
+    };
+    static {
+        for (String name : new String[] {"DynamicGuardSelector", "Parallel", "RandomSelector",
+                                         "RandomSequence", "Selector", "Sequence"}) {
+            addBuiltin("branch." + name);
+        }
+        for (String name : new String[] {"AlwaysFail", "AlwaysSucceed", "Include", "Invert", "Random",
+                                         "Repeat", "SemaphoreGuard", "UntilFail", "UntilSuccess"}) {
+            addBuiltin("decorator." + name);
+        }
+        for (String name : new String[] {"Failure", "Success", "Wait"}) {
+            addBuiltin("leaf." + name);
+        }
+    }
+
+    /** An import line, as in import name:"class" */
+    private static final Pattern IMPORT = Pattern.compile("^\\s*import\\s+(\\w+)\\s*:\\s*\"([\\w.$]+)\"");
+    /** A task name, at the start of a line or a guard */
+    private static final Pattern TASK = Pattern.compile("(?:^\\s*|[()]\\s*)([A-Za-z_$][\\w$]*)(?![\\w$]*\\s*:)");
+
+    private static void addBuiltin(String name) {
+        String simple = name.substring(name.lastIndexOf('.') + 1);
+        BUILTIN.put(Character.toLowerCase(simple.charAt(0)) + simple.substring(1), GDX_AI + name);
+    }
+
+    public static void main(String[] args) throws IOException {
+        File folder = new File(args.length > 0 ? args[0] : "assets/behaviors");
+        File out = new File(args.length > 1 ? args[1] : "reflect-config.json");
+        File[] trees = folder.listFiles((dir, name) -> name.endsWith(".tree"));
+        if (trees == null) {
+            throw new IOException("No behaviors folder at " + folder);
+        }
+
+        Set<String> tasks = new TreeSet<>();
+        for (File tree : trees) {
+            tasks.addAll(readTasks(tree));
+        }
+
+        // The parser also reads the fields of superclasses, and enum attributes by name
+        Set<String> classes = new TreeSet<>();
+        Set<String> enums = new TreeSet<>();
+        for (String task : tasks) {
+            addHierarchy(task, classes, enums);
+        }
+
+        StringBuilder json = new StringBuilder("[\n");
+        for (String name : classes) {
+            json.append("  {\n    \"name\": \"").append(name).append("\",\n")
+                .append("    \"allDeclaredConstructors\": true,\n")
+                .append("    \"allPublicConstructors\": true,\n")
+                .append("    \"allDeclaredFields\": true,\n")
+                .append("    \"allPublicFields\": true\n  },\n");
+        }
+        for (String name : enums) {
+            json.append("  {\n    \"name\": \"").append(name).append("\",\n")
+                .append("    \"allDeclaredFields\": true,\n")
+                .append("    \"allPublicMethods\": true\n  },\n");
+        }
+        for (String name : ANNOTATIONS) {
+            json.append("  {\n    \"name\": \"").append(name).append("\",\n")
+                .append("    \"allDeclaredMethods\": true\n  },\n");
+        }
+        json.setLength(json.length() - 2);
+        json.append("\n]\n");
+
+        out.getParentFile().mkdirs();
+        Files.write(out.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+        System.out.println(tasks.size() + " tasks, " + classes.size() + " classes -> " + out);
+    }
+
+    /**
+     * Returns the classes of every task a tree file uses
+     *
+     * @param tree  The tree file
+     */
+    private static Set<String> readTasks(File tree) throws IOException {
+        Map<String, String> imports = new LinkedHashMap<>(BUILTIN);
+        Set<String> result = new TreeSet<>();
+        for (String line : Files.readAllLines(tree.toPath(), StandardCharsets.UTF_8)) {
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            Matcher imported = IMPORT.matcher(line);
+            if (imported.find()) {
+                imports.put(imported.group(1), imported.group(2));
+                // Imported tasks are listed even if no tree uses them yet
+                result.add(imported.group(2));
+                continue;
+            }
+            Matcher task = TASK.matcher(line);
+            while (task.find()) {
+                String name = task.group(1);
+                if (imports.containsKey(name)) {
+                    result.add(imports.get(name));
+                } else if (!name.equals("root") && !name.equals("subtree") && !name.equals("import")) {
+                    System.err.println(tree.getName() + ": unknown task " + name);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a class and its superclasses, and the enums of its fields
+     *
+     * Classes not on the classpath are added alone.
+     *
+     * @param name      The class name
+     * @param classes   The set of classes to add to
+     * @param enums     The set of enums to add to
+     */
+    private static void addHierarchy(String name, Set<String> classes, Set<String> enums) {
+        Class<?> type;
+        try {
+            type = Class.forName(name, false, ReflectionConfigGenerator.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            System.err.println("Cannot find " + name);
+            classes.add(name);
+            return;
+        }
+        for (; type != null && type != Object.class; type = type.getSuperclass()) {
+            classes.add(type.getName());
+            for (Field field : type.getDeclaredFields()) {
+                if (field.getType().isEnum()) {
+                    enums.add(field.getType().getName());
+                }
+            }
+        }
+    }
+}
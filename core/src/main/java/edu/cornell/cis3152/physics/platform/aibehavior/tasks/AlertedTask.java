@@ -2,13 +2,13 @@ package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.ai.GdxAI;
-import com.badlogic.gdx.ai.btree.LeafTask;
 import com.badlogic.gdx.ai.btree.Task;
 import com.badlogic.gdx.ai.btree.annotation.TaskAttribute;
 import edu.cornell.cis3152.physics.platform.CuriosityCritter;
 import edu.cornell.cis3152.physics.platform.Enemy;
+import edu.cornell.cis3152.physics.platform.aibehavior.AICommandBuffer;
 
-public class AlertedTask extends LeafTask<Enemy> {
+public class AlertedTask extends ProfiledLeafTask<Enemy> {
 
     @TaskAttribute(required = true)
     public float duration;  // Duration of the alert animation.
@@ -20,19 +20,18 @@ public class AlertedTask extends LeafTask<Enemy> {
         elapsed = 0;
 
         if(getObject() instanceof CuriosityCritter) {
-            CuriosityCritter critter = (CuriosityCritter) getObject();
-            critter.setMovement(0);
-            critter.applyForce();
-            critter.setIsChasing(true);
+            AICommandBuffer commands = getObject().getCommands();
+            commands.setMovement(0);
+            commands.applyForce();
+            commands.setChasing(true);
             // play critter alerted anikmation/behavior
         }
     }
 
     @Override
-    public Status execute() {
+    protected Status tick() {
         float dt = GdxAI.getTimepiece().getDeltaTime();
         elapsed += dt;
-        System.out.println("Alerted animation elapsed: " + elapsed);
         return (elapsed >= duration) ? Status.SUCCEEDED : Status.RUNNING;
     }
 
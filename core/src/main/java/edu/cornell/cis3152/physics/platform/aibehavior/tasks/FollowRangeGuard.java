@@ -1,13 +1,11 @@
 package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
 
-import com.badlogic.gdx.ai.btree.LeafTask;
 import com.badlogic.gdx.ai.btree.Task;
 import com.badlogic.gdx.ai.btree.annotation.TaskConstraint;
-import edu.cornell.cis3152.physics.platform.CuriosityCritter;
 import edu.cornell.cis3152.physics.platform.Enemy;
 
 @TaskConstraint(minChildren=0, maxChildren=0)
-public class FollowRangeGuard extends LeafTask<Enemy> {
+public class FollowRangeGuard extends ProfiledLeafTask<Enemy> {
 
     @Override
     public void start() {
@@ -15,9 +13,8 @@ public class FollowRangeGuard extends LeafTask<Enemy> {
     }
 
     @Override
-    public Status execute() {
-        CuriosityCritter critter = (CuriosityCritter) getObject();
-        if(critter.playerInFollowRange) {
+    protected Status tick() {
+        if(getObject().getSnapshot().playerInFollowRange) {
             return Status.SUCCEEDED;
         }
         return Status.FAILED;
@@ -1,13 +1,13 @@
 package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.ai.btree.LeafTask;
+import com.badlogic.gdx.ai.GdxAI;
 import com.badlogic.gdx.ai.btree.Task;
 import com.badlogic.gdx.ai.btree.annotation.TaskAttribute;
 import com.badlogic.gdx.math.MathUtils;
 import edu.cornell.cis3152.physics.platform.CuriosityCritter;
+import edu.cornell.cis3152.physics.platform.aibehavior.AICommandBuffer;
 
-public class IdleTask extends LeafTask<CuriosityCritter> {
+public class IdleTask extends ProfiledLeafTask<CuriosityCritter> {
 
     @TaskAttribute
     public float speed;
@@ -24,26 +24,26 @@ public class IdleTask extends LeafTask<CuriosityCritter> {
     public void start() {
         elapsed = 0;
         if (getObject() instanceof CuriosityCritter) {
-            CuriosityCritter critter = (CuriosityCritter) getObject();
-            critter.setMovement(speed);
-            critter.applyForce();
+            AICommandBuffer commands = getObject().getCommands();
+            commands.setMovement(speed);
+            commands.applyForce();
         }
     }
 
     @Override
-    public Status execute() {
-        float dt = Gdx.graphics.getDeltaTime();
+    protected Status tick() {
+        float dt = GdxAI.getTimepiece().getDeltaTime();
         elapsed += dt;
 
         if (getObject() instanceof CuriosityCritter) {
-            CuriosityCritter critter = (CuriosityCritter) getObject();
-            if (!critter.getSafeToWalk()) {
+            AICommandBuffer commands = getObject().getCommands();
+            if (!getObject().getSnapshot().safeToWalk) {
                 speed = -speed;
-                critter.setMovement(speed);
-                critter.applyForce();
+                commands.setMovement(speed);
+                commands.applyForce();
             } else {
-                critter.setMovement(speed);
-                critter.applyForce();
+                commands.setMovement(speed);
+                commands.applyForce();
             }
         }
         if (elapsed > duration) {
@@ -55,9 +55,9 @@ public class IdleTask extends LeafTask<CuriosityCritter> {
     @Override
     public void end() {
         if (getObject() instanceof CuriosityCritter) {
-            CuriosityCritter critter = (CuriosityCritter) getObject();
-            critter.setMovement(0);
-            critter.applyForce();
+            AICommandBuffer commands = getObject().getCommands();
+            commands.setMovement(0);
+            commands.applyForce();
         }
     }
 
@@ -65,6 +65,7 @@ public class IdleTask extends LeafTask<CuriosityCritter> {
     protected Task<CuriosityCritter> copyTo (Task<CuriosityCritter> task) {
         IdleTask walkTask = (IdleTask) task;
         walkTask.speed = speed;
+        walkTask.duration = duration;
         return task;
     }
 
@@ -1,23 +1,34 @@
 package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.ai.btree.LeafTask;
 import com.badlogic.gdx.ai.btree.Task;
 import com.badlogic.gdx.ai.btree.annotation.TaskAttribute;
 import com.badlogic.gdx.math.Vector2;
 import edu.cornell.cis3152.physics.platform.CuriosityCritter;
 import edu.cornell.cis3152.physics.platform.Enemy;
+import edu.cornell.cis3152.physics.platform.aibehavior.AICommandBuffer;
+import edu.cornell.cis3152.physics.platform.aibehavior.EnemySnapshot;
+import edu.cornell.cis3152.physics.platform.ainav.NavGraph;
+import edu.cornell.cis3152.physics.platform.ainav.NavNode;
+import edu.cornell.cis3152.physics.platform.ainav.NavRoute;
+import edu.cornell.cis3152.physics.platform.ainav.PathService;
 
-public class MoveShardTask extends LeafTask<Enemy> {
+public class MoveShardTask extends ProfiledLeafTask<Enemy> {
 
     @TaskAttribute(required = true)
     public float tolerance;
 
-    private Vector2 pickupTarget;
-    private Vector2 dropTarget;
+    /** Walking pace while carrying a shard */
+    private static final float SPEED = 2f;
+
+    private final Vector2 pickupTarget = new Vector2();
+    private final Vector2 dropTarget = new Vector2();
     private boolean hasShard;
     private CuriosityCritter critter;
 
+    /** Route to the current target, through the level's navigation graph */
+    private final NavRoute route = new NavRoute();
+
     @Override
     public void start() {
         hasShard = false;
@@ -27,70 +38,110 @@ public class MoveShardTask extends LeafTask<Enemy> {
         }
 
         critter = (CuriosityCritter)getObject();
+        EnemySnapshot snapshot = critter.getSnapshot();
+        AICommandBuffer commands = critter.getCommands();
 
-        // finding nearest dream shard in scene
-        float bestDist = Float.MAX_VALUE;
-        for (int i = 0; i < critter.getScene().getTotalShards(); i++) {
-            Vector2 p = critter.getScene().getShardPos(i);
-            System.out.println(p);
-
-            float d = critter.getObstacle().getPosition().dst(p);
-            if (d < bestDist) {
-                bestDist = d;
-                pickupTarget = new Vector2(p);
-            }
+        // nearest dream shard in scene, found when the snapshot was taken
+        if (snapshot.hasNearestShard) {
+            pickupTarget.set(snapshot.nearestShard);
         }
-        critter.setMovement((critter.getObstacle().getX() < pickupTarget.x) ? 2f : -2f);
-        critter.applyForce();
-        critter.inMoveTask = true;
+        planRoute(snapshot, pickupTarget);
+        commands.setMovement(steer(snapshot, pickupTarget));
+        commands.applyForce();
+        commands.setInMoveTask(true);
         System.out.println("pickup target" + pickupTarget);
     }
 
     @Override
-    public Status execute() {
+    protected Status tick() {
         if (critter==null) { return Status.FAILED; }
+        // the target is somewhere the critter cannot walk to
+        if (route.isFailed()) { return Status.FAILED; }
 
-        Vector2 pos = critter.getObstacle().getPosition();
+        EnemySnapshot snapshot = critter.getSnapshot();
+        AICommandBuffer commands = critter.getCommands();
+        Vector2 pos = snapshot.position;
 
         if (!hasShard) {
 
-            if (critter.heldShard != null) {
+            if (snapshot.holdingShard) {
                 System.out.println("got shard");
                 hasShard = true;
-                dropTarget = critter.getWorldTarget(); // computed by the give function
 
-                if (dropTarget == null) {
+                // computed by the give function
+                if (!snapshot.hasDropTarget) {
                     return Status.FAILED;
                 }
+                dropTarget.set(snapshot.dropTarget);
+                planRoute(snapshot, dropTarget);
 
 
                 // reverse direction
-                critter.setMovement((critter.getObstacle().getX() < dropTarget.x) ? 2f : -2f);
-                critter.applyForce();
+                commands.setMovement(steer(snapshot, dropTarget));
+                commands.applyForce();
+            } else {
+                if (route.isLost(snapshot.navNode)) {
+                    planRoute(snapshot, pickupTarget);
+                }
+                commands.setMovement(steer(snapshot, pickupTarget));
+                commands.applyForce();
             }
             return Status.RUNNING;
         } else {
-            System.out.println("critter at " + pos);
-            critter.setMovement((pos.x < dropTarget.x) ? 2f : -2f);
-            critter.applyForce();
+            if (route.isLost(snapshot.navNode)) {
+                planRoute(snapshot, dropTarget);
+            }
+            commands.setMovement(steer(snapshot, dropTarget));
+            commands.applyForce();
             if (pos.epsilonEquals(dropTarget, tolerance)) {
-                critter.getScene().spawnShardAtLocation(dropTarget, critter.dropShard());
+                commands.dropShardAt(dropTarget);
                 return Status.SUCCEEDED;
             }
             return Status.RUNNING;
         }
     }
 
+    /**
+     * Requests a route from the critter to the target.
+     *
+     * Without a graph, or when either end is not on a platform, there is no
+     * route and the critter falls back to heading straight for the target.
+     */
+    private void planRoute(EnemySnapshot snapshot, Vector2 target) {
+        route.clear();
+        PathService paths = critter.getScene().getPathService();
+        NavGraph graph = (paths == null) ? null : paths.getGraph();
+        NavNode goal = (graph == null) ? null : graph.findNode(target.x, target.y);
+        if (goal == null || snapshot.navNode < 0) {
+            return;
+        }
+        route.request(paths, graph.getNode(snapshot.navNode), goal, target.x);
+    }
+
+    /** Returns the movement toward the target, along the route if there is one */
+    private float steer(EnemySnapshot snapshot, Vector2 target) {
+        if (route.isPending()) {
+            return 0;
+        }
+        if (route.isValid()) {
+            return route.steer(snapshot.navNode, snapshot.position.x, SPEED, tolerance);
+        }
+        return (snapshot.position.x < target.x) ? SPEED : -SPEED;
+    }
+
     @Override
     public void end() {
         // Cleanup if necessary.
-        critter.inMoveTask = false;
+        if (critter != null) {
+            critter.getCommands().setInMoveTask(false);
+        }
+        route.clear();
     }
 
     @Override
     protected Task<Enemy> copyTo(Task<Enemy> task) {
         MoveShardTask action = (MoveShardTask) task;
-        //action.relocationDuration = relocationDuration;
+        action.tolerance = tolerance;
         return task;
     }
 }
@@ -1,11 +1,10 @@
 package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
 
-import com.badlogic.gdx.ai.btree.LeafTask;
 import com.badlogic.gdx.ai.btree.Task;
-import edu.cornell.cis3152.physics.platform.CuriosityCritter;
 import edu.cornell.cis3152.physics.platform.Enemy;
+import edu.cornell.cis3152.physics.platform.aibehavior.EnemySnapshot;
 
-public class PlayerVisibleGuard extends LeafTask<Enemy> {
+public class PlayerVisibleGuard extends ProfiledLeafTask<Enemy> {
 
     @Override
     public void start() {
@@ -13,10 +12,10 @@ public class PlayerVisibleGuard extends LeafTask<Enemy> {
     }
 
     @Override
-    public Status execute() {
+    protected Status tick() {
         // Replace the following stub with your actual visibility logic.
-        CuriosityCritter c = (CuriosityCritter) getObject();
-        if(getObject().isAwareOfPlayer() || c.inMoveTask) {
+        EnemySnapshot snapshot = getObject().getSnapshot();
+        if(snapshot.awareOfPlayer || snapshot.inMoveTask) {
             return Status.SUCCEEDED;
         }
         return Status.FAILED;
@@ -0,0 +1,47 @@
+package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
+
+import com.badlogic.gdx.ai.btree.LeafTask;
+import edu.cornell.cis3152.physics.platform.Enemy;
+import edu.cornell.cis3152.physics.platform.PlatformScene;
+import edu.cornell.cis3152.physics.platform.aibehavior.AIManager;
+import edu.cornell.cis3152.physics.platform.aibehavior.BehaviorProfiler;
+
+/**
+ * Base class for every leaf task (and guard) in the enemy behavior trees.
+ *
+ * Subclasses put their logic in {@link #tick} instead of execute. When the
+ * level's {@link BehaviorProfiler} is enabled, every tick is timed and its
+ * result recorded under the task class, so the cost of each task type (and
+ * how often each guard fails) can be compared on a real level.
+ */
+public abstract class ProfiledLeafTask<E extends Enemy> extends LeafTask<E> {
+
+    @Override
+    public final Status execute() {
+        BehaviorProfiler profiler = getProfiler();
+        if (profiler == null || !profiler.isEnabled()) {
+            return tick();
+        }
+        long start = System.nanoTime();
+        Status status = tick();
+        profiler.record(getClass(), System.nanoTime() - start, status);
+        return status;
+    }
+
+    /**
+     * Runs one step of this task.
+     *
+     * This is the execute method of an ordinary leaf task.
+     *
+     * @return the status of this task after the step
+     */
+    protected abstract Status tick();
+
+    /** Returns the profiler for the level of the blackboard enemy, or null */
+    private BehaviorProfiler getProfiler() {
+        E enemy = getObject();
+        PlatformScene scene = (enemy == null) ? null : enemy.getScene();
+        AIManager manager = (scene == null) ? null : scene.getAiManager();
+        return (manager == null) ? null : manager.getProfiler();
+    }
+}
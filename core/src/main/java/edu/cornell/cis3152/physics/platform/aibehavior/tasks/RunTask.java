@@ -1,14 +1,14 @@
 package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.ai.btree.LeafTask;
+import com.badlogic.gdx.ai.GdxAI;
 import com.badlogic.gdx.ai.btree.Task;
 import com.badlogic.gdx.ai.btree.annotation.TaskAttribute;
 import edu.cornell.cis3152.physics.platform.CuriosityCritter;
 import edu.cornell.cis3152.physics.platform.Enemy;
-import edu.cornell.cis3152.physics.platform.Player;
+import edu.cornell.cis3152.physics.platform.aibehavior.AICommandBuffer;
+import edu.cornell.cis3152.physics.platform.aibehavior.EnemySnapshot;
 
-public class RunTask extends LeafTask<Enemy> {
+public class RunTask extends ProfiledLeafTask<Enemy> {
     @TaskAttribute(required = true)
     public float duration;  // Duration of the run.
 
@@ -21,33 +21,33 @@ public class RunTask extends LeafTask<Enemy> {
     public void start() {
         elapsed = 0;
         if (getObject() instanceof CuriosityCritter) {
-            CuriosityCritter critter = (CuriosityCritter) getObject();
-            critter.setMovement(runSpeed);
-            critter.applyForce();
-            critter.setInAttackAnimation(true);
+            AICommandBuffer commands = getObject().getCommands();
+            commands.setMovement(runSpeed);
+            commands.applyForce();
+            commands.setInAttackAnimation(true);
         }
     }
 
     @Override
-    public Status execute() {
-        float dt = Gdx.graphics.getDeltaTime();
+    protected Status tick() {
+        float dt = GdxAI.getTimepiece().getDeltaTime();
         elapsed += dt;
         if (getObject() instanceof CuriosityCritter) {
-            CuriosityCritter critter = (CuriosityCritter) getObject();
-            Player player = critter.getScene().getAvatar();
-            runSpeed = (player.getObstacle().getX() > critter.getObstacle().getX()) ? -runSpeed : runSpeed;
-            if (!critter.getSafeToWalk()) {
+            EnemySnapshot snapshot = getObject().getSnapshot();
+            AICommandBuffer commands = getObject().getCommands();
+            runSpeed = (snapshot.playerX > snapshot.position.x) ? -runSpeed : runSpeed;
+            if (!snapshot.safeToWalk) {
                 runSpeed = -runSpeed;
             }
-            critter.setMovement(runSpeed);
-            critter.applyForce();
+            commands.setMovement(runSpeed);
+            commands.applyForce();
         }
         return (elapsed >= duration) ? Status.SUCCEEDED : Status.RUNNING;
     }
 
     @Override
     public void end() {
-        getObject().setMovement(0);
+        getObject().getCommands().setMovement(0);
     }
 
     @Override
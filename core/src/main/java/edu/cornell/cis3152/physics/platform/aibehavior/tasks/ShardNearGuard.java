@@ -1,12 +1,11 @@
 package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
 
-import com.badlogic.gdx.ai.btree.LeafTask;
 import com.badlogic.gdx.ai.btree.Task;
 import com.badlogic.gdx.ai.btree.annotation.TaskAttribute;
 import com.badlogic.gdx.math.MathUtils;
 import edu.cornell.cis3152.physics.platform.Enemy;
 
-public class ShardNearGuard extends LeafTask<Enemy> {
+public class ShardNearGuard extends ProfiledLeafTask<Enemy> {
 
     @Override
     public void start() {
@@ -14,9 +13,8 @@ public class ShardNearGuard extends LeafTask<Enemy> {
     }
 
     @Override
-    public Status execute() {
-        Enemy enemy = getObject();
-        if(!enemy.isDreamShardNear()) {
+    protected Status tick() {
+        if(!getObject().getSnapshot().dreamShardNear) {
             return Status.FAILED;
         } else {
             return Status.SUCCEEDED;
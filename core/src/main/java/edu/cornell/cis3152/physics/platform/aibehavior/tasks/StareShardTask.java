@@ -2,7 +2,6 @@ package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.ai.GdxAI;
-import com.badlogic.gdx.ai.btree.LeafTask;
 import com.badlogic.gdx.ai.btree.Task;
 import com.badlogic.gdx.ai.btree.annotation.TaskAttribute;
 import com.badlogic.gdx.math.MathUtils;
@@ -10,8 +9,9 @@ import edu.cornell.cis3152.physics.platform.CuriosityCritter;
 import edu.cornell.cis3152.physics.platform.Enemy;
 
 import java.util.Random;
+import edu.cornell.cis3152.physics.platform.aibehavior.AICommandBuffer;
 
-public class StareShardTask extends LeafTask<Enemy> {
+public class StareShardTask extends ProfiledLeafTask<Enemy> {
     @TaskAttribute(required = true)
     public float duration;
 
@@ -24,18 +24,17 @@ public class StareShardTask extends LeafTask<Enemy> {
         elapsed = 0;
 
         if (getObject() instanceof CuriosityCritter) {
-            CuriosityCritter critter = (CuriosityCritter) getObject();
-            critter.setMovement(0);
-            critter.applyForce();
+            AICommandBuffer commands = getObject().getCommands();
+            commands.setMovement(0);
+            commands.applyForce();
         }
 
     }
 
     @Override
-    public Status execute() {
+    protected Status tick() {
         float dt = GdxAI.getTimepiece().getDeltaTime();
         elapsed += dt;
-        System.out.println("Staring at shard for: " + elapsed);
         return (elapsed >= duration) ? Status.SUCCEEDED : Status.RUNNING;
     }
 
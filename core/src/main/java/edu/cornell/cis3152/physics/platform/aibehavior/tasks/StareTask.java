@@ -2,15 +2,18 @@ package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
 
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.ai.btree.LeafTask;
 import com.badlogic.gdx.ai.btree.Task;
 import com.badlogic.gdx.ai.btree.annotation.TaskAttribute;
-import edu.cornell.cis3152.physics.platform.CuriosityCritter;
 import edu.cornell.cis3152.physics.platform.Enemy;
 import edu.cornell.cis3152.physics.platform.Player;
+import edu.cornell.cis3152.physics.platform.aibehavior.AICommandBuffer;
+import edu.cornell.cis3152.physics.platform.aibehavior.EnemySnapshot;
+import edu.cornell.cis3152.physics.platform.ainav.NavGraph;
+import edu.cornell.cis3152.physics.platform.ainav.NavRoute;
+import edu.cornell.cis3152.physics.platform.ainav.PathService;
 
 //staring and following the player, as long as in sensor range
-public class StareTask extends LeafTask<Enemy> {
+public class StareTask extends ProfiledLeafTask<Enemy> {
 
     @TaskAttribute(required = true)
     public float followSpeed;
@@ -19,35 +22,59 @@ public class StareTask extends LeafTask<Enemy> {
 
     private float elapsed;
 
+    /** How close to a waypoint counts as reached */
+    private static final float ROUTE_TOLERANCE = 0.25f;
+
+    /** Route to the player when they are on another platform */
+    private final NavRoute route = new NavRoute();
+    /** Span the route leads to, or -1 if there is no route */
+    private int routeTarget = -1;
+
     @Override
     public void start() {
         elapsed = 0;
-        CuriosityCritter critter = (CuriosityCritter) getObject();
-        critter.setInAttackAnimation(true);
+        routeTarget = -1;
+        route.clear();
+        getObject().getCommands().setInAttackAnimation(true);
     }
 
     @Override
-    public Status execute() {
-        CuriosityCritter critter = (CuriosityCritter) getObject();
+    protected Status tick() {
+        EnemySnapshot snapshot = getObject().getSnapshot();
 
         // Check if the player is still in follow range.
-        if (!critter.playerInFollowRange) {
+        if (!snapshot.playerInFollowRange) {
             return Status.SUCCEEDED;
         }
 
-        float critterX = critter.getObstacle().getX();
-        float playerX = critter.getScene().getAvatar().getObstacle().getX();
+        float critterX = snapshot.position.x;
+        float playerX = snapshot.playerX;
 
-        float movement = Math.abs(playerX - critterX) > 1.5 ? playerX > critterX ? followSpeed : -followSpeed : 0;
-        critter.setMovement(movement);
-        critter.applyForce();
+        float movement;
+        PathService paths = getObject().getScene().getPathService();
+        if (paths != null && snapshot.navNode >= 0 && snapshot.playerNode >= 0
+            && snapshot.navNode != snapshot.playerNode) {
+            // The player is on another platform, so follow a real route there
+            if (routeTarget != snapshot.playerNode || route.isLost(snapshot.navNode)) {
+                routeTarget = snapshot.playerNode;
+                NavGraph graph = paths.getGraph();
+                route.request(paths, graph.getNode(snapshot.navNode), graph.getNode(snapshot.playerNode), playerX);
+            }
+            movement = route.steer(snapshot.navNode, critterX, followSpeed, ROUTE_TOLERANCE);
+        } else {
+            routeTarget = -1;
+            movement = Math.abs(playerX - critterX) > 1.5 ? playerX > critterX ? followSpeed : -followSpeed : 0;
+        }
+        AICommandBuffer commands = getObject().getCommands();
+        commands.setMovement(movement);
+        commands.applyForce();
 
         return Status.RUNNING;
     }
 
     @Override
     public void end() {
-        getObject().setMovement(0);
+        getObject().getCommands().setMovement(0);
     }
 
     @Override
@@ -1,13 +1,13 @@
 package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
 
 import com.badlogic.gdx.ai.GdxAI;
-import com.badlogic.gdx.ai.btree.LeafTask;
 import com.badlogic.gdx.ai.btree.Task;
 import com.badlogic.gdx.ai.btree.annotation.TaskAttribute;
 import edu.cornell.cis3152.physics.platform.CuriosityCritter;
 import edu.cornell.cis3152.physics.platform.Enemy;
+import edu.cornell.cis3152.physics.platform.aibehavior.AICommandBuffer;
 
-public class StunnedActionTask extends LeafTask<Enemy> {
+public class StunnedActionTask extends ProfiledLeafTask<Enemy> {
     @TaskAttribute(required = true)
     public float stunDuration;
 
@@ -18,37 +18,36 @@ public class StunnedActionTask extends LeafTask<Enemy> {
         elapsed = 0f;
 
         if (getObject() instanceof CuriosityCritter) {
-            CuriosityCritter c = (CuriosityCritter) getObject();
-
-            if (!c.isStunned()) {
-                c.setStunned(true);
-                c.setMovement(0);
-                c.applyForce();
+            if (!getObject().getSnapshot().stunned) {
+                AICommandBuffer commands = getObject().getCommands();
+                commands.setStunned(true);
+                commands.setMovement(0);
+                commands.applyForce();
             }
         }
     }
 
     @Override
-    public Status execute() {
+    protected Status tick() {
         if (!(getObject() instanceof CuriosityCritter)) {
             return Status.SUCCEEDED;
         }
 
-        CuriosityCritter c = (CuriosityCritter) getObject();
+        AICommandBuffer commands = getObject().getCommands();
 
-        if (!c.isStunned()) {
+        if (!getObject().getSnapshot().stunned) {
             return Status.SUCCEEDED;
         }
 
-        c.setMovement(0);
-        c.applyForce();
+        commands.setMovement(0);
+        commands.applyForce();
 
         float dt = GdxAI.getTimepiece().getDeltaTime();
         elapsed += dt;
 
         if (elapsed >= stunDuration) {
-            c.setStunned(false);
-            c.setActiveTexture(c.getScene().getAiManager().directory); // 恢复贴图
+            commands.setStunned(false);
+            commands.restoreActiveTexture(); // 恢复贴图
             System.out.println("stun ended");
             return Status.SUCCEEDED;
         }
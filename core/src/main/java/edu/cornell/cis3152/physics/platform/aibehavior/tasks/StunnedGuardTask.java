@@ -1,26 +1,20 @@
 package edu.cornell.cis3152.physics.platform.aibehavior.tasks;
 
-import com.badlogic.gdx.ai.btree.LeafTask;
 import com.badlogic.gdx.ai.btree.Task;
 import edu.cornell.cis3152.physics.platform.CuriosityCritter;
 import edu.cornell.cis3152.physics.platform.DreamDweller;
 import edu.cornell.cis3152.physics.platform.Enemy;
 
-public class StunnedGuardTask extends LeafTask<Enemy> {
+public class StunnedGuardTask extends ProfiledLeafTask<Enemy> {
     @Override
     public void start(){
 
     }
 
     @Override
-    public Status execute() {
-        if (getObject() instanceof CuriosityCritter) {
-            CuriosityCritter c = (CuriosityCritter) getObject();
-            return c.isStunned() ? Status.SUCCEEDED : Status.FAILED;
-        }
-        else if(getObject() instanceof DreamDweller){
-            DreamDweller d = (DreamDweller) getObject();
-            return d.isStunned() ? Status.SUCCEEDED :Status.FAILED;
+    protected Status tick() {
+        if (getObject() instanceof CuriosityCritter || getObject() instanceof DreamDweller) {
+            return getObject().getSnapshot().stunned ? Status.SUCCEEDED : Status.FAILED;
         }
         return Status.FAILED;
     }
@@ -0,0 +1,72 @@
+package edu.cornell.cis3152.physics.platform.aifsm;
+
+import edu.cornell.cis3152.physics.platform.DreamDweller;
+
+/**
+ * Senses and acts for the dream dweller state machine.
+ *
+ * See assets/behaviors/dweller.fsm.json for the states and transitions.
+ */
+public class DwellerAdapter implements FSMAdapter<DreamDweller> {
+    // Conditions
+    private static final int STUNNED = 0;
+    private static final int SEES_PLAYER = 1;
+    private static final String[] CONDITIONS = {
+        "stunned", "seesPlayer"
+    };
+
+    // Actions
+    private static final int STOP = 0;
+    private static final int FREEZE = 1;
+    private static final int AIM = 2;
+    private static final int RECOVER = 3;
+    private static final String[] ACTIONS = {
+        "stop", "freeze", "aim", "recover"
+    };
+
+    @Override
+    public String[] getConditions() {
+        return CONDITIONS;
+    }
+
+    @Override
+    public String[] getActions() {
+        return ACTIONS;
+    }
+
+    @Override
+    public int sense(DreamDweller dweller) {
+        int result = 0;
+        if (dweller.isStunned()) {
+            result |= 1 << STUNNED;
+        }
+        if (dweller.isAwareOfPlayer()) {
+            result |= 1 << SEES_PLAYER;
+        }
+        return result;
+    }
+
+    @Override
+    public void perform(int action, DreamDweller dweller, FSMGroup<DreamDweller> group, int slot) {
+        switch (action) {
+            case STOP:
+                dweller.setMovement(0);
+                dweller.applyForce();
+                break;
+            case FREEZE:
+                dweller.setMovement(0);
+                dweller.applyForce();
+                dweller.getObstacle().setVX(0);
+                break;
+            case AIM:
+                if (dweller.getScene().getAvatar() != null) {
+                    dweller.setShooting(dweller.isAwareOfPlayer());
+                }
+                break;
+            case RECOVER:
+                dweller.setActiveTexture();
+                dweller.setStunned(false);
+                break;
+        }
+    }
+}
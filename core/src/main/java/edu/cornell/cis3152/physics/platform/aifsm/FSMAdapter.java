@@ -0,0 +1,41 @@
+package edu.cornell.cis3152.physics.platform.aifsm;
+
+/**
+ * Connects an {@link FSMTable} to one kind of enemy.
+ *
+ * The table only knows conditions and actions by name. The adapter gives each
+ * name an index, senses the conditions as a bitmask, and performs the actions.
+ * Adding a new enemy type to the FSM engine means writing one adapter and one
+ * table file.
+ */
+public interface FSMAdapter<E> {
+    /**
+     * Returns the condition names, where name i is bit i of {@link #sense}.
+     *
+     * There can be at most 31 conditions, as the top bit is reserved for
+     * {@link FSMTable#TIMEOUT}.
+     */
+    String[] getConditions();
+
+    /** Returns the action names, where name i is action i of {@link #perform} */
+    String[] getActions();
+
+    /**
+     * Returns the conditions that currently hold for the enemy
+     *
+     * @param enemy The enemy to sense
+     *
+     * @return the bitmask of conditions that hold
+     */
+    int sense(E enemy);
+
+    /**
+     * Performs an action on the enemy
+     *
+     * @param action    The action index
+     * @param enemy     The enemy to act on
+     * @param group     The group holding the enemy's state
+     * @param slot      The enemy's slot in the group
+     */
+    void perform(int action, E enemy, FSMGroup<E> group, int slot);
+}
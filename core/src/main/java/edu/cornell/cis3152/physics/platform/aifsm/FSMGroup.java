@@ -0,0 +1,198 @@
+package edu.cornell.cis3152.physics.platform.aifsm;
+
+import java.util.Arrays;
+
+/**
+ * Every enemy of one kind, run by a single {@link FSMTable}.
+ *
+ * State is kept in parallel primitive arrays indexed by slot, so a frame is a
+ * tight loop over the group with no per-enemy objects or type checks. Removing
+ * an enemy moves the last one into its slot.
+ */
+public class FSMGroup<E> {
+    /** Starting capacity of the slot arrays */
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final FSMTable table;
+    private final FSMAdapter<E> adapter;
+
+    private Object[] enemies;
+    /** Current state of each slot */
+    private int[] state;
+    /** Seconds spent in the current state */
+    private float[] timer;
+    /** Seconds the current state lasts */
+    private float[] duration;
+    /** Facing of each slot: 1 for right, -1 for left */
+    private int[] direction;
+    private int size;
+
+    /**
+     * Creates an empty group
+     *
+     * @param table     The states and transitions for this kind
+     * @param adapter   The adapter that senses and acts for this kind
+     */
+    public FSMGroup(FSMTable table, FSMAdapter<E> adapter) {
+        this.table = table;
+        this.adapter = adapter;
+        enemies = new Object[INITIAL_CAPACITY];
+        state = new int[INITIAL_CAPACITY];
+        timer = new float[INITIAL_CAPACITY];
+        duration = new float[INITIAL_CAPACITY];
+        direction = new int[INITIAL_CAPACITY];
+    }
+
+    /** Returns the number of enemies in the group */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds an enemy in the table's initial state, facing right
+     *
+     * @param enemy The enemy to add
+     *
+     * @return the slot of the enemy
+     */
+    public int add(E enemy) {
+        if (size == enemies.length) {
+            grow(size * 2);
+        }
+        int slot = size++;
+        enemies[slot] = enemy;
+        state[slot] = table.getInitial();
+        timer[slot] = 0;
+        duration[slot] = table.getDuration(state[slot]);
+        direction[slot] = 1;
+        return slot;
+    }
+
+    /**
+     * Removes an enemy from the group
+     *
+     * @param enemy The enemy to remove
+     *
+     * @return true if the enemy was in the group
+     */
+    public boolean remove(Object enemy) {
+        for (int i = 0; i < size; i++) {
+            if (enemies[i] == enemy) {
+                int last = --size;
+                enemies[i] = enemies[last];
+                state[i] = state[last];
+                timer[i] = timer[last];
+                duration[i] = duration[last];
+                direction[i] = direction[last];
+                enemies[last] = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the slot of an enemy
+     *
+     * @param enemy The enemy to look for
+     *
+     * @return the slot of the enemy, or -1 if it is not in the group
+     */
+    public int indexOf(Object enemy) {
+        for (int i = 0; i < size; i++) {
+            if (enemies[i] == enemy) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the current state of a slot */
+    public int getState(int slot) {
+        return state[slot];
+    }
+
+    /** Returns the name of the current state of a slot */
+    public String getStateName(int slot) {
+        return table.getStateName(state[slot]);
+    }
+
+    /** Returns the seconds a slot has spent in its current state */
+    public float getTimer(int slot) {
+        return timer[slot];
+    }
+
+    /**
+     * Puts a slot back into a saved state, without running enter actions
+     *
+     * @param slot      The slot to restore
+     * @param next      The saved state
+     * @param time      The saved seconds spent in that state
+     * @param facing    The saved facing: 1 for right, -1 for left
+     */
+    public void restore(int slot, int next, float time, int facing) {
+        state[slot] = next;
+        timer[slot] = time;
+        duration[slot] = table.getDuration(next);
+        direction[slot] = facing;
+    }
+
+    /** Returns the facing of a slot: 1 for right, -1 for left */
+    public int getDirection(int slot) {
+        return direction[slot];
+    }
+
+    /** Sets the facing of a slot: 1 for right, -1 for left */
+    public void setDirection(int slot, int value) {
+        direction[slot] = value;
+    }
+
+    /**
+     * Advances every enemy in the group by one frame.
+     *
+     * For each slot, the first transition whose conditions hold runs its
+     * actions and enters its target, and then the state's update actions run.
+     *
+     * @param dt    Number of seconds since last animation frame
+     */
+    @SuppressWarnings("unchecked")
+    public void update(float dt) {
+        for (int i = 0; i < size; i++) {
+            E enemy = (E) enemies[i];
+            timer[i] += dt;
+
+            int conditions = adapter.sense(enemy);
+            if (timer[i] > duration[i]) {
+                conditions |= FSMTable.TIMEOUT;
+            }
+
+            int t = table.findTransition(state[i], conditions);
+            if (t >= 0) {
+                perform(table.getActions(t), enemy, i);
+                enter(i, table.getTarget(t), enemy);
+            }
+            perform(table.getUpdateActions(state[i]), enemy, i);
+        }
+    }
+
+    private void enter(int slot, int next, E enemy) {
+        state[slot] = next;
+        timer[slot] = 0;
+        duration[slot] = table.getDuration(next);
+        perform(table.getEnterActions(next), enemy, slot);
+    }
+
+    private void perform(int[] actions, E enemy, int slot) {
+        for (int j = 0; j < actions.length; j++) {
+            adapter.perform(actions[j], enemy, this, slot);
+        }
+    }
+
+    private void grow(int capacity) {
+        enemies = Arrays.copyOf(enemies, capacity);
+        state = Arrays.copyOf(state, capacity);
+        timer = Arrays.copyOf(timer, capacity);
+        duration = Arrays.copyOf(duration, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+    }
+}
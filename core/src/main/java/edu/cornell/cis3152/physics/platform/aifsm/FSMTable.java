@@ -0,0 +1,259 @@
+package edu.cornell.cis3152.physics.platform.aifsm;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.util.Arrays;
+
+/**
+ * Compiled states and transitions for one kind of enemy.
+ *
+ * Tables are declared in JSON (see assets/behaviors/*.fsm.json). Each state has
+ * a name, a duration, and actions to run on entering it and on every frame.
+ * Each transition has the states it leaves from, the conditions that must hold
+ * (a leading ! negates one), actions to run, and the state it goes to. The
+ * condition "timeout" holds once a state has run longer than its duration.
+ *
+ * On load, every name is resolved to an index and every transition is sorted
+ * into the states it leaves from, so evaluating a frame is only array lookups
+ * and mask tests.
+ */
+public class FSMTable {
+    /** Condition bit that holds once the state has run past its duration */
+    public static final int TIMEOUT = 1 << 31;
+    /** Name of the timeout condition in table files */
+    private static final String TIMEOUT_NAME = "timeout";
+
+    /** Tables shared by every manager, keyed by file path */
+    private static final ObjectMap<String, FSMTable> tables = new ObjectMap<>();
+
+    /** State names, for debugging */
+    private final String[] names;
+    /** The state every enemy starts in */
+    private final int initial;
+    /** How long each state lasts before it times out */
+    private final float[] durations;
+    /** Actions when entering each state */
+    private final int[][] enter;
+    /** Actions on every frame of each state */
+    private final int[][] update;
+
+    /** Transitions leaving each state are at [offsets[s], offsets[s+1]) of order */
+    private final int[] offsets;
+    private final int[] order;
+    /** Conditions that must hold for each transition */
+    private final int[] require;
+    /** Conditions that must not hold for each transition */
+    private final int[] forbid;
+    /** Target state of each transition */
+    private final int[] target;
+    /** Actions of each transition */
+    private final int[][] actions;
+
+    /**
+     * Returns the table in the given file, compiling it on first use
+     *
+     * @param file      The table file
+     * @param adapter   The adapter that names the conditions and actions
+     */
+    public static FSMTable load(FileHandle file, FSMAdapter<?> adapter) {
+        String key = file.path();
+        FSMTable table = tables.get(key);
+        if (table == null) {
+            table = new FSMTable(new JsonReader().parse(file), adapter);
+            tables.put(key, table);
+        }
+        return table;
+    }
+
+    /** Drops every cached table so the next load recompiles its file */
+    public static void clearTables() {
+        tables.clear();
+    }
+
+    /**
+     * Compiles a table from its JSON declaration
+     *
+     * @param json      The table declaration
+     * @param adapter   The adapter that names the conditions and actions
+     */
+    public FSMTable(JsonValue json, FSMAdapter<?> adapter) {
+        ObjectMap<String, Integer> conditions = index(adapter.getConditions());
+        ObjectMap<String, Integer> verbs = index(adapter.getActions());
+
+        JsonValue states = json.get("states");
+        int count = states.size;
+        names = new String[count];
+        durations = new float[count];
+        enter = new int[count][];
+        update = new int[count][];
+        ObjectMap<String, Integer> ids = new ObjectMap<>();
+        int s = 0;
+        for (JsonValue state = states.child; state != null; state = state.next, s++) {
+            names[s] = state.getString("name");
+            durations[s] = state.getFloat("duration", 0);
+            enter[s] = resolve(state.get("enter"), verbs);
+            update[s] = resolve(state.get("update"), verbs);
+            ids.put(names[s], s);
+        }
+        initial = lookup(ids, json.getString("initial", names[0]));
+
+        JsonValue transitions = json.get("transitions");
+        int total = (transitions == null) ? 0 : transitions.size;
+        require = new int[total];
+        forbid = new int[total];
+        target = new int[total];
+        actions = new int[total][];
+        Array<IntArray> leaving = new Array<>(count);
+        for (int i = 0; i < count; i++) {
+            leaving.add(new IntArray());
+        }
+
+        int t = 0;
+        for (JsonValue rule = (transitions == null) ? null : transitions.child; rule != null; rule = rule.next, t++) {
+            target[t] = lookup(ids, rule.getString("to"));
+            actions[t] = resolve(rule.get("do"), verbs);
+            JsonValue when = rule.get("when");
+            if (when != null) {
+                for (String name : when.asStringArray()) {
+                    boolean negate = name.startsWith("!");
+                    if (negate) {
+                        name = name.substring(1);
+                    }
+                    int bit = name.equals(TIMEOUT_NAME) ? TIMEOUT : 1 << lookup(conditions, name);
+                    if (negate) {
+                        forbid[t] |= bit;
+                    } else {
+                        require[t] |= bit;
+                    }
+                }
+            }
+
+            boolean[] from = new boolean[count];
+            JsonValue source = rule.get("from");
+            if (source == null || (source.isString() && source.asString().equals("*"))) {
+                Arrays.fill(from, true);
+            } else if (source.isString()) {
+                from[lookup(ids, source.asString())] = true;
+            } else {
+                for (String name : source.asStringArray()) {
+                    from[lookup(ids, name)] = true;
+                }
+            }
+            JsonValue except = rule.get("except");
+            if (except != null) {
+                for (String name : except.asStringArray()) {
+                    from[lookup(ids, name)] = false;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                if (from[i]) {
+                    leaving.get(i).add(t);
+                }
+            }
+        }
+
+        offsets = new int[count + 1];
+        order = new int[Math.max(1, total * count)];
+        int k = 0;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = k;
+            IntArray list = leaving.get(i);
+            for (int j = 0; j < list.size; j++) {
+                order[k++] = list.get(j);
+            }
+        }
+        offsets[count] = k;
+    }
+
+    /** Returns the number of states */
+    public int getStateCount() {
+        return names.length;
+    }
+
+    /** Returns the name of a state */
+    public String getStateName(int state) {
+        return names[state];
+    }
+
+    /** Returns the state every enemy starts in */
+    public int getInitial() {
+        return initial;
+    }
+
+    /** Returns how long a state lasts before it times out */
+    public float getDuration(int state) {
+        return durations[state];
+    }
+
+    /** Returns the actions when entering a state */
+    public int[] getEnterActions(int state) {
+        return enter[state];
+    }
+
+    /** Returns the actions on every frame of a state */
+    public int[] getUpdateActions(int state) {
+        return update[state];
+    }
+
+    /** Returns the target state of a transition */
+    public int getTarget(int transition) {
+        return target[transition];
+    }
+
+    /** Returns the actions of a transition */
+    public int[] getActions(int transition) {
+        return actions[transition];
+    }
+
+    /**
+     * Returns the first transition out of the state that the conditions allow
+     *
+     * @param state         The current state
+     * @param conditions    The conditions that hold
+     *
+     * @return the transition index, or -1 if the state should not change
+     */
+    public int findTransition(int state, int conditions) {
+        for (int i = offsets[state]; i < offsets[state + 1]; i++) {
+            int t = order[i];
+            if ((conditions & require[t]) == require[t] && (conditions & forbid[t]) == 0) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    private static ObjectMap<String, Integer> index(String[] names) {
+        ObjectMap<String, Integer> result = new ObjectMap<>();
+        for (int i = 0; i < names.length; i++) {
+            result.put(names[i], i);
+        }
+        return result;
+    }
+
+    private static int lookup(ObjectMap<String, Integer> ids, String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            throw new GdxRuntimeException("Unknown name in FSM table: " + name);
+        }
+        return id;
+    }
+
+    private static int[] resolve(JsonValue list, ObjectMap<String, Integer> verbs) {
+        if (list == null) {
+            return new int[0];
+        }
+        String[] names = list.isString() ? new String[] {list.asString()} : list.asStringArray();
+        int[] result = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = lookup(verbs, names[i]);
+        }
+        return result;
+    }
+}
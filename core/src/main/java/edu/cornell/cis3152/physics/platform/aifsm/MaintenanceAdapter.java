@@ -0,0 +1,136 @@
+package edu.cornell.cis3152.physics.platform.aifsm;
+
+import edu.cornell.cis3152.physics.platform.MindMaintenance;
+
+/**
+ * Senses and acts for the mind maintenance state machine.
+ *
+ * See assets/behaviors/maintenance.fsm.json for the states and transitions.
+ */
+public class MaintenanceAdapter implements FSMAdapter<MindMaintenance> {
+    /** Walking pace, both idle and when facing a new direction */
+    private static final float WALK_SPEED = 2.0f;
+    /** Pace when chasing after an attack */
+    private static final float CHASE_SPEED = 12.0f;
+
+    // Conditions
+    private static final int STUNNED = 0;
+    private static final int SEES_PLAYER = 1;
+    private static final int SUS = 2;
+    private static final int BLOCKED = 3;
+    private static final String[] CONDITIONS = {
+        "stunned", "seesPlayer", "sus", "blocked"
+    };
+
+    // Actions
+    private static final int WALK = 0;
+    private static final int CHASE = 1;
+    private static final int STOP = 2;
+    private static final int HALT = 3;
+    private static final int FREEZE = 4;
+    private static final int FACE = 5;
+    private static final int RECOVER = 6;
+    private static final int START_TURN = 7;
+    private static final int FINISH_TURN = 8;
+    private static final int CLEAR_SUS = 9;
+    private static final int RESET_ATTACK = 10;
+    private static final int START_ATTACK = 11;
+    private static final int STOP_ATTACK = 12;
+    private static final int START_CHASE = 13;
+    private static final int STOP_CHASE = 14;
+    private static final String[] ACTIONS = {
+        "walk", "chase", "stop", "halt", "freeze", "face", "recover",
+        "startTurn", "finishTurn", "clearSus", "resetAttack",
+        "startAttack", "stopAttack", "startChase", "stopChase"
+    };
+
+    @Override
+    public String[] getConditions() {
+        return CONDITIONS;
+    }
+
+    @Override
+    public String[] getActions() {
+        return ACTIONS;
+    }
+
+    @Override
+    public int sense(MindMaintenance maintenance) {
+        int result = 0;
+        if (maintenance.isStunned()) {
+            result |= 1 << STUNNED;
+        }
+        if (maintenance.isAwareOfPlayer()) {
+            result |= 1 << SEES_PLAYER;
+        }
+        if (maintenance.isSus()) {
+            result |= 1 << SUS;
+        }
+        if (maintenance.isSeesWall() || !maintenance.isSafeToWalk()) {
+            result |= 1 << BLOCKED;
+        }
+        return result;
+    }
+
+    @Override
+    public void perform(int action, MindMaintenance maintenance, FSMGroup<MindMaintenance> group, int slot) {
+        int dir = group.getDirection(slot);
+        switch (action) {
+            case WALK:
+                // Walk in a direction, will have already known if wall is in front
+                maintenance.setMovement(dir * WALK_SPEED);
+                maintenance.applyForce();
+                break;
+            case CHASE:
+                maintenance.setMovement(dir * CHASE_SPEED);
+                maintenance.applyForce();
+                break;
+            case STOP:
+                maintenance.setMovement(0);
+                maintenance.applyForce();
+                break;
+            case HALT:
+                maintenance.setMovement(0);
+                maintenance.getObstacle().setVX(0);
+                break;
+            case FREEZE:
+                maintenance.setMovement(0);
+                break;
+            case FACE:
+                maintenance.setMovement(dir * WALK_SPEED);
+                break;
+            case RECOVER:
+                maintenance.setStunned(false);
+                break;
+            case START_TURN:
+                maintenance.setTurning(true);
+                maintenance.setSeesWall(false);
+                break;
+            case FINISH_TURN:
+                maintenance.setTurning(false);
+                maintenance.resetTurnSprite();
+                maintenance.turnShift();
+                group.setDirection(slot, -dir);
+                maintenance.setMovement(-dir * WALK_SPEED);
+                break;
+            case CLEAR_SUS:
+                maintenance.setSus(false);
+                break;
+            case RESET_ATTACK:
+                maintenance.resetAttackSprite();
+                break;
+            case START_ATTACK:
+                maintenance.setAttacking(true);
+                break;
+            case STOP_ATTACK:
+                maintenance.setAttacking(false);
+                break;
+            case START_CHASE:
+                maintenance.setChasing(true);
+                break;
+            case STOP_CHASE:
+                maintenance.setChasing(false);
+                break;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package edu.cornell.cis3152.physics.platform.ainav;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedGraph;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.objects.PolygonMapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.JsonValue;
+
+import java.util.Arrays;
+
+/**
+ * Navigation graph over the walkable platform spans of a level.
+ *
+ * The graph is built once when a level loads, from the same CollisionLayer
+ * that makes the level geometry. Every surface an enemy can stand on becomes a
+ * {@link NavNode}, and {@link NavLink}s join spans an enemy can walk, drop or
+ * jump between. Searches use gdx-ai's {@link IndexedAStarPathFinder}.
+ *
+ * For levels of normal size, the exact cost between every pair of spans is
+ * precomputed and used as the heuristic. A search then only expands spans on
+ * the best route, and a search for an unreachable span is answered without
+ * expanding anything.
+ *
+ * The graph never changes after it is built. Searches are synchronized, so
+ * behavior trees may query it from worker threads.
+ */
+public class NavGraph implements IndexedGraph<NavNode> {
+    /** Largest graph that gets an exact heuristic table (the table is n^2) */
+    private static final int MAX_TABLE_NODES = 512;
+    /** Horizontal slack when deciding whether two spans touch */
+    private static final float TOUCH_SLACK = 0.1f;
+    /** How far past an edge an enemy walks before it falls */
+    private static final float EDGE_MARGIN = 0.5f;
+    /** Steepest surface (rise over run) that counts as walkable */
+    private static final float MAX_SLOPE = 1.0f;
+
+    /** Highest ledge an enemy walks up without jumping */
+    private float stepHeight = 0.6f;
+    /** Farthest an enemy will drop off an edge */
+    private float dropHeight = 6.0f;
+    /** Highest an enemy can jump (0 disables upward jumps) */
+    private float jumpHeight = 0.0f;
+    /** Widest gap an enemy can jump (0 disables gap jumps) */
+    private float jumpGap = 0.0f;
+    /** Extra cost of a jump over walking the same distance */
+    private float jumpCost = 2.0f;
+    /** How far above a span an enemy's center can be and still be on it */
+    private float reach = 4.0f;
+
+    private final Array<NavNode> nodes;
+    /** Exact costs between spans, row major, or null if the graph is too big */
+    private float[] costs;
+
+    private final IndexedAStarPathFinder<NavNode> finder;
+    private final Heuristic<NavNode> heuristic;
+
+    /**
+     * Builds the graph for the walkable tops of a collision layer.
+     *
+     * Named rectangles (spikes and the like) are skipped. Plain rectangles
+     * contribute their top edge, and rotated rectangles and polygons contribute
+     * every upward facing edge that is not too steep.
+     *
+     * @param layer     The tiled CollisionLayer
+     * @param units     The pixels per world meter of the map
+     * @param settings  The navigation settings (may be null)
+     */
+    public static NavGraph build(MapLayer layer, float units, JsonValue settings) {
+        FloatArray spans = new FloatArray();
+        for (MapObject o : layer.getObjects()) {
+            if (o instanceof PolygonMapObject) {
+                Polygon poly = ((PolygonMapObject) o).getPolygon();
+                addPolygon(poly.getVertices(), poly.getX(), poly.getY(), units, spans);
+            } else if (o instanceof RectangleMapObject && o.getName() == null) {
+                float x = o.getProperties().get("x", Float.class) / units;
+                float y = o.getProperties().get("y", Float.class) / units;
+                float w = o.getProperties().get("width", Float.class) / units;
+                float h = o.getProperties().get("height", Float.class) / units;
+                float rotation = o.getProperties().get("rotation", 0f, Float.class);
+                addRectangle(x, y, w, h, rotation, spans);
+            }
+        }
+        return new NavGraph(spans.toArray(), settings);
+    }
+
+    /**
+     * Adds the walkable spans of a collision polygon
+     *
+     * @param local     The polygon vertices in pixels, relative to its position
+     * @param offsetX   The x position of the polygon in pixels
+     * @param offsetY   The y position of the polygon in pixels
+     * @param units     The pixels per world meter of the map
+     * @param spans     The spans as left, right, y triples
+     */
+    public static void addPolygon(float[] local, float offsetX, float offsetY, float units, FloatArray spans) {
+        float[] world = new float[local.length];
+        for (int i = 0; i < local.length; i += 2) {
+            world[i] = (local[i] + offsetX) / units;
+            world[i + 1] = (local[i + 1] + offsetY) / units;
+        }
+        addOutline(world, spans);
+    }
+
+    /**
+     * Adds the walkable spans of a (possibly rotated) platform rectangle
+     *
+     * @param x         The left edge in world units
+     * @param y         The bottom edge in world units
+     * @param w         The width in world units
+     * @param h         The height in world units
+     * @param rotation  The rotation in degrees about the center
+     * @param spans     The spans as left, right, y triples
+     */
+    public static void addRectangle(float x, float y, float w, float h, float rotation, FloatArray spans) {
+        if (rotation == 0) {
+            spans.addAll(x, x + w, y + h);
+            return;
+        }
+        // Same rotation about the center as the platform Surface
+        float angle = (float) Math.toRadians(rotation);
+        float cos = (float) Math.cos(angle);
+        float sin = (float) Math.sin(angle);
+        float cx = x + w / 2;
+        float cy = y + h / 2;
+        float[] corners = {-w / 2, -h / 2, w / 2, -h / 2, w / 2, h / 2, -w / 2, h / 2};
+        for (int i = 0; i < 8; i += 2) {
+            float dx = corners[i];
+            float dy = corners[i + 1];
+            corners[i] = cx + dx * cos - dy * sin;
+            corners[i + 1] = cy + dx * sin + dy * cos;
+        }
+        addOutline(corners, spans);
+    }
+
+    /**
+     * Adds the walkable edges of a closed outline as spans
+     *
+     * @param points    The outline as x,y pairs in world coordinates
+     * @param spans     The spans as left, right, y triples
+     */
+    private static void addOutline(float[] points, FloatArray spans) {
+        // Signed area tells us which side of each edge is outside
+        float area = 0;
+        int count = points.length / 2;
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count;
+            area += points[2 * i] * points[2 * j + 1] - points[2 * j] * points[2 * i + 1];
+        }
+        float winding = Math.signum(area);
+
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count;
+            float x0 = points[2 * i];
+            float y0 = points[2 * i + 1];
+            float x1 = points[2 * j];
+            float y1 = points[2 * j + 1];
+            float dx = x1 - x0;
+            float dy = y1 - y0;
+            // For a counterclockwise outline, edges running leftward face up
+            boolean facesUp = -dx * winding > 0;
+            if (facesUp && Math.abs(dy) <= MAX_SLOPE * Math.abs(dx)) {
+                spans.addAll(Math.min(x0, x1), Math.max(x0, x1), Math.max(y0, y1));
+            }
+        }
+    }
+
+    /**
+     * Creates a graph from a list of spans
+     *
+     * @param spans     The spans as left, right, y triples
+     * @param settings  The navigation settings (may be null)
+     */
+    public NavGraph(float[] spans, JsonValue settings) {
+        if (settings != null) {
+            stepHeight = settings.getFloat("step", stepHeight);
+            dropHeight = settings.getFloat("drop", dropHeight);
+            jumpHeight = settings.getFloat("jump-height", jumpHeight);
+            jumpGap = settings.getFloat("jump-gap", jumpGap);
+            jumpCost = settings.getFloat("jump-cost", jumpCost);
+            reach = settings.getFloat("reach", reach);
+        }
+
+        nodes = new Array<>(spans.length / 3);
+        for (int i = 0; i + 2 < spans.length; i += 3) {
+            nodes.add(new NavNode(nodes.size, spans[i], spans[i + 1], spans[i + 2]));
+        }
+        for (NavNode node : nodes) {
+            linkWalks(node);
+            linkEdge(node, node.left, -1);
+            linkEdge(node, node.right, 1);
+        }
+        if (nodes.size <= MAX_TABLE_NODES) {
+            computeCosts();
+        }
+
+        finder = new IndexedAStarPathFinder<>(this);
+        heuristic = (node, goal) -> {
+            if (costs != null) {
+                return costs[node.index * nodes.size + goal.index];
+            }
+            float dx = goal.getMidX() - node.getMidX();
+            float dy = goal.y - node.y;
+            return (float) Math.sqrt(dx * dx + dy * dy);
+        };
+    }
+
+    /** Adds walk links to every span this one touches at about the same height */
+    private void linkWalks(NavNode node) {
+        for (NavNode other : nodes) {
+            if (other == node || Math.abs(other.y - node.y) > stepHeight) {
+                continue;
+            }
+            float lo = Math.max(node.left, other.left);
+            float hi = Math.min(node.right, other.right);
+            if (lo - hi <= TOUCH_SLACK) {
+                float boundary = (lo + hi) / 2;
+                addLink(new NavLink(NavLink.Type.WALK, node, other, boundary, boundary, 0));
+            }
+        }
+    }
+
+    /**
+     * Adds a drop or jump link off one edge of a span
+     *
+     * @param node  The span
+     * @param edge  The x-coordinate of the edge
+     * @param dir   -1 for the left edge, 1 for the right edge
+     */
+    private void linkEdge(NavNode node, float edge, int dir) {
+        float past = edge + dir * EDGE_MARGIN;
+
+        // Walking on, not falling off
+        if (findSpan(past, node.y, stepHeight) != null) {
+            return;
+        }
+
+        NavNode below = findSpan(past, node.y - stepHeight, dropHeight);
+        if (below != null) {
+            addLink(new NavLink(NavLink.Type.DROP, node, below, past, past, 0));
+        }
+
+        if (jumpHeight <= 0 && jumpGap <= 0) {
+            return;
+        }
+        for (NavNode other : nodes) {
+            if (other == node) {
+                continue;
+            }
+            float rise = other.y - node.y;
+            float near = (dir > 0) ? other.left : other.right;
+            float gap = (near - edge) * dir;
+            if (gap <= TOUCH_SLACK || gap > jumpGap) {
+                continue;
+            }
+            if (rise > jumpHeight || rise < -stepHeight) {
+                continue;
+            }
+            float land = near + dir * EDGE_MARGIN;
+            addLink(new NavLink(NavLink.Type.JUMP, node, other, edge, land, jumpCost));
+        }
+    }
+
+    private void addLink(NavLink link) {
+        link.from.links.add(link);
+    }
+
+    /**
+     * Fills the table of exact costs between every pair of spans.
+     *
+     * Runs Dijkstra from every span. Unreachable pairs are infinite.
+     */
+    private void computeCosts() {
+        int n = nodes.size;
+        costs = new float[n * n];
+        Arrays.fill(costs, Float.POSITIVE_INFINITY);
+        boolean[] done = new boolean[n];
+        for (int source = 0; source < n; source++) {
+            int row = source * n;
+            Arrays.fill(done, false);
+            costs[row + source] = 0;
+            for (int step = 0; step < n; step++) {
+                int best = -1;
+                for (int i = 0; i < n; i++) {
+                    if (!done[i] && (best < 0 || costs[row + i] < costs[row + best])) {
+                        best = i;
+                    }
+                }
+                if (best < 0 || costs[row + best] == Float.POSITIVE_INFINITY) {
+                    break;
+                }
+                done[best] = true;
+                for (Connection<NavNode> link : nodes.get(best).links) {
+                    int to = link.getToNode().index;
+                    float cost = costs[row + best] + link.getCost();
+                    if (cost < costs[row + to]) {
+                        costs[row + to] = cost;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the highest span under a point within a distance, or null
+     *
+     * @param x     The x-coordinate in world coordinates
+     * @param y     The y-coordinate in world coordinates
+     * @param depth How far below the point to look
+     */
+    private NavNode findSpan(float x, float y, float depth) {
+        NavNode result = null;
+        for (NavNode node : nodes) {
+            if (node.contains(x, 0) && node.y <= y + TOUCH_SLACK && y - node.y <= depth) {
+                if (result == null || node.y > result.y) {
+                    result = node;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the span an enemy centered at this point is standing on, or null
+     *
+     * @param x     The x-coordinate in world coordinates
+     * @param y     The y-coordinate in world coordinates
+     */
+    public NavNode findNode(float x, float y) {
+        NavNode result = null;
+        for (NavNode node : nodes) {
+            if (node.contains(x, TOUCH_SLACK) && node.y <= y + TOUCH_SLACK && y - node.y <= reach) {
+                if (result == null || node.y > result.y) {
+                    result = node;
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Returns the span with the given index */
+    public NavNode getNode(int index) {
+        return nodes.get(index);
+    }
+
+    /**
+     * Returns true if there is a route between two spans.
+     *
+     * This is a table lookup when the cost table exists.
+     */
+    public boolean isReachable(NavNode start, NavNode goal) {
+        return costs == null || costs[start.index * nodes.size + goal.index] != Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Finds the cheapest route between two spans
+     *
+     * @param start The span to start on
+     * @param goal  The span to end on
+     * @param out   The path to fill with the links of the route
+     *
+     * @return true if a route was found
+     */
+    public synchronized boolean findPath(NavNode start, NavNode goal, GraphPath<Connection<NavNode>> out) {
+        out.clear();
+        if (start == null || goal == null || !isReachable(start, goal)) {
+            return false;
+        }
+        if (start == goal) {
+            return true;
+        }
+        return finder.searchConnectionPath(start, goal, heuristic, out);
+    }
+
+    @Override
+    public int getIndex(NavNode node) {
+        return node.index;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodes.size;
+    }
+
+    @Override
+    public Array<Connection<NavNode>> getConnections(NavNode fromNode) {
+        return fromNode.links;
+    }
+}
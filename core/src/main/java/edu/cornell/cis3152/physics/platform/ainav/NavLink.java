@@ -0,0 +1,64 @@
+package edu.cornell.cis3152.physics.platform.ainav;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+
+/**
+ * A way to get from one platform span to another.
+ *
+ * An enemy follows a link by moving to the launch point on the source span,
+ * after which walking (or falling, or jumping) carries it to the landing point
+ * on the target span.
+ */
+public class NavLink implements Connection<NavNode> {
+    /** How a link is traversed */
+    public enum Type {
+        /** the spans touch, so the enemy walks across */
+        WALK,
+        /** the enemy walks off an edge and falls onto the target */
+        DROP,
+        /** the enemy must jump up or across a gap */
+        JUMP
+    }
+
+    public final Type type;
+    public final NavNode from;
+    public final NavNode to;
+    /** Where the enemy leaves the source span */
+    public final float launchX;
+    /** Where the enemy arrives on the target span */
+    public final float landX;
+    private final float cost;
+
+    public NavLink(Type type, NavNode from, NavNode to, float launchX, float landX, float penalty) {
+        this.type = type;
+        this.from = from;
+        this.to = to;
+        this.launchX = launchX;
+        this.landX = landX;
+
+        // Travel from the middle of one span to the middle of the next. This is
+        // never shorter than the straight line between the two, so the distance
+        // between span middles is an admissible heuristic.
+        float dx = landX - launchX;
+        float dy = to.y - from.y;
+        this.cost = Math.abs(launchX - from.getMidX())
+            + (float)Math.sqrt(dx * dx + dy * dy)
+            + Math.abs(to.getMidX() - landX)
+            + penalty;
+    }
+
+    @Override
+    public float getCost() {
+        return cost;
+    }
+
+    @Override
+    public NavNode getFromNode() {
+        return from;
+    }
+
+    @Override
+    public NavNode getToNode() {
+        return to;
+    }
+}
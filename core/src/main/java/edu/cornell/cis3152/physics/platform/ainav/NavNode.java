@@ -0,0 +1,51 @@
+package edu.cornell.cis3152.physics.platform.ainav;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A walkable platform span: the top surface of a piece of collision geometry.
+ *
+ * Spans are horizontal, so a node is just an x-interval and a height (all in
+ * world coordinates). Enemies standing anywhere on the span are at this node.
+ */
+public class NavNode {
+    /** Index of this node in its graph */
+    public final int index;
+    /** Left end of the span */
+    public final float left;
+    /** Right end of the span */
+    public final float right;
+    /** Height of the walkable surface */
+    public final float y;
+
+    /** Links leaving this span */
+    final Array<Connection<NavNode>> links = new Array<>();
+
+    public NavNode(int index, float left, float right, float y) {
+        this.index = index;
+        this.left = left;
+        this.right = right;
+        this.y = y;
+    }
+
+    /** Returns the x-coordinate of the middle of the span */
+    public float getMidX() {
+        return (left + right) / 2;
+    }
+
+    /**
+     * Returns true if the x-coordinate is over this span
+     *
+     * @param x     The x-coordinate in world coordinates
+     * @param slack How far past either end still counts
+     */
+    public boolean contains(float x, float slack) {
+        return x >= left - slack && x <= right + slack;
+    }
+
+    @Override
+    public String toString() {
+        return "span " + index + " [" + left + ", " + right + "] @ " + y;
+    }
+}
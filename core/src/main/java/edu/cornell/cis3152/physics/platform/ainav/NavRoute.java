@@ -0,0 +1,198 @@
+package edu.cornell.cis3152.physics.platform.ainav;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+
+/**
+ * A planned route through the navigation graph, and the state of following it.
+ *
+ * Enemies only steer left or right, so following a route means walking toward
+ * the launch point of the next link until the enemy is standing on the link's
+ * target span, and then moving on to the following link.
+ *
+ * Routes are normally requested from a {@link PathService} and arrive a frame
+ * or so later. Until then the route is pending and steering holds still.
+ */
+public class NavRoute {
+    /** Shared empty route */
+    private static final NavLink[] EMPTY = new NavLink[0];
+
+    private NavLink[] links = EMPTY;
+    /** Index of the link currently being followed */
+    private int next;
+    private NavNode goal;
+    /** Where on the goal span the route ends */
+    private float goalX;
+    private boolean valid;
+    private boolean failed;
+    /** The search this route is waiting for, if any */
+    private PathRequest request;
+
+    /**
+     * Plans a new route right away, replacing the current one
+     *
+     * @param graph The navigation graph
+     * @param start The span to start on
+     * @param goal  The span to end on
+     * @param goalX Where on the goal span to stop
+     *
+     * @return true if a route was found
+     */
+    public boolean plan(NavGraph graph, NavNode start, NavNode goal, float goalX) {
+        clear();
+        this.goal = goal;
+        this.goalX = goalX;
+        DefaultGraphPath<Connection<NavNode>> path = new DefaultGraphPath<>();
+        if (graph != null && graph.findPath(start, goal, path)) {
+            links = new NavLink[path.getCount()];
+            for (int i = 0; i < links.length; i++) {
+                links[i] = (NavLink) path.get(i);
+            }
+            valid = true;
+        } else {
+            failed = true;
+        }
+        return valid;
+    }
+
+    /**
+     * Requests a new route from the path service, replacing the current one
+     *
+     * @param service   The path service
+     * @param start     The span to start on
+     * @param goal      The span to end on
+     * @param goalX     Where on the goal span to stop
+     */
+    public void request(PathService service, NavNode start, NavNode goal, float goalX) {
+        clear();
+        this.goal = goal;
+        this.goalX = goalX;
+        request = service.request(start, goal, null);
+        poll();
+    }
+
+    /** Forgets the current route, cancelling any search it waits for */
+    public void clear() {
+        if (request != null) {
+            request.cancel();
+            request = null;
+        }
+        links = EMPTY;
+        next = 0;
+        goal = null;
+        valid = false;
+        failed = false;
+    }
+
+    /** Picks up the result of the search, if it has finished */
+    private void poll() {
+        if (request != null && request.isDone()) {
+            if (request.isFound()) {
+                links = request.getLinks();
+                valid = true;
+            } else {
+                failed = true;
+            }
+            request = null;
+        }
+    }
+
+    /** Returns true if the route is still waiting for a search */
+    public boolean isPending() {
+        poll();
+        return request != null;
+    }
+
+    /** Returns true if there is a route to follow */
+    public boolean isValid() {
+        poll();
+        return valid;
+    }
+
+    /** Returns true if the search finished without finding a route */
+    public boolean isFailed() {
+        poll();
+        return failed;
+    }
+
+    /** Returns the span this route ends on */
+    public NavNode getGoal() {
+        return goal;
+    }
+
+    /** Returns the number of links left to follow */
+    public int getRemaining() {
+        return links.length - next;
+    }
+
+    /**
+     * Returns true if the enemy has left the route and it should be replanned.
+     *
+     * An enemy in the air (no span) is never lost, since it is probably
+     * dropping or jumping along the route.
+     *
+     * @param current   The index of the span the enemy is on, or -1
+     */
+    public boolean isLost(int current) {
+        if (!isValid() || current < 0) {
+            return false;
+        }
+        advance(current);
+        if (next >= links.length) {
+            return current != goal.index;
+        }
+        return current != links[next].from.index;
+    }
+
+    /**
+     * Returns the movement that takes the enemy along the route
+     *
+     * @param current   The index of the span the enemy is on, or -1
+     * @param x         The enemy x-coordinate
+     * @param speed     The movement speed
+     * @param tolerance How close to the end counts as arrived
+     *
+     * @return the signed movement, 0 once the enemy has arrived
+     */
+    public float steer(int current, float x, float speed, float tolerance) {
+        if (!isValid()) {
+            return 0;
+        }
+        advance(current);
+        float target;
+        if (next >= links.length) {
+            target = goalX;
+        } else {
+            NavLink link = links[next];
+            // Once at the launch point, keep going toward the landing
+            target = (Math.abs(link.launchX - x) > tolerance) ? link.launchX : link.landX;
+        }
+        float dx = target - x;
+        if (Math.abs(dx) <= tolerance) {
+            return 0;
+        }
+        return dx > 0 ? speed : -speed;
+    }
+
+    /** Returns true if the enemy is at the end of the route */
+    public boolean isArrived(int current, float x, float tolerance) {
+        if (!isValid()) {
+            return false;
+        }
+        advance(current);
+        return next >= links.length && Math.abs(goalX - x) <= tolerance;
+    }
+
+    /** Skips every link whose target the enemy has already reached */
+    private void advance(int current) {
+        if (current < 0) {
+            return;
+        }
+        for (int i = next; i < links.length; i++) {
+            if (links[i].to.index == current) {
+                next = i + 1;
+                return;
+            }
+        }
+    }
+}
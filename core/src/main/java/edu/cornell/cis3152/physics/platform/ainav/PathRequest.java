@@ -0,0 +1,101 @@
+package edu.cornell.cis3152.physics.platform.ainav;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Handle for a route search queued with a {@link PathService}.
+ *
+ * The requester can poll the handle, or wait for the service to hand it to a
+ * callback on the main thread. Results are shared with the service cache, so
+ * the link array must not be modified.
+ */
+public class PathRequest {
+    /** Where a request is in its life */
+    public enum Status {
+        /** waiting for (or in) a search */
+        PENDING,
+        /** a route was found */
+        FOUND,
+        /** no route joins the two spans */
+        FAILED,
+        /** the requester gave up on it */
+        CANCELLED
+    }
+
+    public final NavNode start;
+    public final NavNode goal;
+    final PathService.Callback callback;
+
+    /** Leaves PENDING once, by whichever of cancel and finish comes first */
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.PENDING);
+    /** Claimed once, by a cancel or by the delivery of the callback */
+    private final AtomicBoolean settled = new AtomicBoolean();
+    private volatile NavLink[] links;
+
+    PathRequest(NavNode start, NavNode goal, PathService.Callback callback) {
+        this.start = start;
+        this.goal = goal;
+        this.callback = callback;
+    }
+
+    /** Returns where this request is in its life */
+    public Status getStatus() {
+        return status.get();
+    }
+
+    /** Returns true once the search has finished (or was cancelled) */
+    public boolean isDone() {
+        return status.get() != Status.PENDING;
+    }
+
+    /** Returns true if a route was found */
+    public boolean isFound() {
+        return status.get() == Status.FOUND;
+    }
+
+    /** Returns the links of the route, or null if there is none */
+    public NavLink[] getLinks() {
+        return links;
+    }
+
+    /**
+     * Gives up on this request, so the service can skip the search
+     *
+     * This also works on a finished request whose callback has not been
+     * delivered yet, so a cancel that races the search never sees a callback.
+     */
+    public void cancel() {
+        if (settled.compareAndSet(false, true)) {
+            status.set(Status.CANCELLED);
+        }
+    }
+
+    /**
+     * Claims the callback for delivery
+     *
+     * @return true if the request was not cancelled first
+     */
+    boolean claim() {
+        return settled.compareAndSet(false, true);
+    }
+
+    /**
+     * Completes the request
+     *
+     * A request cancelled first stays cancelled, and its callback is not due.
+     *
+     * @param result    The links of the route, or null if there is none
+     *
+     * @return true if this completed the request
+     */
+    boolean finish(NavLink[] result) {
+        // The links are written before the status, so whoever sees FOUND sees them
+        links = result;
+        if (status.compareAndSet(Status.PENDING, (result == null) ? Status.FAILED : Status.FOUND)) {
+            return true;
+        }
+        links = null;
+        return false;
+    }
+}
@@ -0,0 +1,239 @@
+package edu.cornell.cis3152.physics.platform.ainav;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.utils.JsonValue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Queue of route searches over a {@link NavGraph}, so searches never run inline
+ * in a behavior task.
+ *
+ * Requests are answered either on a background thread or, time-sliced, on the
+ * main thread during {@link #update} within a configurable budget. Either way,
+ * callbacks are delivered on the main thread during update, and the returned
+ * {@link PathRequest} can be polled from any thread.
+ *
+ * Enemies in a level tend to head for the same few shard spots, so recent
+ * results are cached by (start span, goal span). A cache hit completes the
+ * request immediately.
+ */
+public class PathService {
+    /** Receives finished requests on the main thread */
+    public interface Callback {
+        void pathDone(PathRequest request);
+    }
+
+    /** Cached marker for a pair of spans with no route between them */
+    private static final NavLink[] NO_ROUTE = new NavLink[0];
+
+    private final NavGraph graph;
+    /** Whether searches run on the background thread */
+    private final boolean threaded;
+    /** Nanoseconds the main thread may spend searching each frame */
+    private long budget;
+
+    /** Requests waiting for a search */
+    private final LinkedBlockingQueue<PathRequest> pending = new LinkedBlockingQueue<>();
+    /** Requests with a callback waiting for delivery */
+    private final ConcurrentLinkedQueue<PathRequest> finished = new ConcurrentLinkedQueue<>();
+    /** Recent results, least recently used first */
+    private final LinkedHashMap<Long, NavLink[]> cache;
+    /** Scratch path for searches (only used by one thread at a time) */
+    private final DefaultGraphPath<Connection<NavNode>> scratch = new DefaultGraphPath<>();
+
+    private Thread worker;
+    private int hits;
+    private int misses;
+
+    /**
+     * Creates a path service for a graph
+     *
+     * @param graph     The navigation graph
+     * @param settings  The navigation settings (may be null)
+     */
+    public PathService(NavGraph graph, JsonValue settings) {
+        this.graph = graph;
+        threaded = (settings == null) || settings.getBoolean("path-threaded", true);
+        setBudget((settings == null) ? 0.5f : settings.getFloat("path-budget", 0.5f));
+        final int capacity = (settings == null) ? 64 : settings.getInt("path-cache", 64);
+        cache = new LinkedHashMap<Long, NavLink[]>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, NavLink[]> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        if (threaded) {
+            worker = new Thread(this::work, "path-service");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /** Returns the time (in milliseconds) the main thread may search each frame */
+    public float getBudget() {
+        return budget / 1000000.0f;
+    }
+
+    /**
+     * Sets the time (in milliseconds) the main thread may search each frame.
+     *
+     * This only matters when searches are time-sliced. At least one search
+     * runs every frame, whatever the budget.
+     *
+     * @param millis    The per-frame budget in milliseconds
+     */
+    public void setBudget(float millis) {
+        budget = (long)(Math.max(0, millis) * 1000000.0f);
+    }
+
+    /** Returns true if searches run on a background thread */
+    public boolean isThreaded() {
+        return threaded;
+    }
+
+    /** Returns the navigation graph this service searches */
+    public NavGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Queues a route search between two spans
+     *
+     * This may be called from any thread.
+     *
+     * @param start     The span to start on
+     * @param goal      The span to end on
+     * @param callback  Called on the main thread when done (may be null)
+     *
+     * @return the handle for the request
+     */
+    public PathRequest request(NavNode start, NavNode goal, Callback callback) {
+        PathRequest request = new PathRequest(start, goal, callback);
+        if (start == null || goal == null) {
+            complete(request, NO_ROUTE);
+            return request;
+        }
+        NavLink[] cached = lookup(start, goal, true);
+        if (cached != null) {
+            complete(request, cached);
+        } else {
+            pending.add(request);
+        }
+        return request;
+    }
+
+    /**
+     * Runs time-sliced searches and delivers callbacks.
+     *
+     * This must be called on the main thread once per frame.
+     */
+    public void update() {
+        if (!threaded) {
+            long start = System.nanoTime();
+            PathRequest request;
+            while ((request = pending.poll()) != null) {
+                solve(request);
+                if (System.nanoTime() - start >= budget) {
+                    break;
+                }
+            }
+        }
+
+        PathRequest done;
+        while ((done = finished.poll()) != null) {
+            if (done.claim()) {
+                done.callback.pathDone(done);
+            }
+        }
+    }
+
+    /**
+     * Cancels every waiting request.
+     *
+     * Cached routes are kept, since the graph has not changed. This is used
+     * when a level restarts and the enemies that asked are gone.
+     */
+    public void cancelAll() {
+        for (PathRequest request : pending) {
+            request.cancel();
+        }
+        pending.clear();
+        finished.clear();
+    }
+
+    /** Stops the background thread and drops every waiting request */
+    public void dispose() {
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+        cancelAll();
+    }
+
+    /** Returns the fraction of requests answered from the cache */
+    public synchronized float getHitRate() {
+        int total = hits + misses;
+        return (total == 0) ? 0 : hits / (float) total;
+    }
+
+    /** Body of the background thread */
+    private void work() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                solve(pending.take());
+            }
+        } catch (InterruptedException e) {
+            // Disposed
+        }
+    }
+
+    /** Searches for a request, unless it was cancelled or cached meanwhile */
+    private void solve(PathRequest request) {
+        if (request.isDone()) {
+            return;
+        }
+        NavLink[] links = lookup(request.start, request.goal, false);
+        if (links == null) {
+            if (graph.findPath(request.start, request.goal, scratch)) {
+                links = new NavLink[scratch.getCount()];
+                for (int i = 0; i < links.length; i++) {
+                    links[i] = (NavLink) scratch.get(i);
+                }
+            } else {
+                links = NO_ROUTE;
+            }
+            store(request.start, request.goal, links);
+        }
+        complete(request, links);
+    }
+
+    private void complete(PathRequest request, NavLink[] links) {
+        if (request.finish(links == NO_ROUTE ? null : links) && request.callback != null) {
+            finished.add(request);
+        }
+    }
+
+    private static long key(NavNode start, NavNode goal) {
+        return ((long) start.index << 32) | (goal.index & 0xffffffffL);
+    }
+
+    private synchronized NavLink[] lookup(NavNode start, NavNode goal, boolean count) {
+        NavLink[] result = cache.get(key(start, goal));
+        if (count && result != null) {
+            hits++;
+        } else if (count) {
+            misses++;
+        }
+        return result;
+    }
+
+    private synchronized void store(NavNode start, NavNode goal, NavLink[] links) {
+        cache.put(key(start, goal), links);
+    }
+}
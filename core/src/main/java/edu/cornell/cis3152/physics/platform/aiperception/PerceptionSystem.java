@@ -0,0 +1,316 @@
+package edu.cornell.cis3152.physics.platform.aiperception;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.Pool;
+import edu.cornell.cis3152.physics.platform.Enemy;
+import edu.cornell.cis3152.physics.platform.EnemyVisionRaycast;
+
+/**
+ * Shared senses for every enemy in a level.
+ *
+ * Instead of each enemy casting its own rays toward the player every frame, the
+ * player and gameplay events publish {@link Stimulus} objects here. Once per
+ * frame the system buckets the enemies into a uniform grid, looks up the cells
+ * each stimulus can reach, and hands the stimulus to every enemy in range that
+ * is listening for it. Only sight needs a raycast, and it is only cast for
+ * enemies whose vision range and cone already contain the stimulus.
+ *
+ * Enemies are told when a pass starts and ends, so they can update their
+ * awareness from everything they perceived in between.
+ */
+public class PerceptionSystem {
+    /** Default size of a grid cell in world units */
+    public static final float DEFAULT_CELL = 4.0f;
+
+    /** The radius and duration a kind of stimulus is published with */
+    public static class Emission {
+        /** The starting radius in world units */
+        public final float radius;
+        /** Seconds before it fades out (0 for one pass) */
+        public final float duration;
+
+        public Emission(float radius, float duration) {
+            this.radius = radius;
+            this.duration = duration;
+        }
+
+        /**
+         * Reads an emission from the perception settings
+         *
+         * Values missing from the settings (or all of them, if the settings
+         * are null) keep the given defaults.
+         *
+         * @param settings  The perception settings (may be null)
+         * @param name      The entry of this kind of stimulus
+         * @param radius    The default radius in world units
+         * @param duration  The default duration in seconds
+         */
+        public static Emission read(JsonValue settings, String name, float radius, float duration) {
+            JsonValue entry = (settings == null) ? null : settings.get(name);
+            if (entry == null) {
+                return new Emission(radius, duration);
+            }
+            return new Emission(entry.getFloat("radius", radius), entry.getFloat("duration", duration));
+        }
+    }
+
+    private final World world;
+    /** Every enemy listening for stimuli */
+    private final Array<Enemy> enemies;
+    /** Stimuli that have not faded out yet */
+    private final Array<Stimulus> active;
+    /** Stimuli published since the last pass */
+    private final Array<Stimulus> published;
+    private final Pool<Stimulus> pool;
+
+    /** Enemies in each grid cell, rebuilt every pass */
+    private final Array<Enemy>[] cells;
+    private final int cols;
+    private final int rows;
+    private final float originX;
+    private final float originY;
+    private final float cellSize;
+
+    /** Reused line of sight check */
+    private final EnemyVisionRaycast sight;
+    private final Vector2 eye = new Vector2();
+
+    /**
+     * Creates a perception system covering the given bounds
+     *
+     * Enemies outside of the bounds are still perceived; they are simply
+     * bucketed into the nearest edge cell.
+     *
+     * @param world     The physics world (for line of sight)
+     * @param bounds    The level bounds in world units
+     * @param settings  The perception settings (may be null)
+     */
+    @SuppressWarnings("unchecked")
+    public PerceptionSystem(World world, Rectangle bounds, JsonValue settings) {
+        this.world = world;
+        cellSize = (settings == null) ? DEFAULT_CELL : settings.getFloat("cell-size", DEFAULT_CELL);
+        originX = bounds.x;
+        originY = bounds.y;
+        cols = Math.max(1, MathUtils.ceil(bounds.width / cellSize));
+        rows = Math.max(1, MathUtils.ceil(bounds.height / cellSize));
+        cells = new Array[cols * rows];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new Array<>(false, 4);
+        }
+
+        enemies = new Array<>();
+        active = new Array<>(false, 16);
+        published = new Array<>(false, 16);
+        pool = new Pool<Stimulus>() {
+            @Override
+            protected Stimulus newObject() {
+                return new Stimulus();
+            }
+        };
+        sight = new EnemyVisionRaycast(EnemyVisionRaycast.VisionMode.WALL_CHECK, 0);
+    }
+
+    /**
+     * Adds an enemy to the listeners
+     *
+     * @param enemy The enemy to add
+     */
+    public void register(Enemy enemy) {
+        if (!enemies.contains(enemy, true)) {
+            enemies.add(enemy);
+        }
+    }
+
+    /**
+     * Removes an enemy from the listeners
+     *
+     * @param enemy The enemy to remove
+     */
+    public void unregister(Enemy enemy) {
+        enemies.removeValue(enemy, true);
+    }
+
+    /**
+     * Publishes a stimulus, to be resolved in the next pass
+     *
+     * @param type      The kind of stimulus
+     * @param x         The x-coordinate in world units
+     * @param y         The y-coordinate in world units
+     * @param radius    The starting radius in world units
+     * @param duration  Seconds before it fades out (0 for one pass)
+     * @param source    What caused it (may be null)
+     */
+    public void publish(Stimulus.Type type, float x, float y, float radius, float duration, Object source) {
+        Stimulus stimulus = pool.obtain();
+        stimulus.set(type, x, y, radius, duration, source);
+        published.add(stimulus);
+    }
+
+    /**
+     * Publishes a stimulus with the radius and duration of an emission
+     *
+     * @param type      The kind of stimulus
+     * @param position  The position in world units
+     * @param emission  The radius and duration to publish with
+     * @param source    What caused it (may be null)
+     */
+    public void publish(Stimulus.Type type, Vector2 position, Emission emission, Object source) {
+        publish(type, position.x, position.y, emission.radius, emission.duration, source);
+    }
+
+    /** Returns the number of stimuli still active */
+    public int getActiveCount() {
+        return active.size + published.size;
+    }
+
+    /** Forgets every stimulus (for example after a reset) */
+    public void clear() {
+        pool.freeAll(active);
+        pool.freeAll(published);
+        active.clear();
+        published.clear();
+    }
+
+    /**
+     * Resolves who perceives what this frame.
+     *
+     * @param dt    Number of seconds since last animation frame
+     */
+    public void update(float dt) {
+        active.addAll(published);
+        published.clear();
+
+        rebuild();
+        for (int i = 0; i < enemies.size; i++) {
+            Enemy enemy = enemies.get(i);
+            if (isAlive(enemy)) {
+                enemy.beginPerception();
+            }
+        }
+        for (int i = 0; i < active.size; i++) {
+            resolve(active.get(i));
+        }
+        for (int i = 0; i < enemies.size; i++) {
+            Enemy enemy = enemies.get(i);
+            if (isAlive(enemy)) {
+                enemy.endPerception();
+            }
+        }
+
+        for (int i = active.size - 1; i >= 0; i--) {
+            Stimulus stimulus = active.get(i);
+            if (stimulus.age(dt)) {
+                active.removeIndex(i);
+                pool.free(stimulus);
+            }
+        }
+    }
+
+    /** Returns true if the enemy is still in the level */
+    private static boolean isAlive(Enemy enemy) {
+        return !enemy.getObstacle().isRemoved() && enemy.getObstacle().getBody() != null;
+    }
+
+    /** Returns the column holding an x-coordinate, clamped to the grid */
+    private int column(float x) {
+        return MathUtils.clamp((int)Math.floor((x - originX) / cellSize), 0, cols - 1);
+    }
+
+    /** Returns the row holding a y-coordinate, clamped to the grid */
+    private int row(float y) {
+        return MathUtils.clamp((int)Math.floor((y - originY) / cellSize), 0, rows - 1);
+    }
+
+    /** Buckets every live enemy into the grid */
+    private void rebuild() {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i].clear();
+        }
+        for (int i = 0; i < enemies.size; i++) {
+            Enemy enemy = enemies.get(i);
+            if (isAlive(enemy)) {
+                Vector2 pos = enemy.getObstacle().getPosition();
+                cells[row(pos.y) * cols + column(pos.x)].add(enemy);
+            }
+        }
+    }
+
+    /**
+     * Hands a stimulus to every listening enemy within its reach
+     *
+     * @param stimulus  The stimulus to resolve
+     */
+    private void resolve(Stimulus stimulus) {
+        float reach = stimulus.getReach();
+        float x = stimulus.getX();
+        float y = stimulus.getY();
+        int bit = stimulus.getType().bit;
+
+        int c0 = column(x - reach), c1 = column(x + reach);
+        int r0 = row(y - reach), r1 = row(y + reach);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                Array<Enemy> cell = cells[r * cols + c];
+                for (int i = 0; i < cell.size; i++) {
+                    Enemy enemy = cell.get(i);
+                    if ((enemy.getSenses() & bit) == 0 || enemy == stimulus.getSource()) {
+                        continue;
+                    }
+                    if (stimulus.getType() == Stimulus.Type.VISIBLE) {
+                        if (canSee(enemy, stimulus, reach)) {
+                            enemy.perceive(stimulus);
+                        }
+                    } else if (enemy.getObstacle().getPosition().dst2(x, y) <= reach * reach
+                               && stimulus.notice(enemy)) {
+                        enemy.perceive(stimulus);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if the enemy has line of sight to a visible stimulus
+     *
+     * The cheap range and cone tests come first, so the raycast is only made
+     * for enemies that could actually see the stimulus.
+     *
+     * @param enemy     The enemy looking
+     * @param stimulus  The visible stimulus
+     * @param reach     The current reach of the stimulus
+     */
+    private boolean canSee(Enemy enemy, Stimulus stimulus, float reach) {
+        enemy.getEyePosition(eye);
+        float dx = stimulus.getX() - eye.x;
+        float dy = stimulus.getY() - eye.y;
+        float range = Math.min(reach, enemy.getVisionRange());
+        if (dx * dx + dy * dy > range * range) {
+            return false;
+        }
+
+        float cone = enemy.getVisionCone();
+        if (cone < 180) {
+            float forward = enemy.isFacingRight() ? 0 : MathUtils.PI;
+            float diff = MathUtils.atan2(dy, dx) - forward;
+            if (diff > MathUtils.PI) diff -= MathUtils.PI2;
+            if (diff < -MathUtils.PI) diff += MathUtils.PI2;
+            if (Math.abs(diff) > cone * MathUtils.degreesToRadians) {
+                return false;
+            }
+        }
+
+        if (dx == 0 && dy == 0) {
+            return true;
+        }
+        sight.reset();
+        world.rayCast(sight, eye, stimulus.getPosition());
+        boolean clear = (sight.getHitFixture() == null);
+        sight.reset();
+        return clear;
+    }
+}
@@ -0,0 +1,123 @@
+package edu.cornell.cis3152.physics.platform.aiperception;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.Pool;
+import edu.cornell.cis3152.physics.platform.Enemy;
+
+/**
+ * Something happening in the level that enemies may notice.
+ *
+ * A stimulus has a position and a radius, and it fades over its duration: the
+ * radius shrinks linearly until the stimulus expires. Stimuli with no duration
+ * last for exactly one perception pass, which is how continuous things (like
+ * the player being visible) are published every frame.
+ *
+ * Stimuli are pooled by the {@link PerceptionSystem}, so never keep a reference
+ * after the pass they were delivered in.
+ */
+public class Stimulus implements Pool.Poolable {
+    /** The kinds of stimuli */
+    public enum Type {
+        /** the source can be seen (needs line of sight) */
+        VISIBLE,
+        /** the source made a sound (teleport, harvest) */
+        NOISE,
+        /** a dream shard was picked up or dropped */
+        SHARD_MOVED;
+
+        /** Bit for this type in an enemy's senses mask */
+        public final int bit = 1 << ordinal();
+    }
+
+    private Type type;
+    private final Vector2 position = new Vector2();
+    private float radius;
+    private float duration;
+    private float age;
+    private Object source;
+    /** Enemies that already noticed this stimulus (unused for VISIBLE) */
+    private final ObjectSet<Enemy> perceivers = new ObjectSet<>();
+
+    /**
+     * Initializes this stimulus (called by the perception system)
+     *
+     * @param type      The kind of stimulus
+     * @param x         The x-coordinate in world units
+     * @param y         The y-coordinate in world units
+     * @param radius    The starting radius in world units
+     * @param duration  Seconds before it fades out (0 for one pass)
+     * @param source    What caused it (may be null)
+     */
+    void set(Type type, float x, float y, float radius, float duration, Object source) {
+        this.type = type;
+        this.position.set(x, y);
+        this.radius = radius;
+        this.duration = Math.max(0, duration);
+        this.source = source;
+        age = 0;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Vector2 getPosition() {
+        return position;
+    }
+
+    public float getX() {
+        return position.x;
+    }
+
+    public float getY() {
+        return position.y;
+    }
+
+    public Object getSource() {
+        return source;
+    }
+
+    /** Returns how strong this stimulus still is, from 1 (fresh) to 0 */
+    public float getStrength() {
+        return (duration == 0) ? 1 : Math.max(0, 1 - age / duration);
+    }
+
+    /** Returns the current radius, after decay */
+    public float getReach() {
+        return radius * getStrength();
+    }
+
+    /**
+     * Records that an enemy noticed this stimulus.
+     *
+     * Only lasting stimuli are remembered, so that a noise is reacted to once
+     * rather than every frame it is still audible.
+     *
+     * @param enemy The enemy that noticed it
+     *
+     * @return true if the enemy had not noticed it before
+     */
+    boolean notice(Enemy enemy) {
+        return duration == 0 || perceivers.add(enemy);
+    }
+
+    /**
+     * Ages this stimulus by a frame
+     *
+     * @param dt    Number of seconds since last animation frame
+     *
+     * @return true if the stimulus has expired
+     */
+    boolean age(float dt) {
+        age += dt;
+        return age >= duration;
+    }
+
+    @Override
+    public void reset() {
+        type = null;
+        source = null;
+        perceivers.clear();
+    }
+}
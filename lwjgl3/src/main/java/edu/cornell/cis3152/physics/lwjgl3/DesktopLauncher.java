@@ -16,6 +16,8 @@
  */
 package edu.cornell.cis3152.physics.lwjgl3;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Graphics;
 import edu.cornell.cis3152.physics.GDXRoot;
 import edu.cornell.gdiac.backend.*;
 
@@ -41,7 +43,20 @@ public class DesktopLauncher {
         if (StartupHelper.startNewJvmIfRequired()) {
             return;
         }
-        new GDXApp(new GDXRoot(), configureApplication());
+        GDXRoot root;
+        if (Boolean.getBoolean(GDXRoot.STARTUP_TRAIN) || Boolean.getBoolean(GDXRoot.ALLOC_CHECK)) {
+            // Training the class-data sharing archive (or checking allocations) needs no window on screen
+            root = new GDXRoot() {
+                @Override
+                public void create() {
+                    ((Lwjgl3Graphics) Gdx.graphics).getWindow().setVisible(false);
+                    super.create();
+                }
+            };
+        } else {
+            root = new GDXRoot();
+        }
+        new GDXApp(root, configureApplication());
     }
 
     /**
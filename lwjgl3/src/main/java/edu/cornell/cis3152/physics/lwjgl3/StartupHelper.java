@@ -116,6 +116,11 @@ public class StartupHelper {
         jvmArgs.add("-XstartOnFirstThread");
         jvmArgs.add("-D" + JVM_RESTARTED_ARG + "=true");
         jvmArgs.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        String archive = getSharedArchive();
+        if (archive != null && jvmArgs.stream().noneMatch(arg -> arg.startsWith("-XX:SharedArchiveFile"))) {
+            jvmArgs.add("-XX:SharedArchiveFile=" + archive);
+            jvmArgs.add("-Xshare:auto");
+        }
         jvmArgs.add("-cp");
         jvmArgs.add(System.getProperty("java.class.path"));
         String mainClass = System.getenv("JAVA_MAIN_CLASS_" + pid);
@@ -176,4 +181,20 @@ public class StartupHelper {
     public static boolean startNewJvmIfRequired() {
         return startNewJvmIfRequired(true);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the class-data sharing archive the build trained for this jar,
+     * or null if there is none.
+     * <p>
+     * The archive is the jar file with the extension .jsa. The start scripts
+     * pass it to the JVM already, so this is only needed when restarting.
+     */
+    private static String getSharedArchive() {
+        String classPath = System.getProperty("java.class.path");
+        if (classPath == null || !classPath.endsWith(".jar") || classPath.contains(File.pathSeparator)) {
+            return null;
+        }
+        File archive = new File(classPath.substring(0, classPath.length() - 4) + ".jsa");
+        return archive.exists() ? archive.getAbsolutePath() : null;
+    }
+}